@@ -0,0 +1,508 @@
+package org.janelia.flyem.neuprint.benchmarks;
+
+import apoc.create.Create;
+import apoc.refactor.GraphRefactoring;
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
+import org.janelia.flyem.neuprint.EmbeddedStoreImporter;
+import org.janelia.flyem.neuprint.NeuPrintMain;
+import org.janelia.flyem.neuprint.json.JsonUtils;
+import org.janelia.flyem.neuprintprocedures.analysis.AnalysisProcedures;
+import org.janelia.flyem.neuprintprocedures.functions.NeuPrintUserFunctions;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.kernel.impl.proc.Procedures;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the latency of the analysis procedures and functions against an embedded database seeded with a
+ * {@link SyntheticConnectome}, and compares it with a baseline file. Body based procedures are called for one body
+ * of each size class (by default the bodies at the 10th, 50th and 99th percentile of synapse count, each with a
+ * skeleton), and the ROI feature vectors are computed for one super level ROI. Calls run one at a time, each in its
+ * own transaction, so latencies are not affected by contention.
+ * <p>
+ * The process exits with status 1 if the p50 or p99 latency of any case is more than --maxRegressionRatio times its
+ * baseline, or if any case has no baseline. If the baseline file has no results yet (latencies depend on the machine,
+ * so they are measured on the machine that runs the check), the check is skipped with a warning before the database
+ * is seeded and the process exits with status 0. --writeBaseline replaces the baseline with the results of the run. Latencies below --noiseFloorMillis are raised to it before comparison, so that sub
+ * millisecond cases do not fail on timer noise.
+ */
+public class AnalysisBenchmark {
+
+    enum Call {
+        LINE_GRAPH("getLineGraphForNeuron",
+                "CALL analysis.getLineGraphForNeuron($bodyId, $dataset, $vertexSynapseThreshold) YIELD value RETURN value"),
+        CENTROIDS_AND_SKELETON("getConnectionCentroidsAndSkeleton",
+                "CALL analysis.getConnectionCentroidsAndSkeleton($bodyId, $dataset, $vertexSynapseThreshold) YIELD value RETURN value"),
+        CATEGORIES_OF_CONNECTIONS("getCategoriesOfConnections",
+                "RETURN neuprint.getCategoriesOfConnections($bodyId, $dataset) AS value"),
+        NEURON_CENTROID("getNeuronCentroid",
+                "RETURN neuprint.getNeuronCentroid($bodyId, $dataset) AS value"),
+        SHORTEST_PATH("getShortestPathWithMinWeight", null),
+        FEATURE_VECTORS("getInputAndOutputFeatureVectorsForNeuronsInRoi",
+                "CALL analysis.getInputAndOutputFeatureVectorsForNeuronsInRoi($roi, 0, $dataset, 0) YIELD value RETURN value");
+
+        private final String procedureName;
+        private final String query;
+
+        Call(final String procedureName,
+             final String query) {
+            this.procedureName = procedureName;
+            this.query = query;
+        }
+
+        @Override
+        public String toString() {
+            return procedureName;
+        }
+    }
+
+    @Parameters(separators = "=")
+    static class AnalysisBenchmarkParameters {
+
+        @ParametersDelegate
+        SyntheticConnectome.GeneratorParameters generator = new SyntheticConnectome.GeneratorParameters();
+
+        @Parameter(
+                names = "--workDirectory",
+                description = "Directory for the generated files and the database (omit to use a temporary directory that is deleted afterwards)")
+        String workDirectory;
+
+        @Parameter(
+                names = "--datasetLabel",
+                description = "Dataset value for all nodes")
+        String datasetLabel = "synthetic";
+
+        @Parameter(
+                names = "--bodySizes",
+                description = "Size classes of the bodies to call the body based procedures for, as name=percentile pairs separated by commas " +
+                        "(percentile of synapses per body, between 0 and 1)")
+        String bodySizes = "small=0.1,median=0.5,p99=0.99";
+
+        @Parameter(
+                names = "--roi",
+                description = "ROI to compute feature vectors for")
+        String roi = "roi0";
+
+        @Parameter(
+                names = "--vertexSynapseThreshold",
+                description = "vertexSynapseThreshold argument of the line graph and centroid procedures")
+        long vertexSynapseThreshold = 50;
+
+        @Parameter(
+                names = "--warmupIterations",
+                description = "Number of calls per case before measurement starts")
+        int warmupIterations = 5;
+
+        @Parameter(
+                names = "--iterations",
+                description = "Number of measured calls per case")
+        int iterations = 50;
+
+        @Parameter(
+                names = "--baselineFile",
+                description = "JSON file with the baseline latencies")
+        String baselineFile = "neuprint-benchmarks/baselines/analysis-latency.json";
+
+        @Parameter(
+                names = "--maxRegressionRatio",
+                description = "Largest allowed ratio of a p50 or p99 latency to its baseline")
+        double maxRegressionRatio = 1.5;
+
+        @Parameter(
+                names = "--noiseFloorMillis",
+                description = "Latencies below this value are raised to it before they are compared with the baseline")
+        double noiseFloorMillis = 1.0;
+
+        @Parameter(
+                names = "--writeBaseline",
+                description = "Replace the baseline file with the results of this run instead of comparing with it")
+        boolean writeBaseline = false;
+
+        @Parameter(
+                names = "--resultFile",
+                description = "JSON file for the results (omit to only log them)")
+        String resultFile;
+
+        @Parameter(
+                names = "--help",
+                help = true)
+        boolean help;
+    }
+
+    /**
+     * Latency distribution of one procedure called for one body size class (or ROI).
+     */
+    static class CaseResult {
+
+        private final String name;
+        private final long bodyId;
+        private final int synapseCount;
+        private final int calls;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p90Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        CaseResult(final String name,
+                   final long bodyId,
+                   final int synapseCount,
+                   final long[] latencies) {
+            final long[] sortedLatencies = latencies.clone();
+            Arrays.sort(sortedLatencies);
+            this.name = name;
+            this.bodyId = bodyId;
+            this.synapseCount = synapseCount;
+            this.calls = sortedLatencies.length;
+            this.meanMillis = Arrays.stream(sortedLatencies).average().orElse(0) / 1e6;
+            this.p50Millis = getPercentile(sortedLatencies, 0.50) / 1e6;
+            this.p90Millis = getPercentile(sortedLatencies, 0.90) / 1e6;
+            this.p99Millis = getPercentile(sortedLatencies, 0.99) / 1e6;
+            this.maxMillis = sortedLatencies.length == 0 ? 0 : sortedLatencies[sortedLatencies.length - 1] / 1e6;
+        }
+
+        private static long getPercentile(final long[] sortedValues,
+                                          final double percentile) {
+            return sortedValues.length == 0 ? 0 : sortedValues[Math.max(0, (int) Math.ceil(percentile * sortedValues.length) - 1)];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-56s %8d synapses %6d calls %10.2f ms mean %10.2f ms p50 %10.2f ms p90 %10.2f ms p99 %10.2f ms max",
+                    name, synapseCount, calls, meanMillis, p50Millis, p90Millis, p99Millis, maxMillis);
+        }
+    }
+
+    /**
+     * Contents of a baseline file: the results of a run and the dataset they were measured on.
+     */
+    static class Baseline {
+
+        private String generator;
+        private List<CaseResult> results;
+
+        Baseline(final String generator,
+                 final List<CaseResult> results) {
+            this.generator = generator;
+            this.results = results;
+        }
+    }
+
+    private final AnalysisBenchmarkParameters parameters;
+    private final SyntheticConnectome connectome;
+    private final Map<String, Integer> bodyIndexesBySize;
+
+    private GraphDatabaseService dbService;
+
+    private AnalysisBenchmark(final AnalysisBenchmarkParameters parameters) {
+        this.parameters = parameters;
+        this.connectome = new SyntheticConnectome(parameters.generator);
+        this.bodyIndexesBySize = selectBodies(connectome, parseBodySizes(parameters.bodySizes));
+    }
+
+    static Map<String, Double> parseBodySizes(final String bodySizes) {
+        final Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (final String entry : bodySizes.split(",")) {
+            final String[] nameAndPercentile = entry.trim().split("=");
+            if (nameAndPercentile.length != 2) {
+                throw new IllegalArgumentException("invalid body size entry '" + entry + "', expected name=percentile");
+            }
+            final double percentile = Double.parseDouble(nameAndPercentile[1].trim());
+            if (percentile < 0 || percentile > 1) {
+                throw new IllegalArgumentException("invalid percentile in body size entry '" + entry + "'");
+            }
+            percentiles.put(nameAndPercentile[0].trim(), percentile);
+        }
+        return percentiles;
+    }
+
+    /**
+     * @return index of the body at each percentile of synapse count (ties are broken by body index)
+     */
+    private static Map<String, Integer> selectBodies(final SyntheticConnectome connectome,
+                                                     final Map<String, Double> percentiles) {
+        final List<Integer> bodiesBySize = IntStream.range(0, connectome.getBodyCount()).boxed()
+                .sorted(Comparator.comparingInt((Integer bodyIndex) -> connectome.getSynapseCount(bodyIndex)).thenComparingInt(Integer::intValue))
+                .collect(Collectors.toList());
+        final Map<String, Integer> bodyIndexes = new LinkedHashMap<>();
+        for (final Map.Entry<String, Double> entry : percentiles.entrySet()) {
+            bodyIndexes.put(entry.getKey(), bodiesBySize.get((int) Math.round(entry.getValue() * (bodiesBySize.size() - 1))));
+        }
+        return bodyIndexes;
+    }
+
+    private void seed(final File inputDirectory,
+                      final File storeDirectory) throws IOException {
+
+        connectome.write(inputDirectory);
+
+        // the centroid procedure returns the skeleton, so every selected body gets one
+        final File skeletonDirectory = new File(inputDirectory, SyntheticConnectome.SKELETON_DIRECTORY);
+        Files.createDirectories(skeletonDirectory.toPath());
+        for (final int bodyIndex : bodyIndexesBySize.values()) {
+            connectome.writeSkeleton(new File(skeletonDirectory, SyntheticConnectome.getBodyId(bodyIndex) + ".swc"), bodyIndex);
+        }
+        final File[] swcFiles = skeletonDirectory.listFiles((dir, name) -> name.endsWith(".swc"));
+        Arrays.sort(swcFiles);
+
+        try (final EmbeddedStoreImporter importer = new EmbeddedStoreImporter(storeDirectory, parameters.datasetLabel, 1.0F, 0.0D, 0.0D, 10,
+                true, true, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))) {
+            importer.addSynapses(NeuPrintMain.readSynapsesJson(new File(inputDirectory, SyntheticConnectome.SYNAPSES_FILE).getPath()));
+            importer.addSynapticConnections(NeuPrintMain.readConnectionsJson(new File(inputDirectory, SyntheticConnectome.CONNECTIONS_FILE).getPath()));
+            importer.addNeurons(NeuPrintMain.readNeuronsJson(new File(inputDirectory, SyntheticConnectome.NEURONS_FILE).getPath()));
+            importer.addSkeletons(NeuPrintMain.readSkeletons(Arrays.asList(swcFiles)));
+            importer.addMetaInfo(NeuPrintMain.readMetaInfoJson(new File(inputDirectory, SyntheticConnectome.META_FILE).getPath()));
+        }
+    }
+
+    private void open(final File storeDirectory) throws Exception {
+        dbService = new GraphDatabaseFactory().newEmbeddedDatabase(storeDirectory);
+        // the same procedures as the analysis tests
+        final Procedures procedures = ((GraphDatabaseAPI) dbService).getDependencyResolver().resolveDependency(Procedures.class);
+        procedures.registerProcedure(AnalysisProcedures.class);
+        procedures.registerFunction(NeuPrintUserFunctions.class);
+        procedures.registerProcedure(GraphRefactoring.class);
+        procedures.registerProcedure(Create.class);
+    }
+
+    private List<CaseResult> run() {
+
+        final List<CaseResult> results = new ArrayList<>();
+        final List<String> sizes = new ArrayList<>(bodyIndexesBySize.keySet());
+
+        for (final Call call : Call.values()) {
+
+            if (call == Call.FEATURE_VECTORS) {
+                final Map<String, Object> params = new HashMap<>();
+                params.put("dataset", parameters.datasetLabel);
+                params.put("roi", parameters.roi);
+                results.add(measure(call + "/" + parameters.roi, call.query, params, 0, 0));
+                continue;
+            }
+
+            for (int i = 0; i < sizes.size(); i++) {
+                final String size = sizes.get(i);
+                final int bodyIndex = bodyIndexesBySize.get(size);
+                final long bodyId = SyntheticConnectome.getBodyId(bodyIndex);
+
+                final Map<String, Object> params = new HashMap<>();
+                params.put("dataset", parameters.datasetLabel);
+                params.put("bodyId", bodyId);
+                params.put("vertexSynapseThreshold", parameters.vertexSynapseThreshold);
+
+                String query = call.query;
+                if (call == Call.SHORTEST_PATH) {
+                    // from the body to the body of the next size class
+                    int endBodyIndex = bodyIndexesBySize.get(sizes.get((i + 1) % sizes.size()));
+                    if (endBodyIndex == bodyIndex) {
+                        endBodyIndex = (bodyIndex + 1) % connectome.getBodyCount();
+                    }
+                    params.put("endBodyId", SyntheticConnectome.getBodyId(endBodyIndex));
+                    final String segmentLabel = "`" + parameters.datasetLabel + "-Segment`";
+                    query = "MATCH (start:" + segmentLabel + "{bodyId:$bodyId}), (end:" + segmentLabel + "{bodyId:$endBodyId}) " +
+                            "CALL analysis.getShortestPathWithMinWeight(start, end, 'ConnectsTo>', 'default', 'weight', 1, 1) " +
+                            "YIELD path, weight RETURN path, weight";
+                }
+
+                results.add(measure(call + "/" + size, query, params, bodyId, connectome.getSynapseCount(bodyIndex)));
+            }
+        }
+
+        return results;
+    }
+
+    private CaseResult measure(final String name,
+                               final String query,
+                               final Map<String, Object> params,
+                               final long bodyId,
+                               final int synapseCount) {
+
+        for (int i = 0; i < parameters.warmupIterations; i++) {
+            execute(query, params);
+        }
+        final long[] latencies = new long[parameters.iterations];
+        for (int i = 0; i < latencies.length; i++) {
+            final long start = System.nanoTime();
+            execute(query, params);
+            latencies[i] = System.nanoTime() - start;
+        }
+
+        final CaseResult result = new CaseResult(name, bodyId, synapseCount, latencies);
+        LOG.info(result.toString());
+        return result;
+    }
+
+    private void execute(final String query,
+                         final Map<String, Object> params) {
+        try (final Transaction tx = dbService.beginTx();
+             final Result result = dbService.execute(query, params)) {
+            // consume every row so that lazily built results are included
+            while (result.hasNext()) {
+                result.next();
+            }
+            tx.success();
+        }
+    }
+
+    /**
+     * Logs the ratio of each result to its baseline.
+     *
+     * @return names of the cases whose p50 or p99 latency regressed beyond the allowed ratio or that have no baseline
+     */
+    static List<String> compare(final Baseline baseline,
+                                final List<CaseResult> results,
+                                final double maxRegressionRatio,
+                                final double noiseFloorMillis) {
+
+        final Map<String, CaseResult> baselineResults = new HashMap<>();
+        for (final CaseResult result : baseline.results) {
+            baselineResults.put(result.name, result);
+        }
+
+        final List<String> regressions = new ArrayList<>();
+        for (final CaseResult result : results) {
+            final CaseResult baselineResult = baselineResults.get(result.name);
+            if (baselineResult == null) {
+                LOG.error(String.format("%-56s NO BASELINE", result.name));
+                regressions.add(result.name);
+                continue;
+            }
+            final double p50Ratio = Math.max(result.p50Millis, noiseFloorMillis) / Math.max(baselineResult.p50Millis, noiseFloorMillis);
+            final double p99Ratio = Math.max(result.p99Millis, noiseFloorMillis) / Math.max(baselineResult.p99Millis, noiseFloorMillis);
+            final boolean regressed = p50Ratio > maxRegressionRatio || p99Ratio > maxRegressionRatio;
+            final String line = String.format("%-56s %6.2fx p50 (%.2f ms) %6.2fx p99 (%.2f ms)%s",
+                    result.name, p50Ratio, baselineResult.p50Millis, p99Ratio, baselineResult.p99Millis, regressed ? " REGRESSION" : "");
+            if (regressed) {
+                LOG.error(line);
+                regressions.add(result.name);
+            } else {
+                LOG.info(line);
+            }
+        }
+        return regressions;
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        final AnalysisBenchmarkParameters parameters = new AnalysisBenchmarkParameters();
+        final JCommander jCommander = new JCommander(parameters);
+        jCommander.setProgramName("java -cp benchmarks.jar " + AnalysisBenchmark.class.getName());
+
+        boolean parseFailed = true;
+        try {
+            jCommander.parse(args);
+            parseBodySizes(parameters.bodySizes);
+            parseFailed = false;
+        } catch (final ParameterException | IllegalArgumentException e) {
+            JCommander.getConsole().println("\nERROR: failed to parse command line arguments\n\n" + e.getMessage());
+        }
+
+        if (parameters.help || parseFailed) {
+            JCommander.getConsole().println("");
+            jCommander.usage();
+            System.exit(1);
+        }
+
+        final File baselineFile = new File(parameters.baselineFile);
+        Baseline baseline = null;
+        if (!parameters.writeBaseline) {
+            if (!baselineFile.isFile()) {
+                LOG.error("Baseline file " + baselineFile + " does not exist, run with --writeBaseline to create it");
+                System.exit(1);
+            }
+            try (final Reader reader = Files.newBufferedReader(baselineFile.toPath(), StandardCharsets.UTF_8)) {
+                baseline = JsonUtils.GSON.fromJson(reader, Baseline.class);
+            }
+            if (baseline == null || baseline.results == null || baseline.results.isEmpty()) {
+                LOG.warn("SKIPPED: baseline file " + baselineFile + " has no results, so there is nothing to compare with. " +
+                        "Run with --writeBaseline on the machine that runs the check to measure them");
+                return;
+            }
+            // latencies measured on a different dataset are not comparable
+            if (!parameters.generator.toString().equals(baseline.generator)) {
+                LOG.error("Baseline " + baselineFile + " was measured on a different dataset (" + baseline.generator + "), " +
+                        "run with the same generator options or with --writeBaseline");
+                System.exit(1);
+            }
+        }
+
+        final File workDirectory = parameters.workDirectory == null ?
+                Files.createTempDirectory("neuprint-analysis-benchmark").toFile() :
+                new File(parameters.workDirectory);
+        final File inputDirectory = new File(workDirectory, "input");
+        final File storeDirectory = new File(workDirectory, "graph.db");
+
+        final AnalysisBenchmark benchmark = new AnalysisBenchmark(parameters);
+        final List<CaseResult> results;
+        try {
+            LOG.info(String.format("Seeding database with %d bodies and %d synapses (%s)",
+                    benchmark.connectome.getBodyCount(), benchmark.connectome.getSynapseCount(), parameters.generator));
+            benchmark.seed(inputDirectory, storeDirectory);
+            benchmark.open(storeDirectory);
+
+            LOG.info(String.format("Running %d calls per case after %d warmup calls", parameters.iterations, parameters.warmupIterations));
+            results = benchmark.run();
+        } finally {
+            if (benchmark.dbService != null) {
+                benchmark.dbService.shutdown();
+            }
+            if (parameters.workDirectory == null) {
+                BenchmarkFiles.deleteRecursively(workDirectory);
+            }
+        }
+
+        if (parameters.resultFile != null) {
+            try (final Writer writer = Files.newBufferedWriter(new File(parameters.resultFile).toPath(), StandardCharsets.UTF_8)) {
+                JsonUtils.GSON.toJson(results, writer);
+            }
+        }
+
+        if (parameters.writeBaseline) {
+            if (baselineFile.getParentFile() != null) {
+                Files.createDirectories(baselineFile.getParentFile().toPath());
+            }
+            try (final Writer writer = Files.newBufferedWriter(baselineFile.toPath(), StandardCharsets.UTF_8)) {
+                JsonUtils.GSON.toJson(new Baseline(parameters.generator.toString(), results), writer);
+            }
+            LOG.info("Wrote baseline " + baselineFile);
+            return;
+        }
+
+        final List<String> regressions = compare(baseline, results, parameters.maxRegressionRatio, parameters.noiseFloorMillis);
+        if (!regressions.isEmpty()) {
+            LOG.error(String.format("%d of %d cases regressed by more than %.2fx or have no baseline: %s",
+                    regressions.size(), results.size(), parameters.maxRegressionRatio, regressions));
+            System.exit(1);
+        }
+        LOG.info(String.format("No case regressed by more than %.2fx", parameters.maxRegressionRatio));
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnalysisBenchmark.class);
+
+}
@@ -0,0 +1,80 @@
+package org.janelia.flyem.neuprint.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files (e.g. from runs before and after a change) and prints the ratio of the
+ * scores of every benchmark and parameter combination found in both files.
+ * <p>
+ * Usage: BenchmarkComparison &lt;baseline.json&gt; &lt;candidate.json&gt;
+ */
+public class BenchmarkComparison {
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length != 2) {
+            System.err.println("usage: BenchmarkComparison <baseline.json> <candidate.json>");
+            System.exit(1);
+        }
+
+        final Map<String, JsonObject> baseline = readScores(args[0]);
+        final Map<String, JsonObject> candidate = readScores(args[1]);
+
+        System.out.println(String.format("%-90s %14s %14s %8s", "benchmark", "baseline", "candidate", "ratio"));
+        for (final Map.Entry<String, JsonObject> entry : baseline.entrySet()) {
+            final JsonObject candidateMetric = candidate.get(entry.getKey());
+            if (candidateMetric == null) {
+                System.out.println(String.format("%-90s (not in candidate)", entry.getKey()));
+                continue;
+            }
+            final double baselineScore = entry.getValue().get("score").getAsDouble();
+            final double candidateScore = candidateMetric.get("score").getAsDouble();
+            System.out.println(String.format("%-90s %14.3f %14.3f %8.3f %s",
+                    entry.getKey(), baselineScore, candidateScore, candidateScore / baselineScore,
+                    entry.getValue().get("scoreUnit").getAsString()));
+        }
+        for (final String key : candidate.keySet()) {
+            if (!baseline.containsKey(key)) {
+                System.out.println(String.format("%-90s (not in baseline)", key));
+            }
+        }
+    }
+
+    /**
+     * @param resultFile JMH JSON result file
+     * @return primary metric of each result keyed by benchmark name, mode and parameters
+     */
+    static Map<String, JsonObject> readScores(final String resultFile) throws IOException {
+        final Map<String, JsonObject> scores = new LinkedHashMap<>();
+        try (final Reader reader = Files.newBufferedReader(Paths.get(resultFile), StandardCharsets.UTF_8)) {
+            final JsonArray results = new JsonParser().parse(reader).getAsJsonArray();
+            for (final JsonElement element : results) {
+                final JsonObject result = element.getAsJsonObject();
+                final StringBuilder key = new StringBuilder(result.get("benchmark").getAsString())
+                        .append(" (").append(result.get("mode").getAsString()).append(')');
+                if (result.has("params")) {
+                    final Map<String, String> params = new TreeMap<>();
+                    for (final Map.Entry<String, JsonElement> param : result.getAsJsonObject("params").entrySet()) {
+                        params.put(param.getKey(), param.getValue().getAsString());
+                    }
+                    key.append(' ').append(params);
+                }
+                scores.put(key.toString(), result.getAsJsonObject("primaryMetric"));
+            }
+        }
+        return scores;
+    }
+
+}
@@ -0,0 +1,187 @@
+package org.janelia.flyem.neuprint.benchmarks;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+/**
+ * Small deterministic dataset for benchmarks, written in the
+ * <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">loader JSON formats</a>.
+ * Each neuron has the same number of synapses (half of them presynaptic) at unique locations, each postsynaptic
+ * density is connected to a presynaptic density of another neuron, and each synapse is in one ROI.
+ * The same seed and sizes always produce the same JSON.
+ */
+public class BenchmarkData {
+
+    private static final long FIRST_BODY_ID = 1000;
+
+    private final int neuronCount;
+    private final int synapsesPerNeuron;
+    private final int roiCount;
+    private final long seed;
+
+    /**
+     * Class constructor.
+     *
+     * @param neuronCount       number of neurons
+     * @param synapsesPerNeuron number of synapses per neuron (at least 2)
+     * @param roiCount          number of ROIs
+     * @param seed              seed for random locations, ROIs, and connections
+     */
+    public BenchmarkData(final int neuronCount,
+                         final int synapsesPerNeuron,
+                         final int roiCount,
+                         final long seed) {
+        if (neuronCount < 2 || synapsesPerNeuron < 2 || roiCount < 1) {
+            throw new IllegalArgumentException("at least 2 neurons, 2 synapses per neuron and 1 ROI are required");
+        }
+        this.neuronCount = neuronCount;
+        this.synapsesPerNeuron = synapsesPerNeuron;
+        this.roiCount = roiCount;
+        this.seed = seed;
+    }
+
+    /**
+     * @param neuronIndex index of neuron
+     * @return body id of the neuron
+     */
+    public static long getBodyId(final int neuronIndex) {
+        return FIRST_BODY_ID + neuronIndex;
+    }
+
+    /**
+     * @return number of neurons
+     */
+    public int getNeuronCount() {
+        return neuronCount;
+    }
+
+    /**
+     * @return synapses JSON
+     */
+    public String getSynapsesJson() {
+        return write(writer -> {
+            final Random random = new Random(seed);
+            writer.beginArray();
+            for (int i = 0; i < neuronCount; i++) {
+                for (int j = 0; j < synapsesPerNeuron; j++) {
+                    writer.beginObject();
+                    writer.name("type").value(isPre(j) ? "pre" : "post");
+                    writer.name("confidence").value(random.nextInt(1000) / 1000.0);
+                    writeLocation(writer.name("location"), i, j);
+                    writer.name("rois").beginArray().value(getRoi(random)).endArray();
+                    writer.endObject();
+                }
+            }
+            writer.endArray();
+        });
+    }
+
+    /**
+     * @return connections JSON
+     */
+    public String getConnectionsJson() {
+        return write(writer -> {
+            final Random random = new Random(seed + 1);
+            writer.beginArray();
+            for (int i = 0; i < neuronCount; i++) {
+                for (int j = 1; j < synapsesPerNeuron; j += 2) {
+                    // presynaptic densities have even indexes
+                    final int preNeuron = (i + 1 + random.nextInt(neuronCount - 1)) % neuronCount;
+                    final int preSynapse = 2 * random.nextInt((synapsesPerNeuron + 1) / 2);
+                    writer.beginObject();
+                    writeLocation(writer.name("pre"), preNeuron, preSynapse);
+                    writeLocation(writer.name("post"), i, j);
+                    writer.endObject();
+                }
+            }
+            writer.endArray();
+        });
+    }
+
+    /**
+     * @return neurons JSON
+     */
+    public String getNeuronsJson() {
+        return write(writer -> {
+            final Random random = new Random(seed + 2);
+            writer.beginArray();
+            for (int i = 0; i < neuronCount; i++) {
+                writer.beginObject();
+                writer.name("id").value(getBodyId(i));
+                writer.name("status").value("Traced");
+                writer.name("name").value("neuron-" + i);
+                writer.name("type").value("type-" + (i % 10));
+                writer.name("size").value(1000000L + random.nextInt(1000000));
+                writer.name("rois").beginArray().value(getRoi(random)).endArray();
+                writer.name("soma").beginObject();
+                writeLocation(writer.name("location"), i, synapsesPerNeuron);
+                writer.name("radius").value(100.0);
+                writer.endObject();
+                writer.name("synapseSet").beginArray();
+                for (int j = 0; j < synapsesPerNeuron; j++) {
+                    writeLocation(writer, i, j);
+                }
+                writer.endArray();
+                writer.endObject();
+            }
+            writer.endArray();
+        });
+    }
+
+    /**
+     * @param nodeCount number of skeleton nodes
+     * @return swc file contents for a skeleton that branches every 10 nodes
+     */
+    public String getSwc(final int nodeCount) {
+        final Random random = new Random(seed + 3);
+        final StringBuilder swc = new StringBuilder("# benchmark skeleton\n");
+        for (int id = 1; id <= nodeCount; id++) {
+            final int parent = id == 1 ? -1 : (id % 10 == 0 ? random.nextInt(id - 1) + 1 : id - 1);
+            swc.append(id).append(" 0 ")
+                    .append(random.nextInt(10000)).append(' ')
+                    .append(random.nextInt(10000)).append(' ')
+                    .append(random.nextInt(10000)).append(' ')
+                    .append(1 + random.nextInt(50)).append(' ')
+                    .append(parent).append('\n');
+        }
+        return swc.toString();
+    }
+
+    private static boolean isPre(final int synapseIndex) {
+        return synapseIndex % 2 == 0;
+    }
+
+    private String getRoi(final Random random) {
+        return "roi" + random.nextInt(roiCount);
+    }
+
+    // locations are unique per neuron and synapse index
+    private void writeLocation(final JsonWriter writer,
+                               final int neuronIndex,
+                               final int synapseIndex) throws IOException {
+        writer.beginArray()
+                .value(100 + neuronIndex)
+                .value(100 + synapseIndex)
+                .value(100 + (neuronIndex * 31L + synapseIndex * 17L + seed) % 1000)
+                .endArray();
+    }
+
+    static String write(final JsonContent content) {
+        final StringWriter json = new StringWriter();
+        try (final JsonWriter writer = new JsonWriter(json)) {
+            content.write(writer);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return json.toString();
+    }
+
+    interface JsonContent {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+}
@@ -0,0 +1,31 @@
+package org.janelia.flyem.neuprint.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * File utilities for the benchmarks that write datasets and databases to a work directory.
+ */
+final class BenchmarkFiles {
+
+    private BenchmarkFiles() {
+    }
+
+    /**
+     * Deletes a file, or a directory and everything in it.
+     *
+     * @param file file or directory
+     * @throws IOException if a file cannot be deleted
+     */
+    static void deleteRecursively(final File file) throws IOException {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+
+}
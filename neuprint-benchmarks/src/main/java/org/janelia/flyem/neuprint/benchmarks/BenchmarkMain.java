@@ -0,0 +1,43 @@
+package org.janelia.flyem.neuprint.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Runs the neuPrint benchmarks. Accepts the usual JMH command line options (e.g. a benchmark name pattern,
+ * -p neuronCount=100 or -f 0). Unless a result file is given with -rff, results are written as JSON to
+ * benchmark-results/neuprint-benchmarks-&lt;timestamp&gt;.json so that runs can be compared with
+ * {@link BenchmarkComparison}.
+ */
+public class BenchmarkMain {
+
+    private static final String RESULTS_DIRECTORY = "benchmark-results";
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+        final ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+        if (!commandLineOptions.getResult().hasValue()) {
+            final File resultsDirectory = new File(RESULTS_DIRECTORY);
+            if (!resultsDirectory.exists() && !resultsDirectory.mkdirs()) {
+                throw new IllegalStateException("failed to create " + resultsDirectory.getAbsolutePath());
+            }
+            final String timeStamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            options.resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultsDirectory, "neuprint-benchmarks-" + timeStamp + ".json").getPath());
+        }
+
+        new Runner(options.build()).run();
+    }
+
+}
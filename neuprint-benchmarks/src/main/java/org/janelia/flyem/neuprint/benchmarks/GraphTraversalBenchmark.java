@@ -0,0 +1,150 @@
+package org.janelia.flyem.neuprint.benchmarks;
+
+import org.janelia.flyem.neuprint.EmbeddedStoreImporter;
+import org.janelia.flyem.neuprint.model.Neuron;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprintloadprocedures.GraphTraversalTools;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the {@link GraphTraversalTools} lookups used by the loading and proofreading procedures against an
+ * embedded database. The store is written offline from {@link BenchmarkData} once per trial, so each
+ * invocation only measures the lookup (index seek or relationship expansion) within a read transaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphTraversalBenchmark {
+
+    private static final String DATASET = "test";
+
+    private File storeParent;
+    private GraphDatabaseService dbService;
+    private long[] synapseLocationKeys;
+    private long[] preBodyIds;
+    private long[] postBodyIds;
+    private int neuronCount;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        final BenchmarkData data = new BenchmarkData(1000, 100, 10, 42);
+        neuronCount = data.getNeuronCount();
+
+        final List<Synapse> synapseList = Synapse.fromJson(data.getSynapsesJson());
+        final List<SynapticConnection> connectionList = SynapticConnection.fromJson(data.getConnectionsJson());
+        final List<Neuron> neuronList = Neuron.fromJson(data.getNeuronsJson());
+
+        synapseLocationKeys = synapseList.stream().mapToLong(Synapse::getLocationKey).toArray();
+        // x coordinates of benchmark synapse locations are 100 + the index of the neuron
+        preBodyIds = connectionList.stream().mapToLong(c -> BenchmarkData.getBodyId((int) (c.getPreLocation().getX() - 100))).toArray();
+        postBodyIds = connectionList.stream().mapToLong(c -> BenchmarkData.getBodyId((int) (c.getPostLocation().getX() - 100))).toArray();
+
+        storeParent = Files.createTempDirectory("neuprint-benchmark").toFile();
+        final File storeDirectory = new File(storeParent, "graph.db");
+        try (final EmbeddedStoreImporter importer =
+                     new EmbeddedStoreImporter(storeDirectory, DATASET, 1.0F, .2D, .8D, 5, true, true, LocalDateTime.now())) {
+            importer.addSynapses(synapseList);
+            importer.addSynapticConnections(connectionList);
+            importer.addNeurons(neuronList);
+        }
+
+        dbService = new GraphDatabaseFactory().newEmbeddedDatabase(storeDirectory);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dbService.shutdown();
+        try (final Stream<Path> paths = Files.walk(storeParent.toPath())) {
+            // children before their directories
+            for (final Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public Node getSegment() {
+        try (final Transaction ignored = dbService.beginTx()) {
+            return GraphTraversalTools.getSegment(dbService, BenchmarkData.getBodyId(nextIndex(neuronCount)), DATASET);
+        }
+    }
+
+    @Benchmark
+    public Node getSynapse() {
+        try (final Transaction ignored = dbService.beginTx()) {
+            return GraphTraversalTools.getSynapse(dbService, synapseLocationKeys[nextIndex(synapseLocationKeys.length)], DATASET);
+        }
+    }
+
+    @Benchmark
+    public Node getSegmentThatContainsSynapse() {
+        try (final Transaction ignored = dbService.beginTx()) {
+            final Node synapse = GraphTraversalTools.getSynapse(dbService, synapseLocationKeys[nextIndex(synapseLocationKeys.length)], DATASET);
+            return GraphTraversalTools.getSegmentThatContainsSynapse(synapse);
+        }
+    }
+
+    @Benchmark
+    public int getSynapseNodesFromSynapseSet() {
+        try (final Transaction ignored = dbService.beginTx()) {
+            final Node segment = GraphTraversalTools.getSegment(dbService, BenchmarkData.getBodyId(nextIndex(neuronCount)), DATASET);
+            final Set<Node> synapses = GraphTraversalTools.getSynapseNodesFromSynapseSet(GraphTraversalTools.getSynapseSetForNeuron(segment));
+            return synapses.size();
+        }
+    }
+
+    @Benchmark
+    public Relationship getConnectsToRelationshipBetweenSegments() {
+        final int i = nextIndex(preBodyIds.length);
+        try (final Transaction ignored = dbService.beginTx()) {
+            return GraphTraversalTools.getConnectsToRelationshipBetweenSegments(dbService, preBodyIds[i], postBodyIds[i], DATASET);
+        }
+    }
+
+    @Benchmark
+    public Node getConnectionSetNode() {
+        final int i = nextIndex(preBodyIds.length);
+        try (final Transaction ignored = dbService.beginTx()) {
+            return GraphTraversalTools.getConnectionSetNode(dbService, preBodyIds[i], postBodyIds[i], DATASET);
+        }
+    }
+
+    // steps through the inputs with a large prime stride so consecutive lookups do not hit neighbouring records
+    private int nextIndex(final int size) {
+        next = (int) ((next + 7919L) % size);
+        return next;
+    }
+
+}
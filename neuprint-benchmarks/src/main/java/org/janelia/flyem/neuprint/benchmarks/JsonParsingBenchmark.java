@@ -0,0 +1,101 @@
+package org.janelia.flyem.neuprint.benchmarks;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import org.janelia.flyem.neuprint.json.JsonUtils;
+import org.janelia.flyem.neuprint.model.Neuron;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing of synapse, connection, and neuron JSON. The streaming benchmarks read records with the
+ * model's TypeAdapters (as the loader does), while the tree benchmarks first build a {@link JsonElement} tree for
+ * the whole array and then read the records from the tree, like the JsonDeserializers used before the
+ * TypeAdapters did.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonParsingBenchmark {
+
+    @Param({"1000"})
+    public int neuronCount;
+
+    @Param({"100"})
+    public int synapsesPerNeuron;
+
+    private String synapsesJson;
+    private String connectionsJson;
+    private String neuronsJson;
+
+    @Setup
+    public void setup() {
+        final BenchmarkData data = new BenchmarkData(neuronCount, synapsesPerNeuron, 50, 42);
+        synapsesJson = data.getSynapsesJson();
+        connectionsJson = data.getConnectionsJson();
+        neuronsJson = data.getNeuronsJson();
+    }
+
+    @Benchmark
+    public List<Synapse> synapsesStreaming() {
+        return Synapse.fromJson(synapsesJson);
+    }
+
+    @Benchmark
+    public List<Synapse> synapsesTree() {
+        return fromTree(synapsesJson, SYNAPSE_LIST_TYPE);
+    }
+
+    @Benchmark
+    public List<SynapticConnection> connectionsStreaming() {
+        return SynapticConnection.fromJson(connectionsJson);
+    }
+
+    @Benchmark
+    public List<SynapticConnection> connectionsTree() {
+        return fromTree(connectionsJson, CONNECTION_LIST_TYPE);
+    }
+
+    @Benchmark
+    public List<Neuron> neuronsStreaming() {
+        return Neuron.fromJson(neuronsJson);
+    }
+
+    @Benchmark
+    public List<Neuron> neuronsTree() {
+        return fromTree(neuronsJson, NEURON_LIST_TYPE);
+    }
+
+    private static <T> List<T> fromTree(final String json,
+                                        final Type listType) {
+        final JsonElement tree = new JsonParser().parse(json);
+        return JsonUtils.GSON.fromJson(tree, listType);
+    }
+
+    private static final Type SYNAPSE_LIST_TYPE = new TypeToken<List<Synapse>>() {
+    }.getType();
+    private static final Type CONNECTION_LIST_TYPE = new TypeToken<List<SynapticConnection>>() {
+    }.getType();
+    private static final Type NEURON_LIST_TYPE = new TypeToken<List<Neuron>>() {
+    }.getType();
+
+}
@@ -0,0 +1,306 @@
+package org.janelia.flyem.neuprint.benchmarks;
+
+import apoc.convert.Json;
+import apoc.create.Create;
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
+import org.janelia.flyem.neuprint.Neo4jImporter;
+import org.janelia.flyem.neuprint.NeuPrintMain;
+import org.janelia.flyem.neuprint.SynapseNodeIds;
+import org.janelia.flyem.neuprint.connectome.ConnectomeAggregator;
+import org.janelia.flyem.neuprint.db.DbConfig;
+import org.janelia.flyem.neuprint.json.JsonUtils;
+import org.janelia.flyem.neuprintloadprocedures.procedures.LoadingProcedures;
+import org.neo4j.driver.v1.Config;
+import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.harness.ServerControls;
+import org.neo4j.harness.TestServerBuilders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generates a {@link SyntheticConnectome} and loads it through the batched {@link NeuPrintMain} load path
+ * (synapses, connections, neurons, skeletons and meta info), reporting the wall time, number of Cypher statements
+ * per second, records per second and peak heap of each stage. Unless --dbProperties is given, the data is loaded
+ * into an in-process server (as used by the tests), so the peak heap includes the database.
+ * <p>
+ * Example (about 10M synapses): --bodyCount=100000 --minSynapsesPerBody=10 --powerLawExponent=2.0
+ */
+public class LoadBenchmark {
+
+    @Parameters(separators = "=")
+    static class LoadBenchmarkParameters {
+
+        @ParametersDelegate
+        SyntheticConnectome.GeneratorParameters generator = new SyntheticConnectome.GeneratorParameters();
+
+        @Parameter(
+                names = "--workDirectory",
+                description = "Directory for the generated files and the in-process database (omit to use a temporary directory that is deleted afterwards)")
+        String workDirectory;
+
+        @Parameter(
+                names = "--dbProperties",
+                description = "Properties file of a running database to load into (omit to load into an in-process database)")
+        String dbProperties;
+
+        @Parameter(
+                names = "--datasetLabel",
+                description = "Dataset value for all nodes")
+        String datasetLabel = "synthetic";
+
+        @Parameter(
+                names = "--writerThreads",
+                description = "Number of concurrent writer sessions for the in-process database")
+        int writerThreads = 4;
+
+        @Parameter(
+                names = "--synapseBatchSize",
+                description = "Number of synapses per batch")
+        int synapseBatchSize = 100000;
+
+        @Parameter(
+                names = "--connectionBatchSize",
+                description = "Number of synaptic connections per batch")
+        int connectionBatchSize = 100000;
+
+        @Parameter(
+                names = "--neuronBatchSize",
+                description = "Number of neurons per batch")
+        int neuronBatchSize = 10000;
+
+        @Parameter(
+                names = "--skeletonBatchSize",
+                description = "Number of skeletons per batch")
+        int skeletonBatchSize = 100;
+
+        @Parameter(
+                names = "--batchQueueDepth",
+                description = "Number of batches that may be parsed ahead of the batch being written (0 to parse and write on one thread)")
+        int batchQueueDepth = 2;
+
+        @Parameter(
+                names = "--resultFile",
+                description = "JSON file for the stage results (omit to only log them)")
+        String resultFile;
+
+        @Parameter(
+                names = "--help",
+                help = true)
+        boolean help;
+    }
+
+    /**
+     * Measurements of one load stage.
+     */
+    static class StageResult {
+
+        private final String stage;
+        private final long records;
+        private final long statements;
+        private final double seconds;
+        private final double recordsPerSecond;
+        private final double statementsPerSecond;
+        private final long peakHeapBytes;
+
+        StageResult(final String stage,
+                    final long records,
+                    final long statements,
+                    final long nanos,
+                    final long peakHeapBytes) {
+            this.stage = stage;
+            this.records = records;
+            this.statements = statements;
+            this.seconds = nanos / 1e9;
+            this.recordsPerSecond = seconds > 0 ? records / seconds : 0;
+            this.statementsPerSecond = seconds > 0 ? statements / seconds : 0;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-12s %12d records %10.1f s %12.0f records/s %10d statements %10.1f statements/s %8d MB peak heap",
+                    stage, records, seconds, recordsPerSecond, statements, statementsPerSecond, peakHeapBytes >> 20);
+        }
+    }
+
+    private final List<MemoryPoolMXBean> heapPools;
+    private final List<StageResult> results;
+    private Neo4jImporter neo4jImporter;
+
+    private LoadBenchmark() {
+        this.heapPools = new ArrayList<>();
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        this.results = new ArrayList<>();
+    }
+
+    private void run(final LoadBenchmarkParameters parameters) throws Exception {
+
+        final File workDirectory = parameters.workDirectory == null ?
+                Files.createTempDirectory("neuprint-load-benchmark").toFile() :
+                new File(parameters.workDirectory);
+        final File inputDirectory = new File(workDirectory, "input");
+
+        final SyntheticConnectome connectome = new SyntheticConnectome(parameters.generator);
+        runStage("generate", connectome.getSynapseCount(), () -> connectome.write(inputDirectory));
+        LOG.info(String.format("Generated %d bodies, %d synapses, %d connections and %d skeletons (%s)",
+                connectome.getBodyCount(), connectome.getSynapseCount(), connectome.getConnectionCount(),
+                connectome.getSkeletonCount(), parameters.generator));
+
+        ServerControls server = null;
+        try {
+            if (parameters.dbProperties == null) {
+                server = TestServerBuilders.newInProcessBuilder(new File(workDirectory, "neo4j"))
+                        .withFunction(Json.class)
+                        .withProcedure(LoadingProcedures.class)
+                        .withProcedure(Create.class)
+                        .newServer();
+                neo4jImporter = new Neo4jImporter(GraphDatabase.driver(server.boltURI(), Config.build().withoutEncryption().toConfig()),
+                        parameters.writerThreads);
+            } else {
+                neo4jImporter = new Neo4jImporter(DbConfig.fromFile(new File(parameters.dbProperties)));
+            }
+
+            load(parameters, connectome, inputDirectory);
+
+        } finally {
+            if (neo4jImporter != null) {
+                neo4jImporter.close();
+            }
+            if (server != null) {
+                server.close();
+            }
+            if (parameters.workDirectory == null) {
+                BenchmarkFiles.deleteRecursively(workDirectory);
+            }
+        }
+
+        for (final StageResult result : results) {
+            LOG.info(result.toString());
+        }
+        if (parameters.resultFile != null) {
+            try (final Writer writer = Files.newBufferedWriter(new File(parameters.resultFile).toPath(), StandardCharsets.UTF_8)) {
+                JsonUtils.GSON.toJson(results, writer);
+            }
+        }
+    }
+
+    private void load(final LoadBenchmarkParameters parameters,
+                      final SyntheticConnectome connectome,
+                      final File inputDirectory) throws Exception {
+
+        final String dataset = parameters.datasetLabel;
+        final LocalDateTime timeStamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        final float dataModelVersion = 1.0F;
+        final float preHPThreshold = 0.0F;
+        final float postHPThreshold = 0.0F;
+        final long neuronThreshold = 10;
+
+        // as in a new load by NeuPrintMain.main
+        final ConnectomeAggregator connectomeAggregator = new ConnectomeAggregator(preHPThreshold, postHPThreshold, neuronThreshold);
+        final SynapseNodeIds synapseNodeIds = new SynapseNodeIds((int) Math.min(Integer.MAX_VALUE, connectome.getSynapseCount()));
+
+        runStage("synapses", connectome.getSynapseCount(), () ->
+                NeuPrintMain.loadSynapseJsonInBatches(new File(inputDirectory, SyntheticConnectome.SYNAPSES_FILE).getPath(), parameters.synapseBatchSize,
+                        neo4jImporter, dataset, false, dataModelVersion, preHPThreshold, postHPThreshold, true, true, timeStamp,
+                        connectomeAggregator, null, synapseNodeIds, parameters.batchQueueDepth));
+
+        runStage("connections", connectome.getConnectionCount(), () ->
+                NeuPrintMain.loadConnectionJsonInBatches(new File(inputDirectory, SyntheticConnectome.CONNECTIONS_FILE).getPath(), parameters.connectionBatchSize,
+                        neo4jImporter, dataset, true, dataModelVersion, preHPThreshold, postHPThreshold, true, true, timeStamp,
+                        connectomeAggregator, null, synapseNodeIds, parameters.batchQueueDepth));
+
+        runStage("neurons", connectome.getBodyCount(), () ->
+                NeuPrintMain.loadNeuronJsonInBatches(new File(inputDirectory, SyntheticConnectome.NEURONS_FILE).getPath(), parameters.neuronBatchSize,
+                        neo4jImporter, dataset, true, dataModelVersion, preHPThreshold, postHPThreshold, neuronThreshold, true, true, timeStamp,
+                        connectomeAggregator, null, synapseNodeIds, parameters.batchQueueDepth));
+
+        final File[] swcFiles = new File(inputDirectory, SyntheticConnectome.SKELETON_DIRECTORY).listFiles((dir, name) -> name.endsWith(".swc"));
+        if (swcFiles != null && swcFiles.length > 0) {
+            Arrays.sort(swcFiles);
+            runStage("skeletons", swcFiles.length, () ->
+                    NeuPrintMain.loadSkeletonsInBatches(swcFiles, parameters.skeletonBatchSize, true, neo4jImporter, dataset,
+                            dataModelVersion, preHPThreshold, postHPThreshold, true, true, timeStamp, null, parameters.batchQueueDepth));
+        }
+
+        runStage("meta", 1, () ->
+                neo4jImporter.addMetaInfo(dataset, NeuPrintMain.readMetaInfoJson(new File(inputDirectory, SyntheticConnectome.META_FILE).getPath()), timeStamp));
+    }
+
+    private void runStage(final String stage,
+                          final long records,
+                          final Stage work) throws Exception {
+
+        // start each stage from a collected heap so that its peak is not inflated by garbage from earlier stages
+        System.gc();
+        for (final MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+        }
+        final long statementsBefore = neo4jImporter == null ? 0 : neo4jImporter.getTemplateRegistry().getExecutionCount();
+
+        LOG.info("Starting stage " + stage);
+        final long start = System.nanoTime();
+        work.run();
+        final long nanos = System.nanoTime() - start;
+
+        final long statements = neo4jImporter == null ? 0 : neo4jImporter.getTemplateRegistry().getExecutionCount() - statementsBefore;
+        long peakHeapBytes = 0;
+        for (final MemoryPoolMXBean pool : heapPools) {
+            peakHeapBytes += pool.getPeakUsage().getUsed();
+        }
+
+        final StageResult result = new StageResult(stage, records, statements, nanos, peakHeapBytes);
+        LOG.info(result.toString());
+        results.add(result);
+    }
+
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        final LoadBenchmarkParameters parameters = new LoadBenchmarkParameters();
+        final JCommander jCommander = new JCommander(parameters);
+        jCommander.setProgramName("java -cp benchmarks.jar " + LoadBenchmark.class.getName());
+
+        boolean parseFailed = true;
+        try {
+            jCommander.parse(args);
+            parseFailed = false;
+        } catch (final ParameterException pe) {
+            JCommander.getConsole().println("\nERROR: failed to parse command line arguments\n\n" + pe.getMessage());
+        }
+
+        if (parameters.help || parseFailed) {
+            JCommander.getConsole().println("");
+            jCommander.usage();
+            System.exit(1);
+        }
+
+        new LoadBenchmark().run(parameters);
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadBenchmark.class);
+
+}
@@ -0,0 +1,624 @@
+package org.janelia.flyem.neuprint.benchmarks;
+
+import apoc.create.Create;
+import apoc.refactor.GraphRefactoring;
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
+import org.janelia.flyem.neuprint.EmbeddedStoreImporter;
+import org.janelia.flyem.neuprint.NeuPrintMain;
+import org.janelia.flyem.neuprint.json.JsonUtils;
+import org.janelia.flyem.neuprint.model.Location;
+import org.janelia.flyem.neuprintprocedures.functions.NeuPrintUserFunctions;
+import org.janelia.flyem.neuprintprocedures.proofreading.ProofreaderProcedures;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.TransientFailureException;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.impl.proc.Procedures;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a mix of {@link ProofreaderProcedures} calls from several threads against an embedded database seeded with a
+ * {@link SyntheticConnectome}, and reports the latency percentiles, throughput, deadlocks and retries of each
+ * procedure. Each call runs in its own transaction and is retried after a deadlock or other transient failure, as
+ * a client would, so latencies include retries.
+ * <p>
+ * Calls are chosen so that they do real work: deleted neurons are added back with their synapses (and neurons are
+ * deleted when there are none to add), skeletons are added to the bodies with a generated swc file (and deleted
+ * again when all have one), new synapses get unused locations, and properties and ROIs are updated on random bodies
+ * and synapses. Skeleton bodies are not deleted and added, so that both pairs of calls stay valid.
+ */
+public class ProofreadingBenchmark {
+
+    enum Operation {
+        ADD_NEURON("addNeuron", "CALL proofreader.addNeuron($json, $dataset)"),
+        DELETE_NEURON("deleteNeuron", "CALL proofreader.deleteNeuron($bodyId, $dataset)"),
+        ADD_SYNAPSE("addSynapse", "CALL proofreader.addSynapse($json, $dataset)"),
+        ADD_ROI_TO_SYNAPSE("addRoiToSynapse", "CALL proofreader.addRoiToSynapse($x, $y, $z, $roiName, $dataset)"),
+        UPDATE_PROPERTIES("updateProperties", "CALL proofreader.updateProperties($json, $dataset)"),
+        ADD_SKELETON("addSkeleton", "CALL proofreader.addSkeleton($fileUrl, $dataset)"),
+        DELETE_SKELETON("deleteSkeleton", "CALL proofreader.deleteSkeleton($bodyId, $dataset)");
+
+        private final String procedureName;
+        private final String query;
+
+        Operation(final String procedureName,
+                  final String query) {
+            this.procedureName = procedureName;
+            this.query = query;
+        }
+
+        static Operation fromProcedureName(final String procedureName) {
+            for (final Operation operation : values()) {
+                if (operation.procedureName.equals(procedureName)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("unknown procedure " + procedureName + ", expected one of " + Arrays.toString(values()));
+        }
+
+        @Override
+        public String toString() {
+            return procedureName;
+        }
+    }
+
+    @Parameters(separators = "=")
+    static class ProofreadingBenchmarkParameters {
+
+        @ParametersDelegate
+        SyntheticConnectome.GeneratorParameters generator = new SyntheticConnectome.GeneratorParameters();
+
+        @Parameter(
+                names = "--workDirectory",
+                description = "Directory for the generated files and the database (omit to use a temporary directory that is deleted afterwards)")
+        String workDirectory;
+
+        @Parameter(
+                names = "--datasetLabel",
+                description = "Dataset value for all nodes")
+        String datasetLabel = "synthetic";
+
+        @Parameter(
+                names = "--threads",
+                description = "Number of concurrent proofreaders")
+        int threads = 8;
+
+        @Parameter(
+                names = "--mix",
+                description = "Relative weights of the procedures to call, as procedure=weight pairs separated by commas " +
+                        "(addNeuron, deleteNeuron, addSynapse, addRoiToSynapse, updateProperties, addSkeleton, deleteSkeleton)")
+        String mix = "addNeuron=1,deleteNeuron=1,addSynapse=2,addRoiToSynapse=4,updateProperties=10,addSkeleton=1";
+
+        @Parameter(
+                names = "--warmupSeconds",
+                description = "Seconds of calls before measurement starts")
+        int warmupSeconds = 10;
+
+        @Parameter(
+                names = "--durationSeconds",
+                description = "Seconds of measured calls")
+        int durationSeconds = 60;
+
+        @Parameter(
+                names = "--maxRetries",
+                description = "Number of times a call is retried after a deadlock or other transient failure")
+        int maxRetries = 5;
+
+        @Parameter(
+                names = "--resultFile",
+                description = "JSON file for the results (omit to only log them)")
+        String resultFile;
+
+        @Parameter(
+                names = "--help",
+                help = true)
+        boolean help;
+    }
+
+    /**
+     * Measurements of the calls of one procedure.
+     */
+    static class OperationResult {
+
+        private final String procedure;
+        private final long calls;
+        private final double callsPerSecond;
+        private final double p50Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+        private final long errors;
+        private final long deadlocks;
+        private final long retries;
+
+        OperationResult(final String procedure,
+                        final OperationStats stats,
+                        final double seconds) {
+            final long[] latencies = Arrays.copyOf(stats.latencies, stats.callCount);
+            Arrays.sort(latencies);
+            this.procedure = procedure;
+            this.calls = latencies.length;
+            this.callsPerSecond = latencies.length / seconds;
+            this.p50Millis = getPercentile(latencies, 0.50) / 1e6;
+            this.p99Millis = getPercentile(latencies, 0.99) / 1e6;
+            this.maxMillis = latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6;
+            this.errors = stats.errors;
+            this.deadlocks = stats.deadlocks;
+            this.retries = stats.retries;
+        }
+
+        private static long getPercentile(final long[] sortedValues,
+                                          final double percentile) {
+            return sortedValues.length == 0 ? 0 : sortedValues[Math.max(0, (int) Math.ceil(percentile * sortedValues.length) - 1)];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-18s %8d calls %9.1f calls/s %9.2f ms p50 %9.2f ms p99 %9.2f ms max %6d errors %6d deadlocks %6d retries",
+                    procedure, calls, callsPerSecond, p50Millis, p99Millis, maxMillis, errors, deadlocks, retries);
+        }
+    }
+
+    /**
+     * Latencies (of successful calls) and failure counts of one procedure, collected by one thread.
+     */
+    static class OperationStats {
+
+        private long[] latencies = new long[1024];
+        private int callCount;
+        private long errors;
+        private long deadlocks;
+        private long retries;
+
+        private void addLatency(final long nanos) {
+            if (callCount == latencies.length) {
+                latencies = Arrays.copyOf(latencies, callCount * 2);
+            }
+            latencies[callCount++] = nanos;
+        }
+
+        private void addAll(final OperationStats other) {
+            for (int i = 0; i < other.callCount; i++) {
+                addLatency(other.latencies[i]);
+            }
+            errors += other.errors;
+            deadlocks += other.deadlocks;
+            retries += other.retries;
+        }
+    }
+
+    private static final String MUTATION_UUID = "proofreading-benchmark";
+    private static final int BENCHMARK_ROI_COUNT = 5;
+
+    private final ProofreadingBenchmarkParameters parameters;
+    private final SyntheticConnectome connectome;
+    private final File skeletonDirectory;
+    private final Map<Operation, Integer> weights;
+    private final int totalWeight;
+
+    // bodies are claimed from these queues by the thread that deletes/adds them, so that each call is valid
+    private final Queue<Integer> liveBodies;
+    private final Queue<Integer> deletedBodies;
+    private final Queue<Integer> bodiesWithoutSkeleton;
+    private final Queue<Integer> bodiesWithSkeleton;
+    private final AtomicLong mutationIds;
+    private final AtomicLong newSynapseCount;
+
+    private GraphDatabaseService dbService;
+    private volatile long measurementStart;
+    private volatile long measurementEnd;
+
+    private ProofreadingBenchmark(final ProofreadingBenchmarkParameters parameters,
+                                  final File inputDirectory) {
+        this.parameters = parameters;
+        this.connectome = new SyntheticConnectome(parameters.generator);
+        this.skeletonDirectory = new File(inputDirectory, SyntheticConnectome.SKELETON_DIRECTORY);
+        this.weights = parseMix(parameters.mix);
+        this.totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+
+        final List<Integer> bodies = new ArrayList<>();
+        for (int i = connectome.getSkeletonCount(); i < connectome.getBodyCount(); i++) {
+            bodies.add(i);
+        }
+        Collections.shuffle(bodies, new Random(parameters.generator.seed));
+        this.liveBodies = new ConcurrentLinkedQueue<>(bodies);
+        this.deletedBodies = new ConcurrentLinkedQueue<>();
+        this.bodiesWithoutSkeleton = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < connectome.getSkeletonCount(); i++) {
+            bodiesWithoutSkeleton.add(i);
+        }
+        this.bodiesWithSkeleton = new ConcurrentLinkedQueue<>();
+        this.mutationIds = new AtomicLong();
+        this.newSynapseCount = new AtomicLong();
+    }
+
+    static Map<Operation, Integer> parseMix(final String mix) {
+        final Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (final String entry : mix.split(",")) {
+            final String[] nameAndWeight = entry.trim().split("=");
+            if (nameAndWeight.length != 2) {
+                throw new IllegalArgumentException("invalid mix entry '" + entry + "', expected procedure=weight");
+            }
+            final int weight = Integer.parseInt(nameAndWeight[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("invalid weight in mix entry '" + entry + "'");
+            }
+            weights.put(Operation.fromProcedureName(nameAndWeight[0].trim()), weight);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("mix " + mix + " has no procedure with a positive weight");
+        }
+        return weights;
+    }
+
+    private void seed(final File inputDirectory,
+                      final File storeDirectory) throws IOException {
+
+        connectome.write(inputDirectory);
+
+        // skeletons are added by the benchmark
+        try (final EmbeddedStoreImporter importer = new EmbeddedStoreImporter(storeDirectory, parameters.datasetLabel, 1.0F, 0.0D, 0.0D, 10,
+                true, true, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))) {
+            importer.addSynapses(NeuPrintMain.readSynapsesJson(new File(inputDirectory, SyntheticConnectome.SYNAPSES_FILE).getPath()));
+            importer.addSynapticConnections(NeuPrintMain.readConnectionsJson(new File(inputDirectory, SyntheticConnectome.CONNECTIONS_FILE).getPath()));
+            importer.addNeurons(NeuPrintMain.readNeuronsJson(new File(inputDirectory, SyntheticConnectome.NEURONS_FILE).getPath()));
+            importer.addMetaInfo(NeuPrintMain.readMetaInfoJson(new File(inputDirectory, SyntheticConnectome.META_FILE).getPath()));
+        }
+    }
+
+    private void open(final File storeDirectory) throws Exception {
+        dbService = new GraphDatabaseFactory().newEmbeddedDatabase(storeDirectory);
+        // the same procedures as the proofreading tests
+        final Procedures procedures = ((GraphDatabaseAPI) dbService).getDependencyResolver().resolveDependency(Procedures.class);
+        procedures.registerProcedure(ProofreaderProcedures.class);
+        procedures.registerFunction(NeuPrintUserFunctions.class);
+        procedures.registerProcedure(GraphRefactoring.class);
+        procedures.registerProcedure(Create.class);
+    }
+
+    private List<OperationResult> run() throws Exception {
+
+        final long start = System.nanoTime();
+        measurementStart = start + TimeUnit.SECONDS.toNanos(parameters.warmupSeconds);
+        measurementEnd = measurementStart + TimeUnit.SECONDS.toNanos(parameters.durationSeconds);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(parameters.threads);
+        final List<Future<Map<Operation, OperationStats>>> futures = new ArrayList<>();
+        for (int thread = 0; thread < parameters.threads; thread++) {
+            final Random random = new Random(parameters.generator.seed * 31 + thread);
+            futures.add(executor.submit(() -> runCalls(random)));
+        }
+
+        final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        try {
+            for (final Future<Map<Operation, OperationStats>> future : futures) {
+                for (final Map.Entry<Operation, OperationStats> entry : future.get().entrySet()) {
+                    stats.computeIfAbsent(entry.getKey(), operation -> new OperationStats()).addAll(entry.getValue());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final double seconds = parameters.durationSeconds;
+        final List<OperationResult> results = new ArrayList<>();
+        final OperationStats total = new OperationStats();
+        for (final Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            results.add(new OperationResult(entry.getKey().toString(), entry.getValue(), seconds));
+            total.addAll(entry.getValue());
+        }
+        results.add(new OperationResult("total", total, seconds));
+        return results;
+    }
+
+    private Map<Operation, OperationStats> runCalls(final Random random) {
+
+        final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+        long callStart;
+        while ((callStart = System.nanoTime()) < measurementEnd) {
+            final Operation operation = chooseOperation(random);
+            final OperationStats operationStats = new OperationStats();
+            final Operation calledOperation = call(operation, random, operationStats);
+            final long latency = System.nanoTime() - callStart;
+            if (callStart >= measurementStart) {
+                final OperationStats calledStats = stats.computeIfAbsent(calledOperation, o -> new OperationStats());
+                if (operationStats.errors == 0) {
+                    calledStats.addLatency(latency);
+                }
+                calledStats.errors += operationStats.errors;
+                calledStats.deadlocks += operationStats.deadlocks;
+                calledStats.retries += operationStats.retries;
+            }
+        }
+
+        return stats;
+    }
+
+    private Operation chooseOperation(final Random random) {
+        int draw = random.nextInt(totalWeight);
+        for (final Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+            draw -= entry.getValue();
+            if (draw < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("weights changed");
+    }
+
+    /**
+     * Calls the procedure (or its counterpart if the procedure has nothing to work on, e.g. addNeuron when no neuron
+     * has been deleted) and updates the body queues.
+     *
+     * @return the procedure that was called
+     */
+    private Operation call(final Operation operation,
+                           final Random random,
+                           final OperationStats stats) {
+
+        final Map<String, Object> params = new HashMap<>();
+        params.put("dataset", parameters.datasetLabel);
+
+        switch (operation) {
+
+            case ADD_NEURON:
+            case DELETE_NEURON: {
+                Integer bodyIndex = (operation == Operation.ADD_NEURON ? deletedBodies : liveBodies).poll();
+                Operation calledOperation = operation;
+                if (bodyIndex == null) {
+                    calledOperation = operation == Operation.ADD_NEURON ? Operation.DELETE_NEURON : Operation.ADD_NEURON;
+                    bodyIndex = (calledOperation == Operation.ADD_NEURON ? deletedBodies : liveBodies).poll();
+                }
+                if (bodyIndex == null) {
+                    // every body is being deleted or added by another thread
+                    return call(Operation.UPDATE_PROPERTIES, random, stats);
+                }
+                if (calledOperation == Operation.ADD_NEURON) {
+                    params.put("json", getNeuronAdditionJson(bodyIndex));
+                } else {
+                    params.put("bodyId", SyntheticConnectome.getBodyId(bodyIndex));
+                }
+                final boolean added = calledOperation == Operation.ADD_NEURON;
+                final boolean succeeded = execute(calledOperation, params, stats);
+                (added == succeeded ? liveBodies : deletedBodies).add(bodyIndex);
+                return calledOperation;
+            }
+
+            case ADD_SKELETON:
+            case DELETE_SKELETON: {
+                Integer bodyIndex = (operation == Operation.ADD_SKELETON ? bodiesWithoutSkeleton : bodiesWithSkeleton).poll();
+                Operation calledOperation = operation;
+                if (bodyIndex == null) {
+                    calledOperation = operation == Operation.ADD_SKELETON ? Operation.DELETE_SKELETON : Operation.ADD_SKELETON;
+                    bodyIndex = (calledOperation == Operation.ADD_SKELETON ? bodiesWithoutSkeleton : bodiesWithSkeleton).poll();
+                }
+                if (bodyIndex == null) {
+                    return call(Operation.UPDATE_PROPERTIES, random, stats);
+                }
+                final long bodyId = SyntheticConnectome.getBodyId(bodyIndex);
+                if (calledOperation == Operation.ADD_SKELETON) {
+                    params.put("fileUrl", new File(skeletonDirectory, bodyId + ".swc").toURI().toString());
+                } else {
+                    params.put("bodyId", bodyId);
+                }
+                final boolean added = calledOperation == Operation.ADD_SKELETON;
+                final boolean succeeded = execute(calledOperation, params, stats);
+                (added == succeeded ? bodiesWithSkeleton : bodiesWithoutSkeleton).add(bodyIndex);
+                return calledOperation;
+            }
+
+            case ADD_SYNAPSE: {
+                // x coordinates below the generated grid are never used by the dataset
+                final long count = newSynapseCount.getAndIncrement();
+                params.put("json", BenchmarkData.write(writer -> {
+                    writer.beginObject();
+                    writer.name("type").value(random.nextBoolean() ? "pre" : "post");
+                    writer.name("confidence").value(random.nextInt(1001) / 1000.0);
+                    writer.name("location").beginArray().value(count % 1000).value(count / 1000).value(1).endArray();
+                    writer.name("rois").beginArray().value("roi0").endArray();
+                    writer.endObject();
+                }));
+                execute(operation, params, stats);
+                return operation;
+            }
+
+            case ADD_ROI_TO_SYNAPSE: {
+                final int bodyIndex = random.nextInt(connectome.getBodyCount());
+                final Location location = connectome.getSynapseLocation(bodyIndex, random.nextInt(connectome.getSynapseCount(bodyIndex)));
+                params.put("x", (double) location.getX());
+                params.put("y", (double) location.getY());
+                params.put("z", (double) location.getZ());
+                params.put("roiName", "proofreadRoi" + random.nextInt(BENCHMARK_ROI_COUNT));
+                execute(operation, params, stats);
+                return operation;
+            }
+
+            case UPDATE_PROPERTIES: {
+                final long bodyId = SyntheticConnectome.getBodyId(random.nextInt(connectome.getBodyCount()));
+                final long mutationId = mutationIds.incrementAndGet();
+                params.put("json", BenchmarkData.write(writer -> {
+                    writer.beginObject();
+                    writer.name("id").value(bodyId);
+                    writer.name("status").value("Traced");
+                    writer.name("name").value("proofread_" + mutationId);
+                    writer.endObject();
+                }));
+                execute(operation, params, stats);
+                return operation;
+            }
+
+            default:
+                throw new IllegalArgumentException("unsupported operation " + operation);
+        }
+    }
+
+    private String getNeuronAdditionJson(final int bodyIndex) {
+        final long mutationId = mutationIds.incrementAndGet();
+        return BenchmarkData.write(writer -> {
+            writer.beginObject();
+            writer.name("id").value(SyntheticConnectome.getBodyId(bodyIndex));
+            writer.name("mutationUUID").value(MUTATION_UUID);
+            writer.name("mutationID").value(mutationId);
+            writer.name("status").value("Traced");
+            writer.name("size").value(connectome.getSynapseCount(bodyIndex) * 10000L);
+            writer.name("currentSynapses").beginArray();
+            for (int j = 0; j < connectome.getSynapseCount(bodyIndex); j++) {
+                final Location location = connectome.getSynapseLocation(bodyIndex, j);
+                writer.beginObject();
+                writer.name("location").beginArray().value(location.getX()).value(location.getY()).value(location.getZ()).endArray();
+                writer.name("type").value(j < connectome.getPreCount(bodyIndex) ? "pre" : "post");
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+        });
+    }
+
+    /**
+     * Runs the procedure in its own transaction, retrying after deadlocks and other transient failures.
+     *
+     * @return true if the call succeeded
+     */
+    private boolean execute(final Operation operation,
+                            final Map<String, Object> params,
+                            final OperationStats stats) {
+
+        for (int attempt = 0; ; attempt++) {
+            try (final Transaction tx = dbService.beginTx()) {
+                dbService.execute(operation.query, params).close();
+                tx.success();
+            } catch (final RuntimeException e) {
+                final boolean deadlock = isDeadlock(e);
+                if (deadlock) {
+                    stats.deadlocks++;
+                }
+                if ((deadlock || isTransient(e)) && attempt < parameters.maxRetries) {
+                    stats.retries++;
+                    backOff(attempt);
+                    continue;
+                }
+                stats.errors++;
+                LOG.debug(operation + " failed", e);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    // the procedures wrap exceptions in RuntimeExceptions with the original exception in the message
+    private static boolean isDeadlock(final Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DeadlockDetectedException ||
+                    (cause.getMessage() != null && cause.getMessage().contains(DeadlockDetectedException.class.getSimpleName()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTransient(final Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientFailureException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void backOff(final int attempt) {
+        try {
+            Thread.sleep(1L << Math.min(attempt, 6));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        final ProofreadingBenchmarkParameters parameters = new ProofreadingBenchmarkParameters();
+        final JCommander jCommander = new JCommander(parameters);
+        jCommander.setProgramName("java -cp benchmarks.jar " + ProofreadingBenchmark.class.getName());
+
+        boolean parseFailed = true;
+        try {
+            jCommander.parse(args);
+            parseMix(parameters.mix);
+            parseFailed = false;
+        } catch (final ParameterException | IllegalArgumentException e) {
+            JCommander.getConsole().println("\nERROR: failed to parse command line arguments\n\n" + e.getMessage());
+        }
+
+        if (parameters.help || parseFailed) {
+            JCommander.getConsole().println("");
+            jCommander.usage();
+            System.exit(1);
+        }
+
+        final File workDirectory = parameters.workDirectory == null ?
+                Files.createTempDirectory("neuprint-proofreading-benchmark").toFile() :
+                new File(parameters.workDirectory);
+        final File inputDirectory = new File(workDirectory, "input");
+        final File storeDirectory = new File(workDirectory, "graph.db");
+
+        final ProofreadingBenchmark benchmark = new ProofreadingBenchmark(parameters, inputDirectory);
+        final List<OperationResult> results;
+        try {
+            LOG.info(String.format("Seeding database with %d bodies and %d synapses (%s)",
+                    benchmark.connectome.getBodyCount(), benchmark.connectome.getSynapseCount(), parameters.generator));
+            benchmark.seed(inputDirectory, storeDirectory);
+            benchmark.open(storeDirectory);
+
+            LOG.info(String.format("Running %s from %d threads for %d s after %d s of warmup",
+                    parameters.mix, parameters.threads, parameters.durationSeconds, parameters.warmupSeconds));
+            results = benchmark.run();
+        } finally {
+            if (benchmark.dbService != null) {
+                benchmark.dbService.shutdown();
+            }
+            if (parameters.workDirectory == null) {
+                BenchmarkFiles.deleteRecursively(workDirectory);
+            }
+        }
+
+        for (final OperationResult result : results) {
+            LOG.info(result.toString());
+        }
+        if (parameters.resultFile != null) {
+            try (final Writer writer = Files.newBufferedWriter(new File(parameters.resultFile).toPath(), StandardCharsets.UTF_8)) {
+                JsonUtils.GSON.toJson(results, writer);
+            }
+        }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProofreadingBenchmark.class);
+
+}
@@ -0,0 +1,68 @@
+package org.janelia.flyem.neuprint.benchmarks;
+
+import org.janelia.flyem.neuprint.Neo4jImporter;
+import org.janelia.flyem.neuprintloadprocedures.model.RoiInfo;
+import org.janelia.flyem.neuprintloadprocedures.model.SynapseCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the roiInfo JSON round trip done for every Segment and ConnectionSet update, and sorting ROIs by
+ * synapse count with {@link Neo4jImporter#sortRoisByPostCount(Map)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoiInfoBenchmark {
+
+    @Param({"10", "200"})
+    public int roiCount;
+
+    private String roiInfoJson;
+    private Map<String, SynapseCounter> roiSynapseCounts;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        final RoiInfo roiInfo = new RoiInfo();
+        for (int i = 0; i < roiCount; i++) {
+            roiInfo.addSynapseCountsForRoi("roi" + i, random.nextInt(10000), random.nextInt(10000));
+        }
+        roiInfoJson = roiInfo.getAsJsonString();
+        roiSynapseCounts = new HashMap<>();
+        for (final String roi : roiInfo.getSetOfRois()) {
+            roiSynapseCounts.put(roi, roiInfo.get(roi));
+        }
+    }
+
+    @Benchmark
+    public String roundTrip() {
+        final RoiInfo roiInfo = RoiInfo.getRoiInfoFromString(roiInfoJson);
+        roiInfo.incrementPreForRoi("roi0");
+        return roiInfo.getAsJsonString();
+    }
+
+    @Benchmark
+    public SortedSet<Map.Entry<String, SynapseCounter>> sortRoisByPostCount() {
+        return Neo4jImporter.sortRoisByPostCount(roiSynapseCounts);
+    }
+
+}
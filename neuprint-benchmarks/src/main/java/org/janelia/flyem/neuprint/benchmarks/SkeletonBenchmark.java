@@ -0,0 +1,49 @@
+package org.janelia.flyem.neuprint.benchmarks;
+
+import org.janelia.flyem.neuprint.model.Skeleton;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading a skeleton from swc text with {@link Skeleton#fromSwc(BufferedReader, Long)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SkeletonBenchmark {
+
+    @Param({"1000", "100000"})
+    public int nodeCount;
+
+    private String swc;
+
+    @Setup
+    public void setup() {
+        swc = new BenchmarkData(2, 2, 1, 42).getSwc(nodeCount);
+    }
+
+    @Benchmark
+    public Skeleton fromSwc() throws IOException {
+        final Skeleton skeleton = new Skeleton();
+        skeleton.fromSwc(new BufferedReader(new StringReader(swc)), 1000L);
+        return skeleton;
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.janelia.flyem.neuprint.benchmarks;
+
+import com.google.gson.stream.JsonWriter;
+import org.janelia.flyem.neuprintprocedures.analysis.SynapticConnectionVertexMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures line graph edge generation for a neuron with many partners: the vertex map is read from vertex JSON
+ * (as done by analysis.getLineGraphForNeuron) and an edge with a euclidean distance is created for every pair of
+ * vertices that share a body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SynapticConnectionVertexMapBenchmark {
+
+    @Param({"100", "500"})
+    public int partnerCount;
+
+    private String vertexJson;
+
+    @Setup
+    public void setup() throws IOException {
+        final Random random = new Random(42);
+        final long bodyId = BenchmarkData.getBodyId(0);
+        final StringWriter json = new StringWriter();
+        try (final JsonWriter writer = new JsonWriter(json)) {
+            writer.beginArray();
+            for (int i = 1; i <= partnerCount; i++) {
+                final long partnerId = BenchmarkData.getBodyId(i);
+                // one vertex for the inputs from and one for the outputs to each partner
+                writeVertex(writer, bodyId + "_to_" + partnerId, random);
+                writeVertex(writer, partnerId + "_to_" + bodyId, random);
+            }
+            writer.endArray();
+        }
+        vertexJson = json.toString();
+    }
+
+    @Benchmark
+    public String edges() {
+        return new SynapticConnectionVertexMap(vertexJson).getEdgesAsJsonObjects(false, null, "test", BenchmarkData.getBodyId(0));
+    }
+
+    private static void writeVertex(final JsonWriter writer,
+                                    final String connectionDescription,
+                                    final Random random) throws IOException {
+        writer.beginObject();
+        writer.name("id").value(connectionDescription);
+        writer.name("centroidLocation").beginArray()
+                .value(random.nextInt(10000))
+                .value(random.nextInt(10000))
+                .value(random.nextInt(10000))
+                .endArray();
+        writer.name("pre").value(1 + random.nextInt(20));
+        writer.name("post").value(1 + random.nextInt(20));
+        writer.endObject();
+    }
+
+}
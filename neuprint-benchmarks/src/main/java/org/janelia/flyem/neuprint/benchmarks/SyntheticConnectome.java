@@ -0,0 +1,539 @@
+package org.janelia.flyem.neuprint.benchmarks;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
+import com.google.common.base.Stopwatch;
+import com.google.gson.stream.JsonWriter;
+import org.janelia.flyem.neuprint.model.Location;
+import org.janelia.flyem.neuprintloadprocedures.SpatialKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates a synthetic dataset in the
+ * <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">loader input formats</a>
+ * (Synapses.json, Connections.json, Neurons.json, a directory of swc skeletons and Meta.json), so that loads of any
+ * size can be reproduced without the original data.
+ * <p>
+ * The number of synapses of each body follows a power law. The first synapses of each body are presynaptic, and
+ * each postsynaptic density is connected to a presynaptic density of one of the body's input partners, which are
+ * chosen with weights that fall off with rank. Synapses are laid out on a grid in the order of their bodies, so the
+ * synapses of a body are near each other, and each synapse is in a super level ROI (by z) and optionally in nested
+ * sub ROIs (by y). Files are written one body at a time, so datasets with many millions of synapses can be written
+ * with a small heap. The same parameters always produce the same files.
+ */
+public class SyntheticConnectome {
+
+    /**
+     * Class containing {@link JCommander} parameters for the shape of the dataset.
+     */
+    @Parameters(separators = "=")
+    public static class GeneratorParameters {
+
+        @Parameter(
+                names = "--seed",
+                description = "Seed for all random choices (the same seed and parameters always produce the same dataset)")
+        long seed = 1;
+
+        @Parameter(
+                names = "--bodyCount",
+                description = "Number of bodies (neurons/segments)")
+        int bodyCount = 1000;
+
+        @Parameter(
+                names = "--minSynapsesPerBody",
+                description = "Minimum number of synapses per body (at least 2)")
+        int minSynapsesPerBody = 10;
+
+        @Parameter(
+                names = "--maxSynapsesPerBody",
+                description = "Maximum number of synapses per body")
+        int maxSynapsesPerBody = 100000;
+
+        @Parameter(
+                names = "--powerLawExponent",
+                description = "Exponent of the power law distribution of synapses per body (greater than 1, smaller values give more large bodies)")
+        double powerLawExponent = 2.0;
+
+        @Parameter(
+                names = "--preFraction",
+                description = "Fraction of the synapses of each body that are presynaptic")
+        double preFraction = 0.2;
+
+        @Parameter(
+                names = "--fanOut",
+                description = "Number of input partner bodies per body")
+        int fanOut = 20;
+
+        @Parameter(
+                names = "--roiCount",
+                description = "Number of super level ROIs")
+        int roiCount = 10;
+
+        @Parameter(
+                names = "--roiNestingDepth",
+                description = "Number of ROI levels per synapse (1 for super level ROIs only)")
+        int roiNestingDepth = 2;
+
+        @Parameter(
+                names = "--subRoiCount",
+                description = "Number of sub ROIs within each ROI of the level above")
+        int subRoiCount = 3;
+
+        @Parameter(
+                names = "--skeletonCount",
+                description = "Number of bodies with a skeleton")
+        int skeletonCount = 100;
+
+        @Parameter(
+                names = "--skeletonNodeCount",
+                description = "Number of nodes per skeleton")
+        int skeletonNodeCount = 1000;
+
+        @Override
+        public String toString() {
+            return "seed=" + seed + ", bodyCount=" + bodyCount + ", minSynapsesPerBody=" + minSynapsesPerBody +
+                    ", maxSynapsesPerBody=" + maxSynapsesPerBody + ", powerLawExponent=" + powerLawExponent +
+                    ", preFraction=" + preFraction + ", fanOut=" + fanOut + ", roiCount=" + roiCount +
+                    ", roiNestingDepth=" + roiNestingDepth + ", subRoiCount=" + subRoiCount +
+                    ", skeletonCount=" + skeletonCount + ", skeletonNodeCount=" + skeletonNodeCount;
+        }
+    }
+
+    @Parameters(separators = "=")
+    static class SyntheticConnectomeParameters {
+
+        @ParametersDelegate
+        GeneratorParameters generator = new GeneratorParameters();
+
+        @Parameter(
+                names = "--outputDirectory",
+                description = "Directory for the generated files (required)",
+                required = true)
+        String outputDirectory;
+
+        @Parameter(
+                names = "--help",
+                help = true)
+        boolean help;
+    }
+
+    public static final String SYNAPSES_FILE = "Synapses.json";
+    public static final String CONNECTIONS_FILE = "Connections.json";
+    public static final String NEURONS_FILE = "Neurons.json";
+    public static final String META_FILE = "Meta.json";
+    public static final String SKELETON_DIRECTORY = "skeletons";
+
+    private static final long FIRST_BODY_ID = 100000;
+    private static final long ORIGIN = 1000;
+    private static final long MAX_SPACING = 8;
+    private static final int TYPE_COUNT = 100;
+    private static final int TRACED_SYNAPSE_COUNT = 50;
+
+    // independent random streams for each body
+    private static final int SYNAPSE_STREAM = 0;
+    private static final int PARTNER_STREAM = 1;
+    private static final int NEURON_STREAM = 2;
+    private static final int SKELETON_STREAM = 3;
+
+    private final GeneratorParameters parameters;
+    private final int[] synapseCounts;
+    private final int[] preCounts;
+    private final long[] firstSynapseIndexes;
+    private final long synapseCount;
+    private final long connectionCount;
+    private final long gridSize;
+    private final long zSize;
+    private final long spacing;
+
+    /**
+     * Class constructor. Draws the number of synapses of each body; nothing else is held in memory.
+     *
+     * @param parameters shape of the dataset
+     */
+    public SyntheticConnectome(final GeneratorParameters parameters) {
+
+        if (parameters.bodyCount < 2 || parameters.minSynapsesPerBody < 2 || parameters.maxSynapsesPerBody < parameters.minSynapsesPerBody) {
+            throw new IllegalArgumentException("at least 2 bodies with at least 2 synapses each are required, and the maximum synapses per body must be at least the minimum");
+        }
+        if (parameters.powerLawExponent <= 1.0 || parameters.preFraction <= 0.0 || parameters.preFraction >= 1.0) {
+            throw new IllegalArgumentException("the power law exponent must be greater than 1 and the pre fraction must be between 0 and 1");
+        }
+        if (parameters.fanOut < 1 || parameters.roiCount < 1 || parameters.roiNestingDepth < 1 || parameters.subRoiCount < 1) {
+            throw new IllegalArgumentException("fan-out, ROI count, ROI nesting depth and sub ROI count must be at least 1");
+        }
+
+        this.parameters = parameters;
+        this.synapseCounts = new int[parameters.bodyCount];
+        this.preCounts = new int[parameters.bodyCount];
+        this.firstSynapseIndexes = new long[parameters.bodyCount];
+
+        final Random random = new Random(parameters.seed);
+        final double shape = -1.0 / (parameters.powerLawExponent - 1.0);
+        long synapseTotal = 0;
+        long connectionTotal = 0;
+        for (int i = 0; i < parameters.bodyCount; i++) {
+            final double count = parameters.minSynapsesPerBody * Math.pow(1.0 - random.nextDouble(), shape);
+            synapseCounts[i] = (int) Math.min(parameters.maxSynapsesPerBody, count);
+            preCounts[i] = (int) Math.max(1, Math.min(synapseCounts[i] - 1, Math.round(synapseCounts[i] * parameters.preFraction)));
+            firstSynapseIndexes[i] = synapseTotal;
+            synapseTotal += synapseCounts[i];
+            connectionTotal += synapseCounts[i] - preCounts[i];
+        }
+        this.synapseCount = synapseTotal;
+        this.connectionCount = connectionTotal;
+
+        // smallest power of two grid that holds every synapse, spaced out as far as the spatial key allows
+        long size = 1;
+        while (size * size * size < synapseCount) {
+            size *= 2;
+        }
+        this.gridSize = size;
+        this.zSize = (synapseCount + size * size - 1) / (size * size);
+        this.spacing = Math.max(1, Math.min(MAX_SPACING, (SpatialKey.MAX_COORDINATE - 2 * ORIGIN) / size));
+    }
+
+    /**
+     * @param bodyIndex index of body
+     * @return body id of the body
+     */
+    public static long getBodyId(final int bodyIndex) {
+        return FIRST_BODY_ID + bodyIndex;
+    }
+
+    /**
+     * @return number of bodies
+     */
+    public int getBodyCount() {
+        return parameters.bodyCount;
+    }
+
+    /**
+     * @return number of synapses
+     */
+    public long getSynapseCount() {
+        return synapseCount;
+    }
+
+    /**
+     * @return number of synaptic connections (one per postsynaptic density)
+     */
+    public long getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * @param bodyIndex index of body
+     * @return number of synapses of the body
+     */
+    public int getSynapseCount(final int bodyIndex) {
+        return synapseCounts[bodyIndex];
+    }
+
+    /**
+     * @param bodyIndex index of body
+     * @return number of presynaptic densities of the body (which are its first synapses)
+     */
+    public int getPreCount(final int bodyIndex) {
+        return preCounts[bodyIndex];
+    }
+
+    /**
+     * @param bodyIndex     index of body
+     * @param synapseNumber index of synapse within the body
+     * @return location of the synapse
+     */
+    public Location getSynapseLocation(final int bodyIndex,
+                                       final int synapseNumber) {
+        final long synapseIndex = firstSynapseIndexes[bodyIndex] + synapseNumber;
+        return new Location(getX(synapseIndex), getY(synapseIndex), getZ(synapseIndex));
+    }
+
+    /**
+     * @return number of swc files
+     */
+    public int getSkeletonCount() {
+        return Math.min(parameters.skeletonCount, parameters.bodyCount);
+    }
+
+    /**
+     * Writes all files of the dataset to a directory.
+     *
+     * @param directory output directory (created if it does not exist)
+     * @throws IOException if a file cannot be written
+     */
+    public void write(final File directory) throws IOException {
+
+        final File skeletonDirectory = new File(directory, SKELETON_DIRECTORY);
+        Files.createDirectories(skeletonDirectory.toPath());
+
+        writeSynapses(new File(directory, SYNAPSES_FILE));
+        writeConnections(new File(directory, CONNECTIONS_FILE));
+        writeNeurons(new File(directory, NEURONS_FILE));
+        for (int i = 0; i < getSkeletonCount(); i++) {
+            writeSkeleton(new File(skeletonDirectory, getBodyId(i) + ".swc"), i);
+        }
+        writeMetaInfo(new File(directory, META_FILE));
+    }
+
+    /**
+     * @param file Synapses.json file
+     * @throws IOException if the file cannot be written
+     */
+    public void writeSynapses(final File file) throws IOException {
+        try (final JsonWriter writer = new JsonWriter(newWriter(file))) {
+            writer.beginArray();
+            for (int i = 0; i < parameters.bodyCount; i++) {
+                final Random random = getRandom(i, SYNAPSE_STREAM);
+                for (int j = 0; j < synapseCounts[i]; j++) {
+                    final long synapseIndex = firstSynapseIndexes[i] + j;
+                    writer.beginObject();
+                    writer.name("type").value(j < preCounts[i] ? "pre" : "post");
+                    writer.name("confidence").value(random.nextInt(1001) / 1000.0);
+                    writeLocation(writer.name("location"), synapseIndex);
+                    writer.name("rois");
+                    writeRois(writer, synapseIndex);
+                    writer.endObject();
+                }
+            }
+            writer.endArray();
+        }
+    }
+
+    /**
+     * @param file Connections.json file
+     * @throws IOException if the file cannot be written
+     */
+    public void writeConnections(final File file) throws IOException {
+        try (final JsonWriter writer = new JsonWriter(newWriter(file))) {
+            writer.beginArray();
+            for (int i = 0; i < parameters.bodyCount; i++) {
+                final Random random = getRandom(i, PARTNER_STREAM);
+                final int[] inputs = getInputPartners(i, random);
+                final double[] cumulativeWeights = getCumulativeWeights(inputs.length);
+                for (int j = preCounts[i]; j < synapseCounts[i]; j++) {
+                    final double draw = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+                    int rank = Arrays.binarySearch(cumulativeWeights, draw);
+                    rank = Math.min(inputs.length - 1, rank < 0 ? -rank - 1 : rank);
+                    final int partner = inputs[rank];
+                    writer.beginObject();
+                    writeLocation(writer.name("pre"), firstSynapseIndexes[partner] + random.nextInt(preCounts[partner]));
+                    writeLocation(writer.name("post"), firstSynapseIndexes[i] + j);
+                    writer.endObject();
+                }
+            }
+            writer.endArray();
+        }
+    }
+
+    /**
+     * @param file Neurons.json file
+     * @throws IOException if the file cannot be written
+     */
+    public void writeNeurons(final File file) throws IOException {
+        try (final JsonWriter writer = new JsonWriter(newWriter(file))) {
+            writer.beginArray();
+            for (int i = 0; i < parameters.bodyCount; i++) {
+                final Random random = getRandom(i, NEURON_STREAM);
+                final boolean traced = synapseCounts[i] >= TRACED_SYNAPSE_COUNT;
+                writer.beginObject();
+                writer.name("id").value(getBodyId(i));
+                writer.name("status").value(traced ? "Traced" : "Orphan");
+                if (traced) {
+                    final String type = "type" + (i % TYPE_COUNT);
+                    writer.name("type").value(type);
+                    writer.name("name").value(type + "_" + i);
+                    writer.name("instance").value(type + "_" + i + "_R");
+                    writer.name("soma").beginObject();
+                    writeLocation(writer.name("location"), firstSynapseIndexes[i]);
+                    writer.name("radius").value(300.0 + random.nextInt(200));
+                    writer.endObject();
+                }
+                writer.name("size").value(synapseCounts[i] * 10000L + random.nextInt(10000));
+                writer.name("synapseSet").beginArray();
+                for (int j = 0; j < synapseCounts[i]; j++) {
+                    writeLocation(writer, firstSynapseIndexes[i] + j);
+                }
+                writer.endArray();
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+    }
+
+    /**
+     * Writes a skeleton that starts at the first synapse of the body, wanders in small steps, and branches from an
+     * earlier node every 10 nodes.
+     *
+     * @param file      swc file
+     * @param bodyIndex index of body
+     * @throws IOException if the file cannot be written
+     */
+    public void writeSkeleton(final File file,
+                              final int bodyIndex) throws IOException {
+        final Random random = getRandom(bodyIndex, SKELETON_STREAM);
+        final long synapseIndex = firstSynapseIndexes[bodyIndex];
+        final long[][] nodeLocations = new long[parameters.skeletonNodeCount][];
+        try (final Writer writer = newWriter(file)) {
+            writer.write("# synthetic skeleton for body " + getBodyId(bodyIndex) + "\n");
+            for (int node = 0; node < parameters.skeletonNodeCount; node++) {
+                final int parent;
+                final long[] start;
+                if (node == 0) {
+                    parent = -1;
+                    start = new long[]{getX(synapseIndex), getY(synapseIndex), getZ(synapseIndex)};
+                } else {
+                    parent = node % 10 == 0 ? random.nextInt(node) : node - 1;
+                    start = nodeLocations[parent];
+                }
+                nodeLocations[node] = new long[3];
+                for (int axis = 0; axis < 3; axis++) {
+                    nodeLocations[node][axis] = Math.max(0, start[axis] + random.nextInt(8 * (int) spacing + 1) - 4 * spacing);
+                }
+                writer.write((node + 1) + " 0 " + nodeLocations[node][0] + " " + nodeLocations[node][1] + " " + nodeLocations[node][2] +
+                        " " + (1 + random.nextInt(50)) + " " + (parent < 0 ? -1 : parent + 1) + "\n");
+            }
+        }
+    }
+
+    /**
+     * @param file Meta.json file
+     * @throws IOException if the file cannot be written
+     */
+    public void writeMetaInfo(final File file) throws IOException {
+        try (final JsonWriter writer = new JsonWriter(newWriter(file))) {
+            writer.setIndent("  ");
+            writer.beginObject();
+            writer.name("neuroglancerInfo").value("{}");
+            writer.name("uuid").value(String.format("synthetic-%016x", parameters.seed));
+            writer.name("dvidServer").value("");
+            writer.name("meshHost").value("");
+            writer.name("statusDefinitions").value("{\"Traced\":\"traced neuron\",\"Orphan\":\"untraced fragment\"}");
+            writer.name("info").value("synthetic connectome (" + parameters + ")");
+            writer.endObject();
+        }
+    }
+
+    private int[] getInputPartners(final int bodyIndex,
+                                   final Random random) {
+        final int partnerCount = Math.min(parameters.fanOut, parameters.bodyCount - 1);
+        final Set<Integer> chosen = new HashSet<>();
+        final int[] partners = new int[partnerCount];
+        int count = 0;
+        while (count < partnerCount) {
+            int partner = random.nextInt(parameters.bodyCount - 1);
+            if (partner >= bodyIndex) {
+                partner++;
+            }
+            if (chosen.add(partner)) {
+                partners[count++] = partner;
+            }
+        }
+        return partners;
+    }
+
+    // the partner of rank k gets weight 1 / (k + 1)
+    private static double[] getCumulativeWeights(final int partnerCount) {
+        final double[] cumulativeWeights = new double[partnerCount];
+        double total = 0;
+        for (int k = 0; k < partnerCount; k++) {
+            total += 1.0 / (k + 1);
+            cumulativeWeights[k] = total;
+        }
+        return cumulativeWeights;
+    }
+
+    private void writeRois(final JsonWriter writer,
+                           final long synapseIndex) throws IOException {
+        final long gridY = (synapseIndex / gridSize) % gridSize;
+        final long gridZ = synapseIndex / (gridSize * gridSize);
+        String roi = "roi" + (gridZ * parameters.roiCount / zSize);
+        writer.beginArray().value(roi);
+        long levelSize = 1;
+        for (int level = 1; level < parameters.roiNestingDepth; level++) {
+            levelSize *= parameters.subRoiCount;
+            roi = roi + "_" + ((gridY * levelSize / gridSize) % parameters.subRoiCount);
+            writer.value(roi);
+        }
+        writer.endArray();
+    }
+
+    private void writeLocation(final JsonWriter writer,
+                               final long synapseIndex) throws IOException {
+        writer.beginArray()
+                .value(getX(synapseIndex))
+                .value(getY(synapseIndex))
+                .value(getZ(synapseIndex))
+                .endArray();
+    }
+
+    private long getX(final long synapseIndex) {
+        return ORIGIN + (synapseIndex % gridSize) * spacing;
+    }
+
+    private long getY(final long synapseIndex) {
+        return ORIGIN + ((synapseIndex / gridSize) % gridSize) * spacing;
+    }
+
+    private long getZ(final long synapseIndex) {
+        return ORIGIN + (synapseIndex / (gridSize * gridSize)) * spacing;
+    }
+
+    private Random getRandom(final int bodyIndex,
+                             final int stream) {
+        // splitmix64 finalizer, so that neighbouring bodies get unrelated seeds
+        long z = parameters.seed + 0x9E3779B97F4A7C15L * (4L * bodyIndex + stream + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new Random(z ^ (z >>> 31));
+    }
+
+    private static Writer newWriter(final File file) throws IOException {
+        return new BufferedWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        final SyntheticConnectomeParameters parameters = new SyntheticConnectomeParameters();
+        final JCommander jCommander = new JCommander(parameters);
+        jCommander.setProgramName("java -cp benchmarks.jar " + SyntheticConnectome.class.getName());
+
+        boolean parseFailed = true;
+        try {
+            jCommander.parse(args);
+            parseFailed = false;
+        } catch (final ParameterException pe) {
+            JCommander.getConsole().println("\nERROR: failed to parse command line arguments\n\n" + pe.getMessage());
+        }
+
+        if (parameters.help || parseFailed) {
+            JCommander.getConsole().println("");
+            jCommander.usage();
+            System.exit(1);
+        }
+
+        final Stopwatch timer = Stopwatch.createStarted();
+        final SyntheticConnectome connectome = new SyntheticConnectome(parameters.generator);
+        connectome.write(new File(parameters.outputDirectory));
+        LOG.info(String.format("Wrote %d bodies, %d synapses, %d connections and %d skeletons to %s in %s",
+                connectome.getBodyCount(), connectome.getSynapseCount(), connectome.getConnectionCount(),
+                connectome.getSkeletonCount(), parameters.outputDirectory, timer.stop()));
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(SyntheticConnectome.class);
+
+}
@@ -6,9 +6,12 @@ import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.graphdb.schema.Schema;
 import org.neo4j.graphdb.spatial.Point;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +47,7 @@ public class GraphTraversalTools {
     public static final String NEUROTRANSMITTER = "neurotransmitter";
     public static final String PROPERTY = "property";
     public static final String LOCATION = "location";
+    public static final String LOCATION_KEY = "locationKey";
     public static final String POST = "post";
     public static final String PRE = "pre";
     public static final String PRE_HP_THRESHOLD = "preHPThreshold";
@@ -94,13 +98,40 @@ public class GraphTraversalTools {
         return dbService.findNode(Label.label(dataset + "-" + SEGMENT), BODY_ID, bodyId);
     }
 
+    public static Node getSynapse(final GraphDatabaseService dbService, final long locationKey, final String dataset) {
+        return dbService.findNode(Label.label(dataset + "-" + SYNAPSE), LOCATION_KEY, locationKey);
+    }
+
     public static Node getSynapse(final GraphDatabaseService dbService, final Point location, final String dataset) {
-        return dbService.findNode(Label.label(dataset + "-" + SYNAPSE), LOCATION, location);
+        final List<Double> coordinate = location.getCoordinate().getCoordinate();
+        return getSynapse(dbService, coordinate.get(0), coordinate.get(1), coordinate.get(2), dataset);
     }
 
     public static Node getSynapse(final GraphDatabaseService dbService, final Double x, final Double y, final Double z, final String dataset) {
-        Point point = getLocationAs3dCartesianPoint(dbService, x, y, z);
-        return getSynapse(dbService, point, dataset);
+        Node synapse = null;
+        final Long locationKey = getLocationKey(x, y, z);
+        // without a locationKey index (datasets loaded before location keys were added), a lookup by key would scan every synapse
+        if (locationKey != null && hasOnlineIndex(dbService, Label.label(dataset + "-" + SYNAPSE), LOCATION_KEY)) {
+            synapse = getSynapse(dbService, locationKey, dataset);
+        }
+        if (synapse == null) {
+            // synapses loaded before location keys were added (or at locations that cannot be packed) are found by point
+            final Point point = getLocationAs3dCartesianPoint(dbService, x, y, z);
+            synapse = dbService.findNode(Label.label(dataset + "-" + SYNAPSE), LOCATION, point);
+        }
+        return synapse;
+    }
+
+    public static boolean hasOnlineIndex(final GraphDatabaseService dbService, final Label label, final String property) {
+        final Schema schema = dbService.schema();
+        for (IndexDefinition index : schema.getIndexes(label)) {
+            for (String indexedProperty : index.getPropertyKeys()) {
+                if (indexedProperty.equals(property) && schema.getIndexState(index) == Schema.IndexState.ONLINE) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     public static Node getMetaNode(final GraphDatabaseService dbService, final String dataset) {
@@ -263,8 +294,29 @@ public class GraphTraversalTools {
 
     }
 
+    /**
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param z z coordinate
+     * @return {@link SpatialKey} for the location, or null if the coordinates are not whole numbers that can be packed into a key
+     */
+    public static Long getLocationKey(final double x, final double y, final double z) {
+        final long longX = (long) x;
+        final long longY = (long) y;
+        final long longZ = (long) z;
+        if (longX == x && longY == y && longZ == z && SpatialKey.isEncodable(longX, longY, longZ)) {
+            return SpatialKey.encode(longX, longY, longZ);
+        } else {
+            return null;
+        }
+    }
+
     public static Point getLocationAs3dCartesianPoint(final GraphDatabaseService dbService, Double x, Double y, Double z) {
-        Map<String, Object> pointQueryResult = dbService.execute("RETURN point({ x:" + x + ", y:" + y + ", z:" + z + ", crs:'cartesian-3D'}) AS point").next();
+        Map<String, Object> parametersMap = new HashMap<>();
+        parametersMap.put("x", x);
+        parametersMap.put("y", y);
+        parametersMap.put("z", z);
+        Map<String, Object> pointQueryResult = dbService.execute("RETURN point({ x:$x, y:$y, z:$z, crs:'cartesian-3D'}) AS point", parametersMap).next();
         return (Point) pointQueryResult.get("point");
     }
 
@@ -10,36 +10,44 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+/**
+ * A 3D location stored as primitive coordinates. The distance and centroid helpers work on the
+ * primitive values directly so that no boxed coordinates or intermediate locations are created.
+ */
 public class Location implements Point {
 
-    private Long[] location;
+    private final long x;
+    private final long y;
+    private final long z;
     private CoordinateReferenceSystem crs = CoordinateReferenceSystem.Cartesian_3D;
 
-    public Location(Long x, Long y, Long z) {
-        this.location = new Long[3];
-        this.location[0] = x;
-        this.location[1] = y;
-        this.location[2] = z;
+    public Location(long x, long y, long z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
     }
 
     public Location(Long[] locationArray) {
-        this.location = locationArray;
+        this(locationArray[0], locationArray[1], locationArray[2]);
     }
 
-    public Long getX() {
-        return location[0];
+    public long getX() {
+        return x;
     }
 
-    public Long getY() {
-        return location[1];
+    public long getY() {
+        return y;
     }
 
-    public Long getZ() {
-        return location[2];
+    public long getZ() {
+        return z;
     }
 
+    /**
+     * @return a new array holding the coordinates of this location
+     */
     public Long[] getLocation() {
-        return location;
+        return new Long[]{x, y, z};
     }
 
     @Override
@@ -48,38 +56,55 @@ public class Location implements Point {
     }
 
     public List<Coordinate> getCoordinates() {
-        return Collections.singletonList(new Coordinate((double) this.getX(), (double) this.getY(), (double) this.getZ()));
+        return Collections.singletonList(new Coordinate((double) this.x, (double) this.y, (double) this.z));
     }
 
     public List<Long> getLocationAsList() {
-        return new ArrayList<>(Arrays.asList(this.location));
+        return new ArrayList<>(Arrays.asList(this.x, this.y, this.z));
     }
 
     public static Location getSummedLocations(Location a, Location b) {
-        return new Location(a.getX() + b.getX(), a.getY() + b.getY(), a.getZ() + b.getZ());
+        return new Location(a.x + b.x, a.y + b.y, a.z + b.z);
     }
 
-    public static Double getDistanceBetweenLocations(Location a, Location b) {
-        Long dx = (a.getX() - b.getX());
-        Long dy = (a.getY() - b.getY());
-        Long dz = (a.getZ() - b.getZ());
+    public static double getDistanceBetweenLocations(Location a, Location b) {
+        return getDistance(a.x, a.y, a.z, b.x, b.y, b.z);
+    }
+
+    /**
+     * @return Euclidean distance between the points (x1, y1, z1) and (x2, y2, z2)
+     */
+    public static double getDistance(long x1, long y1, long z1, long x2, long y2, long z2) {
+        return Math.sqrt(getSquaredDistance(x1, y1, z1, x2, y2, z2));
+    }
 
-        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    /**
+     * @return squared Euclidean distance between the points (x1, y1, z1) and (x2, y2, z2), useful for
+     * comparing distances without taking a square root
+     */
+    public static long getSquaredDistance(long x1, long y1, long z1, long x2, long y2, long z2) {
+        final long dx = x1 - x2;
+        final long dy = y1 - y2;
+        final long dz = z1 - z2;
+        return dx * dx + dy * dy + dz * dz;
     }
 
     public static Location getCentroid(List<Location> locationList) {
-        Long[] centroidArray = new Long[3];
-        double numberOfLocations = (double) locationList.size();
-        Long[] summedLocation = locationList.stream().reduce(new Location(0L, 0L, 0L), Location::getSummedLocations).getLocation();
-        for (int i = 0; i < 3; i++) {
-            centroidArray[i] = Math.round(summedLocation[i] / numberOfLocations);
+        long sumX = 0;
+        long sumY = 0;
+        long sumZ = 0;
+        for (final Location location : locationList) {
+            sumX += location.x;
+            sumY += location.y;
+            sumZ += location.z;
         }
-        return new Location(centroidArray);
+        final double numberOfLocations = (double) locationList.size();
+        return new Location(Math.round(sumX / numberOfLocations), Math.round(sumY / numberOfLocations), Math.round(sumZ / numberOfLocations));
     }
 
     @Override
     public String toString() {
-        return this.getX() + ":" + this.getY() + ":" + this.getZ();
+        return this.x + ":" + this.y + ":" + this.z;
     }
 
     @Override
@@ -89,7 +114,7 @@ public class Location implements Point {
             isEqual = true;
         } else if (o instanceof Location) {
             final Location that = (Location) o;
-            isEqual = this.location[0].equals(that.location[0]) && this.location[1].equals(that.location[1]) && this.location[2].equals(that.location[2]);
+            isEqual = this.x == that.x && this.y == that.y && this.z == that.z;
         }
         return isEqual;
     }
@@ -97,9 +122,9 @@ public class Location implements Point {
     @Override
     public int hashCode() {
         int result = 17;
-        result = 31 * result + this.location[0].hashCode();
-        result = 31 * result + this.location[1].hashCode();
-        result = 31 * result + this.location[2].hashCode();
+        result = 31 * result + Long.hashCode(this.x);
+        result = 31 * result + Long.hashCode(this.y);
+        result = 31 * result + Long.hashCode(this.z);
         return result;
     }
 
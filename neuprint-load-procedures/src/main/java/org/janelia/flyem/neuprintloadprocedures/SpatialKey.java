@@ -0,0 +1,104 @@
+package org.janelia.flyem.neuprintloadprocedures;
+
+/**
+ * Packs a 3D location into a single long by interleaving the bits of its coordinates
+ * (a Morton or Z-order code). Each coordinate must be between 0 and {@link #MAX_COORDINATE}.
+ * Locations that are close to each other in space usually have keys that are close to each other,
+ * so sorting by key keeps nearby locations together. Keys are never negative.
+ */
+public final class SpatialKey {
+
+    public static final int BITS_PER_AXIS = 21;
+    public static final long MAX_COORDINATE = (1L << BITS_PER_AXIS) - 1;
+
+    private SpatialKey() {
+    }
+
+    /**
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param z z coordinate
+     * @return true if all coordinates can be packed into a key
+     */
+    public static boolean isEncodable(final long x, final long y, final long z) {
+        return x >= 0 && x <= MAX_COORDINATE && y >= 0 && y <= MAX_COORDINATE && z >= 0 && z <= MAX_COORDINATE;
+    }
+
+    /**
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param z z coordinate
+     * @return key for the location
+     * @throws IllegalArgumentException if a coordinate is negative or greater than {@link #MAX_COORDINATE}
+     */
+    public static long encode(final long x, final long y, final long z) {
+        if (!isEncodable(x, y, z)) {
+            throw new IllegalArgumentException("location " + x + ":" + y + ":" + z + " cannot be encoded, coordinates must be between 0 and " + MAX_COORDINATE);
+        }
+        return spread(x) | (spread(y) << 1) | (spread(z) << 2);
+    }
+
+    /**
+     * @param location location
+     * @return key for the location
+     * @throws IllegalArgumentException if a coordinate is negative or greater than {@link #MAX_COORDINATE}
+     */
+    public static long encode(final Location location) {
+        return encode(location.getX(), location.getY(), location.getZ());
+    }
+
+    /**
+     * @param key key for a location
+     * @return x coordinate of the location
+     */
+    public static long getX(final long key) {
+        return compact(key);
+    }
+
+    /**
+     * @param key key for a location
+     * @return y coordinate of the location
+     */
+    public static long getY(final long key) {
+        return compact(key >>> 1);
+    }
+
+    /**
+     * @param key key for a location
+     * @return z coordinate of the location
+     */
+    public static long getZ(final long key) {
+        return compact(key >>> 2);
+    }
+
+    /**
+     * @param key key for a location
+     * @return the location
+     */
+    public static Location decode(final long key) {
+        return new Location(getX(key), getY(key), getZ(key));
+    }
+
+    // inserts two zero bits between each of the lower 21 bits
+    private static long spread(final long value) {
+        long v = value & MAX_COORDINATE;
+        v = (v | (v << 32)) & 0x1f00000000ffffL;
+        v = (v | (v << 16)) & 0x1f0000ff0000ffL;
+        v = (v | (v << 8)) & 0x100f00f00f00f00fL;
+        v = (v | (v << 4)) & 0x10c30c30c30c30c3L;
+        v = (v | (v << 2)) & 0x1249249249249249L;
+        return v;
+    }
+
+    // inverse of spread
+    private static long compact(final long value) {
+        long v = value & 0x1249249249249249L;
+        v = (v ^ (v >>> 2)) & 0x10c30c30c30c30c3L;
+        v = (v ^ (v >>> 4)) & 0x100f00f00f00f00fL;
+        v = (v ^ (v >>> 8)) & 0x1f0000ff0000ffL;
+        v = (v ^ (v >>> 16)) & 0x1f00000000ffffL;
+        v = (v ^ (v >>> 32)) & MAX_COORDINATE;
+        return v;
+    }
+
+}
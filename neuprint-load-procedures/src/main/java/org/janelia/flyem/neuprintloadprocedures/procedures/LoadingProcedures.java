@@ -25,6 +25,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -163,6 +164,10 @@ public class LoadingProcedures {
             acquireWriteLockForNode(metaNode);
             Set<String> metaNodeRoiSet = getMetaNodeRoiSet(metaNode);
 
+            // ConnectionSets touched by this segment's synapses, keyed by datasetBodyIds. roiInfo, weight, and weightHP
+            // are computed once per ConnectionSet after all synapses have been added.
+            Map<String, ConnectionSetAccumulator> connectionSetAccumulatorMap = new LinkedHashMap<>();
+
             for (Node synapse : synapseNodes) {
 
                 acquireWriteLockForNode(synapse);
@@ -183,7 +188,6 @@ public class LoadingProcedures {
                 for (Relationship synapsesToRel : synapse.getRelationships(RelationshipType.withName(SYNAPSES_TO))) {
                     Node otherSynapse = synapsesToRel.getOtherNode(synapse);
                     Node otherSegment = getSegmentThatContainsSynapse(otherSynapse);
-                    Node connectionSet;
                     if (otherSegment == null) {
                         log.warn("Synapse does not belong to segment: " + otherSynapse.getAllProperties());
                     } else {
@@ -196,18 +200,10 @@ public class LoadingProcedures {
                         }
                         if (synapseType.equals(PRE)) {
                             // look for connection set from original segment to other segment (create ConnectsTo and ConnectionSet if doesn't exist)
-                            connectionSet = getConnectionSetOrCreateConnectionSetAndConnectsToRelFromSynapses(bodyId, otherBodyId, segment, otherSegment, synapse, otherSynapse, dataset, timeStamp);
+                            addSynapsesToConnectionSet(connectionSetAccumulatorMap, bodyId, otherBodyId, segment, otherSegment, synapse, otherSynapse, dataset, timeStamp);
                         } else {
                             // look for connection set from other segment to original segment (create ConnectsTo and ConnectionSet if doesn't exist)
-                            connectionSet = getConnectionSetOrCreateConnectionSetAndConnectsToRelFromSynapses(otherBodyId, bodyId, otherSegment, segment, otherSynapse, synapse, dataset, timeStamp);
-                        }
-
-                        Set<Node> synapseForConnectionSet = getSynapsesForConnectionSet(connectionSet);
-                        // recompute roiInfo on connection sets and set weight and weightHP
-                        if (addCSRoiInfoAndWeightHP) {
-                            setConnectionSetRoiInfoWeightAndWeightHP(synapseForConnectionSet, connectionSet, preHPThreshold, postHPThreshold, metaNodeRoiSet);
-                        } else {
-                            addWeightToConnectsTo(synapseForConnectionSet, connectionSet, metaNodeRoiSet);
+                            addSynapsesToConnectionSet(connectionSetAccumulatorMap, otherBodyId, bodyId, otherSegment, segment, otherSynapse, synapse, dataset, timeStamp);
                         }
                     }
                 }
@@ -227,6 +223,15 @@ public class LoadingProcedures {
                     postCount++;
                 }
             }
+            // compute roiInfo on connection sets and set weight and weightHP
+            for (ConnectionSetAccumulator connectionSetAccumulator : connectionSetAccumulatorMap.values()) {
+                if (addCSRoiInfoAndWeightHP) {
+                    setConnectionSetRoiInfoWeightAndWeightHP(connectionSetAccumulator.synapses, connectionSetAccumulator.connectionSet, preHPThreshold, postHPThreshold, metaNodeRoiSet);
+                } else {
+                    addWeightToConnectsTo(connectionSetAccumulator.synapses, connectionSetAccumulator.connectionSet, metaNodeRoiSet);
+                }
+            }
+
             // update neuron pre/post, roiInfo, rois
             // recompute information on containing segment
             recomputeSegmentPropertiesFollowingSynapsesAddition(preCount, postCount, roiInfo, segment, metaNode, dataset, neuronThreshold);
@@ -551,38 +556,23 @@ public class LoadingProcedures {
 
     }
 
-    private Node getConnectionSetOrCreateConnectionSetAndConnectsToRelFromSynapses(Long preBodyId, Long postBodyId, Node preBody, Node postBody, Node preSynapse, Node postSynapse, String dataset, LocalDateTime timeStamp) {
-        // look for connection set from original segment to other segment
-        Node connectionSet = getConnectionSetNode(dbService, preBodyId, postBodyId, dataset);
-        if (connectionSet == null) {
-            // create connection set if it doesn't exist
-            connectionSet = createConnectionSetNode(dataset, preBody, postBody, timeStamp);
-            // create connects to between neurons
-            addConnectsToRelationship(preBody, postBody, 1); // 1 since there is one known post for this connection
-        }
-        // add synapses to connection set
-        boolean hasPreRel = false;
-        boolean hasPostRel = false;
-        long preId = preSynapse.getId();
-        long postId = postSynapse.getId();
-
-        for (Relationship containsRel : connectionSet.getRelationships(RelationshipType.withName(CONTAINS), Direction.OUTGOING)) {
-            Node containedSynapse = containsRel.getEndNode();
-            if (containedSynapse.getId() == preId) {
-                hasPreRel = true;
-            } else if (containedSynapse.getId() == postId) {
-                hasPostRel = true;
+    private void addSynapsesToConnectionSet(Map<String, ConnectionSetAccumulator> connectionSetAccumulatorMap, Long preBodyId, Long postBodyId, Node preBody, Node postBody, Node preSynapse, Node postSynapse, String dataset, LocalDateTime timeStamp) {
+        ConnectionSetAccumulator connectionSetAccumulator = connectionSetAccumulatorMap.get(preBodyId + ":" + postBodyId);
+        if (connectionSetAccumulator == null) {
+            // look for connection set from original segment to other segment
+            Node connectionSet = getConnectionSetNode(dbService, preBodyId, postBodyId, dataset);
+            if (connectionSet == null) {
+                // create connection set if it doesn't exist
+                connectionSet = createConnectionSetNode(dataset, preBody, postBody, timeStamp);
+                // create connects to between neurons
+                addConnectsToRelationship(preBody, postBody, 1); // 1 since there is one known post for this connection
             }
+            connectionSetAccumulator = new ConnectionSetAccumulator(connectionSet);
+            connectionSetAccumulatorMap.put(preBodyId + ":" + postBodyId, connectionSetAccumulator);
         }
-
-        if (!hasPreRel) {
-            connectionSet.createRelationshipTo(preSynapse, RelationshipType.withName(CONTAINS));
-        }
-        if (!hasPostRel) {
-            connectionSet.createRelationshipTo(postSynapse, RelationshipType.withName(CONTAINS));
-        }
-
-        return connectionSet;
+        // add synapses to connection set
+        connectionSetAccumulator.addSynapse(preSynapse);
+        connectionSetAccumulator.addSynapse(postSynapse);
     }
 
     private Node createConnectionSetNode(String datasetLabel, Node startSegment, Node endSegment, LocalDateTime timeStamp) {
@@ -705,4 +695,25 @@ public class LoadingProcedures {
         }
     }
 
+    /**
+     * A ConnectionSet along with the synapses it contains. The existing Contains relationships are read once,
+     * when the ConnectionSet is first touched, so that adding a synapse does not require rescanning them.
+     */
+    private static class ConnectionSetAccumulator {
+
+        private final Node connectionSet;
+        private final Set<Node> synapses;
+
+        private ConnectionSetAccumulator(Node connectionSet) {
+            this.connectionSet = connectionSet;
+            this.synapses = getSynapsesForConnectionSet(connectionSet);
+        }
+
+        private void addSynapse(Node synapse) {
+            if (synapses.add(synapse)) {
+                connectionSet.createRelationshipTo(synapse, RelationshipType.withName(CONTAINS));
+            }
+        }
+    }
+
 }
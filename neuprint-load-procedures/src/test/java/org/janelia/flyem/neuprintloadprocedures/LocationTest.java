@@ -0,0 +1,50 @@
+package org.janelia.flyem.neuprintloadprocedures;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests the {@link Location} class.
+ */
+public class LocationTest {
+
+    @Test
+    public void shouldComputeDistances() {
+
+        Location a = new Location(1L, 2L, 3L);
+        Location b = new Location(4L, 6L, 3L);
+
+        Assert.assertEquals(5.0D, Location.getDistanceBetweenLocations(a, b), 0.0D);
+        Assert.assertEquals(5.0D, Location.getDistanceBetweenLocations(b, a), 0.0D);
+        Assert.assertEquals(25L, Location.getSquaredDistance(1, 2, 3, 4, 6, 3));
+        Assert.assertEquals(0.0D, Location.getDistanceBetweenLocations(a, new Location(1L, 2L, 3L)), 0.0D);
+    }
+
+    @Test
+    public void shouldComputeRoundedCentroid() {
+
+        Location centroid = Location.getCentroid(Arrays.asList(
+                new Location(0L, 0L, 0L),
+                new Location(3L, 1L, 10L),
+                new Location(3L, 1L, 11L)));
+
+        Assert.assertEquals(new Location(2L, 1L, 7L), centroid);
+        Assert.assertEquals(new Location(0L, 0L, 0L), Location.getCentroid(Collections.emptyList()));
+    }
+
+    @Test
+    public void shouldCompareCoordinateValues() {
+
+        Location location = new Location(new Long[]{1000L, 2000L, 3000L});
+
+        Assert.assertEquals(new Location(1000L, 2000L, 3000L), location);
+        Assert.assertEquals(new Location(1000L, 2000L, 3000L).hashCode(), location.hashCode());
+        Assert.assertNotEquals(new Location(1000L, 3000L, 2000L), location);
+        Assert.assertArrayEquals(new Long[]{1000L, 2000L, 3000L}, location.getLocation());
+        Assert.assertEquals(Arrays.asList(1000L, 2000L, 3000L), location.getLocationAsList());
+    }
+
+}
@@ -0,0 +1,56 @@
+package org.janelia.flyem.neuprintloadprocedures;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link SpatialKey} class.
+ */
+public class SpatialKeyTest {
+
+    @Test
+    public void shouldDecodeEncodedLocations() {
+
+        long[][] locations = {
+                {0, 0, 0},
+                {1, 2, 3},
+                {4287, 2277, 1502},
+                {SpatialKey.MAX_COORDINATE, 0, SpatialKey.MAX_COORDINATE},
+                {SpatialKey.MAX_COORDINATE, SpatialKey.MAX_COORDINATE, SpatialKey.MAX_COORDINATE}};
+
+        for (long[] location : locations) {
+            long key = SpatialKey.encode(location[0], location[1], location[2]);
+            Assert.assertTrue(key >= 0);
+            Assert.assertEquals(location[0], SpatialKey.getX(key));
+            Assert.assertEquals(location[1], SpatialKey.getY(key));
+            Assert.assertEquals(location[2], SpatialKey.getZ(key));
+        }
+
+        Location location = new Location(11583L, 15736L, 26855L);
+        Assert.assertArrayEquals(location.getLocation(), SpatialKey.decode(SpatialKey.encode(location)).getLocation());
+    }
+
+    @Test
+    public void shouldInterleaveCoordinateBits() {
+
+        Assert.assertEquals(1L, SpatialKey.encode(1, 0, 0));
+        Assert.assertEquals(2L, SpatialKey.encode(0, 1, 0));
+        Assert.assertEquals(4L, SpatialKey.encode(0, 0, 1));
+        Assert.assertEquals(8L, SpatialKey.encode(2, 0, 0));
+        Assert.assertEquals(7L, SpatialKey.encode(1, 1, 1));
+
+        // keys for locations in the same octant sort before keys for locations in the next octant
+        Assert.assertTrue(SpatialKey.encode(1, 1, 1) < SpatialKey.encode(2, 0, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldErrorIfCoordinateIsNegative() {
+        SpatialKey.encode(-1, 0, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldErrorIfCoordinateIsTooLarge() {
+        SpatialKey.encode(0, 0, SpatialKey.MAX_COORDINATE + 1);
+    }
+
+}
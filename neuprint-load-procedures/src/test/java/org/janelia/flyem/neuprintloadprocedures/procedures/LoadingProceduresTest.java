@@ -12,9 +12,12 @@ import org.junit.Test;
 import org.neo4j.driver.v1.Config;
 import org.neo4j.driver.v1.Driver;
 import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Record;
 import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.types.Point;
 import org.neo4j.harness.junit.Neo4jRule;
 
+import java.util.Collections;
 import java.util.Map;
 
 import static org.janelia.flyem.neuprintloadprocedures.procedures.LoadingProcedures.addSynapseToRoiInfoWithHP;
@@ -85,6 +88,52 @@ public class LoadingProceduresTest {
         }
     }
 
+    @Test
+    public void shouldAccumulateConnectionSetSynapsesAcrossBatches() {
+
+        try (Driver driver = GraphDatabase.driver(neo4j.boltURI(), Config.build().withoutEncryption().toConfig())) {
+            Session session = driver.session();
+
+            session.writeTransaction(tx -> tx.run("CREATE (n:test:Meta{dataset:'test'}) SET n.roiInfo='{\"roiA\":{\"pre\":0,\"post\":0},\"roiB\":{\"pre\":0,\"post\":0}}'"));
+
+            session.writeTransaction(tx -> tx.run("CREATE (:`test-Segment`:Segment:test{bodyId:$preBodyId})-[:Contains]->(:`test-SynapseSet`:SynapseSet:test{datasetBodyId:$preDatasetBodyId}) \n" +
+                            "CREATE (:`test-Segment`:Segment:test{bodyId:$postBodyId})-[:Contains]->(:`test-SynapseSet`:SynapseSet:test{datasetBodyId:$postDatasetBodyId})",
+                    parameters("preBodyId", 8426959, "preDatasetBodyId", "test:8426959", "postBodyId", 26311, "postDatasetBodyId", "test:26311")));
+
+            // first batch: one connection, processed from the presynaptic segment
+            addConnection(session, point(9157, 2, 3, 1).asPoint(), 0.9, "roiA", point(9157, 7, 8, 1).asPoint(), 0.9, "roiA");
+            addPropsAndConnectionInfoToSegment(session, 8426959);
+
+            // second batch: another connection between the same segments, processed from the postsynaptic segment
+            addConnection(session, point(9157, 4, 1, 1).asPoint(), 0.1, "roiA", point(9157, 2, 3, 2).asPoint(), 0.5, "roiB");
+            addPropsAndConnectionInfoToSegment(session, 26311);
+
+            int containsCount = session.readTransaction(tx -> tx.run("MATCH (:`test-ConnectionSet`{datasetBodyIds:$datasetBodyIds})-[r:Contains]->() RETURN count(r)",
+                    parameters("datasetBodyIds", "test:8426959:26311"))).single().get(0).asInt();
+            Assert.assertEquals(4, containsCount);
+
+            String roiInfoString = session.readTransaction(tx -> tx.run("MATCH (n:`test-ConnectionSet`{datasetBodyIds:$datasetBodyIds}) RETURN n.roiInfo", parameters("datasetBodyIds", "test:8426959:26311"))).single().get("n.roiInfo").asString();
+
+            Gson gson = new Gson();
+            Map<String, SynapseCounterWithHighPrecisionCounts> roiInfo = gson.fromJson(roiInfoString, new TypeToken<Map<String, SynapseCounterWithHighPrecisionCounts>>() {
+            }.getType());
+
+            Assert.assertEquals(2, roiInfo.size());
+            Assert.assertEquals(2, roiInfo.get("roiA").getPre());
+            Assert.assertEquals(1, roiInfo.get("roiA").getPreHP());
+            Assert.assertEquals(1, roiInfo.get("roiA").getPost());
+            Assert.assertEquals(1, roiInfo.get("roiA").getPostHP());
+            Assert.assertEquals(0, roiInfo.get("roiB").getPre());
+            Assert.assertEquals(1, roiInfo.get("roiB").getPost());
+            Assert.assertEquals(0, roiInfo.get("roiB").getPostHP());
+
+            Record connectsTo = session.readTransaction(tx -> tx.run("MATCH (:`test-Segment`{bodyId:8426959})-[c:ConnectsTo]->(:`test-Segment`{bodyId:26311}) RETURN c.weight, c.weightHP")).single();
+
+            Assert.assertEquals(2, connectsTo.get("c.weight").asInt());
+            Assert.assertEquals(1, connectsTo.get("c.weightHP").asInt());
+        }
+    }
+
     @Test
     public void shouldAddSynapseToRoiInfoWithHP() {
         RoiInfoWithHighPrecisionCounts roiInfo = new RoiInfoWithHighPrecisionCounts();
@@ -103,4 +152,20 @@ public class LoadingProceduresTest {
         Assert.assertEquals("{\"roiA\":{\"preHP\":1,\"postHP\":0,\"pre\":1,\"post\":1},\"roiB\":{\"preHP\":1,\"postHP\":1,\"pre\":1,\"post\":1}}",newRoiInfoString2);
 
     }
+
+    private static void addConnection(Session session, Point preLocation, double preConfidence, String preRoi, Point postLocation, double postConfidence, String postRoi) {
+        session.writeTransaction(tx -> tx.run("MATCH (preSet:`test-SynapseSet`{datasetBodyId:'test:8426959'}), (postSet:`test-SynapseSet`{datasetBodyId:'test:26311'}) \n" +
+                        "CREATE (preSet)-[:Contains]->(s:`test-Synapse`:Synapse:`test-PreSyn`:PreSyn:test{location:$preLocation, type:'pre', confidence:$preConfidence}) \n" +
+                        "CREATE (postSet)-[:Contains]->(t:`test-Synapse`:Synapse:`test-PostSyn`:PostSyn:test{location:$postLocation, type:'post', confidence:$postConfidence}) \n" +
+                        "CREATE (s)-[:SynapsesTo]->(t) \n" +
+                        "SET s += $preRois, t += $postRois",
+                parameters("preLocation", preLocation, "preConfidence", preConfidence, "preRois", Collections.singletonMap(preRoi, true),
+                        "postLocation", postLocation, "postConfidence", postConfidence, "postRois", Collections.singletonMap(postRoi, true))));
+    }
+
+    private static void addPropsAndConnectionInfoToSegment(Session session, long bodyId) {
+        session.writeTransaction(tx -> tx.run("MATCH (n:`test-Segment`{bodyId:$bodyId})-[:Contains]->(ss:`test-SynapseSet`) \n" +
+                        "CALL loader.addPropsAndConnectionInfoToSegment(n, ss, 'test', .2, .8, 100, true) RETURN n.bodyId",
+                parameters("bodyId", bodyId)));
+    }
 }
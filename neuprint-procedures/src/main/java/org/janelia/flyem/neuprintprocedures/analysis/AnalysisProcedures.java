@@ -552,10 +552,11 @@ public class AnalysisProcedures {
 
         Map<String, Object> parametersMap = new HashMap<>();
         parametersMap.put("nodeBodyId", bodyId);
+        parametersMap.put("maxFirstDegreeConnections", maxFirstDegreeConnections);
         Map<String, Object> roiQueryResult = null;
         String firstDegreeConnectionQuery = "MATCH (node:`" + datasetLabel + "-Neuron`{bodyId:$nodeBodyId})-[r:ConnectsTo]-(p:`" + datasetLabel + "-Neuron`) WITH p AS connection, " +
                 "startNode(r)=node AS out " +
-                "ORDER BY r.weight DESC LIMIT " + maxFirstDegreeConnections + " RETURN collect(connection) AS neuronList, collect(out) AS outList";
+                "ORDER BY r.weight DESC LIMIT $maxFirstDegreeConnections RETURN collect(connection) AS neuronList, collect(out) AS outList";
         try {
             roiQueryResult = dbService.execute(firstDegreeConnectionQuery, parametersMap).next();
         } catch (Exception e) {
@@ -62,6 +62,7 @@ public class SynapticConnectionEdge {
         parametersMap.put("y2", this.target.getCentroidLocation()[1]);
         parametersMap.put("z2", this.target.getCentroidLocation()[2]);
         parametersMap.put("body", bodyId);
+        parametersMap.put("datasetLabel", datasetLabel);
 //        try {
 //            parametersMap.put("body", findCommonBodyId());
 //        } catch (Exception e) {
@@ -71,11 +72,11 @@ public class SynapticConnectionEdge {
         Map<String, Object> distanceQueryResult = null;
 
         try {
-            Map<String,Object> point1Query = dbService.execute("CALL analysis.getNearestSkelNodeOnBodyToPoint($body,\"" + datasetLabel + "\",$x1,$y1,$z1) YIELD node AS node1",parametersMap).next();
-            Map<String,Object> point2Query = dbService.execute(" CALL analysis.getNearestSkelNodeOnBodyToPoint($body,\"" + datasetLabel + "\",$x2,$y2,$z2) YIELD node AS node2",parametersMap).next();
+            Map<String,Object> point1Query = dbService.execute("CALL analysis.getNearestSkelNodeOnBodyToPoint($body,$datasetLabel,$x1,$y1,$z1) YIELD node AS node1",parametersMap).next();
+            Map<String,Object> point2Query = dbService.execute("CALL analysis.getNearestSkelNodeOnBodyToPoint($body,$datasetLabel,$x2,$y2,$z2) YIELD node AS node2",parametersMap).next();
             parametersMap.put("node1", point1Query.get("node1"));
             parametersMap.put("node2", point2Query.get("node2"));
-            distanceQueryResult = dbService.execute("CALL analysis.calculateSkeletonDistance(\"" + datasetLabel + "\",$node1,$node2) YIELD value RETURN value", parametersMap).next();
+            distanceQueryResult = dbService.execute("CALL analysis.calculateSkeletonDistance($datasetLabel,$node1,$node2) YIELD value RETURN value", parametersMap).next();
         } catch (Exception e) {
             System.out.println("Error getting path between SkelNodes.");
             e.printStackTrace();
@@ -1305,6 +1305,10 @@ public class ProofreaderProcedures {
 
             try {
                 newSynapseNode.setProperty(LOCATION, synapseLocationPoint);
+                final Long locationKey = getLocationKey(synapseLocationList.getX(), synapseLocationList.getY(), synapseLocationList.getZ());
+                if (locationKey != null) {
+                    newSynapseNode.setProperty(LOCATION_KEY, locationKey);
+                }
             } catch (org.neo4j.graphdb.ConstraintViolationException cve) {
                 log.error("Synapse with location " + synapseLocationList + " already exists in database. Aborting synapse addition.");
                 throw new RuntimeException("Synapse with location " + synapseLocationList + " already exists in database. Aborting synapse addition.");
@@ -2363,6 +2367,10 @@ public class ProofreaderProcedures {
         List<Integer> skelNodeLocation = skelNode.getLocation();
         Point skelNodeLocationPoint = new Location((long) skelNodeLocation.get(0), (long) skelNodeLocation.get(1), (long) skelNodeLocation.get(2));
         skelNodeNode.setProperty(LOCATION, skelNodeLocationPoint);
+        final Long locationKey = getLocationKey(skelNodeLocation.get(0), skelNodeLocation.get(1), skelNodeLocation.get(2));
+        if (locationKey != null) {
+            skelNodeNode.setProperty(LOCATION_KEY, locationKey);
+        }
 
         //set radius, row number, type
         skelNodeNode.setProperty(RADIUS, skelNode.getRadius());
@@ -90,6 +90,22 @@ public class GraphTraversalToolsTest {
 
     }
 
+    @Test
+    public void shouldFindSynapsesWithoutLocationKeyByPoint() {
+
+        Session session = driver.session();
+
+        // synapses of datasets loaded before location keys were added have neither a locationKey nor its index
+        session.writeTransaction(tx -> tx.run("CREATE (:Meta:legacy{dataset:'legacy', roiInfo:'{\"roiA\":{\"pre\":1,\"post\":0}}'}) " +
+                "CREATE (:Synapse:PreSyn:`legacy-Synapse`:`legacy-PreSyn`:legacy{type:'pre', confidence:0.9, roiA:true, location:point({x:4292, y:2261, z:1542})})"));
+
+        List<Object> synapseRois = session.readTransaction(tx -> tx.run("WITH neuprint.getSynapseRois(4292, 2261, 1542,'legacy') AS roiList RETURN roiList")).single().get(0).asList();
+
+        Assert.assertEquals(1, synapseRois.size());
+        Assert.assertTrue(synapseRois.contains("roiA"));
+
+    }
+
     @Test
     public void shouldReturnSegmentRois() {
 
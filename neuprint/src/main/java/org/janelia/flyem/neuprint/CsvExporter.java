@@ -0,0 +1,614 @@
+package org.janelia.flyem.neuprint;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.janelia.flyem.neuprint.connectome.ConnectionSetConnectivity;
+import org.janelia.flyem.neuprint.connectome.ConnectomeAggregator;
+import org.janelia.flyem.neuprint.connectome.SegmentConnectivity;
+import org.janelia.flyem.neuprint.db.CsvFileWriter;
+import org.janelia.flyem.neuprint.json.JsonUtils;
+import org.janelia.flyem.neuprint.model.Location;
+import org.janelia.flyem.neuprint.model.LocationSet;
+import org.janelia.flyem.neuprint.model.MetaInfo;
+import org.janelia.flyem.neuprint.model.Neuron;
+import org.janelia.flyem.neuprint.model.SkelNode;
+import org.janelia.flyem.neuprint.model.Skeleton;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprint.util.LongHashSet;
+import org.janelia.flyem.neuprintloadprocedures.model.RoiInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A class for exporting neuron, synapse, connection, and skeleton data to node and relationship CSV files
+ * that can be loaded into an empty database with neo4j-admin import. This produces the same graph as the
+ * transactional load performed by {@link Neo4jImporter}, including the properties that
+ * loader.addPropsAndConnectionInfoToSegment adds to the database (Segment pre/post/roiInfo/ROI properties,
+ * :Neuron labels and clusterNames, ConnectionSets with roiInfo, and ConnectsTo relationships with weight/weightHP),
+ * which are computed in-process by a {@link ConnectomeAggregator}.
+ * <p>
+ * Synapses, relationships, SynapseSets, and skeletons are written while the input is being read, so data must be
+ * added in the order of the {@link OfflineLoader} methods. Each batch of synapses is written to its own node file
+ * with a header listing the rois of that batch. Segment, ConnectionSet, and Meta nodes depend on data from all input
+ * files, so they are written by {@link #close()}: neurons are spilled to a temporary JSON file without their synapse
+ * sets and read back once the connectivity has been computed. Apart from the {@link ConnectomeAggregator}, only
+ * primitive sets of location keys and bodyIds are kept in memory.
+ * Along with the CSV files, an import.args file containing arguments for neo4j-admin import and a schema.cypher
+ * file containing the constraints and indices to create after the import are written to the output directory.
+ */
+public class CsvExporter implements OfflineLoader {
+
+    private enum Stage {SYNAPSES, CONNECTIONS, NEURONS, SKELETONS}
+
+    private final File outputDirectory;
+    private final String dataset;
+    private final float dataModelVersion;
+    private final double preHPThreshold;
+    private final double postHPThreshold;
+    private final boolean addConnectionSetRoiInfoAndWeightHP;
+    private final boolean addClusterNames;
+    private final LocalDateTime timeStamp;
+
+    // data needed to compute derived properties once all input has been read
+    private final ConnectomeAggregator connectomeAggregator;
+    private final RoiInfo datasetRoiInfo = new RoiInfo();
+    private long totalPreCount = 0;
+    private long totalPostCount = 0;
+    private final Set<String> neuronRois = new TreeSet<>();
+    private MetaInfo metaInfo;
+    private Stage stage = Stage.SYNAPSES;
+
+    // location keys of the synapses that have been written (a pre and a post synaptic density may share a location
+    // when one of them is only referenced by a connection), and locations of those that cannot be packed into a key
+    private final LongHashSet preSynapseKeys = new LongHashSet(1 << 16);
+    private final LongHashSet postSynapseKeys = new LongHashSet(1 << 16);
+    private final Set<Location> unkeyedPreSynapseLocations = new HashSet<>();
+    private final Set<Location> unkeyedPostSynapseLocations = new HashSet<>();
+    private int synapseFileCount = 0;
+
+    private final LongHashSet neuronBodyIds = new LongHashSet(1 << 12);
+    private final LongHashSet synapseSetBodyIds = new LongHashSet(1 << 12);
+    private final LongHashSet skeletonBodyIds = new LongHashSet();
+
+    private final List<String> nodeFileArguments = new ArrayList<>();
+    private final List<String> relationshipFileArguments = new ArrayList<>();
+
+    // files written while reading input
+    private final CsvFileWriter synapsesToWriter;
+    private final CsvFileWriter synapseSetWriter;
+    private final CsvFileWriter segmentContainsSynapseSetWriter;
+    private final CsvFileWriter synapseSetContainsSynapseWriter;
+    private final CsvFileWriter skeletonWriter;
+    private final CsvFileWriter skelNodeWriter;
+    private final CsvFileWriter segmentContainsSkeletonWriter;
+    private final CsvFileWriter skeletonContainsSkelNodeWriter;
+    private final CsvFileWriter linksToWriter;
+
+    // neurons without their synapse sets, read back by close() to write the Segment nodes
+    private final File neuronSpillFile;
+    private final JsonWriter neuronSpillWriter;
+
+    /**
+     * Class constructor.
+     *
+     * @param outputDirectory                    directory for CSV files (created if it does not exist)
+     * @param dataset                            dataset name
+     * @param dataModelVersion                   version of data model
+     * @param preHPThreshold                     high-precision threshold for presynaptic densities
+     * @param postHPThreshold                    high-precision threshold for postsynaptic densities
+     * @param neuronThreshold                    Neuron must have greater than or equal to neuronThreshold/5 presynaptic densities or greater than or equal to neuronThreshold postsynaptic densities to be given a :Neuron label
+     * @param addConnectionSetRoiInfoAndWeightHP boolean indicating if ConnectionSet nodes should have roiInfo property and weightHP should be added to ConnectsTo relationships
+     * @param addClusterNames                    boolean indicating if an index for clusterName should be added to schema.cypher
+     * @param timeStamp                          time stamp for load
+     */
+    public CsvExporter(final File outputDirectory,
+                       final String dataset,
+                       final float dataModelVersion,
+                       final double preHPThreshold,
+                       final double postHPThreshold,
+                       final long neuronThreshold,
+                       final boolean addConnectionSetRoiInfoAndWeightHP,
+                       final boolean addClusterNames,
+                       final LocalDateTime timeStamp) {
+
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IllegalArgumentException("failed to create CSV export directory " + outputDirectory);
+        }
+
+        this.outputDirectory = outputDirectory;
+        this.dataset = dataset;
+        this.dataModelVersion = dataModelVersion;
+        this.preHPThreshold = preHPThreshold;
+        this.postHPThreshold = postHPThreshold;
+        this.connectomeAggregator = new ConnectomeAggregator(preHPThreshold, postHPThreshold, neuronThreshold);
+        this.addConnectionSetRoiInfoAndWeightHP = addConnectionSetRoiInfoAndWeightHP;
+        this.addClusterNames = addClusterNames;
+        this.timeStamp = timeStamp;
+
+        this.synapsesToWriter = openRelationshipFile("synapsesTo", Arrays.asList(":START_ID(Synapse)", ":END_ID(Synapse)", ":TYPE"));
+        this.synapseSetWriter = openNodeFile("synapseSets", Arrays.asList(":ID(SynapseSet)", "datasetBodyId", "timeStamp:localdatetime", ":LABEL"));
+        this.segmentContainsSynapseSetWriter = openRelationshipFile("segmentContainsSynapseSet", Arrays.asList(":START_ID(Segment)", ":END_ID(SynapseSet)", ":TYPE"));
+        this.synapseSetContainsSynapseWriter = openRelationshipFile("synapseSetContainsSynapse", Arrays.asList(":START_ID(SynapseSet)", ":END_ID(Synapse)", ":TYPE"));
+        this.skeletonWriter = openNodeFile("skeletons", Arrays.asList(":ID(Skeleton)", "skeletonId", "timeStamp:localdatetime", ":LABEL"));
+        this.skelNodeWriter = openNodeFile("skelNodes", Arrays.asList(":ID(SkelNode)", "skelNodeId", "location:point{crs:cartesian-3D}", "locationKey:long", "radius:double", "rowNumber:int", "type:int", "timeStamp:localdatetime", ":LABEL"));
+        this.segmentContainsSkeletonWriter = openRelationshipFile("segmentContainsSkeleton", Arrays.asList(":START_ID(Segment)", ":END_ID(Skeleton)", ":TYPE"));
+        this.skeletonContainsSkelNodeWriter = openRelationshipFile("skeletonContainsSkelNode", Arrays.asList(":START_ID(Skeleton)", ":END_ID(SkelNode)", ":TYPE"));
+        this.linksToWriter = openRelationshipFile("linksTo", Arrays.asList(":START_ID(SkelNode)", ":END_ID(SkelNode)", ":TYPE"));
+
+        try {
+            this.neuronSpillFile = File.createTempFile("neurons-", ".json", outputDirectory);
+            this.neuronSpillWriter = new JsonWriter(Files.newBufferedWriter(neuronSpillFile.toPath(), StandardCharsets.UTF_8));
+            this.neuronSpillWriter.beginArray();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("failed to open neuron spill file in " + outputDirectory, e);
+        }
+    }
+
+    /**
+     * Adds Synapses as specified by a <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">synapses JSON file</a>.
+     * If more than one synapse has the same location, the first one is kept.
+     *
+     * @param synapseList list of {@link Synapse} objects
+     * @throws IllegalStateException if connections, neurons, or skeletons have already been added
+     */
+    @Override
+    public void addSynapses(final List<Synapse> synapseList) {
+        advanceTo(Stage.SYNAPSES);
+        final List<Synapse> addedSynapseList = new ArrayList<>(synapseList.size());
+        for (final Synapse synapse : synapseList) {
+            final Location location = synapse.getLocation();
+            if (!hasSynapse("pre", location) && !hasSynapse("post", location)) {
+                addSynapse(synapse.getType(), location);
+                addedSynapseList.add(synapse);
+            }
+        }
+        writeSynapses(addedSynapseList);
+        connectomeAggregator.addSynapses(synapseList);
+    }
+
+    /**
+     * Adds SynapsesTo relationships as specified by a <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">synaptic connections JSON file</a>.
+     *
+     * Synapses that were not in the synapse file are created without rois (as in the transactional load).
+     *
+     * @param synapticConnectionList list of {@link SynapticConnection} objects
+     * @throws IllegalStateException if neurons or skeletons have already been added
+     */
+    @Override
+    public void addSynapticConnections(final List<SynapticConnection> synapticConnectionList) {
+        advanceTo(Stage.CONNECTIONS);
+        final List<Synapse> addedSynapseList = new ArrayList<>();
+        for (final SynapticConnection connection : synapticConnectionList) {
+            final Location preLocation = connection.getPreLocation();
+            final Location postLocation = connection.getPostLocation();
+            synapsesToWriter.writeRow(getSynapseId("pre", preLocation), getSynapseId("post", postLocation), "SynapsesTo");
+            if (!hasSynapse("pre", preLocation)) {
+                addSynapse("pre", preLocation);
+                addedSynapseList.add(new Synapse("pre", 0.0D, preLocation));
+            }
+            if (!hasSynapse("post", postLocation)) {
+                addSynapse("post", postLocation);
+                addedSynapseList.add(new Synapse("post", 0.0D, postLocation));
+            }
+        }
+        writeSynapses(addedSynapseList);
+        connectomeAggregator.addSynapticConnections(synapticConnectionList);
+    }
+
+    /**
+     * Adds Segments and SynapseSets as specified by a <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">neuron JSON file</a>.
+     * If more than one neuron has the same bodyId, the first one is kept.
+     *
+     * @param neuronList list of {@link Neuron} objects
+     * @throws IllegalStateException if skeletons have already been added
+     */
+    @Override
+    public void addNeurons(final List<Neuron> neuronList) {
+        advanceTo(Stage.NEURONS);
+        final List<Neuron> addedNeuronList = new ArrayList<>(neuronList.size());
+        for (final Neuron neuron : neuronList) {
+            final long bodyId = neuron.getId();
+            if (!neuronBodyIds.add(bodyId)) {
+                LOG.warn("addNeurons: skipping duplicate bodyId {}", bodyId);
+                continue;
+            }
+            addedNeuronList.add(neuron);
+            neuronRois.addAll(neuron.getRois());
+            spillNeuron(neuron);
+
+            final LocationSet synapseLocationSet = neuron.getSynapseLocationSet();
+            if (synapseLocationSet != null && synapseLocationSet.size() > 0) {
+                final String datasetBodyId = dataset + ":" + bodyId;
+                synapseSetBodyIds.add(bodyId);
+                synapseSetWriter.writeRow(datasetBodyId, datasetBodyId, timeStamp, labels("SynapseSet", dataset, dataset + "-SynapseSet"));
+                segmentContainsSynapseSetWriter.writeRow(bodyId, datasetBodyId, "Contains");
+                for (int i = 0; i < synapseLocationSet.size(); i++) {
+                    final Location location = synapseLocationSet.get(i);
+                    for (final String type : new String[]{"pre", "post"}) {
+                        if (hasSynapse(type, location)) {
+                            synapseSetContainsSynapseWriter.writeRow(datasetBodyId, getSynapseId(type, location), "Contains");
+                        }
+                    }
+                }
+            }
+        }
+        connectomeAggregator.addNeurons(addedNeuronList);
+    }
+
+    /**
+     * Adds Skeletons and SkelNodes. Segments are connected to Skeletons via Contains relationships.
+     * Skeletons are connected to SkelNodes via Contains relationships. SkelNodes point to their children with LinksTo
+     * relationships.
+     *
+     * @param skeletonList list of {@link Skeleton} objects
+     */
+    @Override
+    public void addSkeletons(final List<Skeleton> skeletonList) {
+        advanceTo(Stage.SKELETONS);
+        for (final Skeleton skeleton : skeletonList) {
+            final Long bodyId = skeleton.getAssociatedBodyId();
+            final String skeletonId = dataset + ":" + bodyId;
+            if (!skeletonBodyIds.add(bodyId)) {
+                LOG.warn("addSkeletons: skipping duplicate skeleton for bodyId {}", bodyId);
+                continue;
+            }
+            skeletonWriter.writeRow(skeletonId, skeletonId, timeStamp, labels("Skeleton", dataset, dataset + "-Skeleton"));
+            segmentContainsSkeletonWriter.writeRow(bodyId, skeletonId, "Contains");
+            for (final SkelNode skelNode : skeleton.getSkelNodeList()) {
+                final String skelNodeId = skelNode.getSkelNodeId(dataset);
+                skelNodeWriter.writeRow(skelNodeId, skelNodeId, skelNode.getLocationAsPoint(), skelNode.hasLocationKey() ? skelNode.getLocationKey() : null, skelNode.getRadius(), skelNode.getRowNumber(), skelNode.getType(), timeStamp, labels("SkelNode", dataset, dataset + "-SkelNode"));
+                skeletonContainsSkelNodeWriter.writeRow(skeletonId, skelNodeId, "Contains");
+                for (final SkelNode child : skelNode.getChildren()) {
+                    linksToWriter.writeRow(skelNodeId, child.getSkelNodeId(dataset), "LinksTo");
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds meta information to the Meta node.
+     *
+     * @param metaInfo MetaInfo object
+     */
+    @Override
+    public void addMetaInfo(final MetaInfo metaInfo) {
+        this.metaInfo = metaInfo;
+    }
+
+    /**
+     * Computes derived properties, writes the remaining node and relationship files along with the
+     * import.args and schema.cypher files, and closes all files.
+     */
+    @Override
+    public void close() {
+
+        LOG.info("close: entry");
+
+        Arrays.asList(synapsesToWriter, synapseSetWriter, segmentContainsSynapseSetWriter, synapseSetContainsSynapseWriter, skeletonWriter,
+                skelNodeWriter, segmentContainsSkeletonWriter, skeletonContainsSkelNodeWriter, linksToWriter).forEach(CsvFileWriter::close);
+
+        try {
+            neuronSpillWriter.endArray();
+            neuronSpillWriter.close();
+
+            connectomeAggregator.aggregate();
+
+            writeSegments();
+            writeConnectionSets();
+            writeMetaAndDataModel();
+            writeImportArguments();
+            writeSchema(datasetRoiInfo.getSetOfRois());
+        } catch (final IOException e) {
+            throw new UncheckedIOException("failed to read neuron spill file " + neuronSpillFile, e);
+        } finally {
+            if (!neuronSpillFile.delete()) {
+                LOG.warn("close: failed to delete neuron spill file {}", neuronSpillFile);
+            }
+        }
+
+        LOG.info("close: exit, wrote CSV files for neo4j-admin import to {}", outputDirectory);
+    }
+
+    private void advanceTo(final Stage nextStage) {
+        if (nextStage.compareTo(stage) < 0) {
+            throw new IllegalStateException(nextStage.name().toLowerCase() + " cannot be added after " + stage.name().toLowerCase());
+        }
+        stage = nextStage;
+    }
+
+    private boolean hasSynapse(final String type,
+                               final Location location) {
+        if (location.hasLocationKey()) {
+            return (type.equals("pre") ? preSynapseKeys : postSynapseKeys).contains(location.getLocationKey());
+        }
+        return (type.equals("pre") ? unkeyedPreSynapseLocations : unkeyedPostSynapseLocations).contains(location);
+    }
+
+    private void addSynapse(final String type,
+                            final Location location) {
+        if (location.hasLocationKey()) {
+            (type.equals("pre") ? preSynapseKeys : postSynapseKeys).add(location.getLocationKey());
+        } else {
+            (type.equals("pre") ? unkeyedPreSynapseLocations : unkeyedPostSynapseLocations).add(location);
+        }
+    }
+
+    private void spillNeuron(final Neuron neuron) {
+        final Neuron neuronWithoutSynapseSet = new Neuron(neuron.getId(), neuron.getStatus(), neuron.getName(), neuron.getType(), neuron.getInstance(),
+                neuron.getPrimaryNeurite(), neuron.getMajorInput(), neuron.getMajorOutput(), neuron.getClonalUnit(),
+                neuron.getNeurotransmitter(), neuron.getProperty(), neuron.getSize(), neuron.getRois(), neuron.getSoma(), null);
+        JsonUtils.GSON.toJson(neuronWithoutSynapseSet, Neuron.class, neuronSpillWriter);
+    }
+
+    /**
+     * Writes a batch of synapses to a node file of its own, so that the roi columns of its header only need to
+     * cover the rois of the batch.
+     */
+    private void writeSynapses(final List<Synapse> synapseList) {
+
+        if (synapseList.isEmpty()) {
+            return;
+        }
+
+        final Set<String> roiColumns = new TreeSet<>();
+        synapseList.forEach(s -> roiColumns.addAll(s.getRois()));
+
+        final List<String> header = new ArrayList<>(Arrays.asList(":ID(Synapse)", "location:point{crs:cartesian-3D}", "locationKey:long", "type", "confidence:double", "timeStamp:localdatetime"));
+        roiColumns.forEach(roi -> header.add(propertyHeader(roi, "boolean")));
+        header.add(":LABEL");
+
+        try (final CsvFileWriter writer = openNodeFile("synapses-" + synapseFileCount++, header)) {
+            for (final Synapse synapse : synapseList) {
+                final String type = synapse.getType();
+                final Set<String> rois = synapse.getRois();
+                final List<Object> row = new ArrayList<>(header.size());
+                row.add(getSynapseId(type, synapse.getLocation()));
+                row.add(synapse.getLocationAsPoint());
+                // an empty cell leaves locationKey unset for locations that cannot be packed into a key
+                row.add(synapse.getLocation().hasLocationKey() ? synapse.getLocationKey() : null);
+                row.add(type);
+                row.add(synapse.getConfidence());
+                row.add(timeStamp);
+                for (final String roi : roiColumns) {
+                    row.add(rois.contains(roi) ? Boolean.TRUE : null);
+                }
+                if (type.equals("pre")) {
+                    row.add(labels("Synapse", "PreSyn", dataset, dataset + "-Synapse", dataset + "-PreSyn"));
+                    rois.forEach(datasetRoiInfo::incrementPreForRoi);
+                    totalPreCount++;
+                } else {
+                    row.add(labels("Synapse", "PostSyn", dataset, dataset + "-Synapse", dataset + "-PostSyn"));
+                    rois.forEach(datasetRoiInfo::incrementPostForRoi);
+                    totalPostCount++;
+                }
+                writer.writeRow(row);
+            }
+            LOG.info("writeSynapses: wrote {} synapses to {}", writer.getRowCount(), writer.getFile());
+        }
+    }
+
+    private void writeSegments() throws IOException {
+
+        final Map<Long, SegmentConnectivity> segmentMap = new HashMap<>();
+        for (final SegmentConnectivity segment : connectomeAggregator.getSegments()) {
+            segmentMap.put(segment.getBodyId(), segment);
+        }
+
+        final Set<String> roiColumns = new TreeSet<>(datasetRoiInfo.getSetOfRois());
+        roiColumns.addAll(neuronRois);
+
+        final List<String> header = new ArrayList<>(Arrays.asList(":ID(Segment)", "bodyId:long", "name", "type", "instance", "primaryNeurite", "majorInput", "majorOutput",
+                "clonalUnit", "neurotransmitter", "property", "status", "size:long", "somaLocation:point{crs:cartesian-3D}", "somaRadius:double",
+                "pre:long", "post:long", "roiInfo", "clusterName", "timeStamp:localdatetime"));
+        final int timeStampColumn = header.size() - 1;
+        roiColumns.forEach(roi -> header.add(propertyHeader(roi, "boolean")));
+        header.add(":LABEL");
+
+        long neuronCount = 0;
+        try (final CsvFileWriter writer = openNodeFile("segments", header);
+             final JsonReader reader = new JsonReader(Files.newBufferedReader(neuronSpillFile.toPath(), StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                final Neuron neuron = Neuron.fromJsonSingleObject(reader);
+                final SegmentConnectivity segment = segmentMap.get(neuron.getId());
+                final boolean hasSynapseSet = synapseSetBodyIds.contains(neuron.getId());
+
+                final Set<String> rois = new HashSet<>(neuron.getRois());
+                Long pre = null;
+                Long post = null;
+                String roiInfo = null;
+                if (segment != null && segment.hasSynapses()) {
+                    pre = segment.getPre();
+                    post = segment.getPost();
+                    roiInfo = segment.getRoiInfo().getAsJsonString();
+                    rois.addAll(segment.getRoiInfo().getSetOfRois());
+                }
+
+                final boolean isNeuron = hasSynapseSet && segment != null && segment.isNeuron();
+                final String clusterName = isNeuron ? segment.getClusterName() : null;
+
+                final List<Object> row = new ArrayList<>(header.size());
+                row.addAll(Arrays.asList(neuron.getId(), neuron.getId(), neuron.getName(), neuron.getType(), neuron.getInstance(), neuron.getPrimaryNeurite(),
+                        neuron.getMajorInput(), neuron.getMajorOutput(), neuron.getClonalUnit(), neuron.getNeurotransmitter(), neuron.getProperty(),
+                        neuron.getStatus(), neuron.getSize(), neuron.getSomaLocation(), neuron.getSomaRadius(), pre, post, roiInfo, clusterName, timeStamp));
+                for (final String roi : roiColumns) {
+                    row.add(rois.contains(roi) ? Boolean.TRUE : null);
+                }
+                if (isNeuron) {
+                    row.add(labels("Segment", dataset, dataset + "-Segment", "Neuron", dataset + "-Neuron"));
+                    neuronCount++;
+                } else {
+                    row.add(labels("Segment", dataset, dataset + "-Segment"));
+                }
+                writer.writeRow(row);
+            }
+            reader.endArray();
+
+            // segments that only have a skeleton
+            for (final long bodyId : skeletonBodyIds.toSortedArray()) {
+                if (!neuronBodyIds.contains(bodyId)) {
+                    final List<Object> row = new ArrayList<>(header.size());
+                    row.add(bodyId);
+                    row.add(bodyId);
+                    while (row.size() < timeStampColumn) {
+                        row.add(null);
+                    }
+                    row.add(timeStamp);
+                    roiColumns.forEach(roi -> row.add(null));
+                    row.add(labels("Segment", dataset, dataset + "-Segment"));
+                    writer.writeRow(row);
+                }
+            }
+
+            LOG.info("writeSegments: wrote {} segments ({} neurons)", writer.getRowCount(), neuronCount);
+        }
+    }
+
+    private void writeConnectionSets() {
+
+        try (final CsvFileWriter connectionSetWriter = openNodeFile("connectionSets", Arrays.asList(":ID(ConnectionSet)", "datasetBodyIds", "roiInfo", "timeStamp:localdatetime", ":LABEL"));
+             final CsvFileWriter fromWriter = openRelationshipFile("connectionSetFrom", Arrays.asList(":START_ID(ConnectionSet)", ":END_ID(Segment)", ":TYPE"));
+             final CsvFileWriter toWriter = openRelationshipFile("connectionSetTo", Arrays.asList(":START_ID(ConnectionSet)", ":END_ID(Segment)", ":TYPE"));
+             final CsvFileWriter containsWriter = openRelationshipFile("connectionSetContainsSynapse", Arrays.asList(":START_ID(ConnectionSet)", ":END_ID(Synapse)", ":TYPE"));
+             final CsvFileWriter connectsToWriter = openRelationshipFile("connectsTo", Arrays.asList(":START_ID(Segment)", ":END_ID(Segment)", ":TYPE", "weight:int", "weightHP:int"))) {
+
+            for (final ConnectionSetConnectivity connectionSet : connectomeAggregator.getConnectionSets()) {
+                final String datasetBodyIds = connectionSet.getDatasetBodyIds(dataset);
+
+                for (final Location location : connectionSet.getPreSynapseLocations()) {
+                    containsWriter.writeRow(datasetBodyIds, getSynapseId("pre", location), "Contains");
+                }
+                for (final Location location : connectionSet.getPostSynapseLocations()) {
+                    containsWriter.writeRow(datasetBodyIds, getSynapseId("post", location), "Contains");
+                }
+
+                connectionSetWriter.writeRow(datasetBodyIds, datasetBodyIds, addConnectionSetRoiInfoAndWeightHP ? connectionSet.getRoiInfo().getAsJsonString() : null, timeStamp,
+                        labels("ConnectionSet", dataset, dataset + "-ConnectionSet"));
+                fromWriter.writeRow(datasetBodyIds, connectionSet.getPreBodyId(), "From");
+                toWriter.writeRow(datasetBodyIds, connectionSet.getPostBodyId(), "To");
+
+                if (addConnectionSetRoiInfoAndWeightHP) {
+                    // the transactional load removes ConnectsTo relationships without any postsynaptic densities
+                    if (connectionSet.getWeight() > 0) {
+                        connectsToWriter.writeRow(connectionSet.getPreBodyId(), connectionSet.getPostBodyId(), "ConnectsTo", connectionSet.getWeight(), connectionSet.getWeightHP());
+                    }
+                } else {
+                    connectsToWriter.writeRow(connectionSet.getPreBodyId(), connectionSet.getPostBodyId(), "ConnectsTo", connectionSet.getWeight(), null);
+                }
+            }
+
+            LOG.info("writeConnectionSets: wrote {} connection sets and {} ConnectsTo relationships", connectionSetWriter.getRowCount(), connectsToWriter.getRowCount());
+        }
+    }
+
+    private void writeMetaAndDataModel() {
+
+        final MetaInfo info = metaInfo;
+        try (final CsvFileWriter writer = openNodeFile("meta", Arrays.asList(":ID(Meta)", "dataset", "lastDatabaseEdit:localdatetime", "roiInfo", "superLevelRois:string[]",
+                "preHPThreshold:double", "postHPThreshold:double", "totalPreCount:long", "totalPostCount:long",
+                "neuroglancerInfo", "uuid", "dvidServer", "statusDefinitions", "meshHost", "info", ":LABEL"))) {
+            writer.writeRow(dataset, dataset, timeStamp, datasetRoiInfo.getAsJsonString(), connectomeAggregator.getSuperLevelRois(),
+                    addConnectionSetRoiInfoAndWeightHP ? preHPThreshold : null,
+                    addConnectionSetRoiInfoAndWeightHP ? postHPThreshold : null,
+                    totalPreCount, totalPostCount,
+                    info == null ? null : info.getNeuroglancerInfo(),
+                    info == null ? null : info.getUuid(),
+                    info == null ? null : info.getDvidServer(),
+                    info == null ? null : info.getStatusDefinitions(),
+                    info == null ? null : info.getMeshHost(),
+                    info == null ? null : info.getInfo(),
+                    labels("Meta", dataset));
+        }
+
+        try (final CsvFileWriter writer = openNodeFile("dataModel", Arrays.asList(":ID(DataModel)", "dataModelVersion:double", "timeStamp:localdatetime", ":LABEL"))) {
+            writer.writeRow(dataModelVersion, (double) dataModelVersion, timeStamp, labels("DataModel"));
+        }
+
+        try (final CsvFileWriter writer = openRelationshipFile("is", Arrays.asList(":START_ID(Meta)", ":END_ID(DataModel)", ":TYPE"))) {
+            writer.writeRow(dataset, dataModelVersion, "Is");
+        }
+    }
+
+    private void writeImportArguments() {
+        final List<String> lines = new ArrayList<>();
+        lines.add("--id-type=STRING");
+        lines.add("--array-delimiter=" + CsvFileWriter.ARRAY_DELIMITER);
+        lines.add("--multiline-fields=true");
+        lines.addAll(nodeFileArguments);
+        lines.addAll(relationshipFileArguments);
+        writeLines(new File(outputDirectory, "import.args"), lines);
+    }
+
+    private void writeSchema(final Set<String> rois) {
+        final List<String> lines = new ArrayList<>();
+        for (final String statement : Neo4jImporter.getPrepDatabaseStatements(dataset)) {
+            lines.add(statement + ";");
+        }
+        if (addClusterNames) {
+            lines.add(Neo4jImporter.getClusterNameIndexStatement(dataset) + ";");
+        }
+        for (final String statement : Neo4jImporter.getBooleanRoiPropertyIndexStatements(dataset, rois)) {
+            lines.add(statement + ";");
+        }
+        writeLines(new File(outputDirectory, "schema.cypher"), lines);
+    }
+
+    private CsvFileWriter openNodeFile(final String name, final List<String> header) {
+        return openFile(name, header, "--nodes", nodeFileArguments);
+    }
+
+    private CsvFileWriter openRelationshipFile(final String name, final List<String> header) {
+        return openFile(name, header, "--relationships", relationshipFileArguments);
+    }
+
+    private CsvFileWriter openFile(final String name, final List<String> header, final String argumentName, final List<String> arguments) {
+        final File headerFile = new File(outputDirectory, name + "-header.csv");
+        final File dataFile = new File(outputDirectory, name + ".csv");
+        CsvFileWriter.writeHeader(headerFile, header);
+        arguments.add(argumentName + "=" + headerFile.getAbsolutePath() + "," + dataFile.getAbsolutePath());
+        return new CsvFileWriter(dataFile);
+    }
+
+    private static void writeLines(final File file, final List<String> lines) {
+        try {
+            Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("failed to write " + file, e);
+        }
+    }
+
+    private static String getSynapseId(final String type, final Location location) {
+        return type + ":" + location.getX() + ":" + location.getY() + ":" + location.getZ();
+    }
+
+    private static String propertyHeader(final String name, final String type) {
+        // backslash and colon would be interpreted by neo4j-admin import
+        if (name.contains(":")) {
+            throw new IllegalArgumentException("property names containing ':' cannot be exported to CSV: " + name);
+        }
+        return "\"" + name.replace("\"", "\"\"") + ":" + type + "\"";
+    }
+
+    private static String labels(final String... labels) {
+        return String.join(String.valueOf(CsvFileWriter.ARRAY_DELIMITER), labels);
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(CsvExporter.class);
+
+}
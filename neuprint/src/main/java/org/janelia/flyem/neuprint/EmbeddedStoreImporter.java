@@ -0,0 +1,627 @@
+package org.janelia.flyem.neuprint;
+
+import org.janelia.flyem.neuprint.connectome.ConnectionSetConnectivity;
+import org.janelia.flyem.neuprint.connectome.ConnectomeAggregator;
+import org.janelia.flyem.neuprint.connectome.SegmentConnectivity;
+import org.janelia.flyem.neuprint.db.SchemaIndex;
+import org.janelia.flyem.neuprint.model.Location;
+import org.janelia.flyem.neuprint.model.LocationSet;
+import org.janelia.flyem.neuprint.model.MetaInfo;
+import org.janelia.flyem.neuprint.model.Neuron;
+import org.janelia.flyem.neuprint.model.SkelNode;
+import org.janelia.flyem.neuprint.model.Skeleton;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprint.util.LongHashSet;
+import org.janelia.flyem.neuprint.util.LongLongHashMap;
+import org.janelia.flyem.neuprintloadprocedures.model.RoiInfo;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.unsafe.batchinsert.BatchInserter;
+import org.neo4j.unsafe.batchinsert.BatchInserters;
+import org.neo4j.values.storable.CoordinateReferenceSystem;
+import org.neo4j.values.storable.PointValue;
+import org.neo4j.values.storable.Values;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A class for loading neuron, synapse, connection, and skeleton data directly into the store files of a new
+ * database with the neo4j batch inserter, which skips transactions, the query planner, and index maintenance.
+ * This produces the same graph as the transactional load performed by {@link Neo4jImporter}: the properties that
+ * loader.addPropsAndConnectionInfoToSegment adds to the database are computed in-process by a
+ * {@link ConnectomeAggregator} (as in {@link CsvExporter}), and the constraints and indices are created once
+ * all data has been written.
+ * <p>
+ * Nodes are created as the input is added, so data must be added in order: synapses, then connections,
+ * then neurons, then skeletons. Node ids are looked up in primitive maps rather than through indices.
+ * Segment connectivity, ConnectionSets, and the Meta node depend on data from all input files, so they are
+ * written by {@link #close()}, which also shuts down the batch inserter. The database must not be running
+ * while the store is written.
+ */
+public class EmbeddedStoreImporter implements OfflineLoader {
+
+    private static final RelationshipType CONTAINS = RelationshipType.withName("Contains");
+    private static final RelationshipType SYNAPSES_TO = RelationshipType.withName("SynapsesTo");
+    private static final RelationshipType LINKS_TO = RelationshipType.withName("LinksTo");
+    private static final RelationshipType FROM = RelationshipType.withName("From");
+    private static final RelationshipType TO = RelationshipType.withName("To");
+    private static final RelationshipType CONNECTS_TO = RelationshipType.withName("ConnectsTo");
+    private static final RelationshipType IS = RelationshipType.withName("Is");
+
+    private enum Stage {SYNAPSES, CONNECTIONS, NEURONS, SKELETONS}
+
+    private final BatchInserter inserter;
+    private final File storeDirectory;
+    private final String dataset;
+    private final float dataModelVersion;
+    private final double preHPThreshold;
+    private final double postHPThreshold;
+    private final boolean addConnectionSetRoiInfoAndWeightHP;
+    private final boolean addClusterNames;
+    private final LocalDateTime timeStamp;
+
+    private final Label[] preSynapseLabels;
+    private final Label[] postSynapseLabels;
+    private final Label[] segmentLabels;
+    private final Label[] neuronLabels;
+    private final Label synapseLabel;
+
+    private final ConnectomeAggregator connectomeAggregator;
+
+    // node ids by location key and body id
+    private final LongLongHashMap preSynapseNodeIds = new LongLongHashMap(1 << 16);
+    private final LongLongHashMap postSynapseNodeIds = new LongLongHashMap(1 << 16);
+    private final LongLongHashMap bareSynapseNodeIds = new LongLongHashMap();
+    private final LongLongHashMap segmentNodeIds = new LongLongHashMap(1 << 12);
+    // node ids of synapses whose locations cannot be packed into a location key
+    private final Map<Location, Long> unkeyedPreSynapseNodeIds = new HashMap<>();
+    private final Map<Location, Long> unkeyedPostSynapseNodeIds = new HashMap<>();
+    private final Map<Location, Long> unkeyedBareSynapseNodeIds = new HashMap<>();
+    private final LongHashSet synapsesTo = new LongHashSet(1 << 16);
+    private final LongHashSet synapseSetBodyIds = new LongHashSet(1 << 12);
+    private final LongHashSet skeletonBodyIds = new LongHashSet();
+
+    private final RoiInfo datasetRoiInfo = new RoiInfo();
+    private long totalPreCount = 0;
+    private long totalPostCount = 0;
+    private MetaInfo metaInfo;
+    private Stage stage = Stage.SYNAPSES;
+
+    /**
+     * Class constructor.
+     *
+     * @param storeDirectory                     database directory for the new store (e.g. data/databases/graph.db), which must not contain a store yet
+     * @param dataset                            dataset name
+     * @param dataModelVersion                   version of data model
+     * @param preHPThreshold                     high-precision threshold for presynaptic densities
+     * @param postHPThreshold                    high-precision threshold for postsynaptic densities
+     * @param neuronThreshold                    Neuron must have greater than or equal to neuronThreshold/5 presynaptic densities or greater than or equal to neuronThreshold postsynaptic densities to be given a :Neuron label
+     * @param addConnectionSetRoiInfoAndWeightHP boolean indicating if ConnectionSet nodes should have roiInfo property and weightHP should be added to ConnectsTo relationships
+     * @param addClusterNames                    boolean indicating if an index for clusterName should be created
+     * @param timeStamp                          time stamp for load
+     * @throws IOException              if the batch inserter cannot open the store
+     * @throws IllegalArgumentException if the directory already contains a store
+     */
+    public EmbeddedStoreImporter(final File storeDirectory,
+                                 final String dataset,
+                                 final float dataModelVersion,
+                                 final double preHPThreshold,
+                                 final double postHPThreshold,
+                                 final long neuronThreshold,
+                                 final boolean addConnectionSetRoiInfoAndWeightHP,
+                                 final boolean addClusterNames,
+                                 final LocalDateTime timeStamp) throws IOException {
+
+        if (new File(storeDirectory, "neostore").exists()) {
+            throw new IllegalArgumentException("embedded store directory " + storeDirectory + " already contains a store");
+        }
+
+        this.storeDirectory = storeDirectory;
+        this.dataset = dataset;
+        this.dataModelVersion = dataModelVersion;
+        this.preHPThreshold = preHPThreshold;
+        this.postHPThreshold = postHPThreshold;
+        this.connectomeAggregator = new ConnectomeAggregator(preHPThreshold, postHPThreshold, neuronThreshold);
+        this.addConnectionSetRoiInfoAndWeightHP = addConnectionSetRoiInfoAndWeightHP;
+        this.addClusterNames = addClusterNames;
+        this.timeStamp = timeStamp;
+
+        this.preSynapseLabels = labels("Synapse", "PreSyn", dataset, dataset + "-Synapse", dataset + "-PreSyn");
+        this.postSynapseLabels = labels("Synapse", "PostSyn", dataset, dataset + "-Synapse", dataset + "-PostSyn");
+        this.segmentLabels = labels("Segment", dataset, dataset + "-Segment");
+        this.neuronLabels = labels("Segment", dataset, dataset + "-Segment", "Neuron", dataset + "-Neuron");
+        this.synapseLabel = Label.label(dataset + "-Synapse");
+
+        this.inserter = BatchInserters.inserter(storeDirectory);
+    }
+
+    /**
+     * Adds Synapses as specified by a <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">synapses JSON file</a>.
+     * If more than one synapse has the same location, the first one is kept.
+     *
+     * @param synapseList list of {@link Synapse} objects
+     * @throws IllegalStateException if connections, neurons, or skeletons have already been added
+     */
+    @Override
+    public void addSynapses(final List<Synapse> synapseList) {
+        advanceTo(Stage.SYNAPSES);
+        for (final Synapse synapse : synapseList) {
+            final Location location = synapse.getLocation();
+            if (getSynapseNodeId("pre", location) >= 0 || getSynapseNodeId("post", location) >= 0) {
+                continue;
+            }
+            final Map<String, Object> properties = synapseProperties(synapse.getType(), synapse.getConfidence(), synapse.getLocation());
+            for (final String roi : synapse.getRois()) {
+                properties.put(roi, Boolean.TRUE);
+            }
+            if (synapse.getType().equals("pre")) {
+                putSynapseNodeId("pre", location, inserter.createNode(properties, preSynapseLabels));
+                synapse.getRois().forEach(datasetRoiInfo::incrementPreForRoi);
+                totalPreCount++;
+            } else {
+                putSynapseNodeId("post", location, inserter.createNode(properties, postSynapseLabels));
+                synapse.getRois().forEach(datasetRoiInfo::incrementPostForRoi);
+                totalPostCount++;
+            }
+        }
+        connectomeAggregator.addSynapses(synapseList);
+    }
+
+    /**
+     * Adds SynapsesTo relationships as specified by a <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">synaptic connections JSON file</a>.
+     * Synapses that were not in the synapse file are created without rois (as in the transactional load).
+     *
+     * @param synapticConnectionList list of {@link SynapticConnection} objects
+     * @throws IllegalStateException if neurons or skeletons have already been added
+     */
+    @Override
+    public void addSynapticConnections(final List<SynapticConnection> synapticConnectionList) {
+        advanceTo(Stage.CONNECTIONS);
+        for (final SynapticConnection connection : synapticConnectionList) {
+            final long preNodeId = getOrCreateSynapseNode("pre", connection.getPreLocation());
+            final long postNodeId = getOrCreateSynapseNode("post", connection.getPostLocation());
+            if (synapsesTo.add(packNodeIds(preNodeId, postNodeId))) {
+                inserter.createRelationship(preNodeId, postNodeId, SYNAPSES_TO, null);
+            }
+        }
+        connectomeAggregator.addSynapticConnections(synapticConnectionList);
+    }
+
+    /**
+     * Adds Segments and SynapseSets as specified by a <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">neuron JSON file</a>.
+     * If more than one neuron has the same bodyId, the first one is kept.
+     *
+     * @param neuronList list of {@link Neuron} objects
+     * @throws IllegalStateException if skeletons have already been added
+     */
+    @Override
+    public void addNeurons(final List<Neuron> neuronList) {
+        advanceTo(Stage.NEURONS);
+        final List<Neuron> addedNeuronList = new ArrayList<>(neuronList.size());
+        for (final Neuron neuron : neuronList) {
+            final long bodyId = neuron.getId();
+            if (segmentNodeIds.containsKey(bodyId)) {
+                LOG.warn("addNeurons: skipping duplicate bodyId {}", bodyId);
+                continue;
+            }
+            addedNeuronList.add(neuron);
+
+            final Map<String, Object> properties = new HashMap<>();
+            properties.put("bodyId", bodyId);
+            putIfNotNull(properties, "name", neuron.getName());
+            putIfNotNull(properties, "type", neuron.getType());
+            putIfNotNull(properties, "instance", neuron.getInstance());
+            putIfNotNull(properties, "primaryNeurite", neuron.getPrimaryNeurite());
+            putIfNotNull(properties, "majorInput", neuron.getMajorInput());
+            putIfNotNull(properties, "majorOutput", neuron.getMajorOutput());
+            putIfNotNull(properties, "clonalUnit", neuron.getClonalUnit());
+            putIfNotNull(properties, "neurotransmitter", neuron.getNeurotransmitter());
+            putIfNotNull(properties, "property", neuron.getProperty());
+            putIfNotNull(properties, "status", neuron.getStatus());
+            putIfNotNull(properties, "size", neuron.getSize());
+            if (neuron.getSomaLocation() != null) {
+                properties.put("somaLocation", point(neuron.getSomaLocation().x(), neuron.getSomaLocation().y(), neuron.getSomaLocation().z()));
+            }
+            putIfNotNull(properties, "somaRadius", neuron.getSomaRadius());
+            for (final String roi : neuron.getRois()) {
+                properties.put(roi, Boolean.TRUE);
+            }
+            properties.put("timeStamp", timeStamp);
+            final long segmentNodeId = inserter.createNode(properties, segmentLabels);
+            segmentNodeIds.put(bodyId, segmentNodeId);
+
+            final LocationSet synapseLocationSet = neuron.getSynapseLocationSet();
+            if (synapseLocationSet != null && synapseLocationSet.size() > 0) {
+                final Map<String, Object> synapseSetProperties = new HashMap<>();
+                synapseSetProperties.put("datasetBodyId", dataset + ":" + bodyId);
+                synapseSetProperties.put("timeStamp", timeStamp);
+                final long synapseSetNodeId = inserter.createNode(synapseSetProperties, labels("SynapseSet", dataset, dataset + "-SynapseSet"));
+                inserter.createRelationship(segmentNodeId, synapseSetNodeId, CONTAINS, null);
+                synapseSetBodyIds.add(bodyId);
+                for (int i = 0; i < synapseLocationSet.size(); i++) {
+                    if (synapseLocationSet.hasLocationKey(i)) {
+                        addSynapseSetMember(synapseSetNodeId, synapseLocationSet.getLocationKey(i));
+                    } else {
+                        addSynapseSetMember(synapseSetNodeId, synapseLocationSet.get(i));
+                    }
+                }
+            }
+        }
+        connectomeAggregator.addNeurons(addedNeuronList);
+    }
+
+    private void addSynapseSetMember(final long synapseSetNodeId,
+                                     final long locationKey) {
+        final long preNodeId = preSynapseNodeIds.getOrDefault(locationKey, -1L);
+        final long postNodeId = postSynapseNodeIds.getOrDefault(locationKey, -1L);
+        if (preNodeId >= 0) {
+            inserter.createRelationship(synapseSetNodeId, preNodeId, CONTAINS, null);
+        }
+        if (postNodeId >= 0) {
+            inserter.createRelationship(synapseSetNodeId, postNodeId, CONTAINS, null);
+        }
+        if (preNodeId < 0 && postNodeId < 0) {
+            // the transactional load merges a Synapse node with only a locationKey for an unknown location
+            long bareNodeId = bareSynapseNodeIds.getOrDefault(locationKey, -1L);
+            if (bareNodeId < 0) {
+                final Map<String, Object> properties = new HashMap<>();
+                properties.put("locationKey", locationKey);
+                bareNodeId = inserter.createNode(properties, synapseLabel);
+                bareSynapseNodeIds.put(locationKey, bareNodeId);
+            }
+            inserter.createRelationship(synapseSetNodeId, bareNodeId, CONTAINS, null);
+        }
+    }
+
+    private void addSynapseSetMember(final long synapseSetNodeId,
+                                     final Location location) {
+        final long preNodeId = unkeyedPreSynapseNodeIds.getOrDefault(location, -1L);
+        final long postNodeId = unkeyedPostSynapseNodeIds.getOrDefault(location, -1L);
+        if (preNodeId >= 0) {
+            inserter.createRelationship(synapseSetNodeId, preNodeId, CONTAINS, null);
+        }
+        if (postNodeId >= 0) {
+            inserter.createRelationship(synapseSetNodeId, postNodeId, CONTAINS, null);
+        }
+        if (preNodeId < 0 && postNodeId < 0) {
+            // the transactional load merges a Synapse node with only a location for an unknown location without a key
+            Long bareNodeId = unkeyedBareSynapseNodeIds.get(location);
+            if (bareNodeId == null) {
+                final Map<String, Object> properties = new HashMap<>();
+                properties.put("location", point(location.getX(), location.getY(), location.getZ()));
+                bareNodeId = inserter.createNode(properties, synapseLabel);
+                unkeyedBareSynapseNodeIds.put(location, bareNodeId);
+            }
+            inserter.createRelationship(synapseSetNodeId, bareNodeId, CONTAINS, null);
+        }
+    }
+
+    /**
+     * Adds Skeletons and SkelNodes. Segments are connected to Skeletons via Contains relationships.
+     * Skeletons are connected to SkelNodes via Contains relationships. SkelNodes point to their children with LinksTo
+     * relationships. A Segment is created for skeletons without a neuron.
+     *
+     * @param skeletonList list of {@link Skeleton} objects
+     */
+    @Override
+    public void addSkeletons(final List<Skeleton> skeletonList) {
+        advanceTo(Stage.SKELETONS);
+        final Label[] skelNodeLabels = labels("SkelNode", dataset, dataset + "-SkelNode");
+        for (final Skeleton skeleton : skeletonList) {
+            final long bodyId = skeleton.getAssociatedBodyId();
+            if (!skeletonBodyIds.add(bodyId)) {
+                LOG.warn("addSkeletons: skipping duplicate skeleton for bodyId {}", bodyId);
+                continue;
+            }
+
+            long segmentNodeId = segmentNodeIds.getOrDefault(bodyId, -1L);
+            if (segmentNodeId < 0) {
+                final Map<String, Object> segmentProperties = new HashMap<>();
+                segmentProperties.put("bodyId", bodyId);
+                segmentProperties.put("timeStamp", timeStamp);
+                segmentNodeId = inserter.createNode(segmentProperties, segmentLabels);
+                segmentNodeIds.put(bodyId, segmentNodeId);
+            }
+
+            final Map<String, Object> skeletonProperties = new HashMap<>();
+            skeletonProperties.put("skeletonId", dataset + ":" + bodyId);
+            skeletonProperties.put("timeStamp", timeStamp);
+            final long skeletonNodeId = inserter.createNode(skeletonProperties, labels("Skeleton", dataset, dataset + "-Skeleton"));
+            inserter.createRelationship(segmentNodeId, skeletonNodeId, CONTAINS, null);
+
+            // SkelNodes and LinksTo relationships are merged in the transactional load, so each is only created once
+            final Map<String, Long> skelNodeIds = new HashMap<>();
+            for (final SkelNode skelNode : skeleton.getSkelNodeList()) {
+                final String skelNodeId = skelNode.getSkelNodeId(dataset);
+                if (!skelNodeIds.containsKey(skelNodeId)) {
+                    final Map<String, Object> properties = new HashMap<>();
+                    properties.put("skelNodeId", skelNodeId);
+                    properties.put("location", point(skelNode.getX(), skelNode.getY(), skelNode.getZ()));
+                    if (skelNode.hasLocationKey()) {
+                        properties.put("locationKey", skelNode.getLocationKey());
+                    }
+                    putIfNotNull(properties, "radius", skelNode.getRadius());
+                    // the driver sends integers as longs in the transactional load
+                    properties.put("rowNumber", (long) skelNode.getRowNumber());
+                    properties.put("type", (long) skelNode.getType());
+                    properties.put("timeStamp", timeStamp);
+                    final long nodeId = inserter.createNode(properties, skelNodeLabels);
+                    skelNodeIds.put(skelNodeId, nodeId);
+                    inserter.createRelationship(skeletonNodeId, nodeId, CONTAINS, null);
+                }
+            }
+            final Set<List<Long>> linkedNodeIds = new HashSet<>();
+            for (final SkelNode skelNode : skeleton.getSkelNodeList()) {
+                final long parentNodeId = skelNodeIds.get(skelNode.getSkelNodeId(dataset));
+                for (final SkelNode child : skelNode.getChildren()) {
+                    final Long childNodeId = skelNodeIds.get(child.getSkelNodeId(dataset));
+                    // the transactional load merges LinksTo without a direction
+                    if (childNodeId != null && linkedNodeIds.add(Arrays.asList(Math.min(parentNodeId, childNodeId), Math.max(parentNodeId, childNodeId)))) {
+                        inserter.createRelationship(parentNodeId, childNodeId, LINKS_TO, null);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds meta information to the Meta node.
+     *
+     * @param metaInfo MetaInfo object
+     */
+    @Override
+    public void addMetaInfo(final MetaInfo metaInfo) {
+        this.metaInfo = metaInfo;
+    }
+
+    /**
+     * Computes derived properties, writes Segment connectivity, ConnectionSets, and the Meta and DataModel nodes,
+     * creates the constraints and indices, and shuts down the batch inserter (which builds the indices).
+     */
+    @Override
+    public void close() {
+
+        LOG.info("close: entry");
+
+        try {
+            connectomeAggregator.aggregate();
+            writeSegmentConnectivity();
+            writeConnectionSets();
+            writeMetaAndDataModel();
+            createIndexes();
+        } finally {
+            inserter.shutdown();
+        }
+
+        LOG.info("close: exit, wrote store in {}", storeDirectory);
+    }
+
+    private void writeSegmentConnectivity() {
+
+        long neuronCount = 0;
+        for (final SegmentConnectivity segment : connectomeAggregator.getSegments()) {
+            final long segmentNodeId = segmentNodeIds.getOrDefault(segment.getBodyId(), -1L);
+            if (segmentNodeId < 0) {
+                continue;
+            }
+            if (segment.hasSynapses()) {
+                inserter.setNodeProperty(segmentNodeId, "pre", segment.getPre());
+                inserter.setNodeProperty(segmentNodeId, "post", segment.getPost());
+                inserter.setNodeProperty(segmentNodeId, "roiInfo", segment.getRoiInfo().getAsJsonString());
+                for (final String roi : segment.getRoiInfo().getSetOfRois()) {
+                    inserter.setNodeProperty(segmentNodeId, roi, Boolean.TRUE);
+                }
+            }
+            if (synapseSetBodyIds.contains(segment.getBodyId()) && segment.isNeuron()) {
+                inserter.setNodeLabels(segmentNodeId, neuronLabels);
+                if (segment.getClusterName() != null) {
+                    inserter.setNodeProperty(segmentNodeId, "clusterName", segment.getClusterName());
+                }
+                neuronCount++;
+            }
+        }
+
+        LOG.info("writeSegmentConnectivity: wrote {} segments ({} neurons)", segmentNodeIds.size(), neuronCount);
+    }
+
+    private void writeConnectionSets() {
+
+        final Label[] connectionSetLabels = labels("ConnectionSet", dataset, dataset + "-ConnectionSet");
+        long connectionSetCount = 0;
+        long connectsToCount = 0;
+        for (final ConnectionSetConnectivity connectionSet : connectomeAggregator.getConnectionSets()) {
+            final long preSegmentNodeId = getSegmentNodeId(connectionSet.getPreBodyId());
+            final long postSegmentNodeId = getSegmentNodeId(connectionSet.getPostBodyId());
+
+            final Map<String, Object> properties = new HashMap<>();
+            properties.put("datasetBodyIds", connectionSet.getDatasetBodyIds(dataset));
+            if (addConnectionSetRoiInfoAndWeightHP) {
+                properties.put("roiInfo", connectionSet.getRoiInfo().getAsJsonString());
+            }
+            properties.put("timeStamp", timeStamp);
+            final long connectionSetNodeId = inserter.createNode(properties, connectionSetLabels);
+            connectionSetCount++;
+
+            inserter.createRelationship(connectionSetNodeId, preSegmentNodeId, FROM, null);
+            inserter.createRelationship(connectionSetNodeId, postSegmentNodeId, TO, null);
+            // every synapse in a connection set was created by addSynapticConnections
+            for (final long locationKey : connectionSet.getPreSynapseKeys()) {
+                inserter.createRelationship(connectionSetNodeId, preSynapseNodeIds.getOrDefault(locationKey, -1L), CONTAINS, null);
+            }
+            for (final long locationKey : connectionSet.getPostSynapseKeys()) {
+                inserter.createRelationship(connectionSetNodeId, postSynapseNodeIds.getOrDefault(locationKey, -1L), CONTAINS, null);
+            }
+            for (final Location location : connectionSet.getUnkeyedPreSynapseLocations()) {
+                inserter.createRelationship(connectionSetNodeId, unkeyedPreSynapseNodeIds.get(location), CONTAINS, null);
+            }
+            for (final Location location : connectionSet.getUnkeyedPostSynapseLocations()) {
+                inserter.createRelationship(connectionSetNodeId, unkeyedPostSynapseNodeIds.get(location), CONTAINS, null);
+            }
+
+            final Map<String, Object> connectsToProperties = new HashMap<>();
+            connectsToProperties.put("weight", (long) connectionSet.getWeight());
+            if (addConnectionSetRoiInfoAndWeightHP) {
+                // the transactional load removes ConnectsTo relationships without any postsynaptic densities
+                if (connectionSet.getWeight() == 0) {
+                    continue;
+                }
+                connectsToProperties.put("weightHP", (long) connectionSet.getWeightHP());
+            }
+            inserter.createRelationship(preSegmentNodeId, postSegmentNodeId, CONNECTS_TO, connectsToProperties);
+            connectsToCount++;
+        }
+
+        LOG.info("writeConnectionSets: wrote {} connection sets and {} ConnectsTo relationships", connectionSetCount, connectsToCount);
+    }
+
+    private void writeMetaAndDataModel() {
+
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("dataset", dataset);
+        properties.put("lastDatabaseEdit", timeStamp);
+        properties.put("roiInfo", datasetRoiInfo.getAsJsonString());
+        properties.put("superLevelRois", connectomeAggregator.getSuperLevelRois().toArray(new String[0]));
+        if (addConnectionSetRoiInfoAndWeightHP) {
+            properties.put("preHPThreshold", preHPThreshold);
+            properties.put("postHPThreshold", postHPThreshold);
+        }
+        properties.put("totalPreCount", totalPreCount);
+        properties.put("totalPostCount", totalPostCount);
+        if (metaInfo != null) {
+            putIfNotNull(properties, "neuroglancerInfo", metaInfo.getNeuroglancerInfo());
+            putIfNotNull(properties, "uuid", metaInfo.getUuid());
+            putIfNotNull(properties, "dvidServer", metaInfo.getDvidServer());
+            putIfNotNull(properties, "statusDefinitions", metaInfo.getStatusDefinitions());
+            putIfNotNull(properties, "meshHost", metaInfo.getMeshHost());
+            putIfNotNull(properties, "info", metaInfo.getInfo());
+        }
+        final long metaNodeId = inserter.createNode(properties, labels("Meta", dataset));
+
+        final Map<String, Object> dataModelProperties = new HashMap<>();
+        dataModelProperties.put("dataModelVersion", (double) dataModelVersion);
+        dataModelProperties.put("timeStamp", timeStamp);
+        final long dataModelNodeId = inserter.createNode(dataModelProperties, labels("DataModel"));
+
+        inserter.createRelationship(metaNodeId, dataModelNodeId, IS, null);
+    }
+
+    private void createIndexes() {
+        final List<SchemaIndex> indexes = new ArrayList<>(Neo4jImporter.getPrepDatabaseIndexes(dataset));
+        if (addClusterNames) {
+            indexes.add(Neo4jImporter.getClusterNameIndex(dataset));
+        }
+        indexes.addAll(Neo4jImporter.getBooleanRoiPropertyIndexes(dataset, datasetRoiInfo.getSetOfRois()));
+        for (final SchemaIndex index : indexes) {
+            if (index.isUnique()) {
+                inserter.createDeferredConstraint(Label.label(index.getLabel())).assertPropertyIsUnique(index.getProperty()).create();
+            } else {
+                inserter.createDeferredSchemaIndex(Label.label(index.getLabel())).on(index.getProperty()).create();
+            }
+        }
+        LOG.info("createIndexes: created {} constraints and indices", indexes.size());
+    }
+
+    private void advanceTo(final Stage nextStage) {
+        if (nextStage.compareTo(stage) < 0) {
+            throw new IllegalStateException(nextStage.name().toLowerCase() + " cannot be added after " + stage.name().toLowerCase());
+        }
+        stage = nextStage;
+    }
+
+    private long getOrCreateSynapseNode(final String type,
+                                        final Location location) {
+        long nodeId = getSynapseNodeId(type, location);
+        if (nodeId < 0) {
+            nodeId = inserter.createNode(synapseProperties(type, 0.0D, location), type.equals("pre") ? preSynapseLabels : postSynapseLabels);
+            putSynapseNodeId(type, location, nodeId);
+            if (type.equals("pre")) {
+                totalPreCount++;
+            } else {
+                totalPostCount++;
+            }
+        }
+        return nodeId;
+    }
+
+    private long getSynapseNodeId(final String type,
+                                  final Location location) {
+        if (location.hasLocationKey()) {
+            return (type.equals("pre") ? preSynapseNodeIds : postSynapseNodeIds).getOrDefault(location.getLocationKey(), -1L);
+        }
+        return (type.equals("pre") ? unkeyedPreSynapseNodeIds : unkeyedPostSynapseNodeIds).getOrDefault(location, -1L);
+    }
+
+    private void putSynapseNodeId(final String type,
+                                  final Location location,
+                                  final long nodeId) {
+        if (location.hasLocationKey()) {
+            (type.equals("pre") ? preSynapseNodeIds : postSynapseNodeIds).put(location.getLocationKey(), nodeId);
+        } else {
+            (type.equals("pre") ? unkeyedPreSynapseNodeIds : unkeyedPostSynapseNodeIds).put(location, nodeId);
+        }
+    }
+
+    private long getSegmentNodeId(final long bodyId) {
+        final long nodeId = segmentNodeIds.getOrDefault(bodyId, -1L);
+        if (nodeId < 0) {
+            throw new IllegalStateException("no neuron was added for connected bodyId " + bodyId);
+        }
+        return nodeId;
+    }
+
+    private Map<String, Object> synapseProperties(final String type,
+                                                  final double confidence,
+                                                  final Location location) {
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("location", point(location.getX(), location.getY(), location.getZ()));
+        // the transactional load leaves locationKey unset for locations that cannot be packed into a key
+        if (location.hasLocationKey()) {
+            properties.put("locationKey", location.getLocationKey());
+        }
+        properties.put("type", type);
+        properties.put("confidence", confidence);
+        properties.put("timeStamp", timeStamp);
+        return properties;
+    }
+
+    private static long packNodeIds(final long preNodeId,
+                                    final long postNodeId) {
+        if (preNodeId > 0xFFFFFFFFL || postNodeId > 0xFFFFFFFFL) {
+            throw new IllegalStateException("synapse node ids must fit in 32 bits");
+        }
+        return (preNodeId << 32) | postNodeId;
+    }
+
+    private static PointValue point(final double x,
+                                    final double y,
+                                    final double z) {
+        return Values.pointValue(CoordinateReferenceSystem.Cartesian_3D, x, y, z);
+    }
+
+    private static void putIfNotNull(final Map<String, Object> properties,
+                                     final String key,
+                                     final Object value) {
+        if (value != null) {
+            properties.put(key, value);
+        }
+    }
+
+    private static Label[] labels(final String... names) {
+        return Arrays.stream(names).map(Label::label).toArray(Label[]::new);
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmbeddedStoreImporter.class);
+
+}
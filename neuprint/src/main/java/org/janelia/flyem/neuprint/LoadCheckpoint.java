@@ -0,0 +1,150 @@
+package org.janelia.flyem.neuprint;
+
+import org.janelia.flyem.neuprint.json.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records the progress of a load in a JSON file so that a failed load can be resumed with --resume.
+ * For each stage, the number of records (JSON objects or swc files, in file order) that have been committed
+ * to the database is saved after every batch. Since the load statements MERGE nodes and relationships,
+ * re-running a partially committed batch after a failure is safe.
+ */
+public class LoadCheckpoint {
+
+    /**
+     * Stages of a load, in the order they are run.
+     */
+    public enum Stage {
+        SYNAPSES, CONNECTIONS, NEURONS, SKELETONS
+    }
+
+    private transient File file;
+    private final String timeStamp;
+    private final Map<Stage, Long> committedRecordCounts = new LinkedHashMap<>();
+    private final Set<Stage> completedStages = EnumSet.noneOf(Stage.class);
+
+    private LoadCheckpoint(final File file, final LocalDateTime timeStamp) {
+        this.file = file;
+        this.timeStamp = timeStamp.toString();
+    }
+
+    /**
+     * Creates a checkpoint for a new load, replacing any existing checkpoint file.
+     *
+     * @param file      checkpoint file
+     * @param timeStamp time stamp for load
+     * @return new checkpoint
+     */
+    public static LoadCheckpoint start(final File file, final LocalDateTime timeStamp) {
+        final LoadCheckpoint checkpoint = new LoadCheckpoint(file, timeStamp);
+        checkpoint.save();
+        return checkpoint;
+    }
+
+    /**
+     * Reads the checkpoint of a previous load.
+     *
+     * @param file checkpoint file
+     * @return checkpoint of previous load
+     */
+    public static LoadCheckpoint resume(final File file) {
+        final LoadCheckpoint checkpoint;
+        try (final BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            checkpoint = JsonUtils.GSON.fromJson(reader, LoadCheckpoint.class);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("failed to read checkpoint file " + file, e);
+        }
+        if (checkpoint == null || checkpoint.timeStamp == null) {
+            throw new IllegalArgumentException("invalid checkpoint file " + file);
+        }
+        checkpoint.file = file;
+        LOG.info("resume: resuming load with checkpoint {}", checkpoint);
+        return checkpoint;
+    }
+
+    /**
+     * @return time stamp of the load, which is reused when the load is resumed
+     */
+    public LocalDateTime getTimeStamp() {
+        return LocalDateTime.parse(timeStamp);
+    }
+
+    /**
+     * @return true if any records have been committed (in which case the database has been initialized)
+     */
+    public boolean hasProgress() {
+        return !committedRecordCounts.isEmpty() || !completedStages.isEmpty();
+    }
+
+    /**
+     * @param stage stage of load
+     * @return number of records for the stage that have been committed to the database
+     */
+    public long getCommittedRecordCount(final Stage stage) {
+        return committedRecordCounts.getOrDefault(stage, 0L);
+    }
+
+    /**
+     * @param stage stage of load
+     * @return true if all records for the stage have been committed to the database
+     */
+    public boolean isComplete(final Stage stage) {
+        return completedStages.contains(stage);
+    }
+
+    /**
+     * Records that a batch has been committed and saves the checkpoint.
+     *
+     * @param stage                stage of load
+     * @param committedRecordCount total number of records for the stage that have been committed, including this batch
+     */
+    public void recordCommittedBatch(final Stage stage, final long committedRecordCount) {
+        committedRecordCounts.put(stage, committedRecordCount);
+        save();
+    }
+
+    /**
+     * Records that all records for a stage have been committed and saves the checkpoint.
+     *
+     * @param stage stage of load
+     */
+    public void markComplete(final Stage stage) {
+        completedStages.add(stage);
+        save();
+    }
+
+    private void save() {
+        // write to a temporary file first so that a failure while saving leaves the previous checkpoint intact
+        final Path path = file.toPath().toAbsolutePath();
+        final Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.write(temporaryPath, JsonUtils.GSON.toJson(this).getBytes(StandardCharsets.UTF_8));
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("failed to write checkpoint file " + file, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LoadCheckpoint{timeStamp=" + timeStamp + ", committedRecordCounts=" + committedRecordCounts + ", completedStages=" + completedStages + "}";
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadCheckpoint.class);
+
+}
@@ -2,40 +2,58 @@ package org.janelia.flyem.neuprint;
 
 import com.google.common.reflect.TypeToken;
 import com.google.gson.Gson;
+import org.janelia.flyem.neuprint.connectome.ConnectionSetConnectivity;
+import org.janelia.flyem.neuprint.connectome.ConnectomeAggregator;
+import org.janelia.flyem.neuprint.connectome.SegmentConnectivity;
+import org.janelia.flyem.neuprint.db.CypherTemplateRegistry;
 import org.janelia.flyem.neuprint.db.DbConfig;
 import org.janelia.flyem.neuprint.db.DbTransactionBatch;
 import org.janelia.flyem.neuprint.db.StdOutTransactionBatch;
 import org.janelia.flyem.neuprint.db.TransactionBatch;
+import org.janelia.flyem.neuprint.db.TransactionFlowControl;
+import org.janelia.flyem.neuprint.db.PairPartitionSchedule;
+import org.janelia.flyem.neuprint.db.PartitionedUnwindBatch;
+import org.janelia.flyem.neuprint.db.SchemaIndex;
+import org.janelia.flyem.neuprint.db.SchemaManager;
+import org.janelia.flyem.neuprint.db.UnwindStatement;
 import org.janelia.flyem.neuprint.model.Location;
+import org.janelia.flyem.neuprint.model.LocationSet;
 import org.janelia.flyem.neuprint.model.MetaInfo;
 import org.janelia.flyem.neuprint.model.Neuron;
 import org.janelia.flyem.neuprint.model.SkelNode;
 import org.janelia.flyem.neuprint.model.Skeleton;
 import org.janelia.flyem.neuprint.model.Synapse;
 import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprintloadprocedures.SpatialKey;
 import org.janelia.flyem.neuprintloadprocedures.model.RoiInfo;
 import org.janelia.flyem.neuprintloadprocedures.model.SynapseCounter;
 import org.neo4j.driver.v1.AuthTokens;
 import org.neo4j.driver.v1.Driver;
 import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Record;
 import org.neo4j.driver.v1.Session;
 import org.neo4j.driver.v1.Statement;
 import org.neo4j.driver.v1.StatementResult;
 import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.types.Point;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import static org.neo4j.driver.v1.Values.parameters;
 
@@ -47,6 +65,11 @@ public class Neo4jImporter implements AutoCloseable {
     private final Driver driver;
     private final int statementsPerTransaction;
     private final int connectionInfoStatementsPerTransaction;
+    private final int writerThreads;
+    private final long targetTransactionMillis;
+    private final CypherTemplateRegistry templateRegistry;
+    // dataset to whether its synapses are merged by locationKey (see mergesSynapsesByLocationKey)
+    private final Map<String, Boolean> locationKeyDatasets = new ConcurrentHashMap<>();
 
     /**
      * Class constructor.
@@ -60,6 +83,9 @@ public class Neo4jImporter implements AutoCloseable {
             this.driver = null;
             this.statementsPerTransaction = 1;
             this.connectionInfoStatementsPerTransaction = 1;
+            this.writerThreads = 1;
+            this.targetTransactionMillis = DbConfig.DEFAULT_TARGET_TRANSACTION_MILLIS;
+            this.templateRegistry = new CypherTemplateRegistry();
 
         } else {
 
@@ -68,6 +94,9 @@ public class Neo4jImporter implements AutoCloseable {
                             dbConfig.getPassword()));
             this.statementsPerTransaction = dbConfig.getStatementsPerTransaction();
             this.connectionInfoStatementsPerTransaction = dbConfig.getConnectionInfoStatementsPerTransaction();
+            this.writerThreads = dbConfig.getWriterThreads();
+            this.targetTransactionMillis = dbConfig.getTargetTransactionMillis();
+            this.templateRegistry = new CypherTemplateRegistry(dbConfig.getQueryCacheSize());
 
         }
 
@@ -79,16 +108,37 @@ public class Neo4jImporter implements AutoCloseable {
      * @param driver neo4j bolt driver
      */
     public Neo4jImporter(final Driver driver) {
+        this(driver, 1);
+    }
+
+    /**
+     * Class constructor for testing with concurrent writers.
+     *
+     * @param driver        neo4j bolt driver
+     * @param writerThreads number of concurrent writer sessions
+     */
+    public Neo4jImporter(final Driver driver, final int writerThreads) {
         this.driver = driver;
         this.statementsPerTransaction = 20;
         this.connectionInfoStatementsPerTransaction = 1;
+        this.writerThreads = writerThreads;
+        this.targetTransactionMillis = DbConfig.DEFAULT_TARGET_TRANSACTION_MILLIS;
+        this.templateRegistry = new CypherTemplateRegistry();
     }
 
     /**
-     * Closes driver.
+     * @return registry of the query text run by each load stage of this importer
+     */
+    public CypherTemplateRegistry getTemplateRegistry() {
+        return templateRegistry;
+    }
+
+    /**
+     * Logs the query templates run by each load stage and closes driver.
      */
     @Override
     public void close() {
+        templateRegistry.logSummary();
         driver.close();
         LOG.info("Driver closed.");
     }
@@ -96,20 +146,69 @@ public class Neo4jImporter implements AutoCloseable {
     /**
      * Acquires a database transaction batch.
      *
+     * @param stageName name of the load stage (used for recording query templates)
      * @return {@link TransactionBatch} object for storing and writing transactions
      */
-    private TransactionBatch getBatch() {
+    private TransactionBatch getBatch(final String stageName) {
+        return getBatch(stageName, null);
+    }
+
+    /**
+     * Acquires a database transaction batch whose commits are reported to the provided flow control.
+     *
+     * @param stageName   name of the load stage (used for recording query templates)
+     * @param flowControl {@link TransactionFlowControl} that limits concurrent commits and adjusts transaction sizes (or null)
+     * @return {@link TransactionBatch} object for storing and writing transactions
+     */
+    private TransactionBatch getBatch(final String stageName, final TransactionFlowControl flowControl) {
         final TransactionBatch batch;
         if (driver == null) {
             batch = new StdOutTransactionBatch();
         } else {
-            batch = new DbTransactionBatch(driver.session(), statementsPerTransaction);
+            batch = new DbTransactionBatch(driver.session(), statementsPerTransaction, flowControl, templateRegistry, stageName);
         }
         return batch;
     }
 
     /**
-     * Adds uniqueness constraints and indices to database.
+     * Acquires a batch that writes rows of the provided statements as UNWIND statements. Rows are spread
+     * across writerThreads concurrent sessions by partition key. Each transaction starts with
+     * statementsPerTransaction rows, and the number of rows per transaction and concurrent commits is
+     * then adjusted based on commit latency and retries (see {@link TransactionFlowControl}).
+     *
+     * @param stageName              name of the load stage (used for logging throughput)
+     * @param statementsInWriteOrder statements in the order they need to be written within a transaction
+     * @return {@link PartitionedUnwindBatch} object for storing and writing rows
+     */
+    private PartitionedUnwindBatch getUnwindBatch(final String stageName, final UnwindStatement... statementsInWriteOrder) {
+        if (driver == null) {
+            return new PartitionedUnwindBatch(stageName, () -> getBatch(stageName), writerThreads, statementsPerTransaction, statementsInWriteOrder);
+        }
+        final TransactionFlowControl flowControl = new TransactionFlowControl(stageName, statementsPerTransaction,
+                1, statementsPerTransaction * MAX_UNWIND_BATCH_SIZE_FACTOR, writerThreads, targetTransactionMillis);
+        return new PartitionedUnwindBatch(stageName, () -> getBatch(stageName, flowControl), writerThreads, statementsPerTransaction, flowControl, statementsInWriteOrder);
+    }
+
+    /**
+     * @param synapseNodeIds         map receiving synapse node ids (or null)
+     * @param locationKeyExpression  expression for the location key of the synapse node s
+     * @return clause returning the location key, id, and type of synapse node s if it was written by this load,
+     * or an empty string if no map is provided
+     */
+    private static String getReturnSynapseNodeIdsClause(final SynapseNodeIds synapseNodeIds, final String locationKeyExpression) {
+        if (synapseNodeIds == null) {
+            return "";
+        }
+        return " WITH s, row WHERE s.timeStamp = $timeStamp " +
+                "RETURN " + locationKeyExpression + " AS locationKey, id(s) AS nodeId, s.type AS type";
+    }
+
+    private static Consumer<Record> getSynapseNodeIdConsumer(final SynapseNodeIds synapseNodeIds) {
+        return synapseNodeIds == null ? null : synapseNodeIds::put;
+    }
+
+    /**
+     * Adds the uniqueness constraints and indices that do not exist yet to the database and waits for them to come online.
      *
      * @param dataset dataset name
      */
@@ -117,41 +216,60 @@ public class Neo4jImporter implements AutoCloseable {
 
         LOG.info("prepDatabase: entry");
 
-        final String[] prepTextArray = {
-                "CREATE CONSTRAINT ON (n:`" + dataset + "-Neuron`) ASSERT n.bodyId IS UNIQUE",
-                "CREATE CONSTRAINT ON (n:`" + dataset + "-Segment`) ASSERT n.bodyId IS UNIQUE",
-                "CREATE CONSTRAINT ON (s:`" + dataset + "-ConnectionSet`) ASSERT s.datasetBodyIds IS UNIQUE",
-                "CREATE CONSTRAINT ON (s:`" + dataset + "-SynapseSet`) ASSERT s.datasetBodyId IS UNIQUE",
-                "CREATE CONSTRAINT ON (s:`" + dataset + "-PreSyn`) ASSERT s.location IS UNIQUE",
-                "CREATE CONSTRAINT ON (s:`" + dataset + "-PostSyn`) ASSERT s.location IS UNIQUE",
-                "CREATE CONSTRAINT ON (s:`" + dataset + "-SkelNode`) ASSERT s.skelNodeId IS UNIQUE",
-                "CREATE CONSTRAINT ON (s:`" + dataset + "-Skeleton`) ASSERT s.skeletonId IS UNIQUE",
-                "CREATE CONSTRAINT ON (m:Meta) ASSERT m.dataset IS UNIQUE",
-                "CREATE CONSTRAINT ON (d:DataModel) ASSERT d.dataModelVersion IS UNIQUE",
-                "CREATE INDEX ON :`" + dataset + "-Neuron`(status)",
-                "CREATE INDEX ON :`" + dataset + "-Neuron`(somaLocation)",
-                "CREATE INDEX ON :`" + dataset + "-Neuron`(name)",
-                "CREATE INDEX ON :`" + dataset + "-SkelNode`(location)",
-                "CREATE INDEX ON :`" + dataset + "-Neuron`(pre)",
-                "CREATE INDEX ON :`" + dataset + "-Neuron`(post)",
-                "CREATE INDEX ON :Neuron(name)",
-                "CREATE INDEX ON :`" + dataset + "-Segment`(pre)",
-                "CREATE INDEX ON :`" + dataset + "-Segment`(post)",
-                "CREATE INDEX ON :`" + dataset + "-Synapse`(location)",
-                "CREATE CONSTRAINT ON (n:`" + dataset + "-Segment`) ASSERT n.mutationUuidAndId IS UNIQUE" //used for live updates
-        };
-
-        for (final String prepText : prepTextArray) {
-            try (final TransactionBatch batch = getBatch()) {
-                batch.addStatement(new Statement(prepText));
-                batch.writeTransaction();
-            }
-        }
+        createIndexes(getPrepDatabaseIndexes(dataset));
 
         LOG.info("prepDatabase: exit");
 
     }
 
+    /**
+     * Returns the uniqueness constraints and indices needed for a dataset.
+     *
+     * @param dataset dataset name
+     * @return list of constraints and indices
+     */
+    static List<SchemaIndex> getPrepDatabaseIndexes(final String dataset) {
+
+        return Arrays.asList(
+                SchemaIndex.uniqueConstraint(dataset + "-Neuron", "bodyId"),
+                SchemaIndex.uniqueConstraint(dataset + "-Segment", "bodyId"),
+                SchemaIndex.uniqueConstraint(dataset + "-ConnectionSet", "datasetBodyIds"),
+                SchemaIndex.uniqueConstraint(dataset + "-SynapseSet", "datasetBodyId"),
+                SchemaIndex.uniqueConstraint(dataset + "-PreSyn", "location"),
+                SchemaIndex.uniqueConstraint(dataset + "-PostSyn", "location"),
+                SchemaIndex.uniqueConstraint(dataset + "-PreSyn", "locationKey"),
+                SchemaIndex.uniqueConstraint(dataset + "-PostSyn", "locationKey"),
+                SchemaIndex.uniqueConstraint(dataset + "-SkelNode", "skelNodeId"),
+                SchemaIndex.uniqueConstraint(dataset + "-Skeleton", "skeletonId"),
+                SchemaIndex.uniqueConstraint("Meta", "dataset"),
+                SchemaIndex.uniqueConstraint("DataModel", "dataModelVersion"),
+                SchemaIndex.index(dataset + "-Neuron", "status"),
+                SchemaIndex.index(dataset + "-Neuron", "somaLocation"),
+                SchemaIndex.index(dataset + "-Neuron", "name"),
+                SchemaIndex.index(dataset + "-SkelNode", "location"),
+                SchemaIndex.index(dataset + "-SkelNode", "locationKey"),
+                SchemaIndex.index(dataset + "-Neuron", "pre"),
+                SchemaIndex.index(dataset + "-Neuron", "post"),
+                SchemaIndex.index("Neuron", "name"),
+                SchemaIndex.index(dataset + "-Segment", "pre"),
+                SchemaIndex.index(dataset + "-Segment", "post"),
+                SchemaIndex.index(dataset + "-Synapse", "location"),
+                SchemaIndex.index(dataset + "-Synapse", "locationKey"),
+                SchemaIndex.uniqueConstraint(dataset + "-Segment", "mutationUuidAndId") //used for live updates
+        );
+
+    }
+
+    /**
+     * Returns the statements that add uniqueness constraints and indices to the database.
+     *
+     * @param dataset dataset name
+     * @return array of constraint and index statements
+     */
+    static String[] getPrepDatabaseStatements(final String dataset) {
+        return getPrepDatabaseIndexes(dataset).stream().map(SchemaIndex::getCreateStatement).toArray(String[]::new);
+    }
+
     /**
      * Creates index if clusterNames will be added.
      *
@@ -161,18 +279,77 @@ public class Neo4jImporter implements AutoCloseable {
 
         LOG.info("prepDatabaseForClusterNames: entry");
 
-        final String prepText = "CREATE INDEX ON :`" + dataset + "-Neuron`(clusterName)";
+        createIndexes(Collections.singletonList(getClusterNameIndex(dataset)));
 
-        try (final TransactionBatch batch = getBatch()) {
-            batch.addStatement(new Statement(prepText));
-            batch.writeTransaction();
+        LOG.info("prepDatabaseForClusterNames: exit");
+    }
+
+    /**
+     * @param dataset dataset for load
+     * @return index for clusterName on Neuron nodes
+     */
+    static SchemaIndex getClusterNameIndex(final String dataset) {
+        return SchemaIndex.index(dataset + "-Neuron", "clusterName");
+    }
+
+    /**
+     * @param dataset dataset for load
+     * @return statement that creates an index for clusterName on Neuron nodes
+     */
+    static String getClusterNameIndexStatement(final String dataset) {
+        return getClusterNameIndex(dataset).getCreateStatement();
+    }
+
+    /**
+     * @param dataset dataset name
+     * @return true if the database already has a Meta node or Segment nodes for the dataset
+     */
+    public boolean hasDataset(final String dataset) {
+        try (Session session = driver.session()) {
+            return session.readTransaction(tx -> {
+                final StatementResult result = tx.run(templateRegistry.use(READ_STAGE_NAME,
+                        "OPTIONAL MATCH (m:Meta{dataset:$dataset}) WITH count(m) AS metaCount " +
+                                "OPTIONAL MATCH (n:`" + dataset + "-Segment`) WITH metaCount, n LIMIT 1 " +
+                                "RETURN metaCount > 0 OR n IS NOT NULL AS hasDataset"),
+                        parameters("dataset", dataset));
+                return result.next().get("hasDataset").asBoolean();
+            });
         }
+    }
 
-        LOG.info("prepDatabaseForClusterNames: exit");
+    /**
+     * Returns true if synapses of the dataset are merged by locationKey, which is the case if the dataset has no
+     * synapses yet or all of its synapses have a key. Synapses of datasets loaded before location keys were added
+     * are merged by location (as are synapses at locations that cannot be packed into a key), so that an incremental
+     * load does not duplicate them. The result is computed once per dataset.
+     *
+     * @param dataset dataset name
+     * @return true if synapses with a packable location are merged by locationKey
+     */
+    public boolean mergesSynapsesByLocationKey(final String dataset) {
+        if (driver == null) {
+            return true;
+        }
+        return locationKeyDatasets.computeIfAbsent(dataset, d -> {
+            try (Session session = driver.session()) {
+                return session.readTransaction(tx -> {
+                    // stops at the first synapse without a key
+                    final StatementResult result = tx.run(templateRegistry.use(READ_STAGE_NAME,
+                            "MATCH (s:`" + d + "-Synapse`) WHERE NOT exists(s.locationKey) RETURN id(s) LIMIT 1"));
+                    final boolean mergesByLocationKey = !result.hasNext();
+                    if (!mergesByLocationKey) {
+                        LOG.warn("mergesSynapsesByLocationKey: dataset {} has synapses without a locationKey, synapses will be merged by location", d);
+                    }
+                    return mergesByLocationKey;
+                });
+            }
+        });
     }
 
     /**
-     * Creates an index for each ROI present in the dataset. ROIs are stored as boolean properties (set to true) on Neuron/Segment nodes and Synapse (PreSyn and PostSyn) nodes.
+     * Creates an index for each ROI present in the dataset that is not indexed yet and waits for the indexes to come online.
+     * ROIs are stored as boolean properties (set to true) on Neuron/Segment nodes and Synapse (PreSyn and PostSyn) nodes.
+     * This should be called once all synapses are loaded rather than after each batch.
      *
      * @param dataset dataset for load
      */
@@ -188,26 +365,58 @@ public class Neo4jImporter implements AutoCloseable {
             currentRoiInfo = new RoiInfo();
         }
 
-        Set<String> roiNameSet = currentRoiInfo.getSetOfRois();
+        createIndexes(getBooleanRoiPropertyIndexes(dataset, currentRoiInfo.getSetOfRois()));
 
-        String[] indexTextArray = new String[roiNameSet.size() * 4];
-        int i = 0;
+        LOG.info("indexBooleanRoiProperties: exit");
+
+    }
+
+    /**
+     * Returns an index for each provided ROI on Neuron/Segment and Synapse (PreSyn and PostSyn) nodes.
+     *
+     * @param dataset    dataset name
+     * @param roiNameSet set of ROIs
+     * @return list of indices
+     */
+    static List<SchemaIndex> getBooleanRoiPropertyIndexes(final String dataset, final Set<String> roiNameSet) {
+        final List<SchemaIndex> indexes = new ArrayList<>(roiNameSet.size() * 4);
         for (String roi : roiNameSet) {
-            indexTextArray[i] = "CREATE INDEX ON :`" + dataset + "-Neuron`(`" + roi + "`)";
-            indexTextArray[i + 1] = "CREATE INDEX ON :`" + dataset + "-Segment`(`" + roi + "`)";
-            indexTextArray[i + 2] = "CREATE INDEX ON :`" + dataset + "-PreSyn`(`" + roi + "`)";
-            indexTextArray[i + 3] = "CREATE INDEX ON :`" + dataset + "-PostSyn`(`" + roi + "`)";
-            i += 4;
+            indexes.add(SchemaIndex.index(dataset + "-Neuron", roi));
+            indexes.add(SchemaIndex.index(dataset + "-Segment", roi));
+            indexes.add(SchemaIndex.index(dataset + "-PreSyn", roi));
+            indexes.add(SchemaIndex.index(dataset + "-PostSyn", roi));
         }
+        return indexes;
+    }
 
-        for (final String indexText : indexTextArray) {
-            try (final TransactionBatch batch = getBatch()) {
-                batch.addStatement(new Statement(indexText));
-                batch.writeTransaction();
+    /**
+     * Returns the statements that create an index for each provided ROI on Neuron/Segment and Synapse (PreSyn and PostSyn) nodes.
+     *
+     * @param dataset    dataset name
+     * @param roiNameSet set of ROIs
+     * @return array of index statements
+     */
+    static String[] getBooleanRoiPropertyIndexStatements(final String dataset, final Set<String> roiNameSet) {
+        return getBooleanRoiPropertyIndexes(dataset, roiNameSet).stream().map(SchemaIndex::getCreateStatement).toArray(String[]::new);
+    }
+
+    /**
+     * Creates the provided indices and constraints that do not exist yet and waits for them to come online
+     * (without a database, the statements for all of them are written).
+     *
+     * @param indexes indices and constraints that should exist
+     */
+    private void createIndexes(final List<SchemaIndex> indexes) {
+        if (driver == null) {
+            for (final SchemaIndex index : indexes) {
+                try (final TransactionBatch batch = getBatch("createIndexes")) {
+                    batch.addStatement(new Statement(index.getCreateStatement()));
+                    batch.writeTransaction();
+                }
             }
+        } else {
+            new SchemaManager(driver).createMissingAndAwaitOnline(indexes);
         }
-        LOG.info("indexBooleanRoiProperties: exit");
-
     }
 
     /**
@@ -256,7 +465,7 @@ public class Neo4jImporter implements AutoCloseable {
                 "MERGE (d:DataModel{dataModelVersion:$dataModelVersion}) \n" +
                 "MERGE (m)-[:Is]->(d)";
 
-        try (final TransactionBatch batch = getBatch()) {
+        try (final TransactionBatch batch = getBatch("createMetaNodeWithDataModelNode")) {
             if (addConnectionSetRoiInfoAndWeightHP) {
                 batch.addStatement(new Statement(metaNodeString, parameters(
                         "dataset", dataset,
@@ -293,80 +502,106 @@ public class Neo4jImporter implements AutoCloseable {
 
     /**
      * Adds Synapse nodes to database as specified by a <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">synapses JSON file</a>.
+     * The synapse counts of the list are added to the Meta node counts (see {@link #reconcileMetaNodeSynapseCounts(String, LocalDateTime)}).
      *
      * @param dataset     dataset
      * @param synapseList list of {@link Synapse} objects
      * @param timeStamp   time stamp for load
      */
     public void addSynapsesWithRois(final String dataset, final List<Synapse> synapseList, final LocalDateTime timeStamp) {
+        addSynapsesWithRois(dataset, synapseList, timeStamp, null);
+    }
+
+    /**
+     * Adds Synapse nodes to database as specified by a <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">synapses JSON file</a>,
+     * recording the internal id of each synapse node written by this load (see {@link SynapseNodeIds}).
+     * The synapse counts of the list are added to the Meta node counts (see {@link #reconcileMetaNodeSynapseCounts(String, LocalDateTime)}).
+     *
+     * @param dataset        dataset
+     * @param synapseList    list of {@link Synapse} objects
+     * @param timeStamp      time stamp for load
+     * @param synapseNodeIds receives the node ids of the synapses (or null)
+     */
+    public void addSynapsesWithRois(final String dataset, final List<Synapse> synapseList, final LocalDateTime timeStamp, final SynapseNodeIds synapseNodeIds) {
 
         LOG.info("addSynapses: entry");
 
-        String roiPropertyBaseString = " s.`%s` = TRUE,";
-
-        final String preSynapseText =
-                "MERGE (s:`" + dataset + "-Synapse`{location:$location}) " +
-                        " ON CREATE SET s.location=$location, " +
-                        "s:`" + dataset + "-PreSyn`," +
-                        "s:Synapse," +
-                        "s:PreSyn," +
-                        "s:" + dataset + "," +
-                        " s.confidence=$confidence, " +
-                        " s.type=$type, " +
-                        "%s" + //placeholder for roi properties
-                        " s.timeStamp=$timeStamp";
-
-        final String postSynapseText =
-                "MERGE (s:`" + dataset + "-Synapse`{location:$location}) " +
-                        " ON CREATE SET s.location=$location, " +
-                        "s:`" + dataset + "-PostSyn`," +
-                        "s:Synapse," +
-                        "s:PostSyn," +
-                        "s:" + dataset + "," +
-                        " s.confidence=$confidence, " +
-                        " s.type=$type, " +
-                        "%s" + //placeholder for roi properties
-                        " s.timeStamp=$timeStamp";
-
-        // get existing values from meta node
-        Set<String> currentSuperLevelRois;
-        RoiInfo currentRoiInfo;
+        final String returnNodeIds = getReturnSynapseNodeIdsClause(synapseNodeIds, "row.locationKey");
+
+        // roi properties are set from a map so that the query text is the same for every synapse
+        final String preSynapseProperties = " ON CREATE SET s.location=row.location, " +
+                "s:`" + dataset + "-PreSyn`," +
+                "s:Synapse," +
+                "s:PreSyn," +
+                "s:" + dataset + "," +
+                " s.confidence=row.confidence, " +
+                " s.type=row.type, " +
+                " s += row.roiProperties," +
+                " s.timeStamp=$timeStamp";
+
+        final String postSynapseProperties = " ON CREATE SET s.location=row.location, " +
+                "s:`" + dataset + "-PostSyn`," +
+                "s:Synapse," +
+                "s:PostSyn," +
+                "s:" + dataset + "," +
+                " s.confidence=row.confidence, " +
+                " s.type=row.type, " +
+                " s += row.roiProperties," +
+                " s.timeStamp=$timeStamp";
+
+        final UnwindStatement preSynapseStatement = new UnwindStatement(
+                "MERGE (s:`" + dataset + "-Synapse`{locationKey:row.locationKey}) " + preSynapseProperties + returnNodeIds,
+                "timeStamp", timeStamp).withResultConsumer(getSynapseNodeIdConsumer(synapseNodeIds));
+
+        final UnwindStatement postSynapseStatement = new UnwindStatement(
+                "MERGE (s:`" + dataset + "-Synapse`{locationKey:row.locationKey}) " + postSynapseProperties + returnNodeIds,
+                "timeStamp", timeStamp).withResultConsumer(getSynapseNodeIdConsumer(synapseNodeIds));
+
+        // synapses that cannot be merged by locationKey are merged by location without a key (and their node ids are not recorded)
+        final UnwindStatement preSynapseByLocationStatement = new UnwindStatement(
+                "MERGE (s:`" + dataset + "-Synapse`{location:row.location}) " + preSynapseProperties,
+                "timeStamp", timeStamp);
+
+        final UnwindStatement postSynapseByLocationStatement = new UnwindStatement(
+                "MERGE (s:`" + dataset + "-Synapse`{location:row.location}) " + postSynapseProperties,
+                "timeStamp", timeStamp);
+
+        final boolean mergeByLocationKey = mergesSynapsesByLocationKey(dataset);
+
+        // get existing super level rois from meta node
+        Set<String> updatedSuperLevelRois;
         try (Session session = driver.session()) {
-            currentSuperLevelRois = session.readTransaction(tx -> getMetaNodeSuperLevelRois(tx, dataset));
-            currentRoiInfo = session.readTransaction(tx -> getMetaNodeRoiInfo(tx, dataset));
+            updatedSuperLevelRois = session.readTransaction(tx -> getMetaNodeSuperLevelRois(tx, dataset));
         }
 
-        RoiInfo updatedRoiInfo = currentRoiInfo;
-        Set<String> updatedSuperLevelRois = currentSuperLevelRois;
+        // synapse counts for this batch, added to the meta node counts once the batch is written
+        final RoiInfo batchRoiInfo = new RoiInfo();
+        long batchPreCount = 0;
+        long batchPostCount = 0;
 
-        try (final TransactionBatch batch = getBatch()) {
+        try (final PartitionedUnwindBatch batch = getUnwindBatch("addSynapses", preSynapseStatement, postSynapseStatement,
+                preSynapseByLocationStatement, postSynapseByLocationStatement)) {
             for (final Synapse synapse : synapseList) {
                 // accumulates super level rois and roi info data
-                StringBuilder roiProperties = updateSuperRoisRoiInfoAndCreateRoiPropertyString(updatedSuperLevelRois, updatedRoiInfo, roiPropertyBaseString, synapse.getRois(), synapse.getType());
+                Map<String, Object> roiProperties = updateSuperRoisRoiInfoAndCreateRoiPropertyMap(updatedSuperLevelRois, batchRoiInfo, synapse.getRois(), synapse.getType());
 
+                final boolean hasLocationKey = mergeByLocationKey && synapse.getLocation().hasLocationKey();
                 if (synapse.getType().equals("pre")) {
-
-                    String preSynapseTextWithRois = String.format(preSynapseText, roiProperties.toString());
-                    batch.addStatement(new Statement(
-                            preSynapseTextWithRois,
-                            parameters("location", synapse.getLocationAsPoint(),
-                                    "datasetLocation", dataset + ":" + synapse.getLocationString(),
-                                    "confidence", synapse.getConfidence(),
-                                    "type", synapse.getType(),
-                                    "timeStamp", timeStamp))
-                    );
+                    batchPreCount++;
+                    batch.addRow(synapse.getLocation(), hasLocationKey ? preSynapseStatement : preSynapseByLocationStatement,
+                            "locationKey", hasLocationKey ? synapse.getLocationKey() : null,
+                            "location", synapse.getLocationAsPoint(),
+                            "confidence", synapse.getConfidence(),
+                            "type", synapse.getType(),
+                            "roiProperties", roiProperties);
                 } else if (synapse.getType().equals("post")) {
-
-                    String postSynapseTextWithRois = String.format(postSynapseText, roiProperties.toString());
-                    batch.addStatement(new Statement(
-                            postSynapseTextWithRois,
-                            parameters("location", synapse.getLocationAsPoint(),
-                                    "datasetLocation", dataset + ":" + synapse.getLocationString(),
-                                    "confidence", synapse.getConfidence(),
-                                    "type", synapse.getType(),
-                                    "timeStamp", timeStamp))
-                    );
-
+                    batchPostCount++;
+                    batch.addRow(synapse.getLocation(), hasLocationKey ? postSynapseStatement : postSynapseByLocationStatement,
+                            "locationKey", hasLocationKey ? synapse.getLocationKey() : null,
+                            "location", synapse.getLocationAsPoint(),
+                            "confidence", synapse.getConfidence(),
+                            "type", synapse.getType(),
+                            "roiProperties", roiProperties);
                 }
 
             }
@@ -374,123 +609,217 @@ public class Neo4jImporter implements AutoCloseable {
             batch.writeTransaction();
         }
 
-        //delay to allow transactions to complete before taking count
-        try {
-            TimeUnit.MILLISECONDS.sleep(10);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        // all transactions have been committed once the batch is closed
+        addSynapseCountsToMetaNode(dataset, batchPreCount, batchPostCount, batchRoiInfo, updatedSuperLevelRois, timeStamp);
 
-        final String metaNodeString = "MATCH (m:Meta{dataset:$dataset}) SET " +
-                "m.lastDatabaseEdit=$timeStamp," +
-                "m.roiInfo=$roiInfo, " +
-                "m.superLevelRois=$superLevelRois, " +
-                "m.totalPreCount=$totalPreCount, " +
-                "m.totalPostCount=$totalPostCount";
+        LOG.info("addSynapses: exit");
+    }
 
-        long totalPreCount;
-        long totalPostCount;
-        RoiInfo newRoiInfo = new RoiInfo();
-        try (Session session = driver.session()) {
-            totalPreCount = session.readTransaction(tx -> getTotalPreCount(tx, dataset));
-            totalPostCount = session.readTransaction(tx -> getTotalPostCount(tx, dataset));
-            for (String roi : updatedRoiInfo.getSetOfRois()) {
-                long roiPreCount = session.readTransaction(tx -> getRoiPreCount(tx, dataset, roi));
-                long roiPostCount = session.readTransaction(tx -> getRoiPostCount(tx, dataset, roi));
-                newRoiInfo.addSynapseCountsForRoi(roi, roiPreCount, roiPostCount);
+    /**
+     * Adds SynapsesTo relationship between Synapse nodes as specified by a <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">connections JSON file</a>.
+     *
+     * @param dataset                dataset name
+     * @param synapticConnectionList list of {@link SynapticConnection} objects
+     * @param timeStamp              time stamp for load
+     */
+    public void addSynapsesTo(final String dataset, final List<SynapticConnection> synapticConnectionList, final LocalDateTime timeStamp) {
+        addSynapsesTo(dataset, synapticConnectionList, timeStamp, null);
+    }
+
+    /**
+     * Adds SynapsesTo relationship between Synapse nodes as specified by a <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">connections JSON file</a>.
+     * If both synapses of a connection were recorded by the synapse stage, the relationship is merged between the nodes
+     * matched by id (instead of merging each synapse by location key again). Otherwise, the synapses are merged by location
+     * key as before and the ids of any synapse nodes written by this load are recorded.
+     *
+     * @param dataset                dataset name
+     * @param synapticConnectionList list of {@link SynapticConnection} objects
+     * @param timeStamp              time stamp for load
+     * @param synapseNodeIds         node ids of synapses written by this load, which receives the ids of synapses created for connections (or null)
+     */
+    public void addSynapsesTo(final String dataset, final List<SynapticConnection> synapticConnectionList, final LocalDateTime timeStamp, final SynapseNodeIds synapseNodeIds) {
+
+        LOG.info("addSynapsesTo: entry");
+
+        // for some reason, both merge...on create set queries in the same statement results in one of them not executing properly.
+        // separating each statement to properly create synapses that may not have been previously added in addSynapses
+        final UnwindStatement preSynapseMergeStatement = new UnwindStatement(
+                "MERGE (s:`" + dataset + "-PreSyn`{locationKey:row.prelocationKey}) ON CREATE SET s.location = row.prelocation, s.type=\"pre\", s.confidence=0.0, s.timeStamp=$timeStamp, s:Synapse, s:" + dataset + ", s:PreSyn, s:`" + dataset + "-PreSyn`, s:`" + dataset + "-Synapse`" +
+                        getReturnSynapseNodeIdsClause(synapseNodeIds, "row.prelocationKey"),
+                "timeStamp", timeStamp).withResultConsumer(getSynapseNodeIdConsumer(synapseNodeIds));
+        final UnwindStatement postSynapseMergeStatement = new UnwindStatement(
+                "MERGE (s:`" + dataset + "-PostSyn`{locationKey:row.postlocationKey}) ON CREATE SET s.location = row.postlocation, s.timeStamp=$timeStamp, s.type=\"post\", s.confidence=0.0, s:Synapse, s:" + dataset + ", s:PostSyn, s:`" + dataset + "-PostSyn`, s:`" + dataset + "-Synapse`" +
+                        getReturnSynapseNodeIdsClause(synapseNodeIds, "row.postlocationKey"),
+                "timeStamp", timeStamp).withResultConsumer(getSynapseNodeIdConsumer(synapseNodeIds));
+
+        final UnwindStatement synapseRelationsStatement = new UnwindStatement(
+                "MERGE (s:`" + dataset + "-PreSyn`{locationKey:row.prelocationKey}) SET s.timeStamp=$timeStamp \n" +
+                        "MERGE (t:`" + dataset + "-PostSyn`{locationKey:row.postlocationKey}) SET t.timeStamp=$timeStamp \n" +
+                        "MERGE (s)-[:SynapsesTo]->(t)",
+                "timeStamp", timeStamp);
+
+        // connections between synapses that cannot be merged by locationKey are merged by location without a key
+        final UnwindStatement preSynapseByLocationMergeStatement = new UnwindStatement(
+                "MERGE (s:`" + dataset + "-PreSyn`{location:row.prelocation}) ON CREATE SET s.type=\"pre\", s.confidence=0.0, s.timeStamp=$timeStamp, s:Synapse, s:" + dataset + ", s:PreSyn, s:`" + dataset + "-PreSyn`, s:`" + dataset + "-Synapse`",
+                "timeStamp", timeStamp);
+        final UnwindStatement postSynapseByLocationMergeStatement = new UnwindStatement(
+                "MERGE (s:`" + dataset + "-PostSyn`{location:row.postlocation}) ON CREATE SET s.timeStamp=$timeStamp, s.type=\"post\", s.confidence=0.0, s:Synapse, s:" + dataset + ", s:PostSyn, s:`" + dataset + "-PostSyn`, s:`" + dataset + "-Synapse`",
+                "timeStamp", timeStamp);
+
+        final UnwindStatement synapseRelationsByLocationStatement = new UnwindStatement(
+                "MERGE (s:`" + dataset + "-PreSyn`{location:row.prelocation}) SET s.timeStamp=$timeStamp \n" +
+                        "MERGE (t:`" + dataset + "-PostSyn`{location:row.postlocation}) SET t.timeStamp=$timeStamp \n" +
+                        "MERGE (s)-[:SynapsesTo]->(t)",
+                "timeStamp", timeStamp);
+
+        // synapses written by this load already have the load's time stamp
+        final UnwindStatement synapseRelationsByIdStatement = new UnwindStatement(
+                "MATCH (s) WHERE id(s) = row.preNodeId \n" +
+                        "MATCH (t) WHERE id(t) = row.postNodeId \n" +
+                        "MERGE (s)-[:SynapsesTo]->(t)");
+
+        final boolean mergeByLocationKey = mergesSynapsesByLocationKey(dataset);
+
+        long connectionsById = 0;
+        try (final PartitionedUnwindBatch batch = getUnwindBatch("addSynapsesTo", preSynapseMergeStatement, postSynapseMergeStatement, synapseRelationsStatement, synapseRelationsByIdStatement,
+                preSynapseByLocationMergeStatement, postSynapseByLocationMergeStatement, synapseRelationsByLocationStatement)) {
+            for (SynapticConnection connection : synapticConnectionList) {
+                // a postsynaptic density is connected to a single presynaptic density, so partitioning by presynaptic location keeps writers from locking the same nodes
+                final Location partitionKey = connection.getPreLocation();
+                if (!mergeByLocationKey || !connection.getPreLocation().hasLocationKey() || !connection.getPostLocation().hasLocationKey()) {
+                    batch.addRow(partitionKey, preSynapseByLocationMergeStatement, "prelocation", connection.getPreLocation().getAsPoint());
+                    batch.addRow(partitionKey, postSynapseByLocationMergeStatement, "postlocation", connection.getPostLocation().getAsPoint());
+                    batch.addRow(partitionKey, synapseRelationsByLocationStatement, "prelocation", connection.getPreLocation().getAsPoint(), "postlocation", connection.getPostLocation().getAsPoint());
+                    continue;
+                }
+                final long preLocationKey = connection.getPreLocationKey();
+                final long postLocationKey = connection.getPostLocationKey();
+                if (synapseNodeIds != null) {
+                    final long preNodeId = synapseNodeIds.getPreNodeId(preLocationKey);
+                    final long postNodeId = synapseNodeIds.getPostNodeId(postLocationKey);
+                    if (preNodeId != SynapseNodeIds.MISSING_NODE_ID && postNodeId != SynapseNodeIds.MISSING_NODE_ID) {
+                        batch.addRow(partitionKey, synapseRelationsByIdStatement, "preNodeId", preNodeId, "postNodeId", postNodeId);
+                        connectionsById++;
+                        continue;
+                    }
+                }
+                batch.addRow(partitionKey, preSynapseMergeStatement, "prelocationKey", preLocationKey, "prelocation", connection.getPreLocation().getAsPoint());
+                batch.addRow(partitionKey, postSynapseMergeStatement, "postlocationKey", postLocationKey, "postlocation", connection.getPostLocation().getAsPoint());
+                batch.addRow(partitionKey, synapseRelationsStatement, "prelocationKey", preLocationKey, "postlocationKey", postLocationKey);
             }
+            batch.writeTransaction();
+        }
+
+        if (synapseNodeIds != null) {
+            LOG.info("addSynapsesTo: wrote {} of {} connections between synapses matched by node id", connectionsById, synapticConnectionList.size());
         }
 
-        try (final TransactionBatch batch = getBatch()) {
+        // note pre and post counts may have changed if synapses in the connections file were not listed in the synapses file,
+        // so meta node synapse counts should be updated by reconcileMetaNodeSynapseCounts once all connections are loaded
+        try (final TransactionBatch batch = getBatch("addSynapsesTo")) {
             batch.addStatement(new Statement(
-                    metaNodeString,
+                    "MATCH (m:Meta{dataset:$dataset}) SET m.lastDatabaseEdit=$timeStamp",
                     parameters(
                             "dataset", dataset,
-                            "timeStamp", timeStamp,
-                            "roiInfo", newRoiInfo.getAsJsonString(),
-                            "superLevelRois", updatedSuperLevelRois,
-                            "totalPreCount", totalPreCount,
-                            "totalPostCount", totalPostCount
+                            "timeStamp", timeStamp
                     )
 
             ));
             batch.writeTransaction();
         }
 
-        LOG.info("addSynapses: exit");
+        LOG.info("addSynapsesTo: exit");
     }
 
     /**
-     * Adds SynapsesTo relationship between Synapse nodes as specified by a <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">connections JSON file</a>.
+     * Adds the synapse counts of a batch of newly loaded synapses to the counts on the Meta node. The
+     * Meta node is locked while its roiInfo is read and rewritten so that concurrent updates are not lost.
      *
-     * @param dataset                dataset name
-     * @param synapticConnectionList list of {@link SynapticConnection} objects
-     * @param timeStamp              time stamp for load
+     * @param dataset           dataset name
+     * @param preCountDelta     number of presynaptic densities added
+     * @param postCountDelta    number of postsynaptic densities added
+     * @param roiInfoDelta      pre and post counts added per ROI
+     * @param superLevelRois    all super level ROIs for the dataset
+     * @param timeStamp         time stamp for load
      */
-    public void addSynapsesTo(final String dataset, final List<SynapticConnection> synapticConnectionList, final LocalDateTime timeStamp) {
-
-        LOG.info("addSynapsesTo: entry");
-
-        // for some reason, both merge...on create set queries in the same statement results in one of them not executing properly.
-        // separating each statement to properly create synapses that may not have been previously added in addSynapses
-        final String preSynapseMergeText = "MERGE (s:`" + dataset + "-PreSyn`{location:$prelocation}) ON CREATE SET s.location = $prelocation, s.type=\"pre\", s.confidence=0.0, s.timeStamp=$timeStamp, s:Synapse, s:" + dataset + ", s:PreSyn, s:`" + dataset + "-PreSyn`, s:`" + dataset + "-Synapse`";
-        final String postSynapseMergeText = "MERGE (t:`" + dataset + "-PostSyn`{location:$postlocation}) ON CREATE SET t.location = $postlocation, t.timeStamp=$timeStamp, t.type=\"post\", t.confidence=0.0, t:Synapse, t:" + dataset + ", t:PostSyn, t:`" + dataset + "-PostSyn`, t:`" + dataset + "-Synapse`";
+    private void addSynapseCountsToMetaNode(final String dataset,
+                                            final long preCountDelta,
+                                            final long postCountDelta,
+                                            final RoiInfo roiInfoDelta,
+                                            final Set<String> superLevelRois,
+                                            final LocalDateTime timeStamp) {
 
-        final String synapseRelationsText = "MERGE (s:`" + dataset + "-PreSyn`{location:$prelocation}) SET s.timeStamp=$timeStamp \n" +
-                "MERGE (t:`" + dataset + "-PostSyn`{location:$postlocation}) SET t.timeStamp=$timeStamp \n" +
-                "MERGE (s)-[:SynapsesTo]->(t)";
+        try (Session session = driver.session()) {
+            session.writeTransaction(tx -> {
+                // setting a property first acquires the write lock on the meta node
+                final StatementResult result = tx.run(templateRegistry.use("addSynapses", "MATCH (m:Meta{dataset:$dataset}) SET m.lastDatabaseEdit=$timeStamp RETURN m.roiInfo AS roiInfo"),
+                        parameters("dataset", dataset, "timeStamp", timeStamp));
+                final RoiInfo roiInfo = RoiInfo.getRoiInfoFromString(result.single().get("roiInfo").asString());
+                for (final String roi : roiInfoDelta.getSetOfRois()) {
+                    final SynapseCounter currentCounts = roiInfo.get(roi);
+                    final SynapseCounter addedCounts = roiInfoDelta.get(roi);
+                    if (currentCounts == null) {
+                        roiInfo.addSynapseCountsForRoi(roi, addedCounts.getPre(), addedCounts.getPost());
+                    } else {
+                        roiInfo.addSynapseCountsForRoi(roi, currentCounts.getPre() + addedCounts.getPre(), currentCounts.getPost() + addedCounts.getPost());
+                    }
+                }
 
-        try (final TransactionBatch batch = getBatch()) {
-            for (SynapticConnection connection : synapticConnectionList) {
-                batch.addStatement(new Statement(preSynapseMergeText,
+                tx.run(templateRegistry.use("addSynapses", "MATCH (m:Meta{dataset:$dataset}) SET " +
+                                "m.roiInfo=$roiInfo, " +
+                                "m.superLevelRois=$superLevelRois, " +
+                                "m.totalPreCount=m.totalPreCount+$preCountDelta, " +
+                                "m.totalPostCount=m.totalPostCount+$postCountDelta"),
                         parameters(
-                                "prelocation", connection.getPreLocation().getAsPoint(),
-                                "timeStamp", timeStamp
-                        )
-                ));
-                batch.addStatement(new Statement(postSynapseMergeText,
-                        parameters(
-                                "postlocation", connection.getPostLocation().getAsPoint(),
-                                "timeStamp", timeStamp
-                        )
-                ));
-                batch.addStatement(new Statement(synapseRelationsText,
-                        parameters(
-                                "prelocation", connection.getPreLocation().getAsPoint(),
-                                "timeStamp", timeStamp,
-                                "postlocation", connection.getPostLocation().getAsPoint()
-                        )
-                ));
-            }
-            batch.writeTransaction();
+                                "dataset", dataset,
+                                "roiInfo", roiInfo.getAsJsonString(),
+                                "superLevelRois", superLevelRois,
+                                "preCountDelta", preCountDelta,
+                                "postCountDelta", postCountDelta));
+                return null;
+            });
         }
+    }
 
-        //delay to allow transactions to complete before taking count
-        // note pre and post counts may have changed if synapses in the connections file were not listed in the synapses file
-        try {
-            TimeUnit.MILLISECONDS.sleep(10);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Counts all synapses (in total and per ROI) for the dataset and replaces the counts on the Meta node. Synapse loads
+     * only add the counts of each batch to the Meta node, so this should be called once after all synapses and connections are loaded
+     * to account for synapses created by the connections and synapses listed more than once (e.g. when a load is resumed).
+     *
+     * @param dataset   dataset name
+     * @param timeStamp time stamp for load
+     */
+    public void reconcileMetaNodeSynapseCounts(final String dataset, final LocalDateTime timeStamp) {
+
+        LOG.info("reconcileMetaNodeSynapseCounts: entry");
 
         final String metaNodeString = "MATCH (m:Meta{dataset:$dataset}) SET " +
                 "m.lastDatabaseEdit=$timeStamp," +
+                "m.roiInfo=$roiInfo, " +
                 "m.totalPreCount=$totalPreCount, " +
                 "m.totalPostCount=$totalPostCount";
 
         long totalPreCount;
         long totalPostCount;
+        RoiInfo newRoiInfo = new RoiInfo();
         try (Session session = driver.session()) {
+            RoiInfo currentRoiInfo = session.readTransaction(tx -> getMetaNodeRoiInfo(tx, dataset));
             totalPreCount = session.readTransaction(tx -> getTotalPreCount(tx, dataset));
             totalPostCount = session.readTransaction(tx -> getTotalPostCount(tx, dataset));
+            for (String roi : currentRoiInfo.getSetOfRois()) {
+                long roiPreCount = session.readTransaction(tx -> getRoiPreCount(tx, dataset, roi));
+                long roiPostCount = session.readTransaction(tx -> getRoiPostCount(tx, dataset, roi));
+                newRoiInfo.addSynapseCountsForRoi(roi, roiPreCount, roiPostCount);
+            }
         }
 
-        try (final TransactionBatch batch = getBatch()) {
+        try (final TransactionBatch batch = getBatch("reconcileMetaNodeSynapseCounts")) {
             batch.addStatement(new Statement(
                     metaNodeString,
                     parameters(
                             "dataset", dataset,
                             "timeStamp", timeStamp,
+                            "roiInfo", newRoiInfo.getAsJsonString(),
                             "totalPreCount", totalPreCount,
                             "totalPostCount", totalPostCount
                     )
@@ -499,7 +828,7 @@ public class Neo4jImporter implements AutoCloseable {
             batch.writeTransaction();
         }
 
-        LOG.info("addSynapsesTo: exit");
+        LOG.info("reconcileMetaNodeSynapseCounts: exit");
     }
 
     /**
@@ -512,115 +841,374 @@ public class Neo4jImporter implements AutoCloseable {
     public void addSegments(final String dataset,
                             final List<Neuron> neuronList,
                             final LocalDateTime timeStamp) {
+        addSegments(dataset, neuronList, timeStamp, null);
+    }
+
+    /**
+     * Adds Segment nodes with properties specified by a <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">neuron JSON file</a>,
+     * connecting SynapseSets to synapse nodes by id where possible (see {@link #openSegmentWriter(String, LocalDateTime, SynapseNodeIds)}).
+     *
+     * @param dataset        dataset name
+     * @param neuronList     list of {@link Neuron} objects
+     * @param timeStamp      time stamp for load
+     * @param synapseNodeIds node ids of synapses written by this load (or null)
+     */
+    public void addSegments(final String dataset,
+                            final List<Neuron> neuronList,
+                            final LocalDateTime timeStamp,
+                            final SynapseNodeIds synapseNodeIds) {
         LOG.info("addSegments: entry");
 
-        String roiPropertyBaseString = " n.`%s` = TRUE,";
-
-        final String segmentText = "MERGE (n:`" + dataset + "-Segment`{bodyId:$bodyId}) " +
-                "ON CREATE SET n.bodyId = $bodyId," +
-                " n:Segment," +
-                " n:" + dataset + "," +
-                " n.name = $name," +
-                " n.type = $type," +
-                " n.instance = $instance," +
-                " n.primaryNeurite = $primaryNeurite," +
-                " n.majorInput = $majorInput," +
-                " n.majorOutput = $majorOutput," +
-                " n.clonalUnit = $clonalUnit," +
-                " n.neurotransmitter = $neurotransmitter," +
-                " n.property = $property," +
-                " n.status = $status," +
-                " n.size = $size," +
-                " n.somaLocation = $somaLocation," +
-                " n.somaRadius = $somaRadius, " +
-                "%s" + //placeholder for roi properties
-                " n.timeStamp = $timeStamp";
-
-        final String synapseSetText = "MERGE (s:`" + dataset + "-SynapseSet`{datasetBodyId:$datasetBodyId}) ON CREATE SET s.datasetBodyId=$datasetBodyId, s.timeStamp=$timeStamp, s:SynapseSet, s:" + dataset + " \n";
-
-        final String segmentContainsSynapseSetText = "MERGE (n:`" + dataset + "-Segment`{bodyId:$bodyId}) \n" +
-                "MERGE (s:`" + dataset + "-SynapseSet`{datasetBodyId:$datasetBodyId}) \n" +
-                "MERGE (n)-[:Contains]->(s)";
-
-        final String synapseSetContainsSynapseText = "MERGE (s:`" + dataset + "-Synapse`{location:$location}) \n" +
-                "MERGE (t:`" + dataset + "-SynapseSet`{datasetBodyId:$datasetBodyId}) \n" +
-                "MERGE (t)-[:Contains]->(s) \n";
+        try (final SegmentWriter segmentWriter = openSegmentWriter(dataset, timeStamp, synapseNodeIds)) {
+            for (final Neuron neuron : neuronList) {
+                segmentWriter.addSegment(neuron);
+            }
+        }
 
-        final String metaNodeString = "MATCH (m:Meta{dataset:$dataset}) SET " +
-                "m.lastDatabaseEdit=$timeStamp";
+        LOG.info("addSegments: exit");
+    }
 
-        try (final TransactionBatch batch = getBatch()) {
-            for (final Neuron neuron : neuronList) {
+    /**
+     * Opens a writer that adds Segment nodes and their SynapseSets one neuron at a time, so that the
+     * synapse locations of a neuron can be streamed from a
+     * <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">neuron JSON file</a>
+     * instead of being collected first (see {@link Neuron#fromJsonSingleObject(com.google.gson.stream.JsonReader, Neuron.SynapseLocationConsumer)}).
+     * The Meta node's lastDatabaseEdit is updated when the writer is closed.
+     *
+     * @param dataset   dataset name
+     * @param timeStamp time stamp for load
+     * @return {@link SegmentWriter} that must be closed to write the remaining rows
+     */
+    public SegmentWriter openSegmentWriter(final String dataset,
+                                           final LocalDateTime timeStamp) {
+        return openSegmentWriter(dataset, timeStamp, null);
+    }
 
-                // accumulates super level rois
-                StringBuilder roiProperties = updateSuperRoisRoiInfoAndCreateRoiPropertyString(new HashSet<>(), new RoiInfo(), roiPropertyBaseString, neuron.getRois(), "none");
-
-                String segmentTextWithRois = String.format(segmentText, roiProperties.toString());
-
-                batch.addStatement(
-                        new Statement(segmentTextWithRois,
-                                parameters(
-                                        "bodyId", neuron.getId(),
-                                        "name", neuron.getName(),
-                                        "type", neuron.getType(),
-                                        "instance", neuron.getInstance(),
-                                        "primaryNeurite", neuron.getPrimaryNeurite(),
-                                        "majorInput", neuron.getMajorInput(),
-                                        "majorOutput", neuron.getMajorOutput(),
-                                        "clonalUnit", neuron.getClonalUnit(),
-                                        "neurotransmitter", neuron.getNeurotransmitter(),
-                                        "property", neuron.getProperty(),
-                                        "status", neuron.getStatus(),
-                                        "size", neuron.getSize(),
-                                        "somaLocation", neuron.getSomaLocation(),
-                                        "somaRadius", neuron.getSomaRadius(),
-                                        "timeStamp", timeStamp))
-                );
-
-                if (neuron.getSynapseLocationSet().size() > 0) {
-                    batch.addStatement(
-                            new Statement(synapseSetText,
-                                    parameters(
-                                            "datasetBodyId", dataset + ":" + neuron.getId(),
-                                            "timeStamp", timeStamp))
-                    );
-
-                    batch.addStatement(
-                            new Statement(segmentContainsSynapseSetText,
-                                    parameters(
-                                            "bodyId", neuron.getId(),
-                                            "datasetBodyId", dataset + ":" + neuron.getId())));
-
-                    for (Location synapseLocation : neuron.getSynapseLocationSet()) {
-                        batch.addStatement(new Statement(synapseSetContainsSynapseText,
-                                parameters(
-                                        "location", synapseLocation.getAsPoint(),
-                                        "datasetBodyId", dataset + ":" + neuron.getId()
-                                )));
+    /**
+     * Opens a writer like {@link #openSegmentWriter(String, LocalDateTime)} that connects SynapseSets to the
+     * synapse nodes recorded by the synapse stage by node id, and only merges synapses missing from the map
+     * by location key.
+     *
+     * @param dataset        dataset name
+     * @param timeStamp      time stamp for load
+     * @param synapseNodeIds node ids of synapses written by this load (or null)
+     * @return {@link SegmentWriter} that must be closed to write the remaining rows
+     */
+    public SegmentWriter openSegmentWriter(final String dataset,
+                                           final LocalDateTime timeStamp,
+                                           final SynapseNodeIds synapseNodeIds) {
+        return new SegmentWriter(dataset, timeStamp, synapseNodeIds);
+    }
+
+    /**
+     * Writes Segment nodes, their SynapseSet nodes, and the Contains relationships from each SynapseSet
+     * to its Synapses. The Segment of a neuron is added with {@link #addSegmentHeader} before its synapse
+     * locations are streamed with {@link #addSynapseSetMember}, and the neuron is finished with {@link #endSegment}
+     * ({@link #addSegment} does all three for a neuron with a complete synapse set). Memberships are written in chunks of
+     * {@link #SYNAPSE_SET_CHUNK_SIZE} locations (or synapse node ids) per row, so the writer holds at most
+     * one chunk of each no matter how many synapses a neuron has. Synapses are matched by locationKey unless
+     * the dataset's synapses have no keys (see {@link #mergesSynapsesByLocationKey}) or a location cannot be
+     * encoded, in which case they are matched by location. This class is not thread safe.
+     */
+    public class SegmentWriter implements AutoCloseable {
+
+        private final String dataset;
+        private final LocalDateTime timeStamp;
+        private final UnwindStatement segmentStatement;
+        private final UnwindStatement segmentPropertiesStatement;
+        private final UnwindStatement synapseSetStatement;
+        private final UnwindStatement segmentContainsSynapseSetStatement;
+        private final UnwindStatement synapseSetContainsSynapsesStatement;
+        private final UnwindStatement synapseSetContainsSynapseNodesStatement;
+        private final UnwindStatement synapseSetContainsSynapseLocationsStatement;
+        private final PartitionedUnwindBatch batch;
+        private final SynapseNodeIds synapseNodeIds;
+        private final boolean mergeByLocationKey;
+
+        // body whose SynapseSet is being written (null if no members have been added since the last segment header)
+        private Long synapseSetBodyId;
+        private String synapseSetDatasetBodyId;
+        private final long[] locationKeyChunk;
+        private int locationKeyChunkSize;
+        private final long[] nodeIdChunk;
+        private int nodeIdChunkSize;
+        private final List<Object> locationChunk;
+
+        private SegmentWriter(final String dataset,
+                              final LocalDateTime timeStamp,
+                              final SynapseNodeIds synapseNodeIds) {
+
+            this.dataset = dataset;
+            this.timeStamp = timeStamp;
+            this.synapseNodeIds = synapseNodeIds;
+            this.mergeByLocationKey = mergesSynapsesByLocationKey(dataset);
+
+            this.segmentStatement = new UnwindStatement(
+                    "MERGE (n:`" + dataset + "-Segment`{bodyId:row.bodyId}) " +
+                            "ON CREATE SET n.bodyId = row.bodyId," +
+                            " n:Segment," +
+                            " n:" + dataset + "," +
+                            " n.name = row.name," +
+                            " n.type = row.type," +
+                            " n.instance = row.instance," +
+                            " n.primaryNeurite = row.primaryNeurite," +
+                            " n.majorInput = row.majorInput," +
+                            " n.majorOutput = row.majorOutput," +
+                            " n.clonalUnit = row.clonalUnit," +
+                            " n.neurotransmitter = row.neurotransmitter," +
+                            " n.property = row.property," +
+                            " n.status = row.status," +
+                            " n.size = row.size," +
+                            " n.somaLocation = row.somaLocation," +
+                            " n.somaRadius = row.somaRadius, " +
+                            " n += row.roiProperties," +
+                            " n.timeStamp = $timeStamp",
+                    "timeStamp", timeStamp);
+
+            // only Segments created by this load get the properties listed after a synapse set
+            this.segmentPropertiesStatement = new UnwindStatement(
+                    "MATCH (n:`" + dataset + "-Segment`{bodyId:row.bodyId}) WHERE n.timeStamp = $timeStamp " +
+                            "SET n.name = row.name," +
+                            " n.type = row.type," +
+                            " n.instance = row.instance," +
+                            " n.primaryNeurite = row.primaryNeurite," +
+                            " n.majorInput = row.majorInput," +
+                            " n.majorOutput = row.majorOutput," +
+                            " n.clonalUnit = row.clonalUnit," +
+                            " n.neurotransmitter = row.neurotransmitter," +
+                            " n.property = row.property," +
+                            " n.status = row.status," +
+                            " n.size = row.size," +
+                            " n.somaLocation = row.somaLocation," +
+                            " n.somaRadius = row.somaRadius, " +
+                            " n += row.roiProperties",
+                    "timeStamp", timeStamp);
+
+            this.synapseSetStatement = new UnwindStatement(
+                    "MERGE (s:`" + dataset + "-SynapseSet`{datasetBodyId:row.datasetBodyId}) ON CREATE SET s.datasetBodyId=row.datasetBodyId, s.timeStamp=$timeStamp, s:SynapseSet, s:" + dataset + " \n",
+                    "timeStamp", timeStamp);
+
+            this.segmentContainsSynapseSetStatement = new UnwindStatement(
+                    "MERGE (n:`" + dataset + "-Segment`{bodyId:row.bodyId}) \n" +
+                            "MERGE (s:`" + dataset + "-SynapseSet`{datasetBodyId:row.datasetBodyId}) \n" +
+                            "MERGE (n)-[:Contains]->(s)");
+
+            this.synapseSetContainsSynapsesStatement = new UnwindStatement(
+                    "MERGE (t:`" + dataset + "-SynapseSet`{datasetBodyId:row.datasetBodyId}) \n" +
+                            "WITH t, row UNWIND row.locationKeys AS locationKey \n" +
+                            "MERGE (s:`" + dataset + "-Synapse`{locationKey:locationKey}) \n" +
+                            "MERGE (t)-[:Contains]->(s) \n");
+
+            this.synapseSetContainsSynapseNodesStatement = new UnwindStatement(
+                    "MERGE (t:`" + dataset + "-SynapseSet`{datasetBodyId:row.datasetBodyId}) \n" +
+                            "WITH t, row UNWIND row.nodeIds AS nodeId \n" +
+                            "MATCH (s) WHERE id(s) = nodeId \n" +
+                            "MERGE (t)-[:Contains]->(s) \n");
+
+            this.synapseSetContainsSynapseLocationsStatement = new UnwindStatement(
+                    "MERGE (t:`" + dataset + "-SynapseSet`{datasetBodyId:row.datasetBodyId}) \n" +
+                            "WITH t, row UNWIND row.locations AS location \n" +
+                            "MERGE (s:`" + dataset + "-Synapse`{location:location}) \n" +
+                            "MERGE (t)-[:Contains]->(s) \n");
+
+            // the Segment and SynapseSet rows of a body must be written before the membership rows that MERGE the same nodes
+            // (otherwise their labels and properties would never be set), so all rows for a body go to the same partition
+            this.batch = getUnwindBatch("addSegments", segmentStatement, segmentPropertiesStatement, synapseSetStatement, segmentContainsSynapseSetStatement,
+                    synapseSetContainsSynapsesStatement, synapseSetContainsSynapseNodesStatement, synapseSetContainsSynapseLocationsStatement);
+
+            this.locationKeyChunk = new long[SYNAPSE_SET_CHUNK_SIZE];
+            this.locationKeyChunkSize = 0;
+            this.nodeIdChunk = new long[synapseNodeIds == null ? 0 : SYNAPSE_SET_CHUNK_SIZE];
+            this.nodeIdChunkSize = 0;
+            this.locationChunk = new ArrayList<>();
+        }
 
+        /**
+         * Adds the Segment node for a neuron before its synapse locations are added with {@link #addSynapseSetMember}.
+         * The neuron must be finished with {@link #endSegment} once all of its members have been added.
+         *
+         * @param neuron {@link Neuron} with the properties known before its synapse set
+         */
+        public void addSegmentHeader(final Neuron neuron) {
+            flushChunks();
+            synapseSetBodyId = null;
+            synapseSetDatasetBodyId = null;
+            batch.addRow(neuron.getId(), segmentStatement, getSegmentRow(neuron));
+        }
+
+        /**
+         * Adds a synapse location to the SynapseSet of a neuron. The SynapseSet (and its Contains relationship from
+         * the Segment) is written before the first member of the neuron, and the Segment must have been added
+         * with {@link #addSegmentHeader} beforehand (by this writer or by one that has been closed).
+         *
+         * @param bodyId neuron id
+         * @param x      x coordinate of the synapse
+         * @param y      y coordinate of the synapse
+         * @param z      z coordinate of the synapse
+         */
+        public void addSynapseSetMember(final long bodyId,
+                                        final long x,
+                                        final long y,
+                                        final long z) {
+            if (synapseSetBodyId == null || synapseSetBodyId != bodyId) {
+                flushChunks();
+                synapseSetBodyId = bodyId;
+                synapseSetDatasetBodyId = dataset + ":" + bodyId;
+                batch.addRow(synapseSetBodyId, synapseSetStatement,
+                        "datasetBodyId", synapseSetDatasetBodyId);
+                batch.addRow(synapseSetBodyId, segmentContainsSynapseSetStatement,
+                        "bodyId", synapseSetBodyId,
+                        "datasetBodyId", synapseSetDatasetBodyId);
+            }
+            if (!mergeByLocationKey || !SpatialKey.isEncodable(x, y, z)) {
+                locationChunk.add(new Location(x, y, z).getAsPoint());
+                if (locationChunk.size() == SYNAPSE_SET_CHUNK_SIZE) {
+                    flushLocationChunk();
+                }
+                return;
+            }
+            final long locationKey = SpatialKey.encode(x, y, z);
+            if (synapseNodeIds != null) {
+                long nodeId = synapseNodeIds.getPreNodeId(locationKey);
+                if (nodeId == SynapseNodeIds.MISSING_NODE_ID) {
+                    nodeId = synapseNodeIds.getPostNodeId(locationKey);
+                }
+                if (nodeId != SynapseNodeIds.MISSING_NODE_ID) {
+                    nodeIdChunk[nodeIdChunkSize++] = nodeId;
+                    if (nodeIdChunkSize == nodeIdChunk.length) {
+                        flushNodeIdChunk();
                     }
+                    return;
                 }
+            }
+            locationKeyChunk[locationKeyChunkSize++] = locationKey;
+            if (locationKeyChunkSize == locationKeyChunk.length) {
+                flushLocationKeyChunk();
+            }
+        }
 
+        /**
+         * Finishes a neuron added with {@link #addSegmentHeader}. Properties listed after the neuron's synapse set
+         * (i.e. that differ from the header) are set on the Segment if it was created by this load.
+         *
+         * @param header {@link Neuron} passed to {@link #addSegmentHeader}
+         * @param neuron {@link Neuron} with all of its properties
+         */
+        public void endSegment(final Neuron header,
+                               final Neuron neuron) {
+            flushChunks();
+            synapseSetBodyId = null;
+            synapseSetDatasetBodyId = null;
+
+            final Object[] segmentRow = getSegmentRow(neuron);
+            if (!Arrays.deepEquals(getSegmentRow(header), segmentRow)) {
+                batch.addRow(neuron.getId(), segmentPropertiesStatement, segmentRow);
             }
+        }
 
-            batch.writeTransaction();
+        /**
+         * Adds a Segment node for a neuron followed by the locations in the neuron's synapse set.
+         * If the neuron has synapses, the Segment is connected to its SynapseSet.
+         *
+         * @param neuron {@link Neuron} to add
+         */
+        public void addSegment(final Neuron neuron) {
+
+            addSegmentHeader(neuron);
+
+            final LocationSet synapseLocationSet = neuron.getSynapseLocationSet();
+            if (synapseLocationSet != null) {
+                for (int i = 0; i < synapseLocationSet.size(); i++) {
+                    addSynapseSetMember(neuron.getId(), synapseLocationSet.getX(i), synapseLocationSet.getY(i), synapseLocationSet.getZ(i));
+                }
+            }
+
+            endSegment(neuron, neuron);
         }
 
-        try (final TransactionBatch batch = getBatch()) {
+        private Object[] getSegmentRow(final Neuron neuron) {
+
+            // accumulates super level rois
+            Map<String, Object> roiProperties = updateSuperRoisRoiInfoAndCreateRoiPropertyMap(new HashSet<>(), new RoiInfo(), neuron.getRois(), "none");
+
+            return new Object[]{
+                    "bodyId", neuron.getId(),
+                    "name", neuron.getName(),
+                    "type", neuron.getType(),
+                    "instance", neuron.getInstance(),
+                    "primaryNeurite", neuron.getPrimaryNeurite(),
+                    "majorInput", neuron.getMajorInput(),
+                    "majorOutput", neuron.getMajorOutput(),
+                    "clonalUnit", neuron.getClonalUnit(),
+                    "neurotransmitter", neuron.getNeurotransmitter(),
+                    "property", neuron.getProperty(),
+                    "status", neuron.getStatus(),
+                    "size", neuron.getSize(),
+                    "somaLocation", neuron.getSomaLocation(),
+                    "somaRadius", neuron.getSomaRadius(),
+                    "roiProperties", roiProperties};
+        }
 
-            batch.addStatement(new Statement(
-                    metaNodeString,
-                    parameters(
-                            "dataset", dataset,
-                            "timeStamp", timeStamp
-                    )
+        private void flushChunks() {
+            flushLocationKeyChunk();
+            flushNodeIdChunk();
+            flushLocationChunk();
+        }
 
-            ));
-            batch.writeTransaction();
+        private void flushLocationChunk() {
+            if (!locationChunk.isEmpty()) {
+                batch.addRow(synapseSetBodyId, synapseSetContainsSynapseLocationsStatement,
+                        "datasetBodyId", synapseSetDatasetBodyId,
+                        "locations", new ArrayList<>(locationChunk));
+                locationChunk.clear();
+            }
+        }
 
+        private void flushNodeIdChunk() {
+            if (nodeIdChunkSize > 0) {
+                batch.addRow(synapseSetBodyId, synapseSetContainsSynapseNodesStatement,
+                        "datasetBodyId", synapseSetDatasetBodyId,
+                        "nodeIds", Arrays.copyOf(nodeIdChunk, nodeIdChunkSize));
+                nodeIdChunkSize = 0;
+            }
         }
 
-        LOG.info("addSegments: exit");
+        private void flushLocationKeyChunk() {
+            if (locationKeyChunkSize > 0) {
+                batch.addRow(synapseSetBodyId, synapseSetContainsSynapsesStatement,
+                        "datasetBodyId", synapseSetDatasetBodyId,
+                        "locationKeys", Arrays.copyOf(locationKeyChunk, locationKeyChunkSize));
+                locationKeyChunkSize = 0;
+            }
+        }
+
+        /**
+         * Writes all remaining rows, waits for them to be committed, and updates the Meta node's lastDatabaseEdit.
+         */
+        @Override
+        public void close() {
+
+            try {
+                flushChunks();
+                batch.writeTransaction();
+            } finally {
+                batch.close();
+            }
+
+            try (final TransactionBatch metaBatch = getBatch("addSegments")) {
+
+                metaBatch.addStatement(new Statement(
+                        "MATCH (m:Meta{dataset:$dataset}) SET m.lastDatabaseEdit=$timeStamp",
+                        parameters(
+                                "dataset", dataset,
+                                "timeStamp", timeStamp
+                        )
+
+                ));
+                metaBatch.writeTransaction();
+
+            }
+        }
     }
 
     /**
@@ -642,7 +1230,12 @@ public class Neo4jImporter implements AutoCloseable {
         final String addConnectionDetailsToSegment = "MATCH (n:`" + dataset + "-Segment`{bodyId:$bodyId})," +
                 "(ss:`" + dataset + "-SynapseSet`{datasetBodyId:$datasetBodyId})" +
                 " WITH n,ss CALL loader.addPropsAndConnectionInfoToSegment(n, ss, $dataset, $preHPThreshold, $postHPThreshold, $neuronThreshold, $addCSRoiInfoAndWeightHP) RETURN n.bodyId";
-        try (final TransactionBatch batch = getBatch()) {
+        // This procedure call is more complicated than other statements used during the load, so generally needs a smaller batch size.
+        // The initial size can be specified in the properties file or will default to 1/40th of the standard transaction size,
+        // and is then adjusted based on how long each transaction takes to commit.
+        final TransactionFlowControl flowControl = new TransactionFlowControl("addConnectionInfo",
+                this.connectionInfoStatementsPerTransaction, 1, this.statementsPerTransaction, 1, this.targetTransactionMillis);
+        try (final TransactionBatch batch = getBatch("addConnectionInfo", flowControl)) {
             int statementCount = 0;
             for (final Neuron neuron : neuronList) {
 
@@ -659,30 +1252,187 @@ public class Neo4jImporter implements AutoCloseable {
 
                 statementCount++;
 
-                // This procedure call is more complicated than other statements used during the load, so generally needs a smaller batch size. This can be specified in the properties file or will default to 1/40th of the standard transaction size.
-                if (statementCount == this.connectionInfoStatementsPerTransaction) {
+                if (statementCount >= flowControl.getBatchSize()) {
                     batch.writeTransaction();
                     statementCount = 0;
                 }
-                //delay to allow transactions to complete to prevent blocking
-                try {
-                    TimeUnit.MILLISECONDS.sleep(2);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
 
             }
             batch.writeTransaction();
         }
+        flowControl.logSummary();
 
     }
 
-    StringBuilder updateSuperRoisRoiInfoAndCreateRoiPropertyString(Set<String> datasetSuperLevelRois, RoiInfo datasetRoiInfo, String roiPropertyBaseString, Set<String> synapseOrNeuronRois, String synapseType) {
-        StringBuilder roiProperties = new StringBuilder();
+    /**
+     * Writes connection information (ConnectsTo relationships, ConnectionSets, weight/weightHP, roiInfo and pre/post counts on Segments, :Neuron label)
+     * computed client-side by a {@link ConnectomeAggregator}. This produces the same results as {@link #addConnectionInfo(String, List, boolean, double, double, long)}
+     * for an initial load without calling loader.addPropsAndConnectionInfoToSegment for each segment. Segments, SynapseSets and synapses must already be loaded.
+     *
+     * @param dataset                            dataset name
+     * @param connectomeAggregator               aggregator containing all synapses, connections, and neurons for the load
+     * @param addConnectionSetRoiInfoAndWeightHP boolean indicating if ConnectionSet nodes should have roiInfo property and weightHP should be added to ConnectsTo relationships
+     * @param timeStamp                          time stamp for load
+     */
+    public void addConnectionInfo(final String dataset,
+                                  final ConnectomeAggregator connectomeAggregator,
+                                  final boolean addConnectionSetRoiInfoAndWeightHP,
+                                  final LocalDateTime timeStamp) {
+
+        LOG.info("addConnectionInfo: entry");
+
+        connectomeAggregator.aggregate();
+
+        final UnwindStatement segmentStatement = new UnwindStatement(
+                "MATCH (n:`" + dataset + "-Segment`{bodyId:row.bodyId}) " +
+                        "SET n.pre=row.pre, n.post=row.post, n.roiInfo=row.roiInfo, n += row.roiProperties");
+
+        final UnwindStatement neuronStatement = new UnwindStatement(
+                "MATCH (n:`" + dataset + "-Segment`{bodyId:row.bodyId}) " +
+                        "SET n:Neuron, n:`" + dataset + "-Neuron`, n.clusterName=row.clusterName");
+
+        final UnwindStatement connectionSetStatement = new UnwindStatement(
+                "MATCH (a:`" + dataset + "-Segment`{bodyId:row.preBodyId}), (b:`" + dataset + "-Segment`{bodyId:row.postBodyId}) \n" +
+                        "MERGE (c:`" + dataset + "-ConnectionSet`{datasetBodyIds:row.datasetBodyIds}) ON CREATE SET c.datasetBodyIds=row.datasetBodyIds, c.timeStamp=$timeStamp, c:ConnectionSet, c:" + dataset + " \n" +
+                        "SET c.roiInfo=row.roiInfo \n" +
+                        "MERGE (c)-[:From]->(a) \n" +
+                        "MERGE (c)-[:To]->(b)",
+                "timeStamp", timeStamp);
+
+        final UnwindStatement connectionSetContainsPreStatement = new UnwindStatement(
+                "MATCH (c:`" + dataset + "-ConnectionSet`{datasetBodyIds:row.datasetBodyIds}) \n" +
+                        "UNWIND row.locationKeys AS locationKey \n" +
+                        "MATCH (s:`" + dataset + "-PreSyn`{locationKey:locationKey}) \n" +
+                        "MERGE (c)-[:Contains]->(s)");
+
+        final UnwindStatement connectionSetContainsPostStatement = new UnwindStatement(
+                "MATCH (c:`" + dataset + "-ConnectionSet`{datasetBodyIds:row.datasetBodyIds}) \n" +
+                        "UNWIND row.locationKeys AS locationKey \n" +
+                        "MATCH (s:`" + dataset + "-PostSyn`{locationKey:locationKey}) \n" +
+                        "MERGE (c)-[:Contains]->(s)");
+
+        // synapses whose locations cannot be packed into a location key were merged by location
+        final UnwindStatement connectionSetContainsPreLocationsStatement = new UnwindStatement(
+                "MATCH (c:`" + dataset + "-ConnectionSet`{datasetBodyIds:row.datasetBodyIds}) \n" +
+                        "UNWIND row.locations AS location \n" +
+                        "MATCH (s:`" + dataset + "-PreSyn`{location:location}) \n" +
+                        "MERGE (c)-[:Contains]->(s)");
+
+        final UnwindStatement connectionSetContainsPostLocationsStatement = new UnwindStatement(
+                "MATCH (c:`" + dataset + "-ConnectionSet`{datasetBodyIds:row.datasetBodyIds}) \n" +
+                        "UNWIND row.locations AS location \n" +
+                        "MATCH (s:`" + dataset + "-PostSyn`{location:location}) \n" +
+                        "MERGE (c)-[:Contains]->(s)");
+
+        final UnwindStatement connectsToStatement = new UnwindStatement(
+                "MATCH (a:`" + dataset + "-Segment`{bodyId:row.preBodyId}), (b:`" + dataset + "-Segment`{bodyId:row.postBodyId}) \n" +
+                        "MERGE (a)-[r:ConnectsTo]->(b) \n" +
+                        "SET r.weight=row.weight, r.weightHP=row.weightHP");
+
+        // each Segment/Neuron row only locks its own segment, so partitioning by bodyId keeps writers apart
+        try (final PartitionedUnwindBatch batch = getUnwindBatch("addConnectionInfo", segmentStatement, neuronStatement)) {
+            for (final SegmentConnectivity segment : connectomeAggregator.getSegments()) {
+                if (segment.hasSynapses()) {
+                    final Map<String, Object> roiProperties = new LinkedHashMap<>();
+                    segment.getRoiInfo().getSetOfRois().forEach(roi -> roiProperties.put(roi, true));
+                    batch.addRow(segment.getBodyId(), segmentStatement,
+                            "bodyId", segment.getBodyId(),
+                            "pre", segment.getPre(),
+                            "post", segment.getPost(),
+                            "roiInfo", segment.getRoiInfo().getAsJsonString(),
+                            "roiProperties", roiProperties);
+                }
+                if (segment.isNeuron()) {
+                    batch.addRow(segment.getBodyId(), neuronStatement,
+                            "bodyId", segment.getBodyId(),
+                            "clusterName", segment.getClusterName());
+                }
+            }
+            batch.writeTransaction();
+        }
+
+        // ConnectionSet and ConnectsTo rows lock both the presynaptic and the postsynaptic segment (and the synapses of the pair),
+        // so they are written in rounds in which every writer locks a disjoint set of segments
+        final PairPartitionSchedule schedule = new PairPartitionSchedule(writerThreads);
+        final List<List<ConnectionSetConnectivity>> connectionSetsByRound = new ArrayList<>();
+        for (int round = 0; round < schedule.getRoundCount(); round++) {
+            connectionSetsByRound.add(new ArrayList<>());
+        }
+        for (final ConnectionSetConnectivity connectionSet : connectomeAggregator.getConnectionSets()) {
+            connectionSetsByRound.get(schedule.getRound(connectionSet.getPreBodyId(), connectionSet.getPostBodyId())).add(connectionSet);
+        }
+
+        for (final List<ConnectionSetConnectivity> roundConnectionSets : connectionSetsByRound) {
+            // closing the batch waits for every writer, so a round is committed before the next one starts
+            try (final PartitionedUnwindBatch batch = getUnwindBatch("addConnectionInfo", connectionSetStatement,
+                    connectionSetContainsPreStatement, connectionSetContainsPostStatement,
+                    connectionSetContainsPreLocationsStatement, connectionSetContainsPostLocationsStatement, connectsToStatement)) {
+
+                for (final ConnectionSetConnectivity connectionSet : roundConnectionSets) {
+                    final int writer = schedule.getWriter(connectionSet.getPreBodyId(), connectionSet.getPostBodyId());
+                    final String datasetBodyIds = connectionSet.getDatasetBodyIds(dataset);
+
+                    batch.addRowForWriter(writer, connectionSetStatement,
+                            "preBodyId", connectionSet.getPreBodyId(),
+                            "postBodyId", connectionSet.getPostBodyId(),
+                            "datasetBodyIds", datasetBodyIds,
+                            "roiInfo", addConnectionSetRoiInfoAndWeightHP ? connectionSet.getRoiInfo().getAsJsonString() : null);
+                    batch.addRowForWriter(writer, connectionSetContainsPreStatement,
+                            "datasetBodyIds", datasetBodyIds,
+                            "locationKeys", connectionSet.getPreSynapseKeys());
+                    batch.addRowForWriter(writer, connectionSetContainsPostStatement,
+                            "datasetBodyIds", datasetBodyIds,
+                            "locationKeys", connectionSet.getPostSynapseKeys());
+                    if (!connectionSet.getUnkeyedPreSynapseLocations().isEmpty()) {
+                        batch.addRowForWriter(writer, connectionSetContainsPreLocationsStatement,
+                                "datasetBodyIds", datasetBodyIds,
+                                "locations", toPoints(connectionSet.getUnkeyedPreSynapseLocations()));
+                    }
+                    if (!connectionSet.getUnkeyedPostSynapseLocations().isEmpty()) {
+                        batch.addRowForWriter(writer, connectionSetContainsPostLocationsStatement,
+                                "datasetBodyIds", datasetBodyIds,
+                                "locations", toPoints(connectionSet.getUnkeyedPostSynapseLocations()));
+                    }
+
+                    if (addConnectionSetRoiInfoAndWeightHP) {
+                        // ConnectsTo relationships without any postsynaptic densities are not kept (as in loader.addPropsAndConnectionInfoToSegment)
+                        if (connectionSet.getWeight() > 0) {
+                            batch.addRowForWriter(writer, connectsToStatement,
+                                    "preBodyId", connectionSet.getPreBodyId(),
+                                    "postBodyId", connectionSet.getPostBodyId(),
+                                    "weight", connectionSet.getWeight(),
+                                    "weightHP", connectionSet.getWeightHP());
+                        }
+                    } else {
+                        batch.addRowForWriter(writer, connectsToStatement,
+                                "preBodyId", connectionSet.getPreBodyId(),
+                                "postBodyId", connectionSet.getPostBodyId(),
+                                "weight", connectionSet.getWeight(),
+                                "weightHP", null);
+                    }
+                }
+
+                batch.writeTransaction();
+            }
+        }
+
+        LOG.info("addConnectionInfo: exit");
+    }
+
+    private static List<Point> toPoints(final List<Location> locations) {
+        final List<Point> points = new ArrayList<>(locations.size());
+        for (final Location location : locations) {
+            points.add(location.getAsPoint());
+        }
+        return points;
+    }
+
+    Map<String, Object> updateSuperRoisRoiInfoAndCreateRoiPropertyMap(Set<String> datasetSuperLevelRois, RoiInfo datasetRoiInfo, Set<String> synapseOrNeuronRois, String synapseType) {
+        Map<String, Object> roiProperties = new LinkedHashMap<>();
         if (synapseOrNeuronRois != null && synapseOrNeuronRois.size() > 0) {
             datasetSuperLevelRois.add(synapseOrNeuronRois.iterator().next()); // first listed roi will be a "super" roi
             for (String roi : synapseOrNeuronRois) {
-                roiProperties.append(String.format(roiPropertyBaseString, roi));
+                roiProperties.put(roi, true);
                 if (synapseType.equals("pre")) {
                     datasetRoiInfo.incrementPreForRoi(roi);
                 } else if (synapseType.equals("post")) {
@@ -706,68 +1456,68 @@ public class Neo4jImporter implements AutoCloseable {
 
         LOG.info("addSkeletonNodes: entry");
 
-        final String segmentMergeString = "MERGE (n:`" + dataset + "-Segment`{bodyId:$bodyId}) ON CREATE SET " +
-                "n.bodyId=$bodyId, " +
-                "n.timeStamp=$timeStamp, " +
-                "n:Segment, " +
-                "n:" + dataset;
-
-        final String segmentToSkeletonConnectionString = "MERGE (r:`" + dataset + "-Skeleton`{skeletonId:$skeletonId}) ON CREATE SET r.skeletonId=$skeletonId, r.timeStamp=$timeStamp, r:Skeleton, r:" + dataset + " \n" +
-                "MERGE (n:`" + dataset + "-Segment`{bodyId:$bodyId}) \n" +
-                "MERGE (n)-[:Contains]->(r) \n";
-
-        final String parentNodeString = "MERGE (p:`" + dataset + "-SkelNode`{skelNodeId:$parentSkelNodeId}) ON CREATE SET p.skelNodeId=$parentSkelNodeId, p.location=$pLocation, p.radius=$pRadius, p.rowNumber=$pRowNumber, p.type=$pType, p.timeStamp=$timeStamp, p:SkelNode, p:" + dataset + " \n" +
-                "MERGE (r:`" + dataset + "-Skeleton`{skeletonId:$skeletonId}) \n" +
-                "MERGE (r)-[:Contains]->(p) ";
-
-        final String childNodeString = "MERGE (c:`" + dataset + "-SkelNode`{skelNodeId:$childNodeId}) ON CREATE SET c.skelNodeId=$childNodeId, c.location=$childLocation, c.radius=$childRadius, c.rowNumber=$childRowNumber, c.type=$childType, c.timeStamp=$timeStamp, c:SkelNode, c:" + dataset + " \n" +
-                "MERGE (p:`" + dataset + "-SkelNode`{skelNodeId:$parentSkelNodeId}) \n" +
-                "MERGE (p)-[:LinksTo]-(c)";
-
-        try (final TransactionBatch batch = getBatch()) {
+        final UnwindStatement segmentMergeStatement = new UnwindStatement(
+                "MERGE (n:`" + dataset + "-Segment`{bodyId:row.bodyId}) ON CREATE SET " +
+                        "n.bodyId=row.bodyId, " +
+                        "n.timeStamp=$timeStamp, " +
+                        "n:Segment, " +
+                        "n:" + dataset,
+                "timeStamp", timeStamp);
+
+        final UnwindStatement segmentToSkeletonConnectionStatement = new UnwindStatement(
+                "MERGE (r:`" + dataset + "-Skeleton`{skeletonId:row.skeletonId}) ON CREATE SET r.skeletonId=row.skeletonId, r.timeStamp=$timeStamp, r:Skeleton, r:" + dataset + " \n" +
+                        "MERGE (n:`" + dataset + "-Segment`{bodyId:row.bodyId}) \n" +
+                        "MERGE (n)-[:Contains]->(r) \n",
+                "timeStamp", timeStamp);
+
+        final UnwindStatement parentNodeStatement = new UnwindStatement(
+                "MERGE (p:`" + dataset + "-SkelNode`{skelNodeId:row.parentSkelNodeId}) ON CREATE SET p.skelNodeId=row.parentSkelNodeId, p.location=row.pLocation, p.locationKey=row.pLocationKey, p.radius=row.pRadius, p.rowNumber=row.pRowNumber, p.type=row.pType, p.timeStamp=$timeStamp, p:SkelNode, p:" + dataset + " \n" +
+                        "MERGE (r:`" + dataset + "-Skeleton`{skeletonId:row.skeletonId}) \n" +
+                        "MERGE (r)-[:Contains]->(p) ",
+                "timeStamp", timeStamp);
+
+        final UnwindStatement childNodeStatement = new UnwindStatement(
+                "MERGE (c:`" + dataset + "-SkelNode`{skelNodeId:row.childNodeId}) ON CREATE SET c.skelNodeId=row.childNodeId, c.location=row.childLocation, c.locationKey=row.childLocationKey, c.radius=row.childRadius, c.rowNumber=row.childRowNumber, c.type=row.childType, c.timeStamp=$timeStamp, c:SkelNode, c:" + dataset + " \n" +
+                        "MERGE (p:`" + dataset + "-SkelNode`{skelNodeId:row.parentSkelNodeId}) \n" +
+                        "MERGE (p)-[:LinksTo]-(c)",
+                "timeStamp", timeStamp);
+
+        try (final PartitionedUnwindBatch batch = getUnwindBatch("addSkeletonNodes", segmentMergeStatement, segmentToSkeletonConnectionStatement, parentNodeStatement, childNodeStatement)) {
             for (Skeleton skeleton : skeletonList) {
 
                 Long associatedBodyId = skeleton.getAssociatedBodyId();
                 List<SkelNode> skelNodeList = skeleton.getSkelNodeList();
+                final String skeletonId = dataset + ":" + associatedBodyId;
 
-                batch.addStatement(new Statement(segmentMergeString, parameters(
-                        "bodyId", associatedBodyId,
-                        "timeStamp", timeStamp
-                )));
+                batch.addRow(associatedBodyId, segmentMergeStatement,
+                        "bodyId", associatedBodyId);
 
-                batch.addStatement(new Statement(segmentToSkeletonConnectionString, parameters("bodyId", associatedBodyId,
-                        "skeletonId", dataset + ":" + associatedBodyId,
-                        "timeStamp", timeStamp
-                )));
+                batch.addRow(associatedBodyId, segmentToSkeletonConnectionStatement,
+                        "bodyId", associatedBodyId,
+                        "skeletonId", skeletonId);
 
                 for (SkelNode skelNode : skelNodeList) {
 
-                    batch.addStatement(new Statement(parentNodeString, parameters(
+                    final String parentSkelNodeId = skelNode.getSkelNodeId(dataset);
+
+                    batch.addRow(associatedBodyId, parentNodeStatement,
                             "pLocation", skelNode.getLocationAsPoint(),
+                            "pLocationKey", skelNode.hasLocationKey() ? skelNode.getLocationKey() : null,
                             "pRadius", skelNode.getRadius(),
-                            "skeletonId", dataset + ":" + associatedBodyId,
-                            "parentSkelNodeId", skelNode.getSkelNodeId(dataset),
+                            "skeletonId", skeletonId,
+                            "parentSkelNodeId", parentSkelNodeId,
                             "pRowNumber", skelNode.getRowNumber(),
-                            "pType", skelNode.getType(),
-                            "timeStamp", timeStamp
-                    )));
+                            "pType", skelNode.getType());
 
                     for (SkelNode childSkelNode : skelNode.getChildren()) {
-                        String childNodeId = childSkelNode.getSkelNodeId(dataset);
-                        batch.addStatement(new Statement(childNodeString, parameters(
-                                "parentSkelNodeId", skelNode.getSkelNodeId(dataset),
-                                "skeletonId", dataset + ":" + associatedBodyId,
-                                "pLocation", skelNode.getLocationAsPoint(),
-                                "pRadius", skelNode.getRadius(),
-                                "pRowNumber", skelNode.getRowNumber(),
-                                "pType", skelNode.getType(),
-                                "timeStamp", timeStamp,
-                                "childNodeId", childNodeId,
+                        batch.addRow(associatedBodyId, childNodeStatement,
+                                "parentSkelNodeId", parentSkelNodeId,
+                                "childNodeId", childSkelNode.getSkelNodeId(dataset),
                                 "childLocation", childSkelNode.getLocationAsPoint(),
+                                "childLocationKey", childSkelNode.hasLocationKey() ? childSkelNode.getLocationKey() : null,
                                 "childRadius", childSkelNode.getRadius(),
                                 "childRowNumber", childSkelNode.getRowNumber(),
-                                "childType", childSkelNode.getType()
-                        )));
+                                "childType", childSkelNode.getType());
                     }
                 }
                 LOG.info("Added full skeleton for bodyId: " + skeleton.getAssociatedBodyId());
@@ -789,7 +1539,7 @@ public class Neo4jImporter implements AutoCloseable {
 
         LOG.info("addMetaInfo: enter");
         String metaNodeUuidString = "MATCH (m:Meta{dataset:$dataset}) SET m.neuroglancerInfo=$neuroglancerInfo, m.uuid=$uuid, m.dvidServer=$dvidServer, m.statusDefinitions=$statusDefinitions, m.meshHost=$meshHost, m.info=$info, m.lastDatabaseEdit=$timeStamp";
-        try (final TransactionBatch batch = getBatch()) {
+        try (final TransactionBatch batch = getBatch("addMetaInfo")) {
             batch.addStatement(new Statement(metaNodeUuidString, parameters("dataset", dataset,
                     "neuroglancerInfo", metaInfo.getNeuroglancerInfo(),
                     "uuid", metaInfo.getUuid(),
@@ -859,8 +1609,9 @@ public class Neo4jImporter implements AutoCloseable {
         return bodyIdList;
     }
 
-    private static Set<String> getMetaNodeSuperLevelRois(final Transaction tx, final String dataset) {
-        StatementResult result = tx.run("MATCH (m:Meta{dataset:\"" + dataset + "\"}) WITH m.superLevelRois AS rois RETURN rois");
+    private Set<String> getMetaNodeSuperLevelRois(final Transaction tx, final String dataset) {
+        StatementResult result = tx.run(templateRegistry.use(READ_STAGE_NAME, "MATCH (m:Meta{dataset:$dataset}) WITH m.superLevelRois AS rois RETURN rois"),
+                parameters("dataset", dataset));
         List<?> resultList = (List<?>) result.next().asMap().get("rois");
         Set<String> roiSet = new HashSet<>();
         for (Object aResult : resultList) {
@@ -869,29 +1620,32 @@ public class Neo4jImporter implements AutoCloseable {
         return roiSet;
     }
 
-    private static RoiInfo getMetaNodeRoiInfo(final Transaction tx, final String dataset) {
-        StatementResult result = tx.run("MATCH (m:Meta{dataset:\"" + dataset + "\"}) WITH m.roiInfo AS roiInfo RETURN roiInfo");
+    private RoiInfo getMetaNodeRoiInfo(final Transaction tx, final String dataset) {
+        StatementResult result = tx.run(templateRegistry.use(READ_STAGE_NAME, "MATCH (m:Meta{dataset:$dataset}) WITH m.roiInfo AS roiInfo RETURN roiInfo"),
+                parameters("dataset", dataset));
         String roiInfoString = (String) result.next().asMap().get("roiInfo");
         return RoiInfo.getRoiInfoFromString(roiInfoString);
     }
 
-    private static long getTotalPreCount(final Transaction tx, final String dataset) {
-        StatementResult result = tx.run("MATCH (n:`" + dataset + "-PreSyn`) RETURN count(n)");
+    private long getTotalPreCount(final Transaction tx, final String dataset) {
+        StatementResult result = tx.run(templateRegistry.use(READ_STAGE_NAME, "MATCH (n:`" + dataset + "-PreSyn`) RETURN count(n)"));
         return (long) result.next().asMap().get("count(n)");
     }
 
-    private static long getTotalPostCount(final Transaction tx, final String dataset) {
-        StatementResult result = tx.run("MATCH (n:`" + dataset + "-PostSyn`) RETURN count(n)");
+    private long getTotalPostCount(final Transaction tx, final String dataset) {
+        StatementResult result = tx.run(templateRegistry.use(READ_STAGE_NAME, "MATCH (n:`" + dataset + "-PostSyn`) RETURN count(n)"));
         return (long) result.next().asMap().get("count(n)");
     }
 
-    private static long getRoiPreCount(final Transaction tx, final String dataset, final String roi) {
-        StatementResult result = tx.run("MATCH (n:`" + dataset + "-PreSyn`{`" + roi + "`:true}) RETURN count(n)");
+    private long getRoiPreCount(final Transaction tx, final String dataset, final String roi) {
+        // the ROI is part of the query text so that the count can use the ROI's index (one template per ROI, run once per load)
+        StatementResult result = tx.run(templateRegistry.use(ROI_COUNT_STAGE_NAME, "MATCH (n:`" + dataset + "-PreSyn`{`" + roi + "`:true}) RETURN count(n)"));
         return (long) result.next().asMap().get("count(n)");
     }
 
-    private static long getRoiPostCount(final Transaction tx, final String dataset, final String roi) {
-        StatementResult result = tx.run("MATCH (n:`" + dataset + "-PostSyn`{`" + roi + "`:true}) RETURN count(n)");
+    private long getRoiPostCount(final Transaction tx, final String dataset, final String roi) {
+        // the ROI is part of the query text so that the count can use the ROI's index (one template per ROI, run once per load)
+        StatementResult result = tx.run(templateRegistry.use(ROI_COUNT_STAGE_NAME, "MATCH (n:`" + dataset + "-PostSyn`{`" + roi + "`:true}) RETURN count(n)"));
         return (long) result.next().asMap().get("count(n)");
     }
 
@@ -913,5 +1667,17 @@ public class Neo4jImporter implements AutoCloseable {
         return entriesSortedByComparator(roiSynapseCountMap, comparator);
     }
 
+    // rows per UNWIND transaction may grow up to this multiple of statementsPerTransaction while commits stay within the target latency
+    private static final int MAX_UNWIND_BATCH_SIZE_FACTOR = 4;
+
+    /**
+     * Number of synapse locations written per SynapseSet membership row (see {@link SegmentWriter}).
+     */
+    public static final int SYNAPSE_SET_CHUNK_SIZE = 100;
+
+    // stage names used to record the query templates of reads
+    private static final String READ_STAGE_NAME = "reads";
+    private static final String ROI_COUNT_STAGE_NAME = "roiSynapseCounts";
+
     private static final Logger LOG = LoggerFactory.getLogger(Neo4jImporter.class);
 }
\ No newline at end of file
@@ -6,26 +6,45 @@ import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.Parameters;
 import com.google.common.base.Stopwatch;
 import com.google.gson.stream.JsonReader;
+import org.janelia.flyem.neuprint.columnar.ColumnarConverter;
+import org.janelia.flyem.neuprint.columnar.ColumnarFormat;
+import org.janelia.flyem.neuprint.columnar.ConnectionColumns;
+import org.janelia.flyem.neuprint.columnar.OffHeapStaging;
+import org.janelia.flyem.neuprint.columnar.RecordColumns;
+import org.janelia.flyem.neuprint.columnar.RecordColumnsList;
+import org.janelia.flyem.neuprint.columnar.SynapseColumns;
+import org.janelia.flyem.neuprint.connectome.ConnectomeAggregator;
 import org.janelia.flyem.neuprint.db.DbConfig;
 import org.janelia.flyem.neuprint.json.JsonUtils;
+import org.janelia.flyem.neuprint.model.LocationSet;
 import org.janelia.flyem.neuprint.model.MetaInfo;
 import org.janelia.flyem.neuprint.model.Neuron;
 import org.janelia.flyem.neuprint.model.Skeleton;
+import org.janelia.flyem.neuprint.model.SwcParser;
 import org.janelia.flyem.neuprint.model.Synapse;
 import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprint.util.BatchPipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * The NeuPrintMain class implements an application that loads neuron and synapse
@@ -43,18 +62,27 @@ public class NeuPrintMain {
 
         @Parameter(
                 names = "--dbProperties",
-                description = "Properties file containing database information (required)",
-                required = true)
+                description = "Properties file containing database information (required unless --exportCsvDirectory or --embeddedStoreDirectory is specified)")
         String dbProperties;
 
+        @Parameter(
+                names = "--exportCsvDirectory",
+                description = "If specified, node and relationship CSV files for neo4j-admin import are written to this directory instead of loading the data into a database.")
+        String exportCsvDirectory;
+
+        @Parameter(
+                names = "--embeddedStoreDirectory",
+                description = "If specified, the data is written with the neo4j batch inserter directly into a new store in this database directory (e.g. data/databases/graph.db) instead of being loaded into a running database.")
+        String embeddedStoreDirectory;
+
         @Parameter(
                 names = "--synapseJson",
-                description = "JSON file containing body synapse data to import")
+                description = "JSON file containing body synapse data to import (or a columnar synapse file written with --columnarDirectory)")
         String synapseJson;
 
         @Parameter(
                 names = "--connectionJson",
-                description = "Path to JSON file containing synaptic connections.")
+                description = "Path to JSON file containing synaptic connections (or a columnar connection file written with --columnarDirectory).")
         String connectionJson;
 
         @Parameter(
@@ -145,6 +173,61 @@ public class NeuPrintMain {
                 arity = 1)
         boolean addClusterNames = true;
 
+        @Parameter(
+                names = "--computeConnectionInfoClientSide",
+                description = "Compute connection info (ConnectsTo relationships, ConnectionSets, neuron/segment properties) from the synapse, connection, and neuron JSON files " +
+                        "instead of calling loader.addPropsAndConnectionInfoToSegment for each segment. Requires all three files and can only be used to load a new dataset. (omit to skip)",
+                arity = 0
+        )
+        boolean computeConnectionInfoClientSide;
+
+        @Parameter(
+                names = "--batchQueueDepth",
+                description = "Number of batches that may be parsed ahead of the batch being written when loading synapse or connection JSON or skeletons in batches (neurons are always parsed as they are written) (0 to parse and write on one thread)"
+        )
+        int batchQueueDepth = DEFAULT_BATCH_QUEUE_DEPTH;
+
+        @Parameter(
+                names = "--checkpointFile",
+                description = "File for recording the progress of the load after each committed batch (omit to skip)"
+        )
+        String checkpointFile;
+
+        @Parameter(
+                names = "--resume",
+                description = "Resume a failed load from the last committed batch recorded in --checkpointFile. The same input files and batch options should be specified. (omit to start a new load)",
+                arity = 0
+        )
+        boolean resume;
+
+        @Parameter(
+                names = "--stagingDirectory",
+                description = "Directory for the temporary files in which synapse, connection, and neuron JSON files that are not loaded in batches are staged outside of the heap " +
+                        "(omit to use the default temporary directory)"
+        )
+        String stagingDirectory;
+
+        @Parameter(
+                names = "--sortInputDirectory",
+                description = "If specified, the synapse, connection, and neuron JSON files are sorted by body and then location into this directory before loading, " +
+                        "so that the records of each body are stored near each other in the database (omit to load files in their original order)"
+        )
+        String sortInputDirectory;
+
+        @Parameter(
+                names = "--sortMaxRecordsInMemory",
+                description = "Maximum number of records held in memory while sorting with --sortInputDirectory (larger files are sorted in runs spilled to disk)"
+        )
+        int sortMaxRecordsInMemory = DEFAULT_SORT_MAX_RECORDS_IN_MEMORY;
+
+        @Parameter(
+                names = "--columnarDirectory",
+                description = "If specified, the synapse and connection JSON files are converted to columnar binary files (synapses.npcol and connections.npcol) " +
+                        "in this directory before loading (after sorting with --sortInputDirectory) and loaded from those. The columnar files can be passed to " +
+                        "--synapseJson and --connectionJson to skip JSON parsing when the dataset is loaded again (omit to load the JSON files directly)"
+        )
+        String columnarDirectory;
+
         @Parameter(
                 names = "--help",
                 help = true)
@@ -159,6 +242,20 @@ public class NeuPrintMain {
             return (dbProperties == null) ? null : DbConfig.fromFile(new File(dbProperties));
         }
 
+        /**
+         * @return directory for staging files (or null for the default temporary directory)
+         */
+        File getStagingDirectory() {
+            return (stagingDirectory == null) ? null : new File(stagingDirectory);
+        }
+
+        /**
+         * @return true if the data is written without a running database
+         */
+        boolean isOfflineLoad() {
+            return exportCsvDirectory != null || embeddedStoreDirectory != null;
+        }
+
         @Override
         public String toString() {
             return JsonUtils.GSON.toJson(this);
@@ -167,16 +264,39 @@ public class NeuPrintMain {
 
     /**
      * Returns a list of {@link Neuron} objects read from a JSON file
-     * at the provided file path.
+     * at the provided file path (see {@link #readNeuronsJson(String, File)}).
      *
      * @param filepath path to neuron JSON file
      * @return list of Neurons
      */
     public static List<Neuron> readNeuronsJson(String filepath) {
+        return readNeuronsJson(filepath, null);
+    }
+
+    /**
+     * Returns a list of {@link Neuron} objects read from a JSON file
+     * at the provided file path. The neurons are staged in a memory-mapped file (see {@link OffHeapStaging}),
+     * so the returned list is read-only and creates a new Neuron each time an element is accessed. If the
+     * neurons cannot be staged, they are read into the heap.
+     *
+     * @param filepath         path to neuron JSON file
+     * @param stagingDirectory directory for staging files (or null for the default temporary directory)
+     * @return list of Neurons
+     */
+    public static List<Neuron> readNeuronsJson(String filepath,
+                                               File stagingDirectory) {
         List<Neuron> neuronList = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
-            neuronList = Neuron.fromJson(reader);
-            LOG.info(String.format("Loaded %d neurons/segments from JSON.", neuronList.size()));
+        try {
+            try {
+                neuronList = OffHeapStaging.stageNeurons(filepath, stagingDirectory);
+                LOG.info(String.format("Staged %d neurons/segments from JSON.", neuronList.size()));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Cannot stage neurons outside of the heap, reading them into the heap instead: " + e.getMessage());
+                try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
+                    neuronList = Neuron.fromJson(reader);
+                    LOG.info(String.format("Loaded %d neurons/segments from JSON.", neuronList.size()));
+                }
+            }
         } catch (Exception e) {
             LOG.error("Error reading neurons JSON: " + e);
             System.exit(1);
@@ -198,9 +318,61 @@ public class NeuPrintMain {
                                                boolean addConnectionSetRoiInfoAndWeightHP,
                                                boolean addClusterNames,
                                                LocalDateTime timeStamp) {
+        loadNeuronJsonInBatches(filepath, neuronBatchSize, neo4jImporter, dataset, databaseInitialized, dataModelVersion, preHPThreshold, postHPThreshold, neuronThreshold, addConnectionSetRoiInfoAndWeightHP, addClusterNames, timeStamp, null, null, null, DEFAULT_BATCH_QUEUE_DEPTH);
+    }
+
+    /**
+     * Loads the neuron JSON file in batches. If a {@link ConnectomeAggregator} containing the synapses and connections
+     * for the load is provided, connection info is computed by the aggregator and written once all neurons have been loaded.
+     * Otherwise, connection info is added for each batch with loader.addPropsAndConnectionInfoToSegment.
+     * <p>
+     * Neurons are read on a separate thread (see {@link BatchPipeline}). The Segment of each neuron is written first,
+     * and its synapse set is then streamed from the file into the database (and the aggregator) in chunks. A batch
+     * ends after neuronBatchSize neurons or once it holds {@link #MAX_SYNAPSES_PER_NEURON_BATCH} synapse locations
+     * (possibly in the middle of a synapse set), so the memory used for a neuron does not depend on how many synapses
+     * it has as long as its id is listed before its synapse set.
+     *
+     * @param filepath                           path to neuron JSON file
+     * @param neuronBatchSize                    number of neurons per batch
+     * @param neo4jImporter                      importer
+     * @param dataset                            dataset name
+     * @param databaseInitialized                true if the database has been initialized
+     * @param dataModelVersion                   data model version
+     * @param preHPThreshold                     high-precision threshold for presynaptic densities
+     * @param postHPThreshold                    high-precision threshold for postsynaptic densities
+     * @param neuronThreshold                    threshold for :Neuron label
+     * @param addConnectionSetRoiInfoAndWeightHP boolean indicating if ConnectionSet nodes should have roiInfo property and weightHP should be added to ConnectsTo relationships
+     * @param addClusterNames                    boolean indicating if cluster names should be indexed
+     * @param timeStamp                          time stamp for load
+     * @param connectomeAggregator               aggregator containing all synapses and connections for the load (or null)
+     * @param checkpoint                         checkpoint for recording committed batches and skipping batches committed by a previous run (or null)
+     * @param synapseNodeIds                     node ids of synapses written by this load (or null)
+     * @param batchQueueDepth                    number of batches that may be parsed ahead of the batch being written (0 to parse and write on one thread)
+     */
+    public static void loadNeuronJsonInBatches(String filepath,
+                                               int neuronBatchSize,
+                                               Neo4jImporter neo4jImporter,
+                                               String dataset,
+                                               boolean databaseInitialized,
+                                               float dataModelVersion,
+                                               double preHPThreshold,
+                                               double postHPThreshold,
+                                               long neuronThreshold,
+                                               boolean addConnectionSetRoiInfoAndWeightHP,
+                                               boolean addClusterNames,
+                                               LocalDateTime timeStamp,
+                                               ConnectomeAggregator connectomeAggregator,
+                                               LoadCheckpoint checkpoint,
+                                               SynapseNodeIds synapseNodeIds,
+                                               int batchQueueDepth) {
 
         Stopwatch timer = Stopwatch.createUnstarted();
 
+        if (checkpoint != null && checkpoint.isComplete(LoadCheckpoint.Stage.NEURONS)) {
+            LOG.info("Skipping neurons (completed by a previous run)");
+            return;
+        }
+
         if (!databaseInitialized) {
             initializeDatabase(neo4jImporter, dataset, dataModelVersion, preHPThreshold, postHPThreshold, addConnectionSetRoiInfoAndWeightHP, addClusterNames, timeStamp);
 
@@ -210,31 +382,80 @@ public class NeuPrintMain {
 
         try (JsonReader reader = new JsonReader(new FileReader(filepath))) {
             reader.beginArray();
-            while (reader.hasNext()) {
-                List<Neuron> neuronList = new ArrayList<>();
-                int i = 0;
-                while (reader.hasNext() && i < neuronBatchSize) {
-                    Neuron neuron = Neuron.fromJsonSingleObject(reader);
-                    neuronList.add(neuron);
-                    i++;
-                }
+            final Neuron.SynapseLocationConsumer aggregatorConsumer = connectomeAggregator == null ? null :
+                    connectomeAggregator::addNeuronSynapse;
+            // the aggregator needs the synapse sets of all neurons, including those committed by a previous run, so skipped
+            // neurons are parsed when there is an aggregator: the parser streams their synapse sets into it through
+            // aggregatorConsumer, and the parsed neurons themselves are not needed
+            final AtomicLong recordCount = new AtomicLong(skipCommittedRecords(reader, checkpoint, LoadCheckpoint.Stage.NEURONS, neuronBatchSize,
+                    r -> Neuron.fromJsonSingleObject(r, aggregatorConsumer),
+                    connectomeAggregator != null,
+                    null));
+
+            new BatchPipeline<NeuronPart>("neurons", batchQueueDepth).run(
+                    emitter -> new NeuronPartReader(neuronBatchSize, emitter).read(reader),
+                    neuronParts -> {
+                        final List<Neuron> neuronList = new ArrayList<>();
+                        timer.start();
+                        try (final Neo4jImporter.SegmentWriter segmentWriter = neo4jImporter.openSegmentWriter(dataset, timeStamp, synapseNodeIds)) {
+                            for (final NeuronPart neuronPart : neuronParts) {
+                                if (neuronPart.synapseLocationSet != null) {
+                                    final LocationSet synapseLocationSet = neuronPart.synapseLocationSet;
+                                    for (int i = 0; i < synapseLocationSet.size(); i++) {
+                                        segmentWriter.addSynapseSetMember(neuronPart.bodyId, synapseLocationSet.getX(i), synapseLocationSet.getY(i), synapseLocationSet.getZ(i));
+                                        if (connectomeAggregator != null) {
+                                            connectomeAggregator.addNeuronSynapse(neuronPart.bodyId, synapseLocationSet.getX(i), synapseLocationSet.getY(i), synapseLocationSet.getZ(i));
+                                        }
+                                    }
+                                } else if (neuronPart.neuron == null) {
+                                    segmentWriter.addSegmentHeader(neuronPart.header);
+                                } else if (neuronPart.header == null) {
+                                    // the neuron has no synapse set
+                                    segmentWriter.addSegment(neuronPart.neuron);
+                                    neuronList.add(neuronPart.neuron);
+                                } else {
+                                    segmentWriter.endSegment(neuronPart.header, neuronPart.neuron);
+                                    neuronList.add(neuronPart.neuron);
+                                }
+                            }
+                        }
+                        LOG.info(String.format("Loading batch of neurons took: %s", timer.stop()));
+                        timer.reset();
 
-                timer.start();
-                neo4jImporter.addSegments(dataset, neuronList, timeStamp);
-                LOG.info(String.format("Loading batch of neurons took: %s", timer.stop()));
-                timer.reset();
+                        // a batch that ends inside a synapse set may not finish any neuron
+                        if (neuronList.isEmpty()) {
+                            return;
+                        }
 
-                timer.start();
-                neo4jImporter.addConnectionInfo(dataset, neuronList, addConnectionSetRoiInfoAndWeightHP, preHPThreshold, postHPThreshold, neuronThreshold);
-                LOG.info(String.format("Loading all connection info for batch took: %s", timer.stop()));
-                timer.reset();
-            }
+                        if (connectomeAggregator == null) {
+                            timer.start();
+                            neo4jImporter.addConnectionInfo(dataset, neuronList, addConnectionSetRoiInfoAndWeightHP, preHPThreshold, postHPThreshold, neuronThreshold);
+                            LOG.info(String.format("Loading all connection info for batch took: %s", timer.stop()));
+                            timer.reset();
+                        }
+
+                        long committedRecordCount = recordCount.addAndGet(neuronList.size());
+                        if (checkpoint != null) {
+                            checkpoint.recordCommittedBatch(LoadCheckpoint.Stage.NEURONS, committedRecordCount);
+                        }
+                    });
 
         } catch (IOException e) {
             LOG.error("Error reading neurons JSON: " + e);
             System.exit(1);
         }
 
+        if (connectomeAggregator != null) {
+            timer.start();
+            neo4jImporter.addConnectionInfo(dataset, connectomeAggregator, addConnectionSetRoiInfoAndWeightHP, timeStamp);
+            LOG.info(String.format("Loading all connection info took: %s", timer.stop()));
+            timer.reset();
+        }
+
+        if (checkpoint != null) {
+            checkpoint.markComplete(LoadCheckpoint.Stage.NEURONS);
+        }
+
     }
 
     public static void loadConnectionInfoInBatches(
@@ -285,17 +506,46 @@ public class NeuPrintMain {
     }
 
     /**
-     * Returns a list of {@link Synapse} objects read from a JSON file
-     * at the provided file path.
+     * Returns a list of {@link Synapse} objects read from a JSON file (or a columnar synapse file)
+     * at the provided file path (see {@link #readSynapsesJson(String, File)}).
      *
-     * @param filepath path to synapses JSON file
+     * @param filepath path to synapses JSON file or columnar synapse file
      * @return list of {@link Synapse} objects
      */
     public static List<Synapse> readSynapsesJson(String filepath) {
+        return readSynapsesJson(filepath, null);
+    }
+
+    /**
+     * Returns a list of {@link Synapse} objects read from a JSON file (or a columnar synapse file)
+     * at the provided file path. A columnar file is mapped and a JSON file is staged in a memory-mapped
+     * file (see {@link OffHeapStaging}), so the returned list is read-only and creates a new Synapse each
+     * time an element is accessed. If the synapses in a JSON file cannot be staged exactly, they are
+     * read into the heap.
+     *
+     * @param filepath         path to synapses JSON file or columnar synapse file
+     * @param stagingDirectory directory for staging files (or null for the default temporary directory)
+     * @return list of {@link Synapse} objects
+     */
+    public static List<Synapse> readSynapsesJson(String filepath,
+                                                 File stagingDirectory) {
         List<Synapse> synapseList = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
-            synapseList = Synapse.fromJson(reader);
-            LOG.info(String.format("Loaded %d synapses from JSON.", synapseList.size()));
+        try {
+            if (ColumnarFormat.isSynapseFile(filepath)) {
+                synapseList = new RecordColumnsList<>(SynapseColumns.open(new File(filepath)));
+                LOG.info(String.format("Loaded %d synapses from columnar file.", synapseList.size()));
+            } else {
+                try {
+                    synapseList = OffHeapStaging.stageSynapses(filepath, stagingDirectory);
+                    LOG.info(String.format("Staged %d synapses from JSON.", synapseList.size()));
+                } catch (IllegalArgumentException e) {
+                    LOG.warn("Cannot stage synapses outside of the heap, reading them into the heap instead: " + e.getMessage());
+                    try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
+                        synapseList = Synapse.fromJson(reader);
+                        LOG.info(String.format("Loaded %d synapses from JSON.", synapseList.size()));
+                    }
+                }
+            }
         } catch (Exception e) {
             LOG.error("Error reading synapse JSON: " + e);
             System.exit(1);
@@ -314,9 +564,62 @@ public class NeuPrintMain {
                                                 boolean addConnectionSetRoiInfoAndWeightHP,
                                                 boolean addClusterNames,
                                                 LocalDateTime timeStamp) {
+        loadSynapseJsonInBatches(filepath, synapseBatchSize, neo4jImporter, dataset, databaseInitialized, dataModelVersion, preHPThreshold, postHPThreshold, addConnectionSetRoiInfoAndWeightHP, addClusterNames, timeStamp, null, null, null, DEFAULT_BATCH_QUEUE_DEPTH);
+    }
+
+    /**
+     * Loads the synapse JSON file in batches, adding each batch to the {@link ConnectomeAggregator} if one is provided.
+     * The Meta node synapse counts are not exact until they are recounted once all stages are loaded
+     * (see {@link Neo4jImporter#reconcileMetaNodeSynapseCounts(String, LocalDateTime)}). If the checkpoint records the stage
+     * as complete, nothing is written and the file is only read to add its batches to the aggregator.
+     *
+     * @param filepath                           path to synapse JSON file
+     * @param synapseBatchSize                   number of synapses per batch
+     * @param neo4jImporter                      importer
+     * @param dataset                            dataset name
+     * @param databaseInitialized                true if the database has been initialized
+     * @param dataModelVersion                   data model version
+     * @param preHPThreshold                     high-precision threshold for presynaptic densities
+     * @param postHPThreshold                    high-precision threshold for postsynaptic densities
+     * @param addConnectionSetRoiInfoAndWeightHP boolean indicating if ConnectionSet nodes should have roiInfo property and weightHP should be added to ConnectsTo relationships
+     * @param addClusterNames                    boolean indicating if cluster names should be indexed
+     * @param timeStamp                          time stamp for load
+     * @param connectomeAggregator               aggregator for computing connection info (or null)
+     * @param checkpoint                         checkpoint for recording committed batches and skipping batches committed by a previous run (or null)
+     * @param synapseNodeIds                     node ids of synapses written by this load, which receives the ids of synapses written by this stage (or null)
+     * @param batchQueueDepth                    number of batches that may be parsed ahead of the batch being written (0 to parse and write on one thread)
+     */
+    public static void loadSynapseJsonInBatches(String filepath,
+                                                int synapseBatchSize,
+                                                Neo4jImporter neo4jImporter,
+                                                String dataset,
+                                                boolean databaseInitialized,
+                                                float dataModelVersion,
+                                                double preHPThreshold,
+                                                double postHPThreshold,
+                                                boolean addConnectionSetRoiInfoAndWeightHP,
+                                                boolean addClusterNames,
+                                                LocalDateTime timeStamp,
+                                                ConnectomeAggregator connectomeAggregator,
+                                                LoadCheckpoint checkpoint,
+                                                SynapseNodeIds synapseNodeIds,
+                                                int batchQueueDepth) {
 
         Stopwatch timer = Stopwatch.createUnstarted();
 
+        if (checkpoint != null && checkpoint.isComplete(LoadCheckpoint.Stage.SYNAPSES)) {
+            LOG.info("Skipping synapses (completed by a previous run)");
+            if (connectomeAggregator != null) {
+                try (RecordBatchReader<Synapse> reader = openSynapseBatchReader(filepath, synapseBatchSize)) {
+                    addAllBatches(reader, connectomeAggregator::addSynapses);
+                } catch (IOException e) {
+                    LOG.error("Error reading synapse JSON: " + e);
+                    System.exit(1);
+                }
+            }
+            return;
+        }
+
         if (!databaseInitialized) {
             initializeDatabase(neo4jImporter, dataset, dataModelVersion, preHPThreshold, postHPThreshold, addConnectionSetRoiInfoAndWeightHP, addClusterNames, timeStamp);
 
@@ -324,45 +627,82 @@ public class NeuPrintMain {
 
         LOG.info(String.format("Loading synapses in batches of size %d", synapseBatchSize));
 
-        try (JsonReader reader = new JsonReader(new FileReader(filepath))) {
-            reader.beginArray();
-            while (reader.hasNext()) {
-                List<Synapse> synapseList = new ArrayList<>();
-                int i = 0;
-                while (reader.hasNext() && i < synapseBatchSize) {
-                    Synapse synapse = Synapse.fromJsonSingleObject(reader);
-                    synapseList.add(synapse);
-                    i++;
-                }
-
-                timer.start();
-                neo4jImporter.addSynapsesWithRois(dataset, synapseList, timeStamp);
-                LOG.info(String.format("Loading batch of synapses took: %s", timer.stop()));
-                timer.reset();
+        try (RecordBatchReader<Synapse> reader = openSynapseBatchReader(filepath, synapseBatchSize)) {
+            final AtomicLong recordCount = new AtomicLong(reader.skipCommittedRecords(checkpoint, LoadCheckpoint.Stage.SYNAPSES,
+                    connectomeAggregator == null ? null : connectomeAggregator::addSynapses));
+            new BatchPipeline<Synapse>("synapses", batchQueueDepth).run(
+                    reader,
+                    synapseList -> {
+                        timer.start();
+                        neo4jImporter.addSynapsesWithRois(dataset, synapseList, timeStamp, synapseNodeIds);
+                        LOG.info(String.format("Loading batch of synapses took: %s", timer.stop()));
+                        timer.reset();
 
-                neo4jImporter.indexBooleanRoiProperties(dataset);
+                        if (connectomeAggregator != null) {
+                            connectomeAggregator.addSynapses(synapseList);
+                        }
 
-            }
+                        long committedRecordCount = recordCount.addAndGet(synapseList.size());
+                        if (checkpoint != null) {
+                            checkpoint.recordCommittedBatch(LoadCheckpoint.Stage.SYNAPSES, committedRecordCount);
+                        }
+                    });
 
         } catch (IOException e) {
             LOG.error("Error reading synapse JSON: " + e);
             System.exit(1);
         }
 
+        // ROI indexes are created once all ROIs are known
+        neo4jImporter.indexBooleanRoiProperties(dataset);
+
+        if (checkpoint != null) {
+            checkpoint.markComplete(LoadCheckpoint.Stage.SYNAPSES);
+        }
+
     }
 
     /**
-     * Returns a list of {@link SynapticConnection} objects read from a JSON file
-     * at the provided file path.
+     * Returns a list of {@link SynapticConnection} objects read from a JSON file (or a columnar connection file)
+     * at the provided file path (see {@link #readConnectionsJson(String, File)}).
      *
-     * @param filepath path to connections JSON file
+     * @param filepath path to connections JSON file or columnar connection file
      * @return list of {@link SynapticConnection} objects
      */
     public static List<SynapticConnection> readConnectionsJson(String filepath) {
+        return readConnectionsJson(filepath, null);
+    }
+
+    /**
+     * Returns a list of {@link SynapticConnection} objects read from a JSON file (or a columnar connection file)
+     * at the provided file path. A columnar file is mapped and a JSON file is staged in a memory-mapped
+     * file (see {@link OffHeapStaging}), so the returned list is read-only and creates a new SynapticConnection
+     * each time an element is accessed. If the connections in a JSON file cannot be staged exactly, they are
+     * read into the heap.
+     *
+     * @param filepath         path to connections JSON file or columnar connection file
+     * @param stagingDirectory directory for staging files (or null for the default temporary directory)
+     * @return list of {@link SynapticConnection} objects
+     */
+    public static List<SynapticConnection> readConnectionsJson(String filepath,
+                                                               File stagingDirectory) {
         List<SynapticConnection> connectionList = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
-            connectionList = SynapticConnection.fromJson(reader);
-            LOG.info(String.format("Loaded %d synaptic connections from JSON.", connectionList.size()));
+        try {
+            if (ColumnarFormat.isConnectionFile(filepath)) {
+                connectionList = new RecordColumnsList<>(ConnectionColumns.open(new File(filepath)));
+                LOG.info(String.format("Loaded %d synaptic connections from columnar file.", connectionList.size()));
+            } else {
+                try {
+                    connectionList = OffHeapStaging.stageConnections(filepath, stagingDirectory);
+                    LOG.info(String.format("Staged %d synaptic connections from JSON.", connectionList.size()));
+                } catch (IllegalArgumentException e) {
+                    LOG.warn("Cannot stage synaptic connections outside of the heap, reading them into the heap instead: " + e.getMessage());
+                    try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
+                        connectionList = SynapticConnection.fromJson(reader);
+                        LOG.info(String.format("Loaded %d synaptic connections from JSON.", connectionList.size()));
+                    }
+                }
+            }
         } catch (Exception e) {
             LOG.error("Error reading connections JSON: " + e);
             System.exit(1);
@@ -381,40 +721,98 @@ public class NeuPrintMain {
                                                    boolean addConnectionSetRoiInfoAndWeightHP,
                                                    boolean addClusterNames,
                                                    LocalDateTime timeStamp) {
+        loadConnectionJsonInBatches(filepath, connectionBatchSize, neo4jImporter, dataset, databaseInitialized, dataModelVersion, preHPThreshold, postHPThreshold, addConnectionSetRoiInfoAndWeightHP, addClusterNames, timeStamp, null, null, null, DEFAULT_BATCH_QUEUE_DEPTH);
+    }
+
+    /**
+     * Loads the connections JSON file in batches, adding each batch to the {@link ConnectomeAggregator} if one is provided.
+     * The Meta node synapse counts are not exact until they are recounted once all stages are loaded
+     * (see {@link Neo4jImporter#reconcileMetaNodeSynapseCounts(String, LocalDateTime)}). If the checkpoint records the stage
+     * as complete, nothing is written and the file is only read to add its batches to the aggregator.
+     *
+     * @param filepath                           path to connections JSON file
+     * @param connectionBatchSize                number of connections per batch
+     * @param neo4jImporter                      importer
+     * @param dataset                            dataset name
+     * @param databaseInitialized                true if the database has been initialized
+     * @param dataModelVersion                   data model version
+     * @param preHPThreshold                     high-precision threshold for presynaptic densities
+     * @param postHPThreshold                    high-precision threshold for postsynaptic densities
+     * @param addConnectionSetRoiInfoAndWeightHP boolean indicating if ConnectionSet nodes should have roiInfo property and weightHP should be added to ConnectsTo relationships
+     * @param addClusterNames                    boolean indicating if cluster names should be indexed
+     * @param timeStamp                          time stamp for load
+     * @param connectomeAggregator               aggregator for computing connection info (or null)
+     * @param checkpoint                         checkpoint for recording committed batches and skipping batches committed by a previous run (or null)
+     * @param synapseNodeIds                     node ids of synapses written by this load, which receives the ids of synapses written by this stage (or null)
+     * @param batchQueueDepth                    number of batches that may be parsed ahead of the batch being written (0 to parse and write on one thread)
+     */
+    public static void loadConnectionJsonInBatches(String filepath,
+                                                   int connectionBatchSize,
+                                                   Neo4jImporter neo4jImporter,
+                                                   String dataset,
+                                                   boolean databaseInitialized,
+                                                   float dataModelVersion,
+                                                   double preHPThreshold,
+                                                   double postHPThreshold,
+                                                   boolean addConnectionSetRoiInfoAndWeightHP,
+                                                   boolean addClusterNames,
+                                                   LocalDateTime timeStamp,
+                                                   ConnectomeAggregator connectomeAggregator,
+                                                   LoadCheckpoint checkpoint,
+                                                   SynapseNodeIds synapseNodeIds,
+                                                   int batchQueueDepth) {
 
         Stopwatch timer = Stopwatch.createUnstarted();
 
+        if (checkpoint != null && checkpoint.isComplete(LoadCheckpoint.Stage.CONNECTIONS)) {
+            LOG.info("Skipping connections (completed by a previous run)");
+            if (connectomeAggregator != null) {
+                try (RecordBatchReader<SynapticConnection> reader = openConnectionBatchReader(filepath, connectionBatchSize)) {
+                    addAllBatches(reader, connectomeAggregator::addSynapticConnections);
+                } catch (IOException e) {
+                    LOG.error("Error reading connection JSON: " + e);
+                    System.exit(1);
+                }
+            }
+            return;
+        }
+
         if (!databaseInitialized) {
             initializeDatabase(neo4jImporter, dataset, dataModelVersion, preHPThreshold, postHPThreshold, addConnectionSetRoiInfoAndWeightHP, addClusterNames, timeStamp);
         }
 
         LOG.info(String.format("Loading connections in batches of size %d", connectionBatchSize));
 
-        try (JsonReader reader = new JsonReader(new FileReader(filepath))) {
-            reader.beginArray();
-            while (reader.hasNext()) {
-                List<SynapticConnection> connectionsList = new ArrayList<>();
-                int i = 0;
-                // get to start
-
-                while (reader.hasNext() && i < connectionBatchSize) {
-                    SynapticConnection synapticConnection = SynapticConnection.fromJsonSingleObject(reader);
-                    connectionsList.add(synapticConnection);
-                    i++;
-                }
+        try (RecordBatchReader<SynapticConnection> reader = openConnectionBatchReader(filepath, connectionBatchSize)) {
+            final AtomicLong recordCount = new AtomicLong(reader.skipCommittedRecords(checkpoint, LoadCheckpoint.Stage.CONNECTIONS,
+                    connectomeAggregator == null ? null : connectomeAggregator::addSynapticConnections));
+            new BatchPipeline<SynapticConnection>("connections", batchQueueDepth).run(
+                    reader,
+                    connectionsList -> {
+                        timer.start();
+                        neo4jImporter.addSynapsesTo(dataset, connectionsList, timeStamp, synapseNodeIds);
+                        LOG.info(String.format("Loading batch of synaptic connections took: %s", timer.stop()));
+                        timer.reset();
 
-                timer.start();
-                neo4jImporter.addSynapsesTo(dataset, connectionsList, timeStamp);
-                LOG.info(String.format("Loading batch of synaptic connections took: %s", timer.stop()));
-                timer.reset();
+                        if (connectomeAggregator != null) {
+                            connectomeAggregator.addSynapticConnections(connectionsList);
+                        }
 
-            }
+                        long committedRecordCount = recordCount.addAndGet(connectionsList.size());
+                        if (checkpoint != null) {
+                            checkpoint.recordCommittedBatch(LoadCheckpoint.Stage.CONNECTIONS, committedRecordCount);
+                        }
+                    });
 
         } catch (IOException e) {
             LOG.error("Error reading connection JSON: " + e);
             System.exit(1);
         }
 
+        if (checkpoint != null) {
+            checkpoint.markComplete(LoadCheckpoint.Stage.CONNECTIONS);
+        }
+
     }
 
     public static MetaInfo readMetaInfoJson(String filepath) {
@@ -437,22 +835,40 @@ public class NeuPrintMain {
      */
     public static List<Skeleton> createSkeletonListFromSwcFileArray(File[] arrayOfSwcFiles) {
         List<Skeleton> skeletonList = new ArrayList<>();
-        for (File swcFile : arrayOfSwcFiles) {
-            String filepath = swcFile.getAbsolutePath();
-            Long associatedBodyId = setSkeletonAssociatedBodyId(filepath);
-            Skeleton skeleton = new Skeleton();
-
-            try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
-                skeleton.fromSwc(reader, associatedBodyId);
-                skeletonList.add(skeleton);
-            } catch (Exception e) {
-                LOG.error("Error reading skeleton files: " + e);
-                System.exit(1);
-            }
+        try {
+            skeletonList = readSkeletons(Arrays.asList(arrayOfSwcFiles));
+        } catch (Exception e) {
+            LOG.error("Error reading skeleton files: " + e);
+            System.exit(1);
         }
         return skeletonList;
     }
 
+    /**
+     * Returns a list of {@link Skeleton} objects read from swc files. Files are parsed in parallel
+     * on the common fork-join pool, and the list is in the same order as the files.
+     *
+     * @param swcFiles list of swc files
+     * @return list of Skeletons
+     * @throws UncheckedIOException if a file cannot be read
+     */
+    public static List<Skeleton> readSkeletons(List<File> swcFiles) {
+        return swcFiles.parallelStream()
+                .map(NeuPrintMain::readSkeleton)
+                .collect(Collectors.toList());
+    }
+
+    private static Skeleton readSkeleton(File swcFile) {
+        final Long associatedBodyId = setSkeletonAssociatedBodyId(swcFile.getAbsolutePath());
+        final Skeleton skeleton = new Skeleton();
+        try {
+            skeleton.fromSwcRows(SwcParser.read(swcFile), associatedBodyId, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to read " + swcFile, e);
+        }
+        return skeleton;
+    }
+
     public static void loadSkeletonsInBatches(File[] arrayOfSwcFiles,
                                               int skeletonBatchSize,
                                               boolean databaseInitialized,
@@ -464,41 +880,418 @@ public class NeuPrintMain {
                                               boolean addConnectionSetRoiInfoAndWeightHP,
                                               boolean addClusterNames,
                                               LocalDateTime timeStamp) {
+        loadSkeletonsInBatches(arrayOfSwcFiles, skeletonBatchSize, databaseInitialized, neo4jImporter, dataset, dataModelVersion, preHPThreshold, postHPThreshold, addConnectionSetRoiInfoAndWeightHP, addClusterNames, timeStamp, null, DEFAULT_BATCH_QUEUE_DEPTH);
+    }
+
+    /**
+     * Loads skeletons from swc files in batches. The files in each batch are parsed in parallel while the previous batch is written. When a checkpoint is provided, files are loaded in the order given
+     * and files committed by a previous run are skipped, so the array should be in the same (e.g. sorted) order for each run.
+     *
+     * @param arrayOfSwcFiles                    swc files
+     * @param skeletonBatchSize                  number of skeletons per batch
+     * @param databaseInitialized                true if the database has been initialized
+     * @param neo4jImporter                      importer
+     * @param dataset                            dataset name
+     * @param dataModelVersion                   data model version
+     * @param preHPThreshold                     high-precision threshold for presynaptic densities
+     * @param postHPThreshold                    high-precision threshold for postsynaptic densities
+     * @param addConnectionSetRoiInfoAndWeightHP boolean indicating if ConnectionSet nodes should have roiInfo property and weightHP should be added to ConnectsTo relationships
+     * @param addClusterNames                    boolean indicating if cluster names should be indexed
+     * @param timeStamp                          time stamp for load
+     * @param checkpoint                         checkpoint for recording committed batches and skipping batches committed by a previous run (or null)
+     * @param batchQueueDepth                    number of batches that may be parsed ahead of the batch being written (0 to parse and write on one thread)
+     */
+    public static void loadSkeletonsInBatches(File[] arrayOfSwcFiles,
+                                              int skeletonBatchSize,
+                                              boolean databaseInitialized,
+                                              Neo4jImporter neo4jImporter,
+                                              String dataset,
+                                              float dataModelVersion,
+                                              double preHPThreshold,
+                                              double postHPThreshold,
+                                              boolean addConnectionSetRoiInfoAndWeightHP,
+                                              boolean addClusterNames,
+                                              LocalDateTime timeStamp,
+                                              LoadCheckpoint checkpoint,
+                                              int batchQueueDepth) {
 
         Stopwatch timer = Stopwatch.createUnstarted();
 
+        if (checkpoint != null && checkpoint.isComplete(LoadCheckpoint.Stage.SKELETONS)) {
+            LOG.info("Skipping skeletons (completed by a previous run)");
+            return;
+        }
+
         if (!databaseInitialized) {
             initializeDatabase(neo4jImporter, dataset, dataModelVersion, preHPThreshold, postHPThreshold, addConnectionSetRoiInfoAndWeightHP, addClusterNames, timeStamp);
         }
 
         LOG.info(String.format("Loading skeletons in batches of size %d", skeletonBatchSize));
 
-        int currentFileIndex = 0;
-        while (currentFileIndex < arrayOfSwcFiles.length) {
-            List<Skeleton> skeletonList = new ArrayList<>();
-            int i = 0;
-            while (currentFileIndex < arrayOfSwcFiles.length && i < skeletonBatchSize) {
-                String filepath = arrayOfSwcFiles[currentFileIndex].getAbsolutePath();
-                currentFileIndex++;
-                Long associatedBodyId = setSkeletonAssociatedBodyId(filepath);
-                Skeleton skeleton = new Skeleton();
-                try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
-                    skeleton.fromSwc(reader, associatedBodyId);
-                    skeletonList.add(skeleton);
-                    i++;
-                } catch (Exception e) {
-                    LOG.error("Error reading skeleton files: " + e);
-                    System.exit(1);
+        int firstFileIndex = 0;
+        if (checkpoint != null && checkpoint.getCommittedRecordCount(LoadCheckpoint.Stage.SKELETONS) > 0) {
+            firstFileIndex = (int) Math.min(checkpoint.getCommittedRecordCount(LoadCheckpoint.Stage.SKELETONS), arrayOfSwcFiles.length);
+            LOG.info(String.format("Skipping %d swc files committed by a previous run", firstFileIndex));
+        }
+
+        final List<File> swcFileList = Arrays.asList(arrayOfSwcFiles);
+        final AtomicInteger nextFileIndex = new AtomicInteger(firstFileIndex);
+        final AtomicLong committedFileCount = new AtomicLong(firstFileIndex);
+        try {
+            new BatchPipeline<Skeleton>("skeletons", batchQueueDepth).run(
+                    () -> {
+                        int fromIndex = nextFileIndex.get();
+                        int toIndex = Math.min(fromIndex + skeletonBatchSize, swcFileList.size());
+                        nextFileIndex.set(toIndex);
+                        try {
+                            return readSkeletons(swcFileList.subList(fromIndex, toIndex));
+                        } catch (UncheckedIOException e) {
+                            throw e.getCause();
+                        }
+                    },
+                    skeletonList -> {
+                        timer.start();
+                        neo4jImporter.addSkeletonNodes(dataset, skeletonList, timeStamp);
+                        LOG.info("Loading all Skeleton nodes took: " + timer.stop());
+                        timer.reset();
+
+                        long committedRecordCount = committedFileCount.addAndGet(skeletonList.size());
+                        if (checkpoint != null) {
+                            checkpoint.recordCommittedBatch(LoadCheckpoint.Stage.SKELETONS, committedRecordCount);
+                        }
+                    });
+        } catch (IOException e) {
+            LOG.error("Error reading skeleton files: " + e);
+            System.exit(1);
+        }
+
+        if (checkpoint != null) {
+            checkpoint.markComplete(LoadCheckpoint.Stage.SKELETONS);
+        }
+
+    }
+
+    /**
+     * Reads the next batch of records from a JSON array.
+     *
+     * @param reader    reader positioned inside the JSON array
+     * @param batchSize maximum number of records in the batch
+     * @param parser    function for parsing a single record
+     * @param <T>       record type
+     * @return batch of records (empty when the end of the array has been reached)
+     * @throws IOException if the JSON cannot be read
+     */
+    private static <T> List<T> readBatch(JsonReader reader,
+                                         int batchSize,
+                                         Function<JsonReader, T> parser) throws IOException {
+        List<T> recordList = new ArrayList<>();
+        while (reader.hasNext() && recordList.size() < batchSize) {
+            recordList.add(parser.apply(reader));
+        }
+        return recordList;
+    }
+
+    /**
+     * Skips the records at the start of a JSON array that were committed by a previous run. If parseSkippedRecords is false,
+     * the skipped records are not parsed. Otherwise each skipped record is parsed (so that a parser with side effects sees it)
+     * and, if a consumer is provided (e.g. to add the records to a {@link ConnectomeAggregator}), passed to the consumer in batches.
+     *
+     * @param reader              reader positioned inside the JSON array
+     * @param checkpoint          checkpoint of load (or null)
+     * @param stage               stage of load
+     * @param batchSize           number of records per batch passed to the consumer
+     * @param parser              function for parsing a single record
+     * @param parseSkippedRecords true if the skipped records should be parsed
+     * @param consumer            consumer for parsed skipped records (or null)
+     * @param <T>                 record type
+     * @return number of records skipped
+     * @throws IOException if the JSON cannot be read
+     */
+    private static <T> long skipCommittedRecords(JsonReader reader,
+                                                 LoadCheckpoint checkpoint,
+                                                 LoadCheckpoint.Stage stage,
+                                                 int batchSize,
+                                                 Function<JsonReader, T> parser,
+                                                 boolean parseSkippedRecords,
+                                                 Consumer<List<T>> consumer) throws IOException {
+        long committedRecordCount = checkpoint == null ? 0 : checkpoint.getCommittedRecordCount(stage);
+        long recordCount = 0;
+        List<T> recordList = new ArrayList<>();
+        while (reader.hasNext() && recordCount < committedRecordCount) {
+            if (!parseSkippedRecords) {
+                reader.skipValue();
+            } else {
+                T record = parser.apply(reader);
+                if (consumer != null) {
+                    recordList.add(record);
+                    if (recordList.size() >= batchSize) {
+                        consumer.accept(recordList);
+                        recordList = new ArrayList<>();
+                    }
                 }
             }
+            recordCount++;
+        }
+        if (!recordList.isEmpty()) {
+            consumer.accept(recordList);
+        }
+        if (recordCount > 0) {
+            LOG.info(String.format("Skipped %d %s records committed by a previous run", recordCount, stage.name().toLowerCase()));
+        }
+        return recordCount;
+    }
 
-            timer.start();
-            neo4jImporter.addSkeletonNodes(dataset, skeletonList, timeStamp);
-            LOG.info("Loading all Skeleton nodes took: " + timer.stop());
-            timer.reset();
+    /**
+     * Passes every remaining batch of the reader to the consumer.
+     *
+     * @param reader   batch reader
+     * @param consumer consumer for batches
+     * @param <T>      record type
+     * @throws IOException if the records cannot be read
+     */
+    private static <T> void addAllBatches(RecordBatchReader<T> reader,
+                                          Consumer<List<T>> consumer) throws IOException {
+        for (List<T> recordList = reader.nextBatch(); !recordList.isEmpty(); recordList = reader.nextBatch()) {
+            consumer.accept(recordList);
+        }
+    }
 
+    /**
+     * Opens a synapse JSON file or columnar synapse file for reading in batches.
+     *
+     * @param filepath  path to synapse JSON file or columnar synapse file
+     * @param batchSize number of synapses per batch
+     * @return batch reader
+     * @throws IOException if the file cannot be read
+     */
+    private static RecordBatchReader<Synapse> openSynapseBatchReader(String filepath,
+                                                                     int batchSize) throws IOException {
+        if (ColumnarFormat.isSynapseFile(filepath)) {
+            return new ColumnarBatchReader<>(SynapseColumns.open(new File(filepath)), batchSize);
         }
+        return new JsonBatchReader<>(filepath, batchSize, Synapse::fromJsonSingleObject);
+    }
 
+    /**
+     * Opens a connections JSON file or columnar connection file for reading in batches.
+     *
+     * @param filepath  path to connections JSON file or columnar connection file
+     * @param batchSize number of connections per batch
+     * @return batch reader
+     * @throws IOException if the file cannot be read
+     */
+    private static RecordBatchReader<SynapticConnection> openConnectionBatchReader(String filepath,
+                                                                                   int batchSize) throws IOException {
+        if (ColumnarFormat.isConnectionFile(filepath)) {
+            return new ColumnarBatchReader<>(ConnectionColumns.open(new File(filepath)), batchSize);
+        }
+        return new JsonBatchReader<>(filepath, batchSize, SynapticConnection::fromJsonSingleObject);
+    }
+
+    /**
+     * Source of batches of records that can first skip the records committed by a previous run.
+     *
+     * @param <T> record type
+     */
+    private interface RecordBatchReader<T> extends BatchPipeline.BatchSource<T>, Closeable {
+
+        /**
+         * Skips the records committed by a previous run. If a consumer is provided (e.g. to add the records
+         * to a {@link ConnectomeAggregator}), the skipped records are read and passed to it in batches.
+         *
+         * @param checkpoint checkpoint of load (or null)
+         * @param stage      stage of load
+         * @param consumer   consumer for skipped records (or null)
+         * @return number of records skipped
+         * @throws IOException if the records cannot be read
+         */
+        long skipCommittedRecords(LoadCheckpoint checkpoint,
+                                  LoadCheckpoint.Stage stage,
+                                  Consumer<List<T>> consumer) throws IOException;
+    }
+
+    /**
+     * Reads batches of records from a JSON array.
+     */
+    private static class JsonBatchReader<T> implements RecordBatchReader<T> {
+
+        private final JsonReader reader;
+        private final int batchSize;
+        private final Function<JsonReader, T> parser;
+
+        private JsonBatchReader(String filepath,
+                                int batchSize,
+                                Function<JsonReader, T> parser) throws IOException {
+            this.reader = new JsonReader(new FileReader(filepath));
+            this.batchSize = batchSize;
+            this.parser = parser;
+            try {
+                this.reader.beginArray();
+            } catch (IOException e) {
+                this.reader.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public List<T> nextBatch() throws IOException {
+            return readBatch(reader, batchSize, parser);
+        }
+
+        @Override
+        public long skipCommittedRecords(LoadCheckpoint checkpoint,
+                                         LoadCheckpoint.Stage stage,
+                                         Consumer<List<T>> consumer) throws IOException {
+            return NeuPrintMain.skipCommittedRecords(reader, checkpoint, stage, batchSize, parser, consumer != null, consumer);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads batches of records from a columnar file. Committed records are skipped by index without being read
+     * unless they are passed to a consumer.
+     */
+    private static class ColumnarBatchReader<T> implements RecordBatchReader<T> {
+
+        private final RecordColumns<T> columns;
+        private final int batchSize;
+        private int position;
+
+        private ColumnarBatchReader(RecordColumns<T> columns,
+                                    int batchSize) {
+            this.columns = columns;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public List<T> nextBatch() {
+            List<T> recordList = columns.getRecords(position, batchSize);
+            position += recordList.size();
+            return recordList;
+        }
+
+        @Override
+        public long skipCommittedRecords(LoadCheckpoint checkpoint,
+                                         LoadCheckpoint.Stage stage,
+                                         Consumer<List<T>> consumer) {
+            long committedRecordCount = checkpoint == null ? 0 : checkpoint.getCommittedRecordCount(stage);
+            int recordCount = (int) Math.min(committedRecordCount, columns.size());
+            if (consumer != null) {
+                for (int start = 0; start < recordCount; start += batchSize) {
+                    consumer.accept(columns.getRecords(start, Math.min(batchSize, recordCount - start)));
+                }
+            }
+            position = recordCount;
+            if (recordCount > 0) {
+                LOG.info(String.format("Skipped %d %s records committed by a previous run", recordCount, stage.name().toLowerCase()));
+            }
+            return recordCount;
+        }
+
+        @Override
+        public void close() {
+            // mapped columns are released when they are garbage collected
+        }
+    }
+
+    /**
+     * Part of a neuron read by {@link NeuronPartReader}: the neuron's properties listed before its synapse set
+     * (header), a chunk of its synapse locations, or the whole neuron once its object has been read.
+     */
+    private static class NeuronPart {
+
+        private final long bodyId;
+        // header written before the synapse set (null for a neuron without a synapse set)
+        private final Neuron header;
+        private final LocationSet synapseLocationSet;
+        private final Neuron neuron;
+
+        private NeuronPart(long bodyId,
+                           Neuron header,
+                           LocationSet synapseLocationSet,
+                           Neuron neuron) {
+            this.bodyId = bodyId;
+            this.header = header;
+            this.synapseLocationSet = synapseLocationSet;
+            this.neuron = neuron;
+        }
+    }
+
+    /**
+     * Reads neurons from a JSON array and emits them as batches of {@link NeuronPart}s. The synapse set of a neuron
+     * is split into chunks of {@link Neo4jImporter#SYNAPSE_SET_CHUNK_SIZE} locations, and a batch is emitted after
+     * neuronBatchSize neurons or once it holds {@link #MAX_SYNAPSES_PER_NEURON_BATCH} locations.
+     */
+    private static class NeuronPartReader implements Neuron.SynapseLocationConsumer {
+
+        private final int neuronBatchSize;
+        private final Consumer<List<NeuronPart>> emitter;
+        private List<NeuronPart> batch;
+        private int batchNeuronCount;
+        private int batchSynapseCount;
+        private Neuron header;
+        private LocationSet chunk;
+
+        private NeuronPartReader(int neuronBatchSize,
+                                 Consumer<List<NeuronPart>> emitter) {
+            this.neuronBatchSize = neuronBatchSize;
+            this.emitter = emitter;
+            this.batch = new ArrayList<>();
+            this.chunk = new LocationSet(Neo4jImporter.SYNAPSE_SET_CHUNK_SIZE);
+        }
+
+        private void read(JsonReader reader) throws IOException {
+            while (reader.hasNext()) {
+                header = null;
+                final Neuron neuron = Neuron.fromJsonSingleObject(reader, this);
+                addChunk();
+                batch.add(new NeuronPart(neuron.getId(), header, null, neuron));
+                batchNeuronCount++;
+                if (batchNeuronCount == neuronBatchSize) {
+                    emit();
+                }
+            }
+            emit();
+        }
+
+        @Override
+        public void beginSynapseSet(Neuron neuron) {
+            header = neuron;
+            batch.add(new NeuronPart(neuron.getId(), neuron, null, null));
+        }
+
+        @Override
+        public void accept(long bodyId,
+                           long x,
+                           long y,
+                           long z) {
+            chunk.add(x, y, z);
+            if (chunk.size() == Neo4jImporter.SYNAPSE_SET_CHUNK_SIZE) {
+                addChunk();
+                if (batchSynapseCount >= MAX_SYNAPSES_PER_NEURON_BATCH) {
+                    emit();
+                }
+            }
+        }
+
+        private void addChunk() {
+            if (chunk.size() > 0) {
+                batch.add(new NeuronPart(header.getId(), null, chunk, null));
+                batchSynapseCount += chunk.size();
+                chunk = new LocationSet(Neo4jImporter.SYNAPSE_SET_CHUNK_SIZE);
+            }
+        }
+
+        private void emit() {
+            emitter.accept(batch);
+            batch = new ArrayList<>();
+            batchNeuronCount = 0;
+            batchSynapseCount = 0;
+        }
     }
 
     /**
@@ -617,19 +1410,208 @@ public class NeuPrintMain {
         neo4jImporter.addSynapsesWithRois("test", synapseList, timeStamp);
         neo4jImporter.indexBooleanRoiProperties(dataset);
         neo4jImporter.addSynapsesTo("test", connectionsList, timeStamp);
+        neo4jImporter.reconcileMetaNodeSynapseCounts("test", timeStamp);
         neo4jImporter.addSegments("test", neuronList, timeStamp);
         neo4jImporter.addConnectionInfo("test", neuronList, addConnectionSetRoiInfoAndWeightHP, preHPThreshold, postHPThreshold, neuronThreshold);
         neo4jImporter.addSkeletonNodes("test", skeletonList, timeStamp);
     }
 
+    /**
+     * Writes node and relationship CSV files for neo4j-admin import to the export directory specified
+     * in the parameters. JSON files are read in batches (of the specified batch size or
+     * {@value #DEFAULT_EXPORT_BATCH_SIZE} if none is specified).
+     *
+     * @param parameters command line parameters
+     * @param timeStamp  time stamp for load
+     * @throws IOException if an input file cannot be read
+     */
+    static void exportCsv(NeuPrintParameters parameters, LocalDateTime timeStamp) throws IOException {
+
+        Stopwatch timer = Stopwatch.createStarted();
+
+        try (CsvExporter csvExporter = new CsvExporter(new File(parameters.exportCsvDirectory),
+                parameters.datasetLabel,
+                parameters.dataModelVersion,
+                parameters.preHPThreshold,
+                parameters.postHPThreshold,
+                parameters.neuronThreshold,
+                parameters.addConnectionSetRoiInfoAndWeightHP,
+                parameters.addClusterNames,
+                timeStamp)) {
+            runOfflineLoad(csvExporter, parameters, "Exporting", timer);
+        }
+
+        LOG.info(String.format("Exporting CSV files took: %s", timer.stop()));
+    }
+
+    /**
+     * Writes a new store with the neo4j batch inserter in the embedded store directory specified in the
+     * parameters (see {@link EmbeddedStoreImporter}). JSON files are read in batches (of the specified batch
+     * size or {@value #DEFAULT_EXPORT_BATCH_SIZE} if none is specified). The database must not be running.
+     *
+     * @param parameters command line parameters
+     * @param timeStamp  time stamp for load
+     * @throws IOException if an input file cannot be read or the store cannot be opened
+     */
+    static void loadEmbeddedStore(NeuPrintParameters parameters, LocalDateTime timeStamp) throws IOException {
+
+        Stopwatch timer = Stopwatch.createStarted();
+
+        try (EmbeddedStoreImporter embeddedStoreImporter = new EmbeddedStoreImporter(new File(parameters.embeddedStoreDirectory),
+                parameters.datasetLabel,
+                parameters.dataModelVersion,
+                parameters.preHPThreshold,
+                parameters.postHPThreshold,
+                parameters.neuronThreshold,
+                parameters.addConnectionSetRoiInfoAndWeightHP,
+                parameters.addClusterNames,
+                timeStamp)) {
+            runOfflineLoad(embeddedStoreImporter, parameters, "Writing", timer);
+        }
+
+        LOG.info(String.format("Writing embedded store took: %s", timer.stop()));
+    }
+
+    private static void runOfflineLoad(OfflineLoader offlineLoader, NeuPrintParameters parameters, String action, Stopwatch timer) throws IOException {
+
+        if (parameters.synapseJson != null) {
+            try (RecordBatchReader<Synapse> reader = openSynapseBatchReader(parameters.synapseJson, getExportBatchSize(parameters.synapseBatchSize))) {
+                for (List<Synapse> synapseList = reader.nextBatch(); !synapseList.isEmpty(); synapseList = reader.nextBatch()) {
+                    offlineLoader.addSynapses(synapseList);
+                }
+            }
+            LOG.info(String.format("%s synapses took: %s", action, timer));
+        }
+
+        if (parameters.connectionJson != null) {
+            try (RecordBatchReader<SynapticConnection> reader = openConnectionBatchReader(parameters.connectionJson, getExportBatchSize(parameters.connectionBatchSize))) {
+                for (List<SynapticConnection> connectionsList = reader.nextBatch(); !connectionsList.isEmpty(); connectionsList = reader.nextBatch()) {
+                    offlineLoader.addSynapticConnections(connectionsList);
+                }
+            }
+            LOG.info(String.format("%s synaptic connections took: %s", action, timer));
+        }
+
+        if (parameters.neuronJson != null) {
+            try (JsonReader reader = new JsonReader(new FileReader(parameters.neuronJson))) {
+                reader.beginArray();
+                final int batchSize = getExportBatchSize(parameters.neuronBatchSize);
+                while (reader.hasNext()) {
+                    List<Neuron> neuronList = new ArrayList<>();
+                    while (reader.hasNext() && neuronList.size() < batchSize) {
+                        neuronList.add(Neuron.fromJsonSingleObject(reader));
+                    }
+                    offlineLoader.addNeurons(neuronList);
+                }
+            }
+            LOG.info(String.format("%s neurons took: %s", action, timer));
+        }
+
+        if (parameters.skeletonDirectory != null) {
+            final File folder = new File(parameters.skeletonDirectory);
+            final File[] arrayOfSwcFiles = folder.listFiles((dir, name) -> name.toLowerCase().endsWith(".swc"));
+            if (arrayOfSwcFiles == null) {
+                throw new IOException("failed to list swc files in " + folder);
+            }
+            final int batchSize = getExportBatchSize(parameters.skeletonBatchSize);
+            for (int i = 0; i < arrayOfSwcFiles.length; i += batchSize) {
+                File[] batch = Arrays.copyOfRange(arrayOfSwcFiles, i, Math.min(i + batchSize, arrayOfSwcFiles.length));
+                offlineLoader.addSkeletons(createSkeletonListFromSwcFileArray(batch));
+            }
+            LOG.info(String.format("%s skeletons took: %s", action, timer));
+        }
+
+        if (parameters.metaInfoJson != null) {
+            offlineLoader.addMetaInfo(readMetaInfoJson(parameters.metaInfoJson));
+        }
+    }
+
+    /**
+     * Writes copies of the synapse, connection, and neuron JSON files ordered by body and then location to the sort directory
+     * specified in the parameters (see {@link SpatialLoadOrder}) and replaces the input file paths in the parameters with the sorted files.
+     *
+     * @param parameters command line parameters
+     * @throws IOException if an input file cannot be read or a sorted file cannot be written
+     */
+    static void sortInputFiles(NeuPrintParameters parameters) throws IOException {
+
+        Stopwatch timer = Stopwatch.createStarted();
+
+        final File sortDirectory = new File(parameters.sortInputDirectory);
+        if (!sortDirectory.isDirectory() && !sortDirectory.mkdirs()) {
+            throw new IOException("failed to create " + sortDirectory);
+        }
+
+        final SpatialLoadOrder spatialLoadOrder = new SpatialLoadOrder(sortDirectory, parameters.sortMaxRecordsInMemory);
+
+        if (parameters.neuronJson != null) {
+            spatialLoadOrder.readBodyIds(parameters.neuronJson);
+        }
+        // columnar files are not sorted (they can be written from sorted JSON files with --columnarDirectory)
+        if (parameters.synapseJson != null && !ColumnarFormat.isSynapseFile(parameters.synapseJson)) {
+            parameters.synapseJson = spatialLoadOrder.sortSynapses(parameters.synapseJson).getPath();
+        }
+        if (parameters.connectionJson != null && !ColumnarFormat.isConnectionFile(parameters.connectionJson)) {
+            parameters.connectionJson = spatialLoadOrder.sortConnections(parameters.connectionJson).getPath();
+        }
+        if (parameters.neuronJson != null) {
+            parameters.neuronJson = spatialLoadOrder.sortNeurons(parameters.neuronJson).getPath();
+        }
+
+        LOG.info(String.format("Sorting input files took: %s", timer.stop()));
+    }
+
+    /**
+     * Converts the synapse and connection JSON files to columnar files in the columnar directory specified
+     * in the parameters (see {@link ColumnarConverter}) and replaces the input file paths in the parameters with the
+     * columnar files. Input files that are already columnar are not converted.
+     *
+     * @param parameters command line parameters
+     * @throws IOException if an input file cannot be read or a columnar file cannot be written
+     */
+    static void convertInputFiles(NeuPrintParameters parameters) throws IOException {
+
+        Stopwatch timer = Stopwatch.createStarted();
+
+        final File columnarDirectory = new File(parameters.columnarDirectory);
+        if (!columnarDirectory.isDirectory() && !columnarDirectory.mkdirs()) {
+            throw new IOException("failed to create " + columnarDirectory);
+        }
+
+        if (parameters.synapseJson != null && !ColumnarFormat.isSynapseFile(parameters.synapseJson)) {
+            final File synapseFile = new File(columnarDirectory, "synapses.npcol");
+            ColumnarConverter.convertSynapses(parameters.synapseJson, synapseFile);
+            parameters.synapseJson = synapseFile.getPath();
+        }
+        if (parameters.connectionJson != null && !ColumnarFormat.isConnectionFile(parameters.connectionJson)) {
+            final File connectionFile = new File(columnarDirectory, "connections.npcol");
+            ColumnarConverter.convertConnections(parameters.connectionJson, connectionFile);
+            parameters.connectionJson = connectionFile.getPath();
+        }
+
+        LOG.info(String.format("Converting input files took: %s", timer.stop()));
+    }
+
+    private static boolean isStageComplete(LoadCheckpoint checkpoint, LoadCheckpoint.Stage stage) {
+        return checkpoint != null && checkpoint.isComplete(stage);
+    }
+
+    private static void markStageComplete(LoadCheckpoint checkpoint, LoadCheckpoint.Stage stage) {
+        if (checkpoint != null) {
+            checkpoint.markComplete(stage);
+        }
+    }
+
+    private static int getExportBatchSize(int batchSize) {
+        return batchSize > 0 ? batchSize : DEFAULT_EXPORT_BATCH_SIZE;
+    }
+
     public static void main(String[] args) {
 
         final NeuPrintParameters parameters = new NeuPrintParameters();
         final JCommander jCommander = new JCommander(parameters);
         jCommander.setProgramName("java -jar neuprint.jar");
 
-        //TODO: add ability to pick up where it left off during load
-
         boolean parseFailed = true;
         try {
             jCommander.parse(args);
@@ -640,6 +1622,27 @@ public class NeuPrintMain {
             LOG.info("failed to parse command line arguments", t);
         }
 
+        if (!parseFailed && parameters.dbProperties == null && !parameters.isOfflineLoad()) {
+            JCommander.getConsole().println("\nERROR: --dbProperties must be specified unless --exportCsvDirectory or --embeddedStoreDirectory is specified");
+            parseFailed = true;
+        }
+
+        if (!parseFailed && parameters.exportCsvDirectory != null && parameters.embeddedStoreDirectory != null) {
+            JCommander.getConsole().println("\nERROR: only one of --exportCsvDirectory and --embeddedStoreDirectory can be specified");
+            parseFailed = true;
+        }
+
+        if (!parseFailed && parameters.computeConnectionInfoClientSide && !parameters.isOfflineLoad()
+                && (parameters.synapseJson == null || parameters.connectionJson == null || parameters.neuronJson == null)) {
+            JCommander.getConsole().println("\nERROR: --synapseJson, --connectionJson, and --neuronJson must be specified with --computeConnectionInfoClientSide");
+            parseFailed = true;
+        }
+
+        if (!parseFailed && parameters.resume && parameters.checkpointFile == null) {
+            JCommander.getConsole().println("\nERROR: --checkpointFile must be specified with --resume");
+            parseFailed = true;
+        }
+
         if (parameters.help || parseFailed) {
             JCommander.getConsole().println("");
             jCommander.usage();
@@ -653,12 +1656,86 @@ public class NeuPrintMain {
         final float preHPThreshold = parameters.preHPThreshold;
         final float postHPThreshold = parameters.postHPThreshold;
         final long neuronThreshold = parameters.neuronThreshold;
-        final LocalDateTime timeStamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
 
         boolean databaseInitialized = false;
 
+        // a resumed load keeps the time stamp of the original load
+        LoadCheckpoint checkpoint = null;
+        if (parameters.resume) {
+            checkpoint = LoadCheckpoint.resume(new File(parameters.checkpointFile));
+            databaseInitialized = checkpoint.hasProgress();
+        } else if (parameters.checkpointFile != null && !parameters.isOfflineLoad()) {
+            checkpoint = LoadCheckpoint.start(new File(parameters.checkpointFile), LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        }
+        final LocalDateTime timeStamp = checkpoint == null ? LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS) : checkpoint.getTimeStamp();
+
         LOG.info("Dataset is: " + dataset);
 
+        if (parameters.sortInputDirectory != null) {
+            try {
+                sortInputFiles(parameters);
+            } catch (Exception e) {
+                LOG.error("Error sorting input files: " + e);
+                System.exit(1);
+            }
+        }
+
+        if (parameters.columnarDirectory != null) {
+            try {
+                convertInputFiles(parameters);
+            } catch (Exception e) {
+                LOG.error("Error converting input files: " + e);
+                System.exit(1);
+            }
+        }
+
+        if (parameters.exportCsvDirectory != null) {
+            try {
+                exportCsv(parameters, timeStamp);
+            } catch (Exception e) {
+                LOG.error("Error exporting data: " + e);
+                System.exit(1);
+            }
+            return;
+        }
+
+        if (parameters.embeddedStoreDirectory != null) {
+            try {
+                loadEmbeddedStore(parameters, timeStamp);
+            } catch (Exception e) {
+                LOG.error("Error writing embedded store: " + e);
+                System.exit(1);
+            }
+            return;
+        }
+
+        // if requested for a new dataset, connection info is computed client-side from the loaded files instead of by a procedure call for each segment
+        // (it is not needed when resuming a load in which all neurons were loaded)
+        final ConnectomeAggregator connectomeAggregator;
+        if (parameters.computeConnectionInfoClientSide && (checkpoint == null || !checkpoint.isComplete(LoadCheckpoint.Stage.NEURONS))) {
+            // a resumed load with progress was checked when it was started
+            if (!databaseInitialized) {
+                try (Neo4jImporter neo4jImporter = new Neo4jImporter(parameters.getDbConfig())) {
+                    if (neo4jImporter.hasDataset(dataset)) {
+                        LOG.error("--computeConnectionInfoClientSide can only be used to load a new dataset, but the database already contains dataset " + dataset);
+                        System.exit(1);
+                    }
+                }
+            }
+            connectomeAggregator = new ConnectomeAggregator(preHPThreshold, postHPThreshold, neuronThreshold);
+        } else {
+            connectomeAggregator = null;
+        }
+
+        // during a new load, the connection and neuron stages match the synapses written by the synapse stage by node id
+        // (a resumed load does not have the ids of synapses written by the previous run)
+        final SynapseNodeIds synapseNodeIds;
+        if (parameters.synapseJson != null && !databaseInitialized) {
+            synapseNodeIds = new SynapseNodeIds(EXPECTED_SYNAPSE_NODE_COUNT);
+        } else {
+            synapseNodeIds = null;
+        }
+
         try {
 
             Stopwatch timer = Stopwatch.createUnstarted();
@@ -667,28 +1744,41 @@ public class NeuPrintMain {
 
                 if (parameters.synapseBatchSize > 0) {
                     try (Neo4jImporter neo4jImporter = new Neo4jImporter(parameters.getDbConfig())) {
-                        loadSynapseJsonInBatches(parameters.synapseJson, parameters.synapseBatchSize, neo4jImporter, dataset, false, dataModelVersion, preHPThreshold, postHPThreshold, parameters.addConnectionSetRoiInfoAndWeightHP, parameters.addClusterNames, timeStamp);
+                        loadSynapseJsonInBatches(parameters.synapseJson, parameters.synapseBatchSize, neo4jImporter, dataset, databaseInitialized, dataModelVersion, preHPThreshold, postHPThreshold, parameters.addConnectionSetRoiInfoAndWeightHP, parameters.addClusterNames, timeStamp, connectomeAggregator, checkpoint, synapseNodeIds, parameters.batchQueueDepth);
                         databaseInitialized = true;
                     }
+                } else if (isStageComplete(checkpoint, LoadCheckpoint.Stage.SYNAPSES)) {
+
+                    LOG.info("Skipping synapses (completed by a previous run)");
+                    if (connectomeAggregator != null) {
+                        connectomeAggregator.addSynapses(readSynapsesJson(parameters.synapseJson, parameters.getStagingDirectory()));
+                    }
+
                 } else {
 
                     timer.start();
-                    List<Synapse> synapseList = readSynapsesJson(parameters.synapseJson);
+                    List<Synapse> synapseList = readSynapsesJson(parameters.synapseJson, parameters.getStagingDirectory());
                     LOG.info(String.format("Reading in synapse JSON took: %s", timer.stop()));
                     timer.reset();
 
+                    if (connectomeAggregator != null) {
+                        connectomeAggregator.addSynapses(synapseList);
+                    }
+
                     try (Neo4jImporter neo4jImporter = new Neo4jImporter(parameters.getDbConfig())) {
 
                         initializeDatabase(neo4jImporter, dataset, dataModelVersion, preHPThreshold, postHPThreshold, parameters.addConnectionSetRoiInfoAndWeightHP, parameters.addClusterNames, timeStamp);
                         databaseInitialized = true;
                         timer.start();
-                        neo4jImporter.addSynapsesWithRois(dataset, synapseList, timeStamp);
+                        neo4jImporter.addSynapsesWithRois(dataset, synapseList, timeStamp, synapseNodeIds);
                         LOG.info(String.format("Loading all synapses took: %s", timer.stop()));
                         timer.reset();
 
                         neo4jImporter.indexBooleanRoiProperties(dataset);
 
                     }
+
+                    markStageComplete(checkpoint, LoadCheckpoint.Stage.SYNAPSES);
                 }
 
             }
@@ -697,15 +1787,26 @@ public class NeuPrintMain {
 
                 if (parameters.connectionBatchSize > 0) {
                     try (Neo4jImporter neo4jImporter = new Neo4jImporter(parameters.getDbConfig())) {
-                        loadConnectionJsonInBatches(parameters.connectionJson, parameters.connectionBatchSize, neo4jImporter, dataset, databaseInitialized, dataModelVersion, preHPThreshold, postHPThreshold, parameters.addConnectionSetRoiInfoAndWeightHP, parameters.addClusterNames, timeStamp);
+                        loadConnectionJsonInBatches(parameters.connectionJson, parameters.connectionBatchSize, neo4jImporter, dataset, databaseInitialized, dataModelVersion, preHPThreshold, postHPThreshold, parameters.addConnectionSetRoiInfoAndWeightHP, parameters.addClusterNames, timeStamp, connectomeAggregator, checkpoint, synapseNodeIds, parameters.batchQueueDepth);
                         databaseInitialized = true;
                     }
+                } else if (isStageComplete(checkpoint, LoadCheckpoint.Stage.CONNECTIONS)) {
+
+                    LOG.info("Skipping connections (completed by a previous run)");
+                    if (connectomeAggregator != null) {
+                        connectomeAggregator.addSynapticConnections(readConnectionsJson(parameters.connectionJson, parameters.getStagingDirectory()));
+                    }
+
                 } else {
                     timer.start();
-                    List<SynapticConnection> connectionsList = readConnectionsJson(parameters.connectionJson);
+                    List<SynapticConnection> connectionsList = readConnectionsJson(parameters.connectionJson, parameters.getStagingDirectory());
                     LOG.info(String.format("Reading in synaptic connections JSON took: %s", timer.stop()));
                     timer.reset();
 
+                    if (connectomeAggregator != null) {
+                        connectomeAggregator.addSynapticConnections(connectionsList);
+                    }
+
                     try (Neo4jImporter neo4jImporter = new Neo4jImporter(parameters.getDbConfig())) {
 
                         if (!databaseInitialized) {
@@ -713,14 +1814,17 @@ public class NeuPrintMain {
                             databaseInitialized = true;
                         }
                         timer.start();
-                        neo4jImporter.addSynapsesTo(dataset, connectionsList, timeStamp);
+                        neo4jImporter.addSynapsesTo(dataset, connectionsList, timeStamp, synapseNodeIds);
                         LOG.info(String.format("Loading all synaptic connections took: %s", timer.stop()));
                         timer.reset();
 
                     }
+
+                    markStageComplete(checkpoint, LoadCheckpoint.Stage.CONNECTIONS);
                 }
             }
 
+
             if (parameters.neuronJson != null) {
 
                 if (parameters.addConnectionInfoOnly) {
@@ -732,7 +1836,7 @@ public class NeuPrintMain {
                         }
                     } else {
                         timer.start();
-                        List<Neuron> neuronList = readNeuronsJson(parameters.neuronJson);
+                        List<Neuron> neuronList = readNeuronsJson(parameters.neuronJson, parameters.getStagingDirectory());
                         LOG.info(String.format("Reading in neurons JSON took: %s", timer.stop()));
                         timer.reset();
 
@@ -754,12 +1858,14 @@ public class NeuPrintMain {
 
                     if (parameters.neuronBatchSize > 0) {
                         try (Neo4jImporter neo4jImporter = new Neo4jImporter(parameters.getDbConfig())) {
-                            loadNeuronJsonInBatches(parameters.neuronJson, parameters.neuronBatchSize, neo4jImporter, dataset, databaseInitialized, dataModelVersion, preHPThreshold, postHPThreshold, neuronThreshold, parameters.addConnectionSetRoiInfoAndWeightHP, parameters.addClusterNames, timeStamp);
+                            loadNeuronJsonInBatches(parameters.neuronJson, parameters.neuronBatchSize, neo4jImporter, dataset, databaseInitialized, dataModelVersion, preHPThreshold, postHPThreshold, neuronThreshold, parameters.addConnectionSetRoiInfoAndWeightHP, parameters.addClusterNames, timeStamp, connectomeAggregator, checkpoint, synapseNodeIds, parameters.batchQueueDepth);
                             databaseInitialized = true;
                         }
+                    } else if (isStageComplete(checkpoint, LoadCheckpoint.Stage.NEURONS)) {
+                        LOG.info("Skipping neurons (completed by a previous run)");
                     } else {
                         timer.start();
-                        List<Neuron> neuronList = readNeuronsJson(parameters.neuronJson);
+                        List<Neuron> neuronList = readNeuronsJson(parameters.neuronJson, parameters.getStagingDirectory());
                         LOG.info(String.format("Reading in neurons JSON took: %s", timer.stop()));
                         timer.reset();
 
@@ -770,15 +1876,22 @@ public class NeuPrintMain {
                                 databaseInitialized = true;
                             }
                             timer.start();
-                            neo4jImporter.addSegments(dataset, neuronList, timeStamp);
+                            neo4jImporter.addSegments(dataset, neuronList, timeStamp, synapseNodeIds);
                             LOG.info(String.format("Loading all neurons took: %s", timer.stop()));
                             timer.reset();
 
                             timer.start();
-                            neo4jImporter.addConnectionInfo(dataset, neuronList, parameters.addConnectionSetRoiInfoAndWeightHP, preHPThreshold, postHPThreshold, neuronThreshold);
+                            if (connectomeAggregator == null) {
+                                neo4jImporter.addConnectionInfo(dataset, neuronList, parameters.addConnectionSetRoiInfoAndWeightHP, preHPThreshold, postHPThreshold, neuronThreshold);
+                            } else {
+                                connectomeAggregator.addNeurons(neuronList);
+                                neo4jImporter.addConnectionInfo(dataset, connectomeAggregator, parameters.addConnectionSetRoiInfoAndWeightHP, timeStamp);
+                            }
                             LOG.info(String.format("Loading all connection info took: %s", timer.stop()));
                             timer.reset();
                         }
+
+                        markStageComplete(checkpoint, LoadCheckpoint.Stage.NEURONS);
                     }
                 }
             }
@@ -789,13 +1902,17 @@ public class NeuPrintMain {
                 final File[] arrayOfSwcFiles = folder.listFiles((dir, name) -> name.toLowerCase().endsWith(".swc"));
 
                 assert arrayOfSwcFiles != null : "No swc files found.";
+                // sorted so that files are loaded in the same order if the load is resumed
+                Arrays.sort(arrayOfSwcFiles);
                 LOG.info("Reading in " + arrayOfSwcFiles.length + " swc files.");
 
                 if (parameters.skeletonBatchSize > 0) {
                     try (Neo4jImporter neo4jImporter = new Neo4jImporter(parameters.getDbConfig())) {
-                        loadSkeletonsInBatches(arrayOfSwcFiles, parameters.skeletonBatchSize, databaseInitialized, neo4jImporter, dataset, dataModelVersion, preHPThreshold, postHPThreshold, parameters.addConnectionSetRoiInfoAndWeightHP, parameters.addClusterNames, timeStamp);
+                        loadSkeletonsInBatches(arrayOfSwcFiles, parameters.skeletonBatchSize, databaseInitialized, neo4jImporter, dataset, dataModelVersion, preHPThreshold, postHPThreshold, parameters.addConnectionSetRoiInfoAndWeightHP, parameters.addClusterNames, timeStamp, checkpoint, parameters.batchQueueDepth);
                         databaseInitialized = true;
                     }
+                } else if (isStageComplete(checkpoint, LoadCheckpoint.Stage.SKELETONS)) {
+                    LOG.info("Skipping skeletons (completed by a previous run)");
                 } else {
 
                     final List<Skeleton> skeletonList = createSkeletonListFromSwcFileArray(arrayOfSwcFiles);
@@ -811,10 +1928,21 @@ public class NeuPrintMain {
                         LOG.info("Loading all Skeleton nodes took: " + timer.stop());
                         timer.reset();
                     }
+
+                    markStageComplete(checkpoint, LoadCheckpoint.Stage.SKELETONS);
                 }
 
             }
 
+            // the Meta node synapse counts are recounted once after all stages are loaded: batches repeated after a resume
+            // are counted again, and a failed run may have written synapses that its checkpoint does not record (the stages
+            // that loaded them may be skipped now), so the counts of a resumed load are always recounted
+            if (databaseInitialized && (parameters.synapseJson != null || parameters.connectionJson != null || parameters.resume)) {
+                try (Neo4jImporter neo4jImporter = new Neo4jImporter(parameters.getDbConfig())) {
+                    neo4jImporter.reconcileMetaNodeSynapseCounts(dataset, timeStamp);
+                }
+            }
+
             if (parameters.metaInfoJson != null) {
 
                 // read meta info data
@@ -838,11 +1966,18 @@ public class NeuPrintMain {
 
     }
 
-    private static final Logger LOG = LoggerFactory.getLogger(NeuPrintMain.class);
+    private static final int DEFAULT_EXPORT_BATCH_SIZE = 10000;
 
-}
+    private static final int DEFAULT_BATCH_QUEUE_DEPTH = 2;
 
+    // synapse locations per batch of the neuron stage, which bounds the memory used by batches waiting to be written
+    private static final int MAX_SYNAPSES_PER_NEURON_BATCH = 1000000;
 
+    // initial capacity of the synapse node id maps, which grow as needed
+    private static final int EXPECTED_SYNAPSE_NODE_COUNT = 1 << 20;
 
+    private static final int DEFAULT_SORT_MAX_RECORDS_IN_MEMORY = 1000000;
 
+    private static final Logger LOG = LoggerFactory.getLogger(NeuPrintMain.class);
 
+}
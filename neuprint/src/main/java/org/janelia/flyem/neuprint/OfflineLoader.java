@@ -0,0 +1,49 @@
+package org.janelia.flyem.neuprint;
+
+import org.janelia.flyem.neuprint.model.MetaInfo;
+import org.janelia.flyem.neuprint.model.Neuron;
+import org.janelia.flyem.neuprint.model.Skeleton;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+
+import java.util.List;
+
+/**
+ * Writes a complete dataset for a new database without a running database (see {@link CsvExporter} and
+ * {@link EmbeddedStoreImporter}). Data is added in batches, in the order of the methods below, and derived
+ * properties are computed in-process once {@link #close()} is called.
+ */
+public interface OfflineLoader extends AutoCloseable {
+
+    /**
+     * @param synapseList list of {@link Synapse} objects
+     */
+    void addSynapses(List<Synapse> synapseList);
+
+    /**
+     * @param synapticConnectionList list of {@link SynapticConnection} objects
+     */
+    void addSynapticConnections(List<SynapticConnection> synapticConnectionList);
+
+    /**
+     * @param neuronList list of {@link Neuron} objects
+     */
+    void addNeurons(List<Neuron> neuronList);
+
+    /**
+     * @param skeletonList list of {@link Skeleton} objects
+     */
+    void addSkeletons(List<Skeleton> skeletonList);
+
+    /**
+     * @param metaInfo MetaInfo object
+     */
+    void addMetaInfo(MetaInfo metaInfo);
+
+    /**
+     * Computes derived properties and writes the remaining data.
+     */
+    @Override
+    void close();
+
+}
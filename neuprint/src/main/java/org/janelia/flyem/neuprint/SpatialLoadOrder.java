@@ -0,0 +1,226 @@
+package org.janelia.flyem.neuprint;
+
+import com.google.gson.stream.JsonReader;
+import org.janelia.flyem.neuprint.json.JsonUtils;
+import org.janelia.flyem.neuprint.model.Location;
+import org.janelia.flyem.neuprint.model.LocationSet;
+import org.janelia.flyem.neuprint.model.Neuron;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprint.util.ExternalSorter;
+import org.janelia.flyem.neuprint.util.LongLongHashMap;
+import org.janelia.flyem.neuprintloadprocedures.SpatialKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Writes copies of the synapse, connection, and neuron JSON files in which records are ordered by body and then by
+ * location ({@link SpatialKey}, i.e. Z-order). Neo4j assigns record ids in the order nodes and relationships are created,
+ * so loading the sorted files places the synapses, SynapsesTo relationships, and SynapseSet Contains relationships of a body
+ * near each other in the store files, and nearby synapses of a body near each other within that range. Traversals of a single
+ * body then touch far fewer store pages.
+ * <p>
+ * Body membership is read from the neuron JSON file; synapses that are not in any body are placed after all bodies.
+ * Files are sorted with an {@link ExternalSorter}, so they may be larger than the heap, but a map of synapse location to
+ * bodyId (about 16 bytes per synapse) is kept in memory. Locations that cannot be packed into a {@link SpatialKey}
+ * (coordinates outside of 0 to {@link SpatialKey#MAX_COORDINATE}) are ordered after all encodable locations by x, y,
+ * and then z. The order is deterministic, so a resumed load that sorts the same files again loads the records in the
+ * same order.
+ */
+public class SpatialLoadOrder {
+
+    // sorts synapses without a body after all bodies
+    private static final long NO_BODY = Long.MAX_VALUE;
+
+    private final File outputDirectory;
+    private final int maxRecordsInMemory;
+    private final LongLongHashMap bodyIdByLocationKey;
+    private final Map<Location, Long> bodyIdByUnkeyedLocation;
+
+    /**
+     * Class constructor.
+     *
+     * @param outputDirectory    directory for sorted files (sorted-synapses.json, sorted-connections.json, and sorted-neurons.json)
+     *                           and temporary files while sorting
+     * @param maxRecordsInMemory maximum number of records sorted in memory before a run is spilled to disk
+     */
+    public SpatialLoadOrder(final File outputDirectory,
+                            final int maxRecordsInMemory) {
+        this.outputDirectory = outputDirectory;
+        this.maxRecordsInMemory = maxRecordsInMemory;
+        this.bodyIdByLocationKey = new LongLongHashMap();
+        this.bodyIdByUnkeyedLocation = new HashMap<>();
+    }
+
+    /**
+     * Reads the bodyId of each synapse location from a neuron JSON file. Should be called before synapses
+     * and connections are sorted (otherwise they are sorted by location only).
+     *
+     * @param neuronJson path to neuron JSON file
+     * @throws IOException if the file cannot be read
+     */
+    public void readBodyIds(final String neuronJson) throws IOException {
+        try (JsonReader reader = new JsonReader(new FileReader(neuronJson))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                final Neuron neuron = Neuron.fromJsonSingleObject(reader);
+                final LocationSet synapseLocationSet = neuron.getSynapseLocationSet();
+                if (synapseLocationSet != null) {
+                    for (int i = 0; i < synapseLocationSet.size(); i++) {
+                        if (synapseLocationSet.hasLocationKey(i)) {
+                            bodyIdByLocationKey.put(synapseLocationSet.getLocationKey(i), neuron.getId());
+                        } else {
+                            bodyIdByUnkeyedLocation.put(synapseLocationSet.get(i), neuron.getId());
+                        }
+                    }
+                }
+            }
+            reader.endArray();
+        }
+        LOG.info("readBodyIds: read bodyIds for {} synapse locations", bodyIdByLocationKey.size() + bodyIdByUnkeyedLocation.size());
+    }
+
+    /**
+     * Writes a copy of a synapse JSON file ordered by bodyId and then location.
+     *
+     * @param synapseJson path to synapse JSON file
+     * @return sorted file
+     * @throws IOException if the file cannot be read or the sorted file cannot be written
+     */
+    public File sortSynapses(final String synapseJson) throws IOException {
+        final Comparator<Synapse> synapseOrder = Comparator
+                .comparingLong((Synapse s) -> getBodyId(s.getLocation().getX(), s.getLocation().getY(), s.getLocation().getZ()))
+                .thenComparing((a, b) -> compareLocations(a.getLocation().getX(), a.getLocation().getY(), a.getLocation().getZ(),
+                        b.getLocation().getX(), b.getLocation().getY(), b.getLocation().getZ()))
+                .thenComparing(Synapse::getType);
+        return sort("synapses", synapseJson, Synapse.class, synapseOrder, Synapse::fromJsonSingleObject);
+    }
+
+    /**
+     * Writes a copy of a connection JSON file ordered by the bodyId of the presynaptic density, then the location of the
+     * presynaptic density, and then the location of the postsynaptic density.
+     *
+     * @param connectionJson path to connection JSON file
+     * @return sorted file
+     * @throws IOException if the file cannot be read or the sorted file cannot be written
+     */
+    public File sortConnections(final String connectionJson) throws IOException {
+        final Comparator<SynapticConnection> connectionOrder = Comparator
+                .comparingLong((SynapticConnection c) -> getBodyId(c.getPreX(), c.getPreY(), c.getPreZ()))
+                .thenComparing((a, b) -> compareLocations(a.getPreX(), a.getPreY(), a.getPreZ(), b.getPreX(), b.getPreY(), b.getPreZ()))
+                .thenComparing((a, b) -> compareLocations(a.getPostX(), a.getPostY(), a.getPostZ(), b.getPostX(), b.getPostY(), b.getPostZ()));
+        return sort("connections", connectionJson, SynapticConnection.class, connectionOrder, SynapticConnection::fromJsonSingleObject);
+    }
+
+    /**
+     * Writes a copy of a neuron JSON file ordered by bodyId, with the synapse set of each neuron ordered by location.
+     *
+     * @param neuronJson path to neuron JSON file
+     * @return sorted file
+     * @throws IOException if the file cannot be read or the sorted file cannot be written
+     */
+    public File sortNeurons(final String neuronJson) throws IOException {
+        return sort("neurons", neuronJson, Neuron.class, Comparator.comparing(Neuron::getId),
+                reader -> withSortedSynapseSet(Neuron.fromJsonSingleObject(reader)));
+    }
+
+    /**
+     * @param locationKey location key of a synapse
+     * @return bodyId of the synapse (or {@link Long#MAX_VALUE} if it is not in a body)
+     */
+    long getBodyId(final long locationKey) {
+        return bodyIdByLocationKey.getOrDefault(locationKey, NO_BODY);
+    }
+
+    private long getBodyId(final long x,
+                           final long y,
+                           final long z) {
+        if (SpatialKey.isEncodable(x, y, z)) {
+            return getBodyId(SpatialKey.encode(x, y, z));
+        }
+        return bodyIdByUnkeyedLocation.getOrDefault(new Location(x, y, z), NO_BODY);
+    }
+
+    /**
+     * Orders encodable locations by {@link SpatialKey} and places the locations that cannot be encoded after them,
+     * ordered by x, y, and then z.
+     */
+    static int compareLocations(final long ax, final long ay, final long az,
+                                final long bx, final long by, final long bz) {
+        final boolean aIsEncodable = SpatialKey.isEncodable(ax, ay, az);
+        final boolean bIsEncodable = SpatialKey.isEncodable(bx, by, bz);
+        if (aIsEncodable && bIsEncodable) {
+            return Long.compare(SpatialKey.encode(ax, ay, az), SpatialKey.encode(bx, by, bz));
+        } else if (aIsEncodable != bIsEncodable) {
+            return aIsEncodable ? -1 : 1;
+        }
+        int result = Long.compare(ax, bx);
+        if (result == 0) {
+            result = Long.compare(ay, by);
+        }
+        if (result == 0) {
+            result = Long.compare(az, bz);
+        }
+        return result;
+    }
+
+    private <T> File sort(final String name,
+                          final String inputPath,
+                          final Class<T> recordClass,
+                          final Comparator<T> comparator,
+                          final Function<JsonReader, T> parser) throws IOException {
+        final File outputFile = new File(outputDirectory, "sorted-" + name + ".json");
+        if (outputFile.getCanonicalFile().equals(new File(inputPath).getCanonicalFile())) {
+            throw new IllegalArgumentException("sorted " + name + " would overwrite " + inputPath);
+        }
+        final ExternalSorter<T> sorter = new ExternalSorter<>(name, recordClass, comparator, JsonUtils.GSON, maxRecordsInMemory, outputDirectory);
+        try (JsonReader reader = new JsonReader(new FileReader(inputPath))) {
+            sorter.sort(reader, parser, outputFile);
+        }
+        return outputFile;
+    }
+
+    private static Neuron withSortedSynapseSet(final Neuron neuron) {
+        if (neuron.getSynapseLocationSet() == null || neuron.getSynapseLocationSet().size() < 2) {
+            return neuron;
+        }
+        final LocationSet synapseLocationSet = neuron.getSynapseLocationSet();
+        final long[] locationKeys = new long[synapseLocationSet.size()];
+        int locationKeyCount = 0;
+        final List<Location> unkeyedLocations = new ArrayList<>();
+        for (int i = 0; i < synapseLocationSet.size(); i++) {
+            if (synapseLocationSet.hasLocationKey(i)) {
+                locationKeys[locationKeyCount++] = synapseLocationSet.getLocationKey(i);
+            } else {
+                unkeyedLocations.add(synapseLocationSet.get(i));
+            }
+        }
+        Arrays.sort(locationKeys, 0, locationKeyCount);
+        unkeyedLocations.sort(Comparator.comparingLong(Location::getX).thenComparingLong(Location::getY).thenComparingLong(Location::getZ));
+        final LocationSet sortedLocations = new LocationSet(synapseLocationSet.size());
+        for (int i = 0; i < locationKeyCount; i++) {
+            sortedLocations.add(SpatialKey.getX(locationKeys[i]), SpatialKey.getY(locationKeys[i]), SpatialKey.getZ(locationKeys[i]));
+        }
+        for (final Location location : unkeyedLocations) {
+            sortedLocations.add(location.getX(), location.getY(), location.getZ());
+        }
+        return new Neuron(neuron.getId(), neuron.getStatus(), neuron.getName(), neuron.getType(), neuron.getInstance(),
+                neuron.getPrimaryNeurite(), neuron.getMajorInput(), neuron.getMajorOutput(), neuron.getClonalUnit(),
+                neuron.getNeurotransmitter(), neuron.getProperty(), neuron.getSize(), neuron.getRois(), neuron.getSoma(),
+                sortedLocations);
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpatialLoadOrder.class);
+
+}
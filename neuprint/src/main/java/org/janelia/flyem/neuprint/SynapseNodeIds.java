@@ -0,0 +1,84 @@
+package org.janelia.flyem.neuprint;
+
+import org.janelia.flyem.neuprint.util.OffHeapLongLongHashMap;
+import org.neo4j.driver.v1.Record;
+
+/**
+ * Internal node ids of the PreSyn and PostSyn nodes written by a load, by location key (see
+ * {@link org.janelia.flyem.neuprintloadprocedures.SpatialKey}). The synapse stage of {@link Neo4jImporter}
+ * records the id of each synapse node it creates, so that the connection and SynapseSet stages can match
+ * synapse nodes by id instead of merging them by location key again. Only nodes with the time stamp of the
+ * current load are recorded, so nodes that existed before the load are still merged (and get the new time
+ * stamp) as before.
+ * <p>
+ * Node ids are only stable while nodes are not deleted, so an instance should only be used for a single
+ * load into a new dataset. The ids are kept outside of the heap. This class is thread safe.
+ */
+public class SynapseNodeIds {
+
+    /**
+     * Value returned for a location without a recorded node.
+     */
+    public static final long MISSING_NODE_ID = -1L;
+
+    private final OffHeapLongLongHashMap preNodeIds;
+    private final OffHeapLongLongHashMap postNodeIds;
+
+    /**
+     * Class constructor.
+     *
+     * @param expectedSynapseCount number of synapses (of each type) the maps should hold without resizing
+     */
+    public SynapseNodeIds(final int expectedSynapseCount) {
+        this.preNodeIds = new OffHeapLongLongHashMap(expectedSynapseCount);
+        this.postNodeIds = new OffHeapLongLongHashMap(expectedSynapseCount);
+    }
+
+    /**
+     * @param type        synapse type ("pre" or "post")
+     * @param locationKey location key of the synapse
+     * @param nodeId      internal node id of the synapse
+     */
+    public void put(final String type,
+                    final long locationKey,
+                    final long nodeId) {
+        if (type.equals("pre")) {
+            preNodeIds.put(locationKey, nodeId);
+        } else if (type.equals("post")) {
+            postNodeIds.put(locationKey, nodeId);
+        }
+    }
+
+    /**
+     * Records the node id returned in a record with locationKey, type, and nodeId columns.
+     *
+     * @param record record returned by a synapse statement
+     */
+    void put(final Record record) {
+        put(record.get("type").asString(), record.get("locationKey").asLong(), record.get("nodeId").asLong());
+    }
+
+    /**
+     * @param locationKey location key
+     * @return node id of the PreSyn at the location or {@link #MISSING_NODE_ID}
+     */
+    public long getPreNodeId(final long locationKey) {
+        return preNodeIds.getOrDefault(locationKey, MISSING_NODE_ID);
+    }
+
+    /**
+     * @param locationKey location key
+     * @return node id of the PostSyn at the location or {@link #MISSING_NODE_ID}
+     */
+    public long getPostNodeId(final long locationKey) {
+        return postNodeIds.getOrDefault(locationKey, MISSING_NODE_ID);
+    }
+
+    /**
+     * @return number of recorded nodes
+     */
+    public long size() {
+        return (long) preNodeIds.size() + postNodeIds.size();
+    }
+
+}
@@ -0,0 +1,296 @@
+package org.janelia.flyem.neuprint.columnar;
+
+import com.google.gson.stream.JsonReader;
+import org.janelia.flyem.neuprint.model.Location;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Converts synapse and connection JSON files to the columnar binary format (see {@link ColumnarFormat}).
+ * Each JSON file is streamed twice: once to count records and build the ROI dictionary, and once to write
+ * the columns, so the JSON file may be larger than the heap. The columnar file is written to a temporary
+ * file that replaces the output file once it is complete.
+ */
+public class ColumnarConverter {
+
+    private static final String PRE = "pre";
+    private static final String POST = "post";
+
+    // buffered bytes per column before a positional write
+    private static final int COLUMN_BUFFER_SIZE = 1 << 16;
+
+    private ColumnarConverter() {
+    }
+
+    /**
+     * Converts a synapse JSON file to a columnar synapse file. Coordinates must fit in an int and
+     * confidences are stored with float precision.
+     *
+     * @param synapseJson path to synapse JSON file
+     * @param outputFile  columnar synapse file
+     * @return number of converted synapses
+     * @throws IOException if the JSON file cannot be read or the columnar file cannot be written
+     */
+    public static int convertSynapses(final String synapseJson,
+                                      final File outputFile) throws IOException {
+        return convertSynapses(synapseJson, outputFile, false);
+    }
+
+    /**
+     * Converts a synapse JSON file to a columnar synapse file.
+     *
+     * @param synapseJson            path to synapse JSON file
+     * @param outputFile             columnar synapse file
+     * @param requireExactConfidence if true, the conversion fails (before the columnar file is written) if a confidence
+     *                               would not be read back unchanged from its float value
+     * @return number of converted synapses
+     * @throws IOException              if the JSON file cannot be read or the columnar file cannot be written
+     * @throws IllegalArgumentException if a coordinate does not fit in an int or (if required) a confidence cannot be stored exactly
+     */
+    static int convertSynapses(final String synapseJson,
+                               final File outputFile,
+                               final boolean requireExactConfidence) throws IOException {
+
+        // first pass: count records and ROI references and assign ROI ids in order of first appearance
+        final Map<String, Integer> roiIds = new LinkedHashMap<>();
+        long recordCount = 0;
+        long roiReferenceCount = 0;
+        try (JsonReader reader = new JsonReader(new FileReader(synapseJson))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                final Synapse synapse = Synapse.fromJsonSingleObject(reader);
+                getFlags(synapse);
+                if (requireExactConfidence && SynapseColumns.toConfidence((float) synapse.getConfidence()) != synapse.getConfidence()) {
+                    throw new IllegalArgumentException("synapse at " + synapse.getLocation() + " in " + synapseJson +
+                            " has confidence " + synapse.getConfidence() + ", which cannot be stored exactly with float precision");
+                }
+                if (synapse.rois != null) {
+                    for (final String roi : synapse.rois) {
+                        roiIds.putIfAbsent(roi, roiIds.size());
+                    }
+                    roiReferenceCount += synapse.rois.size();
+                }
+                recordCount++;
+            }
+            reader.endArray();
+        }
+        checkCount(recordCount, "synapses", synapseJson);
+        checkCount(roiReferenceCount, "roi references", synapseJson);
+
+        // second pass: write columns
+        final Path temporaryFile = getTemporaryFile(outputFile);
+        try (FileChannel channel = openForWriting(temporaryFile);
+             JsonReader reader = new JsonReader(new FileReader(synapseJson))) {
+
+            final ColumnarFormat.Header header = ColumnarFormat.Header.write(channel, ColumnarFormat.SYNAPSE_MAGIC,
+                    (int) recordCount, (int) roiReferenceCount, roiIds.keySet().toArray(new String[0]));
+            final long[] starts = ColumnarFormat.getColumnStarts(header.columnsOffset,
+                    ColumnarFormat.getSynapseColumnLengths(header.recordCount, header.roiReferenceCount));
+            final ColumnWriter x = new ColumnWriter(channel, starts[0]);
+            final ColumnWriter y = new ColumnWriter(channel, starts[1]);
+            final ColumnWriter z = new ColumnWriter(channel, starts[2]);
+            final ColumnWriter confidence = new ColumnWriter(channel, starts[3]);
+            final ColumnWriter flags = new ColumnWriter(channel, starts[4]);
+            final ColumnWriter roiOffsets = new ColumnWriter(channel, starts[5]);
+            final ColumnWriter roiIdColumn = new ColumnWriter(channel, starts[6]);
+
+            int roiOffset = 0;
+            roiOffsets.putInt(roiOffset);
+            reader.beginArray();
+            while (reader.hasNext()) {
+                final Synapse synapse = Synapse.fromJsonSingleObject(reader);
+                final Location location = synapse.getLocation();
+                x.putInt(toCoordinate(location.getX(), location, synapseJson));
+                y.putInt(toCoordinate(location.getY(), location, synapseJson));
+                z.putInt(toCoordinate(location.getZ(), location, synapseJson));
+                confidence.putFloat((float) synapse.getConfidence());
+                flags.put(getFlags(synapse));
+                final Set<String> rois = synapse.rois;
+                if (rois != null) {
+                    for (final String roi : rois) {
+                        roiIdColumn.putInt(roiIds.get(roi));
+                    }
+                    roiOffset += rois.size();
+                }
+                roiOffsets.putInt(roiOffset);
+            }
+            reader.endArray();
+
+            for (final ColumnWriter column : new ColumnWriter[]{x, y, z, confidence, flags, roiOffsets, roiIdColumn}) {
+                column.flush();
+            }
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryFile);
+            throw e;
+        }
+        Files.move(temporaryFile, outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        LOG.info("convertSynapses: converted {} synapses with {} rois from {} to {}", recordCount, roiIds.size(), synapseJson, outputFile);
+
+        return (int) recordCount;
+    }
+
+    /**
+     * Converts a connection JSON file to a columnar connection file. Coordinates must fit in an int.
+     *
+     * @param connectionJson path to connection JSON file
+     * @param outputFile     columnar connection file
+     * @return number of converted connections
+     * @throws IOException if the JSON file cannot be read or the columnar file cannot be written
+     */
+    public static int convertConnections(final String connectionJson,
+                                         final File outputFile) throws IOException {
+
+        // first pass: count records
+        long recordCount = 0;
+        try (JsonReader reader = new JsonReader(new FileReader(connectionJson))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                reader.skipValue();
+                recordCount++;
+            }
+            reader.endArray();
+        }
+        checkCount(recordCount, "connections", connectionJson);
+
+        // second pass: write columns
+        final Path temporaryFile = getTemporaryFile(outputFile);
+        try (FileChannel channel = openForWriting(temporaryFile);
+             JsonReader reader = new JsonReader(new FileReader(connectionJson))) {
+
+            final ColumnarFormat.Header header = ColumnarFormat.Header.write(channel, ColumnarFormat.CONNECTION_MAGIC,
+                    (int) recordCount, 0, new String[0]);
+            final long[] starts = ColumnarFormat.getColumnStarts(header.columnsOffset,
+                    ColumnarFormat.getConnectionColumnLengths(header.recordCount));
+            final ColumnWriter[] columns = new ColumnWriter[starts.length];
+            for (int i = 0; i < starts.length; i++) {
+                columns[i] = new ColumnWriter(channel, starts[i]);
+            }
+
+            reader.beginArray();
+            while (reader.hasNext()) {
+                final SynapticConnection connection = SynapticConnection.fromJsonSingleObject(reader);
+                final Location pre = connection.getPreLocation();
+                final Location post = connection.getPostLocation();
+                columns[0].putInt(toCoordinate(pre.getX(), pre, connectionJson));
+                columns[1].putInt(toCoordinate(pre.getY(), pre, connectionJson));
+                columns[2].putInt(toCoordinate(pre.getZ(), pre, connectionJson));
+                columns[3].putInt(toCoordinate(post.getX(), post, connectionJson));
+                columns[4].putInt(toCoordinate(post.getY(), post, connectionJson));
+                columns[5].putInt(toCoordinate(post.getZ(), post, connectionJson));
+            }
+            reader.endArray();
+
+            for (final ColumnWriter column : columns) {
+                column.flush();
+            }
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryFile);
+            throw e;
+        }
+        Files.move(temporaryFile, outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        LOG.info("convertConnections: converted {} connections from {} to {}", recordCount, connectionJson, outputFile);
+
+        return (int) recordCount;
+    }
+
+    private static byte getFlags(final Synapse synapse) {
+        if (PRE.equals(synapse.getType())) {
+            return ColumnarFormat.PRE_FLAG;
+        } else if (POST.equals(synapse.getType())) {
+            return 0;
+        } else {
+            throw new IllegalArgumentException("synapse at " + synapse.getLocation() + " has type " + synapse.getType() + " (expected pre or post)");
+        }
+    }
+
+    private static int toCoordinate(final long value,
+                                    final Location location,
+                                    final String inputPath) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("location " + location + " in " + inputPath + " cannot be stored with int coordinates");
+        }
+        return (int) value;
+    }
+
+    private static void checkCount(final long count,
+                                   final String description,
+                                   final String inputPath) {
+        if (count > ColumnarFormat.MAX_RECORD_COUNT) {
+            throw new IllegalArgumentException(inputPath + " has " + count + " " + description +
+                    " but a columnar file can hold at most " + ColumnarFormat.MAX_RECORD_COUNT);
+        }
+    }
+
+    private static Path getTemporaryFile(final File outputFile) {
+        return new File(outputFile.getPath() + ".tmp").toPath();
+    }
+
+    private static FileChannel openForWriting(final Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Buffers the values of one column and writes them at the column's position in the file.
+     */
+    private static class ColumnWriter {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(COLUMN_BUFFER_SIZE).order(ColumnarFormat.BYTE_ORDER);
+        private long position;
+
+        private ColumnWriter(final FileChannel channel,
+                             final long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        private void putInt(final int value) throws IOException {
+            ensureRemaining(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        private void putFloat(final float value) throws IOException {
+            ensureRemaining(Float.BYTES);
+            buffer.putFloat(value);
+        }
+
+        private void put(final byte value) throws IOException {
+            ensureRemaining(Byte.BYTES);
+            buffer.put(value);
+        }
+
+        private void ensureRemaining(final int length) throws IOException {
+            if (buffer.remaining() < length) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(ColumnarConverter.class);
+
+}
@@ -0,0 +1,251 @@
+package org.janelia.flyem.neuprint.columnar;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Layout of the columnar binary synapse and connection files written by {@link ColumnarConverter}.
+ * <p>
+ * A file starts with a {@value #HEADER_LENGTH} byte header: an 8 byte magic string, the format version, the record count,
+ * the number of ROI references, the number of ROI names in the dictionary, and the length of the dictionary in bytes.
+ * The ROI dictionary follows (for each name, its length in bytes and its UTF-8 bytes), and then the columns, each
+ * starting on an 8 byte boundary. All values are little-endian.
+ * <ul>
+ * <li>synapse columns: x, y, and z (int), confidence (float), flags (byte, {@value #PRE_FLAG} for presynaptic densities),
+ * ROI offsets (recordCount + 1 ints indexing the ROI ids), and ROI ids (int indices into the dictionary)</li>
+ * <li>connection columns: pre x, pre y, pre z, post x, post y, and post z (int)</li>
+ * </ul>
+ * Each column is mapped as a single buffer, so a file may hold at most {@link #MAX_RECORD_COUNT} records and ROI references.
+ */
+public final class ColumnarFormat {
+
+    public static final int VERSION = 1;
+
+    /**
+     * Largest number of records (and ROI references) for which every column fits in a single mapped buffer.
+     */
+    public static final int MAX_RECORD_COUNT = Integer.MAX_VALUE / Integer.BYTES - 1;
+
+    static final int HEADER_LENGTH = 32;
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+    static final byte PRE_FLAG = 1;
+
+    static final byte[] SYNAPSE_MAGIC = "NPSYNAPS".getBytes(StandardCharsets.US_ASCII);
+    static final byte[] CONNECTION_MAGIC = "NPCONNEC".getBytes(StandardCharsets.US_ASCII);
+
+    static final int CONNECTION_COLUMN_COUNT = 6;
+
+    private ColumnarFormat() {
+    }
+
+    /**
+     * @param path path to a file
+     * @return true if the file is a columnar synapse file
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isSynapseFile(final String path) throws IOException {
+        return hasMagic(path, SYNAPSE_MAGIC);
+    }
+
+    /**
+     * @param path path to a file
+     * @return true if the file is a columnar connection file
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isConnectionFile(final String path) throws IOException {
+        return hasMagic(path, CONNECTION_MAGIC);
+    }
+
+    private static boolean hasMagic(final String path,
+                                    final byte[] magic) throws IOException {
+        final File file = new File(path);
+        if (!file.isFile() || file.length() < HEADER_LENGTH) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(magic.length);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the magic string has been read
+            }
+            return Arrays.equals(magic, buffer.array());
+        }
+    }
+
+    /**
+     * @param position position in file
+     * @return position rounded up to the next 8 byte boundary
+     */
+    static long align(final long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * @return length in bytes of each synapse column
+     */
+    static long[] getSynapseColumnLengths(final int recordCount,
+                                          final int roiReferenceCount) {
+        return new long[]{
+                (long) recordCount * Integer.BYTES,
+                (long) recordCount * Integer.BYTES,
+                (long) recordCount * Integer.BYTES,
+                (long) recordCount * Float.BYTES,
+                recordCount,
+                ((long) recordCount + 1) * Integer.BYTES,
+                (long) roiReferenceCount * Integer.BYTES
+        };
+    }
+
+    /**
+     * @return length in bytes of each connection column
+     */
+    static long[] getConnectionColumnLengths(final int recordCount) {
+        final long[] lengths = new long[CONNECTION_COLUMN_COUNT];
+        Arrays.fill(lengths, (long) recordCount * Integer.BYTES);
+        return lengths;
+    }
+
+    /**
+     * @return start of each column, with every column starting on an 8 byte boundary
+     */
+    static long[] getColumnStarts(final long columnsOffset,
+                                  final long[] columnLengths) {
+        final long[] starts = new long[columnLengths.length];
+        long position = columnsOffset;
+        for (int i = 0; i < columnLengths.length; i++) {
+            starts[i] = position;
+            position = align(position + columnLengths[i]);
+        }
+        return starts;
+    }
+
+    /**
+     * Header and ROI dictionary of a columnar file.
+     */
+    static class Header {
+
+        final int recordCount;
+        final int roiReferenceCount;
+        final String[] roiDictionary;
+        final long columnsOffset;
+
+        Header(final int recordCount,
+               final int roiReferenceCount,
+               final String[] roiDictionary,
+               final long columnsOffset) {
+            this.recordCount = recordCount;
+            this.roiReferenceCount = roiReferenceCount;
+            this.roiDictionary = roiDictionary;
+            this.columnsOffset = columnsOffset;
+        }
+
+        /**
+         * Writes the header and ROI dictionary at the start of the file.
+         *
+         * @return header, including the offset of the first column
+         */
+        static Header write(final FileChannel channel,
+                            final byte[] magic,
+                            final int recordCount,
+                            final int roiReferenceCount,
+                            final String[] roiDictionary) throws IOException {
+            final byte[][] encodedRois = new byte[roiDictionary.length][];
+            int dictionaryLength = 0;
+            for (int i = 0; i < roiDictionary.length; i++) {
+                encodedRois[i] = roiDictionary[i].getBytes(StandardCharsets.UTF_8);
+                dictionaryLength += Integer.BYTES + encodedRois[i].length;
+            }
+
+            final ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + dictionaryLength).order(BYTE_ORDER);
+            buffer.put(magic)
+                    .putInt(VERSION)
+                    .putInt(recordCount)
+                    .putInt(roiReferenceCount)
+                    .putInt(roiDictionary.length)
+                    .putInt(dictionaryLength);
+            buffer.position(HEADER_LENGTH);
+            for (final byte[] encodedRoi : encodedRois) {
+                buffer.putInt(encodedRoi.length).put(encodedRoi);
+            }
+            buffer.flip();
+
+            long position = 0;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+
+            return new Header(recordCount, roiReferenceCount, roiDictionary, align(position));
+        }
+
+        /**
+         * Reads the header and ROI dictionary at the start of the file.
+         *
+         * @throws IOException if the file does not start with the expected magic string or was written by another version
+         */
+        static Header read(final FileChannel channel,
+                           final byte[] magic,
+                           final String description) throws IOException {
+            final ByteBuffer header = readFully(channel, 0, HEADER_LENGTH, description);
+            final byte[] fileMagic = new byte[magic.length];
+            header.get(fileMagic);
+            if (!Arrays.equals(magic, fileMagic)) {
+                throw new IOException(description + " is not a columnar " + new String(magic, StandardCharsets.US_ASCII) + " file");
+            }
+            final int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(description + " has version " + version + " but version " + VERSION + " is expected");
+            }
+            final int recordCount = header.getInt();
+            final int roiReferenceCount = header.getInt();
+            final int dictionarySize = header.getInt();
+            final int dictionaryLength = header.getInt();
+
+            final ByteBuffer dictionary = readFully(channel, HEADER_LENGTH, dictionaryLength, description);
+            final String[] roiDictionary = new String[dictionarySize];
+            for (int i = 0; i < dictionarySize; i++) {
+                final byte[] encodedRoi = new byte[dictionary.getInt()];
+                dictionary.get(encodedRoi);
+                roiDictionary[i] = new String(encodedRoi, StandardCharsets.UTF_8);
+            }
+
+            return new Header(recordCount, roiReferenceCount, roiDictionary, align(HEADER_LENGTH + dictionaryLength));
+        }
+
+        private static ByteBuffer readFully(final FileChannel channel,
+                                            final long position,
+                                            final int length,
+                                            final String description) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.allocate(length).order(BYTE_ORDER);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException(description + " is truncated");
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    /**
+     * Maps a column of a file as a read-only buffer. The mapping remains valid after the channel is closed.
+     *
+     * @throws IOException if the file is shorter than the column
+     */
+    static ByteBuffer mapColumn(final FileChannel channel,
+                                final long start,
+                                final long length,
+                                final String description) throws IOException {
+        if (length == 0) {
+            return ByteBuffer.allocate(0).order(BYTE_ORDER);
+        } else if (start + length > channel.size()) {
+            throw new IOException(description + " is truncated");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, length).order(BYTE_ORDER);
+    }
+
+}
@@ -0,0 +1,148 @@
+package org.janelia.flyem.neuprint.columnar;
+
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprintloadprocedures.SpatialKey;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only view of a columnar connection file (see {@link ColumnarFormat}). The columns are memory-mapped, so the
+ * accessors for single fields read directly from the page cache and do not allocate; only {@link #getConnection(int)}
+ * and {@link #getRecords(int, int)} create objects. Instances are safe to use from multiple threads.
+ */
+public class ConnectionColumns implements RecordColumns<SynapticConnection> {
+
+    private final int size;
+    private final IntBuffer preX;
+    private final IntBuffer preY;
+    private final IntBuffer preZ;
+    private final IntBuffer postX;
+    private final IntBuffer postY;
+    private final IntBuffer postZ;
+
+    private ConnectionColumns(final int size,
+                              final IntBuffer[] columns) {
+        this.size = size;
+        this.preX = columns[0];
+        this.preY = columns[1];
+        this.preZ = columns[2];
+        this.postX = columns[3];
+        this.postY = columns[4];
+        this.postZ = columns[5];
+    }
+
+    /**
+     * Maps the columns of a columnar connection file.
+     *
+     * @param file columnar connection file
+     * @return view of the file
+     * @throws IOException if the file cannot be read or is not a columnar connection file
+     */
+    public static ConnectionColumns open(final File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ColumnarFormat.Header header = ColumnarFormat.Header.read(channel, ColumnarFormat.CONNECTION_MAGIC, file.getPath());
+            final long[] lengths = ColumnarFormat.getConnectionColumnLengths(header.recordCount);
+            final long[] starts = ColumnarFormat.getColumnStarts(header.columnsOffset, lengths);
+            final IntBuffer[] columns = new IntBuffer[lengths.length];
+            for (int i = 0; i < lengths.length; i++) {
+                columns[i] = ColumnarFormat.mapColumn(channel, starts[i], lengths[i], file.getPath()).asIntBuffer();
+            }
+            return new ConnectionColumns(header.recordCount, columns);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int getPreX(final int index) {
+        return preX.get(index);
+    }
+
+    public int getPreY(final int index) {
+        return preY.get(index);
+    }
+
+    public int getPreZ(final int index) {
+        return preZ.get(index);
+    }
+
+    public int getPostX(final int index) {
+        return postX.get(index);
+    }
+
+    public int getPostY(final int index) {
+        return postY.get(index);
+    }
+
+    public int getPostZ(final int index) {
+        return postZ.get(index);
+    }
+
+    /**
+     * @param index record index
+     * @return true if the location of the presynaptic density can be packed into a {@link SpatialKey}
+     */
+    public boolean hasPreLocationKey(final int index) {
+        return SpatialKey.isEncodable(preX.get(index), preY.get(index), preZ.get(index));
+    }
+
+    /**
+     * @param index record index
+     * @return location of presynaptic density packed into a {@link SpatialKey}
+     * @throws IllegalArgumentException if a coordinate is negative or greater than {@link SpatialKey#MAX_COORDINATE}
+     */
+    public long getPreLocationKey(final int index) {
+        return SpatialKey.encode(preX.get(index), preY.get(index), preZ.get(index));
+    }
+
+    /**
+     * @param index record index
+     * @return true if the location of the postsynaptic density can be packed into a {@link SpatialKey}
+     */
+    public boolean hasPostLocationKey(final int index) {
+        return SpatialKey.isEncodable(postX.get(index), postY.get(index), postZ.get(index));
+    }
+
+    /**
+     * @param index record index
+     * @return location of postsynaptic density packed into a {@link SpatialKey}
+     * @throws IllegalArgumentException if a coordinate is negative or greater than {@link SpatialKey#MAX_COORDINATE}
+     */
+    public long getPostLocationKey(final int index) {
+        return SpatialKey.encode(postX.get(index), postY.get(index), postZ.get(index));
+    }
+
+    /**
+     * @param index record index
+     * @return record as a {@link SynapticConnection}
+     */
+    public SynapticConnection getConnection(final int index) {
+        return new SynapticConnection(getPreX(index), getPreY(index), getPreZ(index),
+                getPostX(index), getPostY(index), getPostZ(index));
+    }
+
+    @Override
+    public SynapticConnection getRecord(final int index) {
+        return getConnection(index);
+    }
+
+    @Override
+    public List<SynapticConnection> getRecords(final int start,
+                                               final int count) {
+        final int end = (int) Math.min((long) start + count, size);
+        final List<SynapticConnection> connectionList = new ArrayList<>(Math.max(end - start, 0));
+        for (int i = start; i < end; i++) {
+            connectionList.add(getConnection(i));
+        }
+        return connectionList;
+    }
+
+}
@@ -0,0 +1,180 @@
+package org.janelia.flyem.neuprint.columnar;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import org.janelia.flyem.neuprint.json.NeuronAdapter;
+import org.janelia.flyem.neuprint.model.Neuron;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only view of neurons staged in a file by {@link #stage(String, File)}. Neuron properties are sparse and
+ * their synapse sets vary in length, so each neuron is stored as one compact JSON record (written and read with
+ * {@link NeuronAdapter}) rather than in columns. The records and a column of record offsets are memory-mapped,
+ * so the neurons are held in the page cache rather than on the heap; {@link #getNeuron(int)} parses a new
+ * {@link Neuron} on each call. Instances are safe to use from multiple threads.
+ * <p>
+ * A staging file is only read by the process that wrote it, so it has no header. It holds the records (each
+ * an int length followed by UTF-8 bytes, never crossing a {@value #WINDOW_SIZE} byte window so that each window
+ * can be mapped as one buffer), followed by the offset of each record (long, starting on an 8 byte boundary).
+ * All values are little-endian.
+ */
+public class NeuronRecords implements RecordColumns<Neuron> {
+
+    static final int WINDOW_SIZE = 1 << 30;
+
+    /**
+     * Largest number of neurons for which the offset column fits in a single mapped buffer.
+     */
+    public static final int MAX_RECORD_COUNT = Integer.MAX_VALUE / Long.BYTES;
+
+    private static final NeuronAdapter NEURON_ADAPTER = new NeuronAdapter();
+
+    private final int size;
+    private final LongBuffer offsets;
+    private final ByteBuffer[] windows;
+
+    private NeuronRecords(final int size,
+                          final LongBuffer offsets,
+                          final ByteBuffer[] windows) {
+        this.size = size;
+        this.offsets = offsets;
+        this.windows = windows;
+    }
+
+    /**
+     * Streams a neuron JSON file into a staging file and maps it. Only one neuron is held on the heap at a time
+     * (along with 8 bytes per neuron for the offsets until they are written).
+     *
+     * @param neuronJson  path to neuron JSON file
+     * @param stagingFile file to write (replaced if it exists)
+     * @return view of the staged neurons
+     * @throws IOException              if the JSON file cannot be read or the staging file cannot be written
+     * @throws IllegalArgumentException if the file has more than {@link #MAX_RECORD_COUNT} neurons or a neuron
+     *                                  does not fit in a window
+     */
+    public static NeuronRecords stage(final String neuronJson,
+                                      final File stagingFile) throws IOException {
+
+        long[] recordOffsets = new long[1024];
+        int recordCount = 0;
+        long position = 0;
+
+        try (JsonReader reader = new JsonReader(new FileReader(neuronJson));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(stagingFile), 1 << 16))) {
+
+            reader.beginArray();
+            while (reader.hasNext()) {
+                final Neuron neuron = Neuron.fromJsonSingleObject(reader);
+                final byte[] record = NEURON_ADAPTER.toJson(neuron).getBytes(StandardCharsets.UTF_8);
+                final long recordLength = (long) Integer.BYTES + record.length;
+                if (recordLength > WINDOW_SIZE) {
+                    throw new IllegalArgumentException("neuron " + neuron.getId() + " in " + neuronJson + " has a " +
+                            record.length + " byte record, which is too large to stage");
+                }
+                if (recordCount == MAX_RECORD_COUNT) {
+                    throw new IllegalArgumentException(neuronJson + " has more than " + MAX_RECORD_COUNT + " neurons, which is too many to stage");
+                }
+
+                // start the next window rather than letting a record cross into it
+                final long windowEnd = (position / WINDOW_SIZE + 1) * WINDOW_SIZE;
+                if (position + recordLength > windowEnd) {
+                    position = pad(out, position, windowEnd);
+                }
+
+                if (recordCount == recordOffsets.length) {
+                    recordOffsets = Arrays.copyOf(recordOffsets, (int) Math.min((long) recordCount * 2, MAX_RECORD_COUNT));
+                }
+                recordOffsets[recordCount++] = position;
+                out.writeInt(Integer.reverseBytes(record.length));
+                out.write(record);
+                position += recordLength;
+            }
+            reader.endArray();
+
+            position = pad(out, position, ColumnarFormat.align(position));
+            for (int i = 0; i < recordCount; i++) {
+                out.writeLong(Long.reverseBytes(recordOffsets[i]));
+            }
+        }
+
+        return open(stagingFile, recordCount, position);
+    }
+
+    private static long pad(final DataOutputStream out,
+                            final long position,
+                            final long newPosition) throws IOException {
+        for (long p = position; p < newPosition; p++) {
+            out.write(0);
+        }
+        return newPosition;
+    }
+
+    private static NeuronRecords open(final File stagingFile,
+                                      final int recordCount,
+                                      final long offsetsStart) throws IOException {
+        try (FileChannel channel = FileChannel.open(stagingFile.toPath(), StandardOpenOption.READ)) {
+            final LongBuffer offsets = ColumnarFormat.mapColumn(channel, offsetsStart, (long) recordCount * Long.BYTES, stagingFile.getPath())
+                    .asLongBuffer();
+            final List<ByteBuffer> windows = new ArrayList<>();
+            for (long start = 0; start < offsetsStart; start += WINDOW_SIZE) {
+                windows.add(ColumnarFormat.mapColumn(channel, start, Math.min(WINDOW_SIZE, offsetsStart - start), stagingFile.getPath()));
+            }
+            return new NeuronRecords(recordCount, offsets, windows.toArray(new ByteBuffer[0]));
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index record index
+     * @return record as a new {@link Neuron}
+     */
+    public Neuron getNeuron(final int index) {
+        final long offset = offsets.get(index);
+        // duplicate so that concurrent readers do not share a position
+        final ByteBuffer window = windows[(int) (offset / WINDOW_SIZE)].duplicate();
+        final int start = (int) (offset % WINDOW_SIZE);
+        final byte[] record = new byte[window.order(ColumnarFormat.BYTE_ORDER).getInt(start)];
+        window.position(start + Integer.BYTES);
+        window.get(record);
+        try {
+            return NEURON_ADAPTER.fromJson(new String(record, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    @Override
+    public Neuron getRecord(final int index) {
+        return getNeuron(index);
+    }
+
+    @Override
+    public List<Neuron> getRecords(final int start,
+                                   final int count) {
+        final int end = (int) Math.min((long) start + count, size);
+        final List<Neuron> neuronList = new ArrayList<>(Math.max(end - start, 0));
+        for (int i = start; i < end; i++) {
+            neuronList.add(getNeuron(i));
+        }
+        return neuronList;
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.janelia.flyem.neuprint.columnar;
+
+import org.janelia.flyem.neuprint.model.Neuron;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Stages whole synapse, connection, and neuron JSON files in memory-mapped temporary files, so that loads that
+ * do not use batches can work with a {@link List} of every record without holding the records on the heap.
+ * Synapses and connections are staged in the columnar format (see {@link ColumnarConverter}) and neurons as
+ * {@link NeuronRecords}. The returned lists are read-only and create a new record object on each access.
+ * <p>
+ * Each staging file is deleted as soon as it has been mapped (the mapping stays valid until the list is garbage
+ * collected); where a mapped file cannot be deleted, it is deleted when the JVM exits.
+ */
+public class OffHeapStaging {
+
+    private OffHeapStaging() {
+    }
+
+    /**
+     * Stages a synapse JSON file. Coordinates must fit in an int and confidences must be read back unchanged
+     * from their float value, so that staging does not change the loaded data.
+     *
+     * @param synapseJson      path to synapse JSON file
+     * @param stagingDirectory directory for the staging file (or null for the default temporary directory)
+     * @return read-only list of synapses
+     * @throws IOException              if the JSON file cannot be read or the staging file cannot be written
+     * @throws IllegalArgumentException if the synapses cannot be staged exactly
+     */
+    public static List<Synapse> stageSynapses(final String synapseJson,
+                                              final File stagingDirectory) throws IOException {
+        final File stagingFile = File.createTempFile("synapses-", ".staging", stagingDirectory);
+        try {
+            ColumnarConverter.convertSynapses(synapseJson, stagingFile, true);
+            return new RecordColumnsList<>(SynapseColumns.open(stagingFile));
+        } finally {
+            release(stagingFile);
+        }
+    }
+
+    /**
+     * Stages a connection JSON file. Coordinates must fit in an int.
+     *
+     * @param connectionJson   path to connection JSON file
+     * @param stagingDirectory directory for the staging file (or null for the default temporary directory)
+     * @return read-only list of connections
+     * @throws IOException              if the JSON file cannot be read or the staging file cannot be written
+     * @throws IllegalArgumentException if the connections cannot be staged exactly
+     */
+    public static List<SynapticConnection> stageConnections(final String connectionJson,
+                                                            final File stagingDirectory) throws IOException {
+        final File stagingFile = File.createTempFile("connections-", ".staging", stagingDirectory);
+        try {
+            ColumnarConverter.convertConnections(connectionJson, stagingFile);
+            return new RecordColumnsList<>(ConnectionColumns.open(stagingFile));
+        } finally {
+            release(stagingFile);
+        }
+    }
+
+    /**
+     * Stages a neuron JSON file.
+     *
+     * @param neuronJson       path to neuron JSON file
+     * @param stagingDirectory directory for the staging file (or null for the default temporary directory)
+     * @return read-only list of neurons
+     * @throws IOException              if the JSON file cannot be read or the staging file cannot be written
+     * @throws IllegalArgumentException if the neurons cannot be staged
+     */
+    public static List<Neuron> stageNeurons(final String neuronJson,
+                                            final File stagingDirectory) throws IOException {
+        final File stagingFile = File.createTempFile("neurons-", ".staging", stagingDirectory);
+        try {
+            return new RecordColumnsList<>(NeuronRecords.stage(neuronJson, stagingFile));
+        } finally {
+            release(stagingFile);
+        }
+    }
+
+    private static void release(final File stagingFile) {
+        try {
+            Files.deleteIfExists(stagingFile.toPath());
+        } catch (final IOException e) {
+            LOG.debug("release: cannot delete mapped staging file {} yet ({}), deleting it on exit", stagingFile, e.getMessage());
+            stagingFile.deleteOnExit();
+        }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(OffHeapStaging.class);
+
+}
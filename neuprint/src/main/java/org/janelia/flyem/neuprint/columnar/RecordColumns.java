@@ -0,0 +1,34 @@
+package org.janelia.flyem.neuprint.columnar;
+
+import java.util.List;
+
+/**
+ * Records stored in the columns of a columnar file, accessed by record index.
+ *
+ * @param <T> record type
+ */
+public interface RecordColumns<T> {
+
+    /**
+     * @return number of records
+     */
+    int size();
+
+    /**
+     * Returns a record as a model object.
+     *
+     * @param index record index
+     * @return record
+     */
+    T getRecord(int index);
+
+    /**
+     * Returns records as model objects (e.g. for passing a batch to the importer).
+     *
+     * @param start index of first record
+     * @param count maximum number of records
+     * @return records from start to the smaller of start + count and {@link #size()}
+     */
+    List<T> getRecords(int start, int count);
+
+}
@@ -0,0 +1,39 @@
+package org.janelia.flyem.neuprint.columnar;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Read-only {@link java.util.List} view of {@link RecordColumns}. Records stay in the (memory-mapped) columns
+ * and each call to {@link #get(int)} creates a new model object, so changes to a returned record are not
+ * seen by later calls.
+ *
+ * @param <T> record type
+ */
+public class RecordColumnsList<T> extends AbstractList<T> implements RandomAccess {
+
+    private final RecordColumns<T> columns;
+
+    /**
+     * Class constructor.
+     *
+     * @param columns columns holding the records
+     */
+    public RecordColumnsList(final RecordColumns<T> columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public T get(final int index) {
+        if (index < 0 || index >= columns.size()) {
+            throw new IndexOutOfBoundsException("index " + index + " is out of bounds for list of size " + columns.size());
+        }
+        return columns.getRecord(index);
+    }
+
+    @Override
+    public int size() {
+        return columns.size();
+    }
+
+}
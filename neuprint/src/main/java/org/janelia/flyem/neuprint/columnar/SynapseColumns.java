@@ -0,0 +1,191 @@
+package org.janelia.flyem.neuprint.columnar;
+
+import org.janelia.flyem.neuprint.model.Location;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprintloadprocedures.SpatialKey;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read-only view of a columnar synapse file (see {@link ColumnarFormat}). The columns are memory-mapped, so the
+ * accessors for single fields read directly from the page cache and do not allocate; only {@link #getSynapse(int)}
+ * and {@link #getRecords(int, int)} create objects. Instances are safe to use from multiple threads.
+ */
+public class SynapseColumns implements RecordColumns<Synapse> {
+
+    private static final String PRE = "pre";
+    private static final String POST = "post";
+
+    private final int size;
+    private final String[] roiDictionary;
+    private final IntBuffer x;
+    private final IntBuffer y;
+    private final IntBuffer z;
+    private final FloatBuffer confidence;
+    private final ByteBuffer flags;
+    private final IntBuffer roiOffsets;
+    private final IntBuffer roiIds;
+
+    private SynapseColumns(final ColumnarFormat.Header header,
+                           final ByteBuffer[] columns) {
+        this.size = header.recordCount;
+        this.roiDictionary = header.roiDictionary;
+        this.x = columns[0].asIntBuffer();
+        this.y = columns[1].asIntBuffer();
+        this.z = columns[2].asIntBuffer();
+        this.confidence = columns[3].asFloatBuffer();
+        this.flags = columns[4];
+        this.roiOffsets = columns[5].asIntBuffer();
+        this.roiIds = columns[6].asIntBuffer();
+    }
+
+    /**
+     * Maps the columns of a columnar synapse file.
+     *
+     * @param file columnar synapse file
+     * @return view of the file
+     * @throws IOException if the file cannot be read or is not a columnar synapse file
+     */
+    public static SynapseColumns open(final File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ColumnarFormat.Header header = ColumnarFormat.Header.read(channel, ColumnarFormat.SYNAPSE_MAGIC, file.getPath());
+            final long[] lengths = ColumnarFormat.getSynapseColumnLengths(header.recordCount, header.roiReferenceCount);
+            final long[] starts = ColumnarFormat.getColumnStarts(header.columnsOffset, lengths);
+            final ByteBuffer[] columns = new ByteBuffer[lengths.length];
+            for (int i = 0; i < lengths.length; i++) {
+                columns[i] = ColumnarFormat.mapColumn(channel, starts[i], lengths[i], file.getPath());
+            }
+            return new SynapseColumns(header, columns);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int getX(final int index) {
+        return x.get(index);
+    }
+
+    public int getY(final int index) {
+        return y.get(index);
+    }
+
+    public int getZ(final int index) {
+        return z.get(index);
+    }
+
+    /**
+     * @param index record index
+     * @return true if the location can be packed into a {@link SpatialKey} (see {@link SpatialKey#isEncodable(long, long, long)})
+     */
+    public boolean hasLocationKey(final int index) {
+        return SpatialKey.isEncodable(x.get(index), y.get(index), z.get(index));
+    }
+
+    /**
+     * @param index record index
+     * @return location packed into a {@link SpatialKey}
+     * @throws IllegalArgumentException if a coordinate is negative or greater than {@link SpatialKey#MAX_COORDINATE}
+     */
+    public long getLocationKey(final int index) {
+        return SpatialKey.encode(x.get(index), y.get(index), z.get(index));
+    }
+
+    /**
+     * @param index record index
+     * @return confidence of prediction (stored with float precision)
+     */
+    public float getConfidence(final int index) {
+        return confidence.get(index);
+    }
+
+    /**
+     * @param index record index
+     * @return true for a presynaptic density, false for a postsynaptic density
+     */
+    public boolean isPre(final int index) {
+        return (flags.get(index) & ColumnarFormat.PRE_FLAG) != 0;
+    }
+
+    /**
+     * @param index record index
+     * @return type of synaptic density (pre or post)
+     */
+    public String getType(final int index) {
+        return isPre(index) ? PRE : POST;
+    }
+
+    /**
+     * @param index record index
+     * @return number of rois listed for the synaptic density
+     */
+    public int getRoiCount(final int index) {
+        return roiOffsets.get(index + 1) - roiOffsets.get(index);
+    }
+
+    /**
+     * @param index    record index
+     * @param roiIndex index of roi in the synaptic density's roi list
+     * @return name of roi (shared by all records in the roi)
+     */
+    public String getRoi(final int index,
+                         final int roiIndex) {
+        return roiDictionary[roiIds.get(roiOffsets.get(index) + roiIndex)];
+    }
+
+    /**
+     * Returns a record as a {@link Synapse}. The float confidence is converted to the shortest
+     * double with the same float value, so e.g. 0.9 in the JSON file is 0.9 rather than 0.8999999761581421.
+     *
+     * @param index record index
+     * @return synapse
+     */
+    public Synapse getSynapse(final int index) {
+        final int roiCount = getRoiCount(index);
+        final Set<String> rois = new LinkedHashSet<>(roiCount * 2);
+        for (int i = 0; i < roiCount; i++) {
+            rois.add(getRoi(index, i));
+        }
+        return new Synapse(getType(index),
+                toConfidence(getConfidence(index)),
+                new Location((long) getX(index), (long) getY(index), (long) getZ(index)),
+                rois);
+    }
+
+    /**
+     * @param confidence confidence stored with float precision
+     * @return shortest double with the same float value
+     */
+    static double toConfidence(final float confidence) {
+        return Double.parseDouble(Float.toString(confidence));
+    }
+
+    @Override
+    public Synapse getRecord(final int index) {
+        return getSynapse(index);
+    }
+
+    @Override
+    public List<Synapse> getRecords(final int start,
+                                    final int count) {
+        final int end = (int) Math.min((long) start + count, size);
+        final List<Synapse> synapseList = new ArrayList<>(Math.max(end - start, 0));
+        for (int i = start; i < end; i++) {
+            synapseList.add(getSynapse(i));
+        }
+        return synapseList;
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.janelia.flyem.neuprint.connectome;
+
+import org.janelia.flyem.neuprint.model.Location;
+import org.janelia.flyem.neuprintloadprocedures.SpatialKey;
+import org.janelia.flyem.neuprintloadprocedures.model.RoiInfoWithHighPrecisionCounts;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The synapses, roiInfo, and ConnectsTo weights for a ConnectionSet between two Segments, as computed
+ * by a {@link ConnectomeAggregator}. Synapse locations are stored as {@link SpatialKey}s, except for
+ * locations that cannot be packed into a key, which are stored as {@link Location}s.
+ */
+public class ConnectionSetConnectivity {
+
+    private final long preBodyId;
+    private final long postBodyId;
+    private final RoiInfoWithHighPrecisionCounts roiInfo;
+    private final long[] preSynapseKeys;
+    private final long[] postSynapseKeys;
+    private final List<Location> unkeyedPreSynapseLocations;
+    private final List<Location> unkeyedPostSynapseLocations;
+    private final int weight;
+    private final int weightHP;
+
+    ConnectionSetConnectivity(final long preBodyId,
+                              final long postBodyId,
+                              final RoiInfoWithHighPrecisionCounts roiInfo,
+                              final long[] preSynapseKeys,
+                              final List<Location> unkeyedPreSynapseLocations,
+                              final long[] postSynapseKeys,
+                              final List<Location> unkeyedPostSynapseLocations,
+                              final int weight,
+                              final int weightHP) {
+        this.preBodyId = preBodyId;
+        this.postBodyId = postBodyId;
+        this.roiInfo = roiInfo;
+        this.preSynapseKeys = preSynapseKeys;
+        this.postSynapseKeys = postSynapseKeys;
+        this.unkeyedPreSynapseLocations = unkeyedPreSynapseLocations;
+        this.unkeyedPostSynapseLocations = unkeyedPostSynapseLocations;
+        this.weight = weight;
+        this.weightHP = weightHP;
+    }
+
+    /**
+     * @return bodyId of the presynaptic Segment
+     */
+    public long getPreBodyId() {
+        return preBodyId;
+    }
+
+    /**
+     * @return bodyId of the postsynaptic Segment
+     */
+    public long getPostBodyId() {
+        return postBodyId;
+    }
+
+    /**
+     * @param dataset dataset name
+     * @return datasetBodyIds property of the ConnectionSet
+     */
+    public String getDatasetBodyIds(final String dataset) {
+        return dataset + ":" + preBodyId + ":" + postBodyId;
+    }
+
+    /**
+     * @return pre, post, preHP, and postHP counts per roi
+     */
+    public RoiInfoWithHighPrecisionCounts getRoiInfo() {
+        return roiInfo;
+    }
+
+    /**
+     * @return number of postsynaptic densities in the ConnectionSet (weight of ConnectsTo)
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return number of high-precision postsynaptic densities in the ConnectionSet (weightHP of ConnectsTo)
+     */
+    public int getWeightHP() {
+        return weightHP;
+    }
+
+    /**
+     * @return spatial keys of the presynaptic densities in the ConnectionSet (see {@link #getUnkeyedPreSynapseLocations()})
+     */
+    public long[] getPreSynapseKeys() {
+        return preSynapseKeys;
+    }
+
+    /**
+     * @return spatial keys of the postsynaptic densities in the ConnectionSet (see {@link #getUnkeyedPostSynapseLocations()})
+     */
+    public long[] getPostSynapseKeys() {
+        return postSynapseKeys;
+    }
+
+    /**
+     * @return locations of the presynaptic densities in the ConnectionSet that cannot be packed into a spatial key
+     */
+    public List<Location> getUnkeyedPreSynapseLocations() {
+        return unkeyedPreSynapseLocations;
+    }
+
+    /**
+     * @return locations of the postsynaptic densities in the ConnectionSet that cannot be packed into a spatial key
+     */
+    public List<Location> getUnkeyedPostSynapseLocations() {
+        return unkeyedPostSynapseLocations;
+    }
+
+    /**
+     * @return locations of all presynaptic densities in the ConnectionSet
+     */
+    public List<Location> getPreSynapseLocations() {
+        return toLocations(preSynapseKeys, unkeyedPreSynapseLocations);
+    }
+
+    /**
+     * @return locations of all postsynaptic densities in the ConnectionSet
+     */
+    public List<Location> getPostSynapseLocations() {
+        return toLocations(postSynapseKeys, unkeyedPostSynapseLocations);
+    }
+
+    private static Location toLocation(final long key) {
+        return new Location(SpatialKey.getX(key), SpatialKey.getY(key), SpatialKey.getZ(key));
+    }
+
+    private static List<Location> toLocations(final long[] keys,
+                                              final List<Location> unkeyedLocations) {
+        final List<Location> locations = new ArrayList<>(unkeyedLocations.size() + keys.length);
+        locations.addAll(unkeyedLocations);
+        for (final long key : keys) {
+            locations.add(toLocation(key));
+        }
+        return locations;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionSetConnectivity{preBodyId=" + preBodyId + ", postBodyId=" + postBodyId + ", weight=" + weight + ", weightHP=" + weightHP + ", roiInfo=" + roiInfo + "}";
+    }
+
+}
@@ -0,0 +1,403 @@
+package org.janelia.flyem.neuprint.connectome;
+
+import org.janelia.flyem.neuprint.model.Location;
+import org.janelia.flyem.neuprint.model.LocationSet;
+import org.janelia.flyem.neuprint.model.Neuron;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprint.util.LongHashSet;
+import org.janelia.flyem.neuprint.util.LongLongHashMap;
+import org.janelia.flyem.neuprintloadprocedures.SpatialKey;
+import org.janelia.flyem.neuprintloadprocedures.model.RoiInfoWithHighPrecisionCounts;
+import org.janelia.flyem.neuprintloadprocedures.procedures.LoadingProcedures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Computes the connectivity that loader.addPropsAndConnectionInfoToSegment derives in the database
+ * (Segment pre/post/roiInfo, :Neuron labels and clusterNames, ConnectionSet roiInfo, and ConnectsTo weight/weightHP)
+ * from the synapse, connection, and neuron data before it is written, so that the results can be written in bulk.
+ * <p>
+ * Synapses, connections, and neurons can be added in any order and in batches. Locations are packed into
+ * {@link SpatialKey}s and joined through primitive maps, so memory use is a few dozen bytes per synapse and
+ * connection. Once all data has been added, {@link #aggregate()} computes the results in a single pass over
+ * the connections. Locations that cannot be packed into a {@link SpatialKey} (coordinates outside of 0 to
+ * {@link SpatialKey#MAX_COORDINATE}) are given negative surrogate keys, which never collide with a spatial key.
+ */
+public class ConnectomeAggregator {
+
+    private static final String PRE = "pre";
+    private static final String POST = "post";
+
+    private final double preHPThreshold;
+    private final double postHPThreshold;
+    private final long neuronThreshold;
+
+    // values are indices into the synapse attribute arrays
+    private final LongLongHashMap preSynapseIndex = new LongLongHashMap(1 << 16);
+    private final LongLongHashMap postSynapseIndex = new LongLongHashMap(1 << 16);
+    private double[] synapseConfidences = new double[1 << 16];
+    private int[] synapseRoiSetIds = new int[1 << 16];
+    private int synapseCount;
+
+    // synapses share a small number of distinct roi sets, so each set is stored once
+    private final Map<Set<String>, Integer> roiSetIds = new HashMap<>();
+    private final List<Set<String>> roiSets = new ArrayList<>();
+    private final Set<String> superLevelRois = new LinkedHashSet<>();
+
+    private long[] connectionPreKeys = new long[1 << 16];
+    private long[] connectionPostKeys = new long[1 << 16];
+    private int connectionCount;
+
+    // locations that cannot be packed into a spatial key, indexed by -(surrogate key + 1)
+    private final Map<Location, Long> surrogateKeys = new HashMap<>();
+    private final List<Location> surrogateLocations = new ArrayList<>();
+
+    private final LongLongHashMap locationToBodyId = new LongLongHashMap(1 << 16);
+    private final Set<Long> segmentBodyIds = new LinkedHashSet<>();
+
+    private List<SegmentConnectivity> segments;
+    private List<ConnectionSetConnectivity> connectionSets;
+
+    /**
+     * Class constructor.
+     *
+     * @param preHPThreshold  high-precision threshold for presynaptic densities
+     * @param postHPThreshold high-precision threshold for postsynaptic densities
+     * @param neuronThreshold Neuron must have greater than or equal to neuronThreshold/5 presynaptic densities or greater than or equal to neuronThreshold postsynaptic densities to be given a :Neuron label
+     */
+    public ConnectomeAggregator(final double preHPThreshold,
+                                final double postHPThreshold,
+                                final long neuronThreshold) {
+        this.preHPThreshold = preHPThreshold;
+        this.postHPThreshold = postHPThreshold;
+        this.neuronThreshold = neuronThreshold;
+        getRoiSetId(Collections.emptySet());
+    }
+
+    /**
+     * Adds synapses as specified by a <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">synapses JSON file</a>.
+     * As in the transactional load, if more than one synapse has the same location, the first one is kept.
+     *
+     * @param synapseList list of {@link Synapse} objects
+     */
+    public void addSynapses(final List<Synapse> synapseList) {
+        for (final Synapse synapse : synapseList) {
+            final Set<String> rois = synapse.getRois();
+            if (rois != null && rois.size() > 0) {
+                superLevelRois.add(rois.iterator().next()); // first listed roi will be a "super" roi
+            }
+
+            final long key = getKey(synapse.getLocation());
+            if (preSynapseIndex.containsKey(key) || postSynapseIndex.containsKey(key)) {
+                continue;
+            }
+            if (synapse.getType().equals(PRE)) {
+                preSynapseIndex.put(key, addSynapseAttributes(synapse.getConfidence(), getRoiSetId(rois)));
+            } else if (synapse.getType().equals(POST)) {
+                postSynapseIndex.put(key, addSynapseAttributes(synapse.getConfidence(), getRoiSetId(rois)));
+            }
+        }
+        invalidateResults();
+    }
+
+    /**
+     * Adds synaptic connections as specified by a <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">synaptic connections JSON file</a>.
+     *
+     * @param synapticConnectionList list of {@link SynapticConnection} objects
+     */
+    public void addSynapticConnections(final List<SynapticConnection> synapticConnectionList) {
+        final int requiredCapacity = connectionCount + synapticConnectionList.size();
+        if (requiredCapacity > connectionPreKeys.length) {
+            final int newCapacity = Math.max(requiredCapacity, connectionPreKeys.length * 2);
+            connectionPreKeys = Arrays.copyOf(connectionPreKeys, newCapacity);
+            connectionPostKeys = Arrays.copyOf(connectionPostKeys, newCapacity);
+        }
+        for (final SynapticConnection connection : synapticConnectionList) {
+            connectionPreKeys[connectionCount] = getKey(connection.getPreX(), connection.getPreY(), connection.getPreZ());
+            connectionPostKeys[connectionCount] = getKey(connection.getPostX(), connection.getPostY(), connection.getPostZ());
+            connectionCount++;
+        }
+        invalidateResults();
+    }
+
+    /**
+     * Adds the synapse sets of neurons as specified by a <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">neuron JSON file</a>.
+     * Neurons without synapses are ignored: they have no SynapseSet, so loader.addPropsAndConnectionInfoToSegment
+     * is not called for them and they are not given a :Neuron label on the procedure path either.
+     *
+     * @param neuronList list of {@link Neuron} objects
+     */
+    public void addNeurons(final List<Neuron> neuronList) {
+        for (final Neuron neuron : neuronList) {
+            final LocationSet synapseLocationSet = neuron.getSynapseLocationSet();
+            if (synapseLocationSet != null && synapseLocationSet.size() > 0) {
+                final long bodyId = neuron.getId();
+                segmentBodyIds.add(bodyId);
+                for (int i = 0; i < synapseLocationSet.size(); i++) {
+                    locationToBodyId.put(getKey(synapseLocationSet.getX(i), synapseLocationSet.getY(i), synapseLocationSet.getZ(i)), bodyId);
+                }
+            }
+        }
+        invalidateResults();
+    }
+
+    /**
+     * Adds a single member of a neuron's synapse set, for synapse sets that are streamed from a neuron JSON file
+     * (see {@link Neuron#fromJsonSingleObject(com.google.gson.stream.JsonReader, Neuron.SynapseLocationConsumer)}).
+     *
+     * @param bodyId neuron id
+     * @param x      x coordinate of the synapse location
+     * @param y      y coordinate of the synapse location
+     * @param z      z coordinate of the synapse location
+     */
+    public void addNeuronSynapse(final long bodyId,
+                                 final long x,
+                                 final long y,
+                                 final long z) {
+        segmentBodyIds.add(bodyId);
+        locationToBodyId.put(getKey(x, y, z), bodyId);
+        invalidateResults();
+    }
+
+    /**
+     * @return the first roi listed for each synapse that has been added
+     */
+    public Set<String> getSuperLevelRois() {
+        return Collections.unmodifiableSet(superLevelRois);
+    }
+
+    /**
+     * Computes the connectivity for all data added so far.
+     */
+    public void aggregate() {
+
+        LOG.info("aggregate: entry, {} synapses, {} connections, {} synapse locations in {} segments",
+                synapseCount, connectionCount, locationToBodyId.size(), segmentBodyIds.size());
+
+        // synapses that are only referenced by connections are created without rois and with a confidence of 0 (as in the transactional load)
+        for (int i = 0; i < connectionCount; i++) {
+            if (!preSynapseIndex.containsKey(connectionPreKeys[i])) {
+                preSynapseIndex.put(connectionPreKeys[i], addSynapseAttributes(0.0D, 0));
+            }
+            if (!postSynapseIndex.containsKey(connectionPostKeys[i])) {
+                postSynapseIndex.put(connectionPostKeys[i], addSynapseAttributes(0.0D, 0));
+            }
+        }
+
+        // segment counts include every synapse node at the locations in the segment's synapse set
+        final List<SegmentConnectivity> aggregatedSegments = new ArrayList<>(segmentBodyIds.size());
+        final Map<Long, SegmentConnectivity> segmentMap = new HashMap<>(segmentBodyIds.size() * 2);
+        for (final Long bodyId : segmentBodyIds) {
+            final SegmentConnectivity segment = new SegmentConnectivity(bodyId);
+            segmentMap.put(bodyId, segment);
+            aggregatedSegments.add(segment);
+        }
+        locationToBodyId.forEach((locationKey, bodyId) -> {
+            final SegmentConnectivity segment = segmentMap.get(bodyId);
+            final long preIndex = preSynapseIndex.getOrDefault(locationKey, -1);
+            if (preIndex >= 0) {
+                segment.addPreSynapse(getRois(preIndex));
+            }
+            final long postIndex = postSynapseIndex.getOrDefault(locationKey, -1);
+            if (postIndex >= 0) {
+                segment.addPostSynapse(getRois(postIndex));
+            }
+        });
+
+        final long preSynapseThreshold = (long) (neuronThreshold / 5.0F);
+        for (final SegmentConnectivity segment : aggregatedSegments) {
+            final boolean isNeuron = segment.getPre() >= preSynapseThreshold || segment.getPost() >= neuronThreshold;
+            String clusterName = null;
+            if (isNeuron && segment.hasSynapses()) {
+                clusterName = LoadingProcedures.generateClusterName(segment.getRoiInfo(), segment.getPre(), segment.getPost(), 0.10, superLevelRois);
+            }
+            segment.setNeuron(isNeuron, clusterName);
+        }
+
+        // group connected synapses by the pair of segments that contain them
+        final Map<BodyIdPair, LongHashSet[]> connectionSetSynapses = new LinkedHashMap<>();
+        int unassignedConnectionCount = 0;
+        for (int i = 0; i < connectionCount; i++) {
+            final long preKey = connectionPreKeys[i];
+            final long postKey = connectionPostKeys[i];
+            if (!locationToBodyId.containsKey(preKey) || !locationToBodyId.containsKey(postKey)) {
+                unassignedConnectionCount++;
+                continue;
+            }
+            final BodyIdPair bodyIdPair = new BodyIdPair(locationToBodyId.getOrDefault(preKey, 0), locationToBodyId.getOrDefault(postKey, 0));
+            final LongHashSet[] synapseKeys = connectionSetSynapses.computeIfAbsent(bodyIdPair, k -> new LongHashSet[]{new LongHashSet(), new LongHashSet()});
+            synapseKeys[0].add(preKey);
+            synapseKeys[1].add(postKey);
+        }
+        if (unassignedConnectionCount > 0) {
+            LOG.warn("aggregate: {} connections have a synapse that does not belong to a segment and will be ignored", unassignedConnectionCount);
+        }
+
+        final List<ConnectionSetConnectivity> aggregatedConnectionSets = new ArrayList<>(connectionSetSynapses.size());
+        for (final Map.Entry<BodyIdPair, LongHashSet[]> entry : connectionSetSynapses.entrySet()) {
+            aggregatedConnectionSets.add(createConnectionSet(entry.getKey(), entry.getValue()[0].toSortedArray(), entry.getValue()[1].toSortedArray()));
+        }
+
+        this.segments = aggregatedSegments;
+        this.connectionSets = aggregatedConnectionSets;
+
+        LOG.info("aggregate: exit, computed connectivity for {} segments and {} connection sets", segments.size(), connectionSets.size());
+    }
+
+    /**
+     * @return connectivity for each segment with a synapse set, in the order the neurons were added
+     * @throws IllegalStateException if {@link #aggregate()} has not been called since data was last added
+     */
+    public List<SegmentConnectivity> getSegments() {
+        if (segments == null) {
+            throw new IllegalStateException("aggregate must be called before results can be retrieved");
+        }
+        return segments;
+    }
+
+    /**
+     * @return connectivity for each pair of connected segments
+     * @throws IllegalStateException if {@link #aggregate()} has not been called since data was last added
+     */
+    public List<ConnectionSetConnectivity> getConnectionSets() {
+        if (connectionSets == null) {
+            throw new IllegalStateException("aggregate must be called before results can be retrieved");
+        }
+        return connectionSets;
+    }
+
+    private ConnectionSetConnectivity createConnectionSet(final BodyIdPair bodyIdPair, final long[] preKeys, final long[] postKeys) {
+        final RoiInfoWithHighPrecisionCounts roiInfo = new RoiInfoWithHighPrecisionCounts();
+        for (final long preKey : preKeys) {
+            final int index = (int) preSynapseIndex.getOrDefault(preKey, -1);
+            final boolean isHighPrecision = synapseConfidences[index] > preHPThreshold;
+            for (final String roi : getRois(index)) {
+                roiInfo.incrementPreForRoi(roi);
+                if (isHighPrecision) {
+                    roiInfo.incrementPreHPForRoi(roi);
+                }
+            }
+        }
+        int weightHP = 0;
+        for (final long postKey : postKeys) {
+            final int index = (int) postSynapseIndex.getOrDefault(postKey, -1);
+            final boolean isHighPrecision = synapseConfidences[index] > postHPThreshold;
+            if (isHighPrecision) {
+                weightHP++;
+            }
+            for (final String roi : getRois(index)) {
+                roiInfo.incrementPostForRoi(roi);
+                if (isHighPrecision) {
+                    roiInfo.incrementPostHPForRoi(roi);
+                }
+            }
+        }
+        // keys are sorted, so the surrogate keys of locations without a spatial key come first
+        final int preKeyStart = countSurrogateKeys(preKeys);
+        final int postKeyStart = countSurrogateKeys(postKeys);
+        return new ConnectionSetConnectivity(bodyIdPair.preBodyId, bodyIdPair.postBodyId, roiInfo,
+                Arrays.copyOfRange(preKeys, preKeyStart, preKeys.length), getSurrogateLocations(preKeys, preKeyStart),
+                Arrays.copyOfRange(postKeys, postKeyStart, postKeys.length), getSurrogateLocations(postKeys, postKeyStart),
+                postKeys.length, weightHP);
+    }
+
+    private long getKey(final Location location) {
+        return getKey(location.getX(), location.getY(), location.getZ());
+    }
+
+    private long getKey(final long x, final long y, final long z) {
+        if (SpatialKey.isEncodable(x, y, z)) {
+            return SpatialKey.encode(x, y, z);
+        }
+        return surrogateKeys.computeIfAbsent(new Location(x, y, z), location -> {
+            surrogateLocations.add(location);
+            return (long) -surrogateLocations.size();
+        });
+    }
+
+    private static int countSurrogateKeys(final long[] sortedKeys) {
+        int count = 0;
+        while (count < sortedKeys.length && sortedKeys[count] < 0) {
+            count++;
+        }
+        return count;
+    }
+
+    private List<Location> getSurrogateLocations(final long[] sortedKeys, final int surrogateKeyCount) {
+        final List<Location> locations = new ArrayList<>(surrogateKeyCount);
+        for (int i = 0; i < surrogateKeyCount; i++) {
+            locations.add(surrogateLocations.get((int) (-sortedKeys[i] - 1)));
+        }
+        return locations;
+    }
+
+    private int addSynapseAttributes(final double confidence, final int roiSetId) {
+        if (synapseCount == synapseConfidences.length) {
+            synapseConfidences = Arrays.copyOf(synapseConfidences, synapseCount * 2);
+            synapseRoiSetIds = Arrays.copyOf(synapseRoiSetIds, synapseCount * 2);
+        }
+        synapseConfidences[synapseCount] = confidence;
+        synapseRoiSetIds[synapseCount] = roiSetId;
+        return synapseCount++;
+    }
+
+    private int getRoiSetId(final Set<String> rois) {
+        final Set<String> roiSet = (rois == null) ? Collections.emptySet() : rois;
+        return roiSetIds.computeIfAbsent(roiSet, k -> {
+            roiSets.add(Collections.unmodifiableSet(new LinkedHashSet<>(k)));
+            return roiSets.size() - 1;
+        });
+    }
+
+    private Set<String> getRois(final long synapseIndex) {
+        return roiSets.get(synapseRoiSetIds[(int) synapseIndex]);
+    }
+
+    private void invalidateResults() {
+        segments = null;
+        connectionSets = null;
+    }
+
+    private static class BodyIdPair {
+
+        private final long preBodyId;
+        private final long postBodyId;
+
+        BodyIdPair(final long preBodyId, final long postBodyId) {
+            this.preBodyId = preBodyId;
+            this.postBodyId = postBodyId;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            boolean isEqual = false;
+            if (this == o) {
+                isEqual = true;
+            } else if (o instanceof BodyIdPair) {
+                final BodyIdPair that = (BodyIdPair) o;
+                isEqual = this.preBodyId == that.preBodyId && this.postBodyId == that.postBodyId;
+            }
+            return isEqual;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(preBodyId, postBodyId);
+        }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectomeAggregator.class);
+
+}
@@ -0,0 +1,91 @@
+package org.janelia.flyem.neuprint.connectome;
+
+import org.janelia.flyem.neuprintloadprocedures.model.RoiInfo;
+
+/**
+ * Synapse counts and roiInfo for a Segment with a SynapseSet, as computed by a {@link ConnectomeAggregator}.
+ */
+public class SegmentConnectivity {
+
+    private final long bodyId;
+    private final RoiInfo roiInfo;
+    private long pre;
+    private long post;
+    private boolean neuron;
+    private String clusterName;
+
+    SegmentConnectivity(final long bodyId) {
+        this.bodyId = bodyId;
+        this.roiInfo = new RoiInfo();
+    }
+
+    /**
+     * @return bodyId of the Segment
+     */
+    public long getBodyId() {
+        return bodyId;
+    }
+
+    /**
+     * @return number of presynaptic densities in the Segment's SynapseSet
+     */
+    public long getPre() {
+        return pre;
+    }
+
+    /**
+     * @return number of postsynaptic densities in the Segment's SynapseSet
+     */
+    public long getPost() {
+        return post;
+    }
+
+    /**
+     * @return pre and post counts per roi
+     */
+    public RoiInfo getRoiInfo() {
+        return roiInfo;
+    }
+
+    /**
+     * @return true if the Segment contains any synapses (pre, post, and roiInfo are only set on Segments with synapses)
+     */
+    public boolean hasSynapses() {
+        return pre > 0 || post > 0;
+    }
+
+    /**
+     * @return true if the Segment should be given a :Neuron label
+     */
+    public boolean isNeuron() {
+        return neuron;
+    }
+
+    /**
+     * @return cluster name for Neurons with synapses, otherwise null
+     */
+    public String getClusterName() {
+        return clusterName;
+    }
+
+    void addPreSynapse(final Iterable<String> rois) {
+        pre++;
+        rois.forEach(roiInfo::incrementPreForRoi);
+    }
+
+    void addPostSynapse(final Iterable<String> rois) {
+        post++;
+        rois.forEach(roiInfo::incrementPostForRoi);
+    }
+
+    void setNeuron(final boolean neuron, final String clusterName) {
+        this.neuron = neuron;
+        this.clusterName = clusterName;
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentConnectivity{bodyId=" + bodyId + ", pre=" + pre + ", post=" + post + ", roiInfo=" + roiInfo + ", neuron=" + neuron + ", clusterName=" + clusterName + "}";
+    }
+
+}
@@ -0,0 +1,130 @@
+package org.janelia.flyem.neuprint.db;
+
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Wraps a {@link TransactionBatch} so that its transactions are written on a dedicated
+ * writer thread. Statements are collected on the calling thread and handed to the writer
+ * thread when {@link #writeTransaction()} is called. Transactions are written in the
+ * order they were requested. At most maxPendingTransactions transactions may be waiting
+ * to be written before the calling thread blocks.
+ */
+public class AsyncTransactionBatch implements TransactionBatch {
+
+    private final TransactionBatch batch;
+    private final ExecutorService writer;
+    private final Semaphore pendingTransactions;
+    private final List<Statement> statementsToWrite;
+    private final List<Consumer<Record>> resultConsumers;
+    private volatile RuntimeException writeFailure;
+
+    /**
+     * Class constructor.
+     *
+     * @param batch                  transaction batch used (only) by the writer thread
+     * @param writerName             name of the writer thread
+     * @param maxPendingTransactions maximum number of transactions waiting to be written
+     */
+    public AsyncTransactionBatch(final TransactionBatch batch,
+                                 final String writerName,
+                                 final int maxPendingTransactions) {
+        this.batch = batch;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, writerName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pendingTransactions = new Semaphore(Math.max(1, maxPendingTransactions));
+        this.statementsToWrite = new ArrayList<>();
+        this.resultConsumers = new ArrayList<>();
+    }
+
+    @Override
+    public void addStatement(final Statement statement) {
+        addStatement(statement, null);
+    }
+
+    @Override
+    public void addStatement(final Statement statement,
+                             final Consumer<Record> resultConsumer) {
+        checkForWriteFailure();
+        statementsToWrite.add(statement);
+        resultConsumers.add(resultConsumer);
+    }
+
+    @Override
+    public void writeTransaction(final List<Statement> statements,
+                                 final List<Consumer<Record>> resultConsumers) {
+        checkForWriteFailure();
+        statementsToWrite.addAll(statements);
+        this.resultConsumers.addAll(resultConsumers);
+        writeTransaction();
+    }
+
+    @Override
+    public void writeTransaction() {
+        checkForWriteFailure();
+        if (statementsToWrite.isEmpty()) {
+            return;
+        }
+        final List<Statement> transactionStatements = new ArrayList<>(statementsToWrite);
+        final List<Consumer<Record>> transactionResultConsumers = new ArrayList<>(resultConsumers);
+        statementsToWrite.clear();
+        resultConsumers.clear();
+
+        pendingTransactions.acquireUninterruptibly();
+        writer.execute(() -> {
+            try {
+                if (writeFailure == null) {
+                    // all statements requested for a transaction are committed together by the wrapped batch
+                    batch.writeTransaction(transactionStatements, transactionResultConsumers);
+                }
+            } catch (final RuntimeException e) {
+                writeFailure = e;
+            } finally {
+                pendingTransactions.release();
+            }
+        });
+    }
+
+    /**
+     * Waits for all requested transactions to be written and closes the wrapped batch.
+     * Statements that were added after the last call to {@link #writeTransaction()} are discarded.
+     *
+     * @throws RuntimeException if any transaction failed to be written
+     */
+    @Override
+    public void close() {
+        writer.execute(batch::close);
+        writer.shutdown();
+        try {
+            while (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOG.info("close: waiting for writer to finish");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for writer to finish", e);
+        }
+        checkForWriteFailure();
+    }
+
+    private void checkForWriteFailure() {
+        if (writeFailure != null) {
+            throw new RuntimeException("failed to write transaction", writeFailure);
+        }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncTransactionBatch.class);
+
+}
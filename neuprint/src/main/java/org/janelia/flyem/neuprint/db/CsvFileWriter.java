@@ -0,0 +1,153 @@
+package org.janelia.flyem.neuprint.db;
+
+import org.neo4j.driver.v1.types.Point;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes rows to a CSV file in the format expected by neo4j-admin import. Strings are
+ * always quoted, arrays and collections are joined with {@link #ARRAY_DELIMITER},
+ * {@link Point}s are written as cartesian-3D maps, and null values are written as empty
+ * fields (no property is created). The header is written to a separate file so that it
+ * can be determined after the data has been written.
+ */
+public class CsvFileWriter implements AutoCloseable {
+
+    public static final char ARRAY_DELIMITER = ';';
+
+    private final File file;
+    private final Writer writer;
+    private long rowCount;
+
+    /**
+     * Class constructor.
+     *
+     * @param file data file to write
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public CsvFileWriter(final File file) {
+        this.file = file;
+        try {
+            this.writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8), 1 << 16);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("failed to open " + file, e);
+        }
+        this.rowCount = 0;
+    }
+
+    /**
+     * @return the data file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of rows written so far
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Writes a row.
+     *
+     * @param values values for each column
+     */
+    public void writeRow(final Object... values) {
+        writeRow(Arrays.asList(values));
+    }
+
+    /**
+     * Writes a row.
+     *
+     * @param values values for each column
+     */
+    public void writeRow(final List<?> values) {
+        try {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(format(values.get(i)));
+            }
+            writer.write('\n');
+        } catch (final IOException e) {
+            throw new UncheckedIOException("failed to write to " + file, e);
+        }
+        rowCount++;
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("failed to close " + file, e);
+        }
+    }
+
+    /**
+     * Writes a single line header file.
+     *
+     * @param headerFile header file to write
+     * @param header     column headers (e.g. "bodyId:long")
+     */
+    public static void writeHeader(final File headerFile, final List<String> header) {
+        try (final CsvFileWriter headerWriter = new CsvFileWriter(headerFile)) {
+            try {
+                headerWriter.writer.write(String.join(",", header));
+                headerWriter.writer.write('\n');
+            } catch (final IOException e) {
+                throw new UncheckedIOException("failed to write to " + headerFile, e);
+            }
+        }
+    }
+
+    static String format(final Object value) {
+        final String formattedValue;
+        if (value == null) {
+            formattedValue = "";
+        } else if (value instanceof String) {
+            formattedValue = quote((String) value);
+        } else if (value instanceof Point) {
+            final Point point = (Point) value;
+            formattedValue = quote("{x:" + formatNumber(point.x()) + ", y:" + formatNumber(point.y()) + ", z:" + formatNumber(point.z()) + "}");
+        } else if (value instanceof LocalDateTime) {
+            formattedValue = value.toString();
+        } else if (value instanceof Collection) {
+            formattedValue = formatArray(((Collection<?>) value).stream());
+        } else if (value instanceof Object[]) {
+            formattedValue = formatArray(Arrays.stream((Object[]) value));
+        } else {
+            formattedValue = value.toString();
+        }
+        return formattedValue;
+    }
+
+    private static String formatArray(final Stream<?> values) {
+        return quote(values.map(String::valueOf).collect(Collectors.joining(String.valueOf(ARRAY_DELIMITER))));
+    }
+
+    private static String formatNumber(final double value) {
+        return (value == Math.rint(value) && !Double.isInfinite(value)) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    private static String quote(final String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+}
@@ -0,0 +1,162 @@
+package org.janelia.flyem.neuprint.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Records the Cypher query text run by each load stage, so that query text built from data (instead of
+ * parameters) shows up in the logs. The server parses and plans every distinct query text and keeps the plans in
+ * a cache of limited size (dbms.query_cache_size), so a stage that formats values into its queries both pays for
+ * planning on every statement and evicts the plans of other stages.
+ * <p>
+ * For each stage, the registry counts executions and distinct templates. A template whose text only differs
+ * from an earlier template of the stage in its literals (e.g. a formatted ROI name or number) is reported once as
+ * a warning. The plan-cache hit ratio is estimated by replaying executions against a least-recently-used cache of
+ * the server's size, which assumes the loader is the only client of the server. This class is thread safe.
+ */
+public class CypherTemplateRegistry {
+
+    /**
+     * Default number of query plans cached by the server (dbms.query_cache_size).
+     */
+    public static final int DEFAULT_QUERY_CACHE_SIZE = 1000;
+
+    // string literals, then numbers that are not part of a name (e.g. in `ds-PreSyn` or $param1)
+    private static final Pattern STRING_LITERAL = Pattern.compile("\"(?:[^\"\\\\]|\\\\.)*\"|'(?:[^'\\\\]|\\\\.)*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$.`-])-?\\d+(?:\\.\\d+)?(?![\\w`])");
+
+    private final int queryCacheSize;
+    private final Map<String, StageTemplates> stages;
+    private final LinkedHashMap<String, Boolean> cachedPlans;
+    private long executionCount;
+    private long cacheHitCount;
+
+    /**
+     * Class constructor using the server's default query cache size.
+     */
+    public CypherTemplateRegistry() {
+        this(DEFAULT_QUERY_CACHE_SIZE);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param queryCacheSize number of query plans cached by the server
+     */
+    public CypherTemplateRegistry(final int queryCacheSize) {
+        this.queryCacheSize = Math.max(1, queryCacheSize);
+        this.stages = new TreeMap<>();
+        this.cachedPlans = new LinkedHashMap<>(16, 0.75F, true);
+    }
+
+    /**
+     * Records an execution of the query by the stage.
+     *
+     * @param stageName name of the load stage running the query
+     * @param query     query text
+     * @return the query text (so that calls can wrap the text passed to the driver)
+     */
+    public synchronized String use(final String stageName,
+                                   final String query) {
+
+        final StageTemplates stage = stages.computeIfAbsent(stageName, StageTemplates::new);
+        stage.use(query);
+
+        executionCount++;
+        if (cachedPlans.get(query) == null) {
+            cachedPlans.put(query, Boolean.TRUE);
+            if (cachedPlans.size() > queryCacheSize) {
+                cachedPlans.remove(cachedPlans.keySet().iterator().next());
+            }
+        } else {
+            cacheHitCount++;
+        }
+
+        return query;
+    }
+
+    /**
+     * @param stageName name of the load stage
+     * @return number of distinct query texts run by the stage
+     */
+    public synchronized int getTemplateCount(final String stageName) {
+        final StageTemplates stage = stages.get(stageName);
+        return stage == null ? 0 : stage.executionsByTemplate.size();
+    }
+
+    /**
+     * @return number of distinct query texts run by all stages
+     */
+    public synchronized int getTemplateCount() {
+        return stages.values().stream().mapToInt(stage -> stage.executionsByTemplate.size()).sum();
+    }
+
+    /**
+     * @return number of queries run by all stages
+     */
+    public synchronized long getExecutionCount() {
+        return executionCount;
+    }
+
+    /**
+     * @return estimated fraction of executions whose plan was cached by the server (1 if nothing was run)
+     */
+    public synchronized double getPlanCacheHitRatio() {
+        return executionCount == 0 ? 1.0 : (double) cacheHitCount / executionCount;
+    }
+
+    /**
+     * Logs the executions and distinct templates of each stage along with the estimated plan-cache hit ratio.
+     */
+    public synchronized void logSummary() {
+        for (final StageTemplates stage : stages.values()) {
+            LOG.info("{}: {} executions of {} distinct query templates", stage.name, stage.executionCount, stage.executionsByTemplate.size());
+        }
+        LOG.info("query templates: {} executions of {} distinct templates, estimated plan cache hit ratio {} (cache size {})",
+                 executionCount, getTemplateCount(), String.format("%.4f", getPlanCacheHitRatio()), queryCacheSize);
+    }
+
+    /**
+     * @param query query text
+     * @return query text with string and number literals replaced by '?'
+     */
+    static String getShape(final String query) {
+        return NUMBER_LITERAL.matcher(STRING_LITERAL.matcher(query).replaceAll("?")).replaceAll("?");
+    }
+
+    private static class StageTemplates {
+
+        private final String name;
+        private final Map<String, Long> executionsByTemplate;
+        private final Map<String, String> templatesByShape;
+        private boolean reportedLiterals;
+        private long executionCount;
+
+        private StageTemplates(final String name) {
+            this.name = name;
+            this.executionsByTemplate = new HashMap<>();
+            this.templatesByShape = new HashMap<>();
+        }
+
+        private void use(final String query) {
+            executionCount++;
+            if (executionsByTemplate.merge(query, 1L, Long::sum) == 1L) {
+                final String earlierTemplate = templatesByShape.putIfAbsent(getShape(query), query);
+                if (earlierTemplate != null && !reportedLiterals) {
+                    reportedLiterals = true;
+                    LOG.warn("{}: query templates differ only in literals, values should be passed as parameters:\n{}\n{}",
+                             name, earlierTemplate, query);
+                }
+            }
+        }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(CypherTemplateRegistry.class);
+
+}
@@ -19,6 +19,9 @@ public class DbConfig {
     private final String password;
     private final int statementsPerTransaction;
     private final int connectionInfoStatementsPerTransaction;
+    private final int writerThreads;
+    private final long targetTransactionMillis;
+    private final int queryCacheSize;
 
     /**
      * Class constructor.
@@ -28,17 +31,26 @@ public class DbConfig {
      * @param password                 password for database
      * @param statementsPerTransaction number of statements per database transaction
      * @param connectionInfoStatementsPerTransaction number of connection info statements per database transaction
+     * @param writerThreads number of concurrent writer sessions used during a load
+     * @param targetTransactionMillis target commit latency used to adjust transaction sizes during a load
+     * @param queryCacheSize number of query plans cached by the server (dbms.query_cache_size)
      */
     private DbConfig(final String uri,
                      final String user,
                      final String password,
                      final int statementsPerTransaction,
-                     final int connectionInfoStatementsPerTransaction) {
+                     final int connectionInfoStatementsPerTransaction,
+                     final int writerThreads,
+                     final long targetTransactionMillis,
+                     final int queryCacheSize) {
         this.uri = uri;
         this.user = user;
         this.password = password;
         this.statementsPerTransaction = statementsPerTransaction;
         this.connectionInfoStatementsPerTransaction = connectionInfoStatementsPerTransaction;
+        this.writerThreads = writerThreads;
+        this.targetTransactionMillis = targetTransactionMillis;
+        this.queryCacheSize = queryCacheSize;
     }
 
     /**
@@ -63,7 +75,7 @@ public class DbConfig {
     }
 
     /**
-     * @return the number of statements per database transaction
+     * @return the number of statements per database transaction (for batched UNWIND writes, the number of rows per transaction)
      */
     public int getStatementsPerTransaction() {
         return statementsPerTransaction;
@@ -77,11 +89,40 @@ public class DbConfig {
         return connectionInfoStatementsPerTransaction;
     }
 
+    /**
+     *
+     * @return the number of concurrent writer sessions used for synapse, connection, segment, and skeleton batches
+     */
+    public int getWriterThreads() {
+        return writerThreads;
+    }
+
+    /**
+     *
+     * @return the target commit latency in milliseconds; transaction sizes and the number of concurrent commits are adjusted during a load to stay near it
+     */
+    public long getTargetTransactionMillis() {
+        return targetTransactionMillis;
+    }
+
+    /**
+     *
+     * @return the number of query plans cached by the server, used to estimate the plan cache hit ratio of a load
+     */
+    public int getQueryCacheSize() {
+        return queryCacheSize;
+    }
+
     /**
      * Returns a DbConfig object based on a java {@link Properties} file. The
      * properties file must contain uri, username, and password properties.
      * Optionally, a statementsPerTransaction property can be used to specify
      * the number of statements per transaction. The default value is 100.
+     * A writerThreads property can be used to specify the number of concurrent
+     * writer sessions. The default value is 1. A targetTransactionMillis property
+     * can be used to specify the target commit latency. The default value is 1000.
+     * A queryCacheSize property should match the server's dbms.query_cache_size
+     * setting. The default value is 1000.
      *
      * @param file a {@link File} object representing the properties file
      * @return a {@link DbConfig} object
@@ -132,6 +173,60 @@ public class DbConfig {
                 }
             }
 
+            final String writerThreadsString = properties.getProperty("writerThreads");
+            final int writerThreads;
+            if (writerThreadsString == null) {
+                writerThreads = 1;
+            } else {
+                try {
+                    writerThreads = Integer.parseInt(writerThreadsString);
+                } catch (final NumberFormatException nfe) {
+                    throw new IllegalArgumentException(
+                            "invalid writerThreads value '" + writerThreadsString +
+                                    "' specified in " + file, nfe);
+                }
+                if (writerThreads < 1) {
+                    throw new IllegalArgumentException(
+                            "writerThreads must be at least 1 but was " + writerThreads + " in " + file);
+                }
+            }
+
+            final String targetTransactionMillisString = properties.getProperty("targetTransactionMillis");
+            final long targetTransactionMillis;
+            if (targetTransactionMillisString == null) {
+                targetTransactionMillis = DEFAULT_TARGET_TRANSACTION_MILLIS;
+            } else {
+                try {
+                    targetTransactionMillis = Long.parseLong(targetTransactionMillisString);
+                } catch (final NumberFormatException nfe) {
+                    throw new IllegalArgumentException(
+                            "invalid targetTransactionMillis value '" + targetTransactionMillisString +
+                                    "' specified in " + file, nfe);
+                }
+                if (targetTransactionMillis < 1) {
+                    throw new IllegalArgumentException(
+                            "targetTransactionMillis must be at least 1 but was " + targetTransactionMillis + " in " + file);
+                }
+            }
+
+            final String queryCacheSizeString = properties.getProperty("queryCacheSize");
+            final int queryCacheSize;
+            if (queryCacheSizeString == null) {
+                queryCacheSize = CypherTemplateRegistry.DEFAULT_QUERY_CACHE_SIZE;
+            } else {
+                try {
+                    queryCacheSize = Integer.parseInt(queryCacheSizeString);
+                } catch (final NumberFormatException nfe) {
+                    throw new IllegalArgumentException(
+                            "invalid queryCacheSize value '" + queryCacheSizeString +
+                                    "' specified in " + file, nfe);
+                }
+                if (queryCacheSize < 1) {
+                    throw new IllegalArgumentException(
+                            "queryCacheSize must be at least 1 but was " + queryCacheSize + " in " + file);
+                }
+            }
+
             if (uri == null) {
                 throw new IllegalArgumentException("failed to read uri from " + file);
             }
@@ -142,7 +237,7 @@ public class DbConfig {
                 throw new IllegalArgumentException("failed to read username from " + file);
             }
 
-            dbConfig = new DbConfig(uri, user, password, statementsPerTransaction, connectionInfoStatementsPerTransaction);
+            dbConfig = new DbConfig(uri, user, password, statementsPerTransaction, connectionInfoStatementsPerTransaction, writerThreads, targetTransactionMillis, queryCacheSize);
 
         } catch (final Exception e) {
             throw new IllegalArgumentException("failed to load properties from " + path, e);
@@ -161,5 +256,10 @@ public class DbConfig {
         return dbConfig;
     }
 
+    /**
+     * Default target commit latency in milliseconds.
+     */
+    public static final long DEFAULT_TARGET_TRANSACTION_MILLIS = 1000;
+
     private static final Logger LOG = LoggerFactory.getLogger(DbConfig.class);
 }
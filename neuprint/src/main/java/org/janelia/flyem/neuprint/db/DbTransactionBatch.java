@@ -2,10 +2,15 @@ package org.janelia.flyem.neuprint.db;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+import org.neo4j.driver.v1.Record;
 import org.neo4j.driver.v1.Session;
 import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
 import org.neo4j.driver.v1.TransactionWork;
+import org.neo4j.driver.v1.exceptions.ClientException;
+import org.neo4j.driver.v1.exceptions.TransientException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,9 +20,17 @@ import org.slf4j.LoggerFactory;
  */
 public class DbTransactionBatch implements TransactionBatch {
 
+    // status code of a deadlock reported by the server outside of a procedure (which the driver already retries)
+    private static final String DEADLOCK_DETECTED_CODE = "Neo.TransientError.Transaction.DeadlockDetected";
+
     private final Session session;
     private final int statementsPerBatch;
     private final List<Statement> statementsToWrite;
+    private final List<Consumer<Record>> resultConsumers;
+    private final TransactionFlowControl flowControl;
+    private final CypherTemplateRegistry templateRegistry;
+    private final String stageName;
+    private long retryCount;
 
     /**
      * Class constructor.
@@ -27,35 +40,149 @@ public class DbTransactionBatch implements TransactionBatch {
      */
     public DbTransactionBatch(final Session session,
                               final int statementsPerBatch) {
+        this(session, statementsPerBatch, null);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param session session in which transactions occur
+     * @param statementsPerBatch number of statements per transaction batch
+     * @param flowControl limits concurrent commits and receives the latency and retry count of each commit (or null)
+     */
+    public DbTransactionBatch(final Session session,
+                              final int statementsPerBatch,
+                              final TransactionFlowControl flowControl) {
+        this(session, statementsPerBatch, flowControl, null, null);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param session session in which transactions occur
+     * @param statementsPerBatch number of statements per transaction batch
+     * @param flowControl limits concurrent commits and receives the latency and retry count of each commit (or null)
+     * @param templateRegistry records the query text of each committed statement (or null)
+     * @param stageName name of the load stage recorded with each statement
+     */
+    public DbTransactionBatch(final Session session,
+                              final int statementsPerBatch,
+                              final TransactionFlowControl flowControl,
+                              final CypherTemplateRegistry templateRegistry,
+                              final String stageName) {
         this.session = session;
         this.statementsPerBatch = statementsPerBatch;
         this.statementsToWrite = new ArrayList<>(statementsPerBatch);
+        this.resultConsumers = new ArrayList<>(statementsPerBatch);
+        this.flowControl = flowControl;
+        this.templateRegistry = templateRegistry;
+        this.stageName = stageName;
     }
 
     public void addStatement(final Statement statement) {
+        addStatement(statement, null);
+    }
+
+    public void addStatement(final Statement statement,
+                             final Consumer<Record> resultConsumer) {
         statementsToWrite.add(statement);
+        resultConsumers.add(resultConsumer);
         if (statementsToWrite.size() >= statementsPerBatch) {
             writeTransaction();
         }
     }
 
+    public void writeTransaction(final List<Statement> statements,
+                                 final List<Consumer<Record>> resultConsumers) {
+        // added without checking statementsPerBatch so that the statements cannot be split across transactions
+        statementsToWrite.addAll(statements);
+        this.resultConsumers.addAll(resultConsumers);
+        writeTransaction();
+    }
+
     public void writeTransaction() {
         // see https://neo4j.com/docs/developer-manual/current/drivers/sessions-transactions/#driver-transactions-transaction-functions
-        final TransactionWork<Void> work = tx -> {
-            statementsToWrite.forEach(tx::run);
-            return null;
+        // transaction functions are retried by the driver on transient errors (e.g. deadlocks between concurrent writers)
+        final int[] attempts = {0};
+        // returned records are only passed on once the transaction has been committed, since a retried transaction runs every statement again
+        final TransactionWork<List<List<Record>>> work = tx -> {
+            attempts[0]++;
+            if (attempts[0] > 1) {
+                LOG.warn("writeTransaction: retrying transaction after transient failure, attempt {}", attempts[0]);
+            }
+            final List<List<Record>> results = new ArrayList<>(statementsToWrite.size());
+            try {
+                for (int i = 0; i < statementsToWrite.size(); i++) {
+                    final StatementResult result = tx.run(statementsToWrite.get(i));
+                    if (resultConsumers.get(i) == null) {
+                        // consumed so that a failure is raised here (where it can be retried) rather than on commit
+                        result.consume();
+                        results.add(null);
+                    } else {
+                        results.add(result.list());
+                    }
+                }
+            } catch (final ClientException e) {
+                throw isDeadlockInProcedure(e) ? new TransientException(DEADLOCK_DETECTED_CODE, e.getMessage()) : e;
+            }
+            return results;
         };
-        session.writeTransaction(work);
+        final List<List<Record>> results;
+        if (flowControl == null || statementsToWrite.isEmpty()) {
+            results = session.writeTransaction(work);
+        } else {
+            flowControl.acquire();
+            final long startTime = System.currentTimeMillis();
+            try {
+                results = session.writeTransaction(work);
+            } finally {
+                flowControl.release(System.currentTimeMillis() - startTime, attempts[0] - 1);
+            }
+        }
+        for (int i = 0; i < results.size(); i++) {
+            if (resultConsumers.get(i) != null) {
+                results.get(i).forEach(resultConsumers.get(i));
+            }
+        }
+        if (templateRegistry != null) {
+            for (final Statement statement : statementsToWrite) {
+                templateRegistry.use(stageName, statement.text());
+            }
+        }
 
         final int statementCount = statementsToWrite.size();
         statementsToWrite.clear();
+        resultConsumers.clear();
+        retryCount += attempts[0] - 1;
 
         LOG.info("writeTransaction: exit, committed {} statements", statementCount);
     }
 
+    /**
+     * A deadlock between concurrent writers inside a procedure (e.g. loader.addPropsAndConnectionInfoToSegment)
+     * is reported by the server as a failed procedure call rather than as a transient error, so the driver
+     * does not retry it.
+     *
+     * @param e exception raised by a statement
+     * @return true if the exception was caused by a deadlock within a procedure
+     */
+    private static boolean isDeadlockInProcedure(final ClientException e) {
+        return e.getMessage() != null && e.getMessage().contains("DeadlockDetectedException");
+    }
+
+    /**
+     * @return the number of times a transaction was retried after a transient failure
+     */
+    public long getRetryCount() {
+        return retryCount;
+    }
+
     @Override
     public void close() {
-         session.close();
+        if (retryCount > 0) {
+            LOG.info("close: {} transaction(s) were retried after transient failures", retryCount);
+        }
+        session.close();
     }
 
     private static final Logger LOG = LoggerFactory.getLogger(DbTransactionBatch.class);
@@ -0,0 +1,93 @@
+package org.janelia.flyem.neuprint.db;
+
+/**
+ * Assigns rows that lock two nodes (e.g. a relationship between two Segments) to rounds and writers so that no two
+ * writers of a round lock the same node. Keys are hashed into twice as many buckets as there are writers, and each
+ * round pairs up all buckets (a round-robin tournament schedule) with one pair per writer, so the writers of a round
+ * touch disjoint buckets. Every pair of distinct buckets meets in exactly one round, and rows whose keys fall in a
+ * single bucket are written in the first round. Each round must be committed before the next one starts.
+ */
+public class PairPartitionSchedule {
+
+    private final int writerCount;
+    private final int bucketCount;
+    private final int[][] rounds;
+    private final int[][] writers;
+
+    /**
+     * Class constructor.
+     *
+     * @param writerCount number of concurrent writers
+     */
+    public PairPartitionSchedule(final int writerCount) {
+        this.writerCount = Math.max(1, writerCount);
+        this.bucketCount = 2 * this.writerCount;
+        this.rounds = new int[bucketCount][bucketCount];
+        this.writers = new int[bucketCount][bucketCount];
+
+        // circle method: the last bucket stays in place while the others rotate by one position per round
+        final int rotating = bucketCount - 1;
+        for (int round = 0; round < getRoundCount(); round++) {
+            assign(round, 0, round, rotating);
+            for (int writer = 1; writer < this.writerCount; writer++) {
+                assign(round, writer, (round + writer) % rotating, (round - writer + rotating) % rotating);
+            }
+        }
+    }
+
+    private void assign(final int round,
+                        final int writer,
+                        final int firstBucket,
+                        final int secondBucket) {
+        rounds[firstBucket][secondBucket] = round;
+        rounds[secondBucket][firstBucket] = round;
+        writers[firstBucket][secondBucket] = writer;
+        writers[secondBucket][firstBucket] = writer;
+        if (round == 0) {
+            rounds[firstBucket][firstBucket] = 0;
+            rounds[secondBucket][secondBucket] = 0;
+            writers[firstBucket][firstBucket] = writer;
+            writers[secondBucket][secondBucket] = writer;
+        }
+    }
+
+    /**
+     * @return number of rounds
+     */
+    public int getRoundCount() {
+        return bucketCount - 1;
+    }
+
+    /**
+     * @return number of writers per round
+     */
+    public int getWriterCount() {
+        return writerCount;
+    }
+
+    /**
+     * @param firstKey  key of one node locked by the row (e.g. presynaptic bodyId)
+     * @param secondKey key of the other node locked by the row (e.g. postsynaptic bodyId)
+     * @return round in which the row is written
+     */
+    public int getRound(final long firstKey,
+                        final long secondKey) {
+        return rounds[getBucket(firstKey)][getBucket(secondKey)];
+    }
+
+    /**
+     * @param firstKey  key of one node locked by the row
+     * @param secondKey key of the other node locked by the row
+     * @return index of the writer that writes the row within its round
+     */
+    public int getWriter(final long firstKey,
+                         final long secondKey) {
+        return writers[getBucket(firstKey)][getBucket(secondKey)];
+    }
+
+    int getBucket(final long key) {
+        final int hash = Long.hashCode(key);
+        return Math.floorMod(hash ^ (hash >>> 16), bucketCount);
+    }
+
+}
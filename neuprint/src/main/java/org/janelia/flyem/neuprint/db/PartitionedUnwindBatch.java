@@ -0,0 +1,173 @@
+package org.janelia.flyem.neuprint.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Spreads the rows of one or more {@link UnwindStatement}s across a number of writers.
+ * Each row is assigned to a writer based on a partition key (e.g. synapse location or bodyId),
+ * so rows touching the same nodes are always written by the same writer in the order they
+ * were added, while rows with different keys are committed concurrently on separate sessions.
+ * With a single writer, transactions are written synchronously on the calling thread.
+ * If a {@link TransactionFlowControl} is provided, it sets the number of rows per transaction
+ * for every writer.
+ */
+public class PartitionedUnwindBatch implements AutoCloseable {
+
+    private final String name;
+    private final List<UnwindBatch> partitions;
+    private final List<Map<UnwindStatement, UnwindStatement>> partitionStatements;
+    private final TransactionFlowControl flowControl;
+    private final long startTime;
+    private long rowCount;
+
+    /**
+     * Class constructor.
+     *
+     * @param name                   name used when logging (e.g. the load stage)
+     * @param batchSupplier          supplies a new transaction batch (session) for each writer
+     * @param writerThreads          number of writers
+     * @param rowsPerTransaction     number of rows per transaction for each writer
+     * @param statementsInWriteOrder statements in the order they need to be written within a transaction
+     */
+    public PartitionedUnwindBatch(final String name,
+                                  final Supplier<TransactionBatch> batchSupplier,
+                                  final int writerThreads,
+                                  final int rowsPerTransaction,
+                                  final UnwindStatement... statementsInWriteOrder) {
+        this(name, batchSupplier, writerThreads, rowsPerTransaction, null, statementsInWriteOrder);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param name                   name used when logging (e.g. the load stage)
+     * @param batchSupplier          supplies a new transaction batch (session) for each writer
+     * @param writerThreads          number of writers
+     * @param rowsPerTransaction     number of rows per transaction for each writer (used when flowControl is null)
+     * @param flowControl            provides the current number of rows per transaction (or null)
+     * @param statementsInWriteOrder statements in the order they need to be written within a transaction
+     */
+    public PartitionedUnwindBatch(final String name,
+                                  final Supplier<TransactionBatch> batchSupplier,
+                                  final int writerThreads,
+                                  final int rowsPerTransaction,
+                                  final TransactionFlowControl flowControl,
+                                  final UnwindStatement... statementsInWriteOrder) {
+        this.name = name;
+        this.flowControl = flowControl;
+        this.partitions = new ArrayList<>();
+        this.partitionStatements = new ArrayList<>();
+
+        if (writerThreads <= 1) {
+            final Map<UnwindStatement, UnwindStatement> statementMap = new IdentityHashMap<>();
+            Arrays.stream(statementsInWriteOrder).forEach(s -> statementMap.put(s, s));
+            partitionStatements.add(statementMap);
+            partitions.add(new UnwindBatch(batchSupplier.get(), rowsPerTransaction, flowControl, statementsInWriteOrder));
+        } else {
+            for (int i = 0; i < writerThreads; i++) {
+                final Map<UnwindStatement, UnwindStatement> statementMap = new IdentityHashMap<>();
+                final UnwindStatement[] copies = new UnwindStatement[statementsInWriteOrder.length];
+                for (int j = 0; j < statementsInWriteOrder.length; j++) {
+                    copies[j] = statementsInWriteOrder[j].copyWithoutRows();
+                    statementMap.put(statementsInWriteOrder[j], copies[j]);
+                }
+                partitionStatements.add(statementMap);
+                final TransactionBatch writerBatch = new AsyncTransactionBatch(batchSupplier.get(), name + "-writer-" + i, 2);
+                partitions.add(new UnwindBatch(writerBatch, rowsPerTransaction, flowControl, copies));
+            }
+        }
+
+        this.startTime = System.currentTimeMillis();
+        this.rowCount = 0;
+    }
+
+    /**
+     * Adds a row to the provided statement for the writer responsible for the partition key.
+     *
+     * @param partitionKey  key used to select the writer; rows that lock the same nodes must use the same key
+     * @param statement     one of the statements this batch was constructed with
+     * @param keysAndValues alternating keys and values for the row
+     */
+    public void addRow(final Object partitionKey, final UnwindStatement statement, final Object... keysAndValues) {
+        addRowForWriter(getPartition(partitionKey), statement, keysAndValues);
+    }
+
+    /**
+     * Adds a row to the provided statement for the writer with the provided index (e.g. as assigned by a
+     * {@link PairPartitionSchedule} with the same number of writers).
+     *
+     * @param writer        index of the writer (between 0 and {@link #getWriterCount()} - 1)
+     * @param statement     one of the statements this batch was constructed with
+     * @param keysAndValues alternating keys and values for the row
+     */
+    public void addRowForWriter(final int writer, final UnwindStatement statement, final Object... keysAndValues) {
+        final int partition = writer % partitions.size();
+        final UnwindStatement partitionStatement = partitionStatements.get(partition).get(statement);
+        if (partitionStatement == null) {
+            throw new IllegalArgumentException("statement was not provided when constructing this batch: " + statement.getText());
+        }
+        partitions.get(partition).addRow(partitionStatement, keysAndValues);
+        rowCount++;
+    }
+
+    /**
+     * @return number of writers
+     */
+    public int getWriterCount() {
+        return partitions.size();
+    }
+
+    /**
+     * Writes (commits) all collected rows for every writer.
+     */
+    public void writeTransaction() {
+        partitions.forEach(UnwindBatch::writeTransaction);
+    }
+
+    /**
+     * Waits for all writers to finish, closes their sessions and logs the throughput.
+     * Rows that have not been written are discarded.
+     */
+    @Override
+    public void close() {
+        RuntimeException closeFailure = null;
+        for (final UnwindBatch partition : partitions) {
+            try {
+                partition.close();
+            } catch (final RuntimeException e) {
+                if (closeFailure == null) {
+                    closeFailure = e;
+                }
+            }
+        }
+        if (closeFailure != null) {
+            throw closeFailure;
+        }
+
+        final long elapsedMillis = Math.max(1, System.currentTimeMillis() - startTime);
+        LOG.info("{}: wrote {} rows in {} ms ({} rows/s) using {} writer(s)",
+                name, rowCount, elapsedMillis, (rowCount * 1000) / elapsedMillis, partitions.size());
+        if (flowControl != null) {
+            flowControl.logSummary();
+        }
+    }
+
+    private int getPartition(final Object partitionKey) {
+        if (partitions.size() == 1) {
+            return 0;
+        }
+        final int hash = partitionKey.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), partitions.size());
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(PartitionedUnwindBatch.class);
+
+}
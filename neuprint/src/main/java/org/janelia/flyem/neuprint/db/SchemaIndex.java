@@ -0,0 +1,85 @@
+package org.janelia.flyem.neuprint.db;
+
+import java.util.Objects;
+
+/**
+ * A single-property index or uniqueness constraint on a node label.
+ */
+public class SchemaIndex {
+
+    private final String label;
+    private final String property;
+    private final boolean unique;
+
+    private SchemaIndex(final String label,
+                        final String property,
+                        final boolean unique) {
+        this.label = label;
+        this.property = property;
+        this.unique = unique;
+    }
+
+    /**
+     * @param label    node label
+     * @param property indexed property
+     * @return an index on the label and property
+     */
+    public static SchemaIndex index(final String label, final String property) {
+        return new SchemaIndex(label, property, false);
+    }
+
+    /**
+     * @param label    node label
+     * @param property unique property
+     * @return a uniqueness constraint (backed by an index) on the label and property
+     */
+    public static SchemaIndex uniqueConstraint(final String label, final String property) {
+        return new SchemaIndex(label, property, true);
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    /**
+     * @return statement that creates this index or constraint
+     */
+    public String getCreateStatement() {
+        if (unique) {
+            return "CREATE CONSTRAINT ON (n:`" + label + "`) ASSERT n.`" + property + "` IS UNIQUE";
+        } else {
+            return "CREATE INDEX ON :`" + label + "`(`" + property + "`)";
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final SchemaIndex that = (SchemaIndex) o;
+        return unique == that.unique && label.equals(that.label) && property.equals(that.property);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(label, property, unique);
+    }
+
+    @Override
+    public String toString() {
+        return (unique ? "unique :" : ":") + label + "(" + property + ")";
+    }
+
+}
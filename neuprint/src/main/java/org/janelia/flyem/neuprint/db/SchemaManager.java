@@ -0,0 +1,192 @@
+package org.janelia.flyem.neuprint.db;
+
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates indexes and uniqueness constraints that do not exist yet and waits for them to come online.
+ * The existing schema is read from {@code db.indexes()} (uniqueness constraints are listed there with
+ * their backing index), so only missing indexes and constraints are created, each in its own schema transaction.
+ */
+public class SchemaManager {
+
+    private static final String ONLINE = "ONLINE";
+    private static final String FAILED = "FAILED";
+    private static final String UNIQUE_INDEX_TYPE = "node_unique_property";
+
+    private final Driver driver;
+    private final long pollIntervalMillis;
+    private final long progressLogIntervalMillis;
+
+    /**
+     * Class constructor.
+     *
+     * @param driver neo4j bolt driver
+     */
+    public SchemaManager(final Driver driver) {
+        this(driver, 500, 10000);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param driver                    neo4j bolt driver
+     * @param pollIntervalMillis        time between checks of index state while waiting
+     * @param progressLogIntervalMillis time between progress messages while waiting
+     */
+    public SchemaManager(final Driver driver,
+                         final long pollIntervalMillis,
+                         final long progressLogIntervalMillis) {
+        this.driver = driver;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.progressLogIntervalMillis = progressLogIntervalMillis;
+    }
+
+    /**
+     * Creates the indexes and constraints that do not exist yet and waits for all of the provided
+     * indexes and constraints to come online.
+     *
+     * @param desiredIndexes indexes and constraints that should exist
+     * @return the indexes and constraints that were created
+     * @throws IllegalStateException if an index fails to populate
+     */
+    public List<SchemaIndex> createMissingAndAwaitOnline(final Collection<SchemaIndex> desiredIndexes) {
+        final List<SchemaIndex> createdIndexes = createMissing(desiredIndexes);
+        awaitOnline(desiredIndexes);
+        return createdIndexes;
+    }
+
+    /**
+     * Creates the indexes and constraints that do not exist yet.
+     *
+     * @param desiredIndexes indexes and constraints that should exist
+     * @return the indexes and constraints that were created
+     */
+    public List<SchemaIndex> createMissing(final Collection<SchemaIndex> desiredIndexes) {
+
+        final Set<SchemaIndex> existingIndexes = getIndexStates().keySet();
+        final List<SchemaIndex> missingIndexes = new ArrayList<>();
+        for (final SchemaIndex index : new LinkedHashSet<>(desiredIndexes)) {
+            if (!existingIndexes.contains(index)) {
+                missingIndexes.add(index);
+            }
+        }
+
+        LOG.info("createMissing: {} of {} indexes and constraints already exist, creating {}",
+                 desiredIndexes.size() - missingIndexes.size(), desiredIndexes.size(), missingIndexes.size());
+
+        try (final Session session = driver.session()) {
+            for (final SchemaIndex index : missingIndexes) {
+                session.writeTransaction(tx -> tx.run(index.getCreateStatement()).consume());
+            }
+        }
+
+        return missingIndexes;
+    }
+
+    /**
+     * Waits until all of the provided indexes and constraints are online, logging the population progress periodically.
+     *
+     * @param indexes indexes and constraints to wait for
+     * @throws IllegalStateException if an index is missing or fails to populate
+     */
+    public void awaitOnline(final Collection<SchemaIndex> indexes) {
+
+        final long startTime = System.currentTimeMillis();
+        long lastProgressLogTime = startTime;
+
+        while (true) {
+            final Map<SchemaIndex, IndexState> indexStates = getIndexStates();
+
+            final List<String> pendingIndexes = new ArrayList<>();
+            for (final SchemaIndex index : indexes) {
+                final IndexState state = indexStates.get(index);
+                if (state == null) {
+                    throw new IllegalStateException("index " + index + " does not exist");
+                } else if (FAILED.equals(state.state)) {
+                    throw new IllegalStateException("index " + index + " failed to populate: " + state.failureMessage);
+                } else if (!ONLINE.equals(state.state)) {
+                    pendingIndexes.add(String.format("%s %.1f%%", index, state.progress));
+                }
+            }
+
+            if (pendingIndexes.isEmpty()) {
+                LOG.info("awaitOnline: {} indexes and constraints online after {} ms", indexes.size(), System.currentTimeMillis() - startTime);
+                return;
+            }
+
+            final long now = System.currentTimeMillis();
+            if (now - lastProgressLogTime >= progressLogIntervalMillis) {
+                LOG.info("awaitOnline: waiting for {} of {} indexes to come online: {}", pendingIndexes.size(), indexes.size(), pendingIndexes);
+                lastProgressLogTime = now;
+            }
+
+            try {
+                TimeUnit.MILLISECONDS.sleep(pollIntervalMillis);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for indexes to come online", e);
+            }
+        }
+    }
+
+    /**
+     * @return the single-property indexes and constraints in the database
+     */
+    public Set<SchemaIndex> getExistingIndexes() {
+        return getIndexStates().keySet();
+    }
+
+    private Map<SchemaIndex, IndexState> getIndexStates() {
+        final Map<SchemaIndex, IndexState> indexStates = new LinkedHashMap<>();
+        try (final Session session = driver.session()) {
+            final List<Record> records = session.readTransaction(tx -> tx.run(
+                    "CALL db.indexes() YIELD tokenNames, properties, state, type, progress, failureMessage " +
+                            "RETURN tokenNames, properties, state, type, progress, failureMessage").list());
+            for (final Record record : records) {
+                final List<String> labels = record.get("tokenNames").asList(value -> value.asString());
+                final List<String> properties = record.get("properties").asList(value -> value.asString());
+                // composite and multi-label (fulltext) indexes are never created by the loader
+                if (labels.size() == 1 && properties.size() == 1) {
+                    final SchemaIndex index = UNIQUE_INDEX_TYPE.equals(record.get("type").asString())
+                            ? SchemaIndex.uniqueConstraint(labels.get(0), properties.get(0))
+                            : SchemaIndex.index(labels.get(0), properties.get(0));
+                    indexStates.put(index, new IndexState(record.get("state").asString(),
+                                                          record.get("progress").asDouble(0.0),
+                                                          record.get("failureMessage").asString("")));
+                }
+            }
+        }
+        return indexStates;
+    }
+
+    private static class IndexState {
+
+        private final String state;
+        private final double progress;
+        private final String failureMessage;
+
+        private IndexState(final String state,
+                           final double progress,
+                           final String failureMessage) {
+            this.state = state;
+            this.progress = progress;
+            this.failureMessage = failureMessage;
+        }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaManager.class);
+
+}
@@ -1,11 +1,14 @@
 package org.janelia.flyem.neuprint.db;
 
+import org.neo4j.driver.v1.Record;
 import org.neo4j.driver.v1.Statement;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 /**
  * Simply prints each statement to standard out (for tests or debugging).
- *
- * TODO: adapt this to print to file(s) - maybe even csv files suitable for neo4j batch import.
+ * See {@link org.janelia.flyem.neuprint.CsvExporter} for writing csv files suitable for neo4j-admin import.
  */
 public class StdOutTransactionBatch
         implements TransactionBatch {
@@ -15,11 +18,24 @@ public class StdOutTransactionBatch
         System.out.println(statement);
     }
 
+    @Override
+    public void addStatement(final Statement statement,
+                             final Consumer<Record> resultConsumer) {
+        // without a database, statements do not return any records
+        addStatement(statement);
+    }
+
     @Override
     public void writeTransaction() {
         // no-op
     }
 
+    @Override
+    public void writeTransaction(final List<Statement> statements,
+                                 final List<Consumer<Record>> resultConsumers) {
+        statements.forEach(this::addStatement);
+    }
+
     @Override
     public void close() {
         // no-op
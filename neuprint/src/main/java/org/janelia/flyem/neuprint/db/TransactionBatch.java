@@ -1,7 +1,11 @@
 package org.janelia.flyem.neuprint.db;
 
+import org.neo4j.driver.v1.Record;
 import org.neo4j.driver.v1.Statement;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 /**
  * Common interface for all transaction batch implementations.
  */
@@ -16,11 +20,33 @@ public interface TransactionBatch
      */
     void addStatement(final Statement statement);
 
+    /**
+     * Adds the specified statement to the current batch like {@link #addStatement(Statement)}. Once the
+     * transaction containing the statement has been committed, the records returned by the statement are
+     * passed to the consumer (on the thread that committed the transaction).
+     *
+     * @param statement      statement containing query
+     * @param resultConsumer receives the records returned by the statement (or null to ignore them)
+     */
+    void addStatement(final Statement statement,
+                      final Consumer<Record> resultConsumer);
+
     /**
      * Writes (commits) any remaining uncommitted previously batched statements.
      */
     void writeTransaction();
 
+    /**
+     * Adds the specified statements to the current batch and writes (commits) them, along with any previously
+     * batched statements, in a single transaction regardless of the batch limit. Use this for statements that
+     * must be committed together (e.g. ordered UNWIND statements that depend on each other).
+     *
+     * @param statements      statements in the order they need to be run
+     * @param resultConsumers consumer for the records returned by the statement with the same index (entries may be null)
+     */
+    void writeTransaction(final List<Statement> statements,
+                          final List<Consumer<Record>> resultConsumers);
+
     /**
      * Closes the transactional parent resource (e.g. session) if one exists.
      */
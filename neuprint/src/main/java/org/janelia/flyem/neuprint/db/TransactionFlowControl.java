@@ -0,0 +1,134 @@
+package org.janelia.flyem.neuprint.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adjusts the number of statements (or rows) per transaction and the number of writers that may commit
+ * concurrently based on how long commits take and how often they have to be retried (e.g. after lock
+ * wait timeouts or deadlocks between concurrent writers). Sizes follow an additive-increase/multiplicative-decrease
+ * policy: a commit that is retried halves both the batch size and the concurrency limit, a commit slower than
+ * the target latency halves the batch size, and commits within the target grow the batch size by a fixed step
+ * (and the concurrency limit by one after each round of clean commits). One instance may be shared by all
+ * writers of a load stage.
+ */
+public class TransactionFlowControl {
+
+    private final String name;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int batchSizeStep;
+    private final int maxConcurrency;
+    private final long targetLatencyMillis;
+
+    private int batchSize;
+    private int concurrencyLimit;
+    private int activeCommits;
+    private int cleanCommitsSinceConcurrencyChange;
+    private long commitCount;
+    private long retryCount;
+
+    /**
+     * Class constructor.
+     *
+     * @param name                name used when logging (e.g. the load stage)
+     * @param initialBatchSize    number of statements per transaction to start with
+     * @param minBatchSize        smallest number of statements per transaction
+     * @param maxBatchSize        largest number of statements per transaction
+     * @param maxConcurrency      largest number of concurrent commits (the initial limit)
+     * @param targetLatencyMillis target commit latency in milliseconds
+     */
+    public TransactionFlowControl(final String name,
+                                  final int initialBatchSize,
+                                  final int minBatchSize,
+                                  final int maxBatchSize,
+                                  final int maxConcurrency,
+                                  final long targetLatencyMillis) {
+        this.name = name;
+        this.minBatchSize = Math.max(1, minBatchSize);
+        this.maxBatchSize = Math.max(this.minBatchSize, maxBatchSize);
+        this.batchSize = Math.min(this.maxBatchSize, Math.max(this.minBatchSize, initialBatchSize));
+        this.batchSizeStep = Math.max(1, this.batchSize / 10);
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.concurrencyLimit = this.maxConcurrency;
+        this.targetLatencyMillis = targetLatencyMillis;
+    }
+
+    /**
+     * @return current number of statements per transaction
+     */
+    public synchronized int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return current number of writers that may commit concurrently
+     */
+    public synchronized int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * Waits until fewer than the current concurrency limit of commits are in progress.
+     * Each call must be followed by a call to {@link #release(long, int)}.
+     */
+    public synchronized void acquire() {
+        boolean interrupted = false;
+        while (activeCommits >= concurrencyLimit) {
+            try {
+                wait();
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        activeCommits++;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records the outcome of a commit and adjusts the batch size and concurrency limit.
+     *
+     * @param latencyMillis time taken to commit the transaction, including retries
+     * @param retries       number of times the transaction was retried
+     */
+    public synchronized void release(final long latencyMillis,
+                                     final int retries) {
+        activeCommits--;
+        commitCount++;
+        retryCount += retries;
+
+        if (retries > 0) {
+            // lock contention: back off on both the size of transactions and the number of concurrent writers
+            batchSize = Math.max(minBatchSize, batchSize / 2);
+            concurrencyLimit = Math.max(1, concurrencyLimit / 2);
+            cleanCommitsSinceConcurrencyChange = 0;
+            LOG.info("{}: transaction retried {} time(s), reduced batch size to {} and concurrency to {}",
+                     name, retries, batchSize, concurrencyLimit);
+        } else if (latencyMillis > targetLatencyMillis) {
+            batchSize = Math.max(minBatchSize, batchSize / 2);
+            LOG.info("{}: commit took {} ms, reduced batch size to {}", name, latencyMillis, batchSize);
+        } else {
+            batchSize = Math.min(maxBatchSize, batchSize + batchSizeStep);
+            cleanCommitsSinceConcurrencyChange++;
+            if (concurrencyLimit < maxConcurrency && cleanCommitsSinceConcurrencyChange >= concurrencyLimit) {
+                concurrencyLimit++;
+                cleanCommitsSinceConcurrencyChange = 0;
+            }
+        }
+
+        notifyAll();
+    }
+
+    /**
+     * Logs the current batch size and concurrency limit along with commit and retry totals.
+     */
+    public synchronized void logSummary() {
+        LOG.info("{}: {} commits ({} retries), final batch size {}, final concurrency {}",
+                 name, commitCount, retryCount, batchSize, concurrencyLimit);
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(TransactionFlowControl.class);
+
+}
@@ -0,0 +1,97 @@
+package org.janelia.flyem.neuprint.db;
+
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Statement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Groups the rows of one or more {@link UnwindStatement}s into transactions. Once the
+ * total number of collected rows reaches the configured limit, each non-empty statement
+ * is written as a single UNWIND statement (in the order the statements were provided to
+ * the constructor) and the transaction is committed.
+ */
+public class UnwindBatch implements AutoCloseable {
+
+    private final TransactionBatch batch;
+    private final int rowsPerTransaction;
+    private final TransactionFlowControl flowControl;
+    private final List<UnwindStatement> statementsInWriteOrder;
+    private int rowCount;
+
+    /**
+     * Class constructor.
+     *
+     * @param batch                  transaction batch used to write the statements
+     * @param rowsPerTransaction     number of rows per transaction
+     * @param statementsInWriteOrder statements in the order they need to be written within a transaction
+     */
+    public UnwindBatch(final TransactionBatch batch,
+                       final int rowsPerTransaction,
+                       final UnwindStatement... statementsInWriteOrder) {
+        this(batch, rowsPerTransaction, null, statementsInWriteOrder);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param batch                  transaction batch used to write the statements
+     * @param rowsPerTransaction     number of rows per transaction (used when flowControl is null)
+     * @param flowControl            provides the current number of rows per transaction (or null)
+     * @param statementsInWriteOrder statements in the order they need to be written within a transaction
+     */
+    public UnwindBatch(final TransactionBatch batch,
+                       final int rowsPerTransaction,
+                       final TransactionFlowControl flowControl,
+                       final UnwindStatement... statementsInWriteOrder) {
+        this.batch = batch;
+        this.rowsPerTransaction = Math.max(1, rowsPerTransaction);
+        this.flowControl = flowControl;
+        this.statementsInWriteOrder = Arrays.asList(statementsInWriteOrder);
+        this.rowCount = 0;
+    }
+
+    /**
+     * Adds a row to the provided statement and writes the transaction if the row limit is reached.
+     *
+     * @param statement     one of the statements this batch was constructed with
+     * @param keysAndValues alternating keys and values for the row
+     */
+    public void addRow(final UnwindStatement statement, final Object... keysAndValues) {
+        statement.addRow(keysAndValues);
+        rowCount++;
+        if (rowCount >= (flowControl == null ? rowsPerTransaction : flowControl.getBatchSize())) {
+            writeTransaction();
+        }
+    }
+
+    /**
+     * Writes (commits) all collected rows in a single transaction.
+     */
+    public void writeTransaction() {
+        if (rowCount > 0) {
+            final List<Statement> statements = new ArrayList<>(statementsInWriteOrder.size());
+            final List<Consumer<Record>> resultConsumers = new ArrayList<>(statementsInWriteOrder.size());
+            for (final UnwindStatement statement : statementsInWriteOrder) {
+                if (!statement.isEmpty()) {
+                    statements.add(statement.drainToStatement());
+                    resultConsumers.add(statement.getResultConsumer());
+                }
+            }
+            batch.writeTransaction(statements, resultConsumers);
+            rowCount = 0;
+        }
+    }
+
+    /**
+     * Closes the underlying transaction batch. Rows that have not been written are discarded.
+     */
+    @Override
+    public void close() {
+        batch.close();
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.janelia.flyem.neuprint.db;
+
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Statement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Collects parameter rows for a single Cypher query so that many rows can be written
+ * with one {@code UNWIND $rows AS row ...} statement instead of one statement per row.
+ * The query text refers to the current row as {@code row} (e.g. {@code row.location}).
+ * Parameters shared by every row (e.g. the load time stamp) are passed once as
+ * ordinary statement parameters. If the query returns records, they can be passed to a consumer
+ * once the transaction has been committed (see {@link #withResultConsumer(Consumer)}).
+ */
+public class UnwindStatement {
+
+    private final String queryText;
+    private final Map<String, Object> sharedParameters;
+    private final List<Map<String, Object>> rows = new ArrayList<>();
+    private Consumer<Record> resultConsumer;
+
+    /**
+     * Class constructor.
+     *
+     * @param queryText        query executed for each row (without the leading UNWIND clause)
+     * @param sharedParameters alternating keys and values for parameters shared by all rows
+     */
+    public UnwindStatement(final String queryText,
+                           final Object... sharedParameters) {
+        this.queryText = queryText;
+        this.sharedParameters = toMap(sharedParameters);
+    }
+
+    /**
+     * Adds a row to this statement.
+     *
+     * @param keysAndValues alternating keys and values for the row
+     */
+    public void addRow(final Object... keysAndValues) {
+        rows.add(toMap(keysAndValues));
+    }
+
+    /**
+     * Sets the consumer for the records returned by this statement. The consumer is called on the thread
+     * that commits the transaction, so it must be thread safe if the statement is written by several writers.
+     *
+     * @param resultConsumer receives each returned record once the transaction has been committed
+     * @return this statement
+     */
+    public UnwindStatement withResultConsumer(final Consumer<Record> resultConsumer) {
+        this.resultConsumer = resultConsumer;
+        return this;
+    }
+
+    /**
+     * @return the consumer for records returned by this statement (or null if they are ignored)
+     */
+    public Consumer<Record> getResultConsumer() {
+        return resultConsumer;
+    }
+
+    /**
+     * @return the number of rows waiting to be written
+     */
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * @return true if there are no rows waiting to be written
+     */
+    public boolean isEmpty() {
+        return rows.isEmpty();
+    }
+
+    /**
+     * @return the query text including the leading UNWIND clause
+     */
+    public String getText() {
+        return "UNWIND $rows AS row " + queryText;
+    }
+
+    /**
+     * Returns a {@link Statement} containing all currently collected rows and clears
+     * the rows from this instance.
+     *
+     * @return statement for the collected rows
+     */
+    public Statement drainToStatement() {
+        final Map<String, Object> parameters = new HashMap<>(sharedParameters);
+        parameters.put("rows", new ArrayList<>(rows));
+        rows.clear();
+        return new Statement(getText(), parameters);
+    }
+
+    /**
+     * @return a new statement with the same query text, shared parameters, and result consumer but without any rows
+     */
+    public UnwindStatement copyWithoutRows() {
+        return new UnwindStatement(queryText, sharedParameters).withResultConsumer(resultConsumer);
+    }
+
+    private UnwindStatement(final String queryText,
+                            final Map<String, Object> sharedParameters) {
+        this.queryText = queryText;
+        this.sharedParameters = sharedParameters;
+    }
+
+    private static Map<String, Object> toMap(final Object... keysAndValues) {
+        if (keysAndValues.length % 2 != 0) {
+            throw new IllegalArgumentException("parameters must be provided as alternating keys and values");
+        }
+        final Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+
+}
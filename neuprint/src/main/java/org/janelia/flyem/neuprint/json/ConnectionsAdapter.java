@@ -1,60 +1,75 @@
 package org.janelia.flyem.neuprint.json;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import org.janelia.flyem.neuprint.model.Location;
 import org.janelia.flyem.neuprint.model.SynapticConnection;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 
 /**
- * Gson adapter for json files describing synaptic connections.
+ * Gson adapter for json files describing synaptic connections. Connections are read directly from
+ * the JSON stream and unknown properties are skipped.
  */
-public class ConnectionsAdapter implements JsonDeserializer<SynapticConnection>, JsonSerializer<SynapticConnection> {
+public class ConnectionsAdapter extends TypeAdapter<SynapticConnection> {
 
     private static final String PRE_KEY = "pre";
     private static final String POST_KEY = "post";
 
+    private final LocationAdapter locationAdapter = new LocationAdapter();
+
     @Override
-    public SynapticConnection deserialize(final JsonElement jsonElement,
-                                          final Type typeOfT,
-                                          final JsonDeserializationContext jsonDeserializationContext) throws JsonParseException {
+    public SynapticConnection read(final JsonReader in) throws IOException {
+
+        if (!JsonUtils.beginObjectOrNull(in, "Connection")) {
+            return null;
+        }
 
-        final JsonObject jsonObject = jsonElement.getAsJsonObject();
+        Location preLocation = null;
+        Location postLocation = null;
+
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case PRE_KEY:
+                    preLocation = locationAdapter.read(in);
+                    break;
+                case POST_KEY:
+                    postLocation = locationAdapter.read(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
 
-        if (!jsonObject.has(PRE_KEY)) {
+        if (preLocation == null) {
             throw new JsonParseException("Connection must have 'pre' property.");
         }
-        if (!jsonObject.has(POST_KEY)) {
+        if (postLocation == null) {
             throw new JsonParseException("Connection must have 'post' property.");
         }
 
-        final Location preLocation = jsonDeserializationContext.deserialize(jsonObject.get(PRE_KEY), Location.class);
-        final Location postLocation = jsonDeserializationContext.deserialize(jsonObject.get(POST_KEY), Location.class);
-
         return new SynapticConnection(preLocation, postLocation);
 
     }
 
     @Override
-    public JsonElement serialize(final SynapticConnection srcConnection,
-                                 final Type typeOfT,
-                                 final JsonSerializationContext jsonSerializationContext) {
-
-        final JsonObject jsonObject = new JsonObject();
+    public void write(final JsonWriter out,
+                      final SynapticConnection srcConnection) throws IOException {
 
-        JsonElement preLocation = jsonSerializationContext.serialize(srcConnection.getPreLocation());
-        JsonElement postLocation = jsonSerializationContext.serialize(srcConnection.getPostLocation());
-
-        jsonObject.add(PRE_KEY, preLocation);
-        jsonObject.add(POST_KEY, postLocation);
+        if (srcConnection == null) {
+            out.nullValue();
+            return;
+        }
 
-        return jsonObject;
+        out.beginObject();
+        out.name(PRE_KEY);
+        locationAdapter.write(out, srcConnection.getPreLocation());
+        out.name(POST_KEY);
+        locationAdapter.write(out, srcConnection.getPostLocation());
+        out.endObject();
     }
 
 }
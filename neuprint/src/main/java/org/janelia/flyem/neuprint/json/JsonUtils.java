@@ -4,13 +4,21 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.janelia.flyem.neuprint.model.Location;
 import org.janelia.flyem.neuprint.model.Neuron;
 import org.janelia.flyem.neuprint.model.Soma;
 import org.janelia.flyem.neuprint.model.Synapse;
 import org.janelia.flyem.neuprint.model.SynapticConnection;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 /**
  * Shared utilities for working with JSON.
  */
@@ -56,4 +64,162 @@ public class JsonUtils {
         return gson.toJson(json);
     }
 
+    /**
+     * Reads a string value for a streaming type adapter. As with {@link com.google.gson.JsonElement#getAsString()},
+     * numbers and booleans are read as strings.
+     *
+     * @param in  reader positioned at the value
+     * @param key key of the value (for error messages)
+     * @return string (or null for a JSON null)
+     * @throws IOException if the value cannot be read
+     */
+    static String readString(final JsonReader in,
+                             final String key) throws IOException {
+        final JsonToken token = in.peek();
+        switch (token) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case BOOLEAN:
+                return Boolean.toString(in.nextBoolean());
+            case NUMBER:
+            case STRING:
+                return in.nextString();
+            default:
+                throw new JsonParseException("'" + key + "' must be a string but was " + token + ".");
+        }
+    }
+
+    /**
+     * Reads an array of strings (e.g. rois) for a streaming type adapter, keeping the order of the array.
+     *
+     * @param in  reader positioned at the array
+     * @param key key of the array (for error messages)
+     * @return set of strings (empty for a JSON null)
+     * @throws IOException if the array cannot be read
+     */
+    static Set<String> readStringSet(final JsonReader in,
+                                     final String key) throws IOException {
+        final Set<String> strings = new LinkedHashSet<>();
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return strings;
+        } else if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new JsonParseException("'" + key + "' must be an array.");
+        }
+        in.beginArray();
+        while (in.hasNext()) {
+            final String value = readString(in, key);
+            if (value != null) {
+                strings.add(value);
+            }
+        }
+        in.endArray();
+        return strings;
+    }
+
+    /**
+     * Reads a number with an integer value (e.g. 3 or 3.0 but not 3.5) for a streaming type adapter.
+     *
+     * @param in                reader positioned at the value
+     * @param notNumberMessage  error message if the value is not a number
+     * @param notIntegerMessage error message if the value is a number without an integer value
+     * @return value
+     * @throws IOException if the value cannot be read
+     */
+    static long readIntegerValue(final JsonReader in,
+                                 final String notNumberMessage,
+                                 final String notIntegerMessage) throws IOException {
+        final JsonToken token = in.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            throw new JsonParseException(notNumberMessage);
+        }
+        try {
+            return in.nextLong();
+        } catch (final NumberFormatException e) {
+            // the reader keeps a value that is not a long so that it can be read as a string
+            final String value = in.nextString();
+            try {
+                Double.parseDouble(value);
+            } catch (final NumberFormatException nfe) {
+                throw new JsonParseException(notNumberMessage);
+            }
+            throw new JsonParseException(notIntegerMessage);
+        }
+    }
+
+    /**
+     * Reads a long for a streaming type adapter. As with {@link com.google.gson.JsonElement#getAsLong()},
+     * a fractional part is truncated.
+     *
+     * @param in               reader positioned at the value
+     * @param notNumberMessage error message if the value is not a number
+     * @return value (or null for a JSON null)
+     * @throws IOException if the value cannot be read
+     */
+    static Long readLong(final JsonReader in,
+                         final String notNumberMessage) throws IOException {
+        final JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        } else if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            throw new JsonParseException(notNumberMessage);
+        }
+        try {
+            return in.nextLong();
+        } catch (final NumberFormatException e) {
+            try {
+                return new BigDecimal(in.nextString()).longValue();
+            } catch (final NumberFormatException nfe) {
+                throw new JsonParseException(notNumberMessage);
+            }
+        }
+    }
+
+    /**
+     * Reads a double for a streaming type adapter.
+     *
+     * @param in               reader positioned at the value
+     * @param notNumberMessage error message if the value is not a number
+     * @return value (or null for a JSON null)
+     * @throws IOException if the value cannot be read
+     */
+    static Double readDouble(final JsonReader in,
+                             final String notNumberMessage) throws IOException {
+        final JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        } else if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            throw new JsonParseException(notNumberMessage);
+        }
+        try {
+            return in.nextDouble();
+        } catch (final NumberFormatException e) {
+            throw new JsonParseException(notNumberMessage);
+        }
+    }
+
+    /**
+     * Consumes a JSON null or checks that the next value is an object, for streaming type adapters of JSON objects.
+     *
+     * @param in          reader positioned at the value
+     * @param description description of the object (for error messages)
+     * @return true if the value is an object, false if it was null
+     * @throws IOException if the value cannot be read
+     */
+    static boolean beginObjectOrNull(final JsonReader in,
+                                     final String description) throws IOException {
+        final JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return false;
+        } else if (token != JsonToken.BEGIN_OBJECT) {
+            throw new JsonParseException(description + " must be a JSON object.");
+        }
+        in.beginObject();
+        return true;
+    }
+
 }
@@ -1,68 +1,80 @@
 package org.janelia.flyem.neuprint.json;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import org.janelia.flyem.neuprint.model.Location;
 
-import java.lang.reflect.Type;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
 
 /**
- * Gson adapter for 3D locations.
+ * Gson adapter for 3D locations. Coordinates are read directly from the JSON stream.
  */
-public class LocationAdapter implements JsonDeserializer<Location>, JsonSerializer<Location> {
+public class LocationAdapter extends TypeAdapter<Location> {
 
-    @Override
-    public Location deserialize(final JsonElement jsonElement,
-                                final Type typeOfT,
-                                final JsonDeserializationContext jsonDeserializationContext) throws JsonParseException {
+    private static final String NOT_THREE_DIMENSIONAL = "Location must be three-dimensional.";
 
-        final JsonArray jsonLocationArray = jsonElement.getAsJsonArray();
+    @Override
+    public Location read(final JsonReader in) throws IOException {
 
-        if (jsonLocationArray == null || jsonLocationArray.size() != 3) {
-            throw new JsonParseException("Location must be three-dimensional.");
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        } else if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new JsonParseException(NOT_THREE_DIMENSIONAL);
         }
 
-        List<Long> location = new ArrayList<>();
+        long x = 0;
+        long y = 0;
+        long z = 0;
+        int dimensions = 0;
 
-        for (JsonElement element : jsonLocationArray) {
-            double d;
-            long l;
-            try {
-                d = element.getAsDouble();
-                l = element.getAsLong();
-            } catch (NumberFormatException nfe) {
-                throw new JsonParseException("Location coordinates must be a number.");
-            }
-            if (d == l) {
-                location.add(l);
-            } else {
-                throw new JsonParseException("Location coordinates must be integer values.");
+        in.beginArray();
+        while (in.hasNext()) {
+            final long coordinate = JsonUtils.readIntegerValue(in,
+                    "Location coordinates must be a number.",
+                    "Location coordinates must be integer values.");
+            switch (dimensions) {
+                case 0:
+                    x = coordinate;
+                    break;
+                case 1:
+                    y = coordinate;
+                    break;
+                case 2:
+                    z = coordinate;
+                    break;
+                default:
+                    throw new JsonParseException(NOT_THREE_DIMENSIONAL);
             }
+            dimensions++;
         }
+        in.endArray();
 
-        return new Location(location.get(0), location.get(1), location.get(2));
+        if (dimensions != 3) {
+            throw new JsonParseException(NOT_THREE_DIMENSIONAL);
+        }
+
+        return new Location(x, y, z);
 
     }
 
     @Override
-    public JsonElement serialize(final Location srcLocation,
-                                 final Type typeOfSrc,
-                                 final JsonSerializationContext jsonSerializationContext) {
-
-        final JsonArray jsonLocationArray = new JsonArray();
+    public void write(final JsonWriter out,
+                      final Location srcLocation) throws IOException {
 
-        jsonLocationArray.add(srcLocation.getX());
-        jsonLocationArray.add(srcLocation.getY());
-        jsonLocationArray.add(srcLocation.getZ());
+        if (srcLocation == null) {
+            out.nullValue();
+            return;
+        }
 
-        return jsonLocationArray;
+        out.beginArray();
+        out.value(srcLocation.getX());
+        out.value(srcLocation.getY());
+        out.value(srcLocation.getZ());
+        out.endArray();
 
     }
 }
@@ -1,25 +1,28 @@
 package org.janelia.flyem.neuprint.json;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import org.janelia.flyem.neuprint.model.Location;
+import org.janelia.flyem.neuprint.model.LocationSet;
 import org.janelia.flyem.neuprint.model.Neuron;
 import org.janelia.flyem.neuprint.model.Soma;
 
-import java.lang.reflect.Type;
-import java.util.HashSet;
+import java.io.IOException;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
- * Gson adapter for json files describing neurons/segments.
+ * Gson adapter for json files describing neurons/segments. Neurons are read directly from the JSON stream
+ * (so the synapse locations of a neuron are not first copied into a JSON tree) and unknown properties are skipped.
+ * A property with a null value is treated as if it were missing.
+ * <p>
+ * {@link #read(JsonReader, Neuron.SynapseLocationConsumer)} passes the synapse locations of a neuron to a consumer
+ * as they are read instead of collecting them in the neuron's synapse set, after passing it the neuron's properties.
  */
-public class NeuronAdapter implements JsonDeserializer<Neuron>, JsonSerializer<Neuron> {
+public class NeuronAdapter extends TypeAdapter<Neuron> {
 
     private static final String ID_KEY = "id";
     private static final String STATUS_KEY = "status";
@@ -37,100 +40,134 @@ public class NeuronAdapter implements JsonDeserializer<Neuron>, JsonSerializer<N
     private static final String SOMA_KEY = "soma";
     private static final String SYNAPSE_SET_KEY = "synapseSet";
 
-    @Override
-    public Neuron deserialize(final JsonElement jsonElement,
-                              final Type typeOfT,
-                              final JsonDeserializationContext jsonDeserializationContext) throws JsonParseException {
-
-        final JsonObject jsonObject = jsonElement.getAsJsonObject();
+    private final LocationAdapter locationAdapter = new LocationAdapter();
+    private final SomaAdapter somaAdapter = new SomaAdapter();
 
-        if (!jsonObject.has(ID_KEY)) {
-            throw new JsonParseException("Neuron must have 'id' property.");
-        }
+    @Override
+    public Neuron read(final JsonReader in) throws IOException {
+        return read(in, null);
+    }
 
-        double d;
-        long l;
-        Long id;
-        try {
-            d = jsonObject.get(ID_KEY).getAsDouble();
-            l = jsonObject.get(ID_KEY).getAsLong();
-        } catch (NumberFormatException nfe) {
-            throw new JsonParseException("Neuron ID must be a number.");
-        }
-        if (d == l) {
-            id = l;
-        } else {
-            throw new JsonParseException("Neuron ID must be integer value.");
+    /**
+     * Reads a neuron, passing its synapse locations to a consumer (in file order) rather than adding
+     * them to the synapse set of the returned neuron. Locations are streamed directly from the reader
+     * when the neuron's id precedes its synapse set in the object, right after the properties read so far
+     * are passed to {@link Neuron.SynapseLocationConsumer#beginSynapseSet}. Otherwise they are collected
+     * and passed to the consumer (after the whole neuron) once the object has been read.
+     *
+     * @param in                      reader positioned at a neuron object
+     * @param synapseLocationConsumer consumer for synapse locations (null to add them to the neuron's synapse set)
+     * @return the neuron (with an empty synapse set if a consumer was specified) or null if the value is null
+     * @throws IOException if the neuron cannot be read
+     */
+    public Neuron read(final JsonReader in,
+                       final Neuron.SynapseLocationConsumer synapseLocationConsumer) throws IOException {
+
+        if (!JsonUtils.beginObjectOrNull(in, "Neuron")) {
+            return null;
         }
 
+        Long id = null;
         String status = null;
-        if (jsonObject.has(STATUS_KEY)) {
-            status = jsonObject.get(STATUS_KEY).getAsString();
-        }
-
         String name = null;
-        if (jsonObject.has(NAME_KEY)) {
-            name = jsonObject.get(NAME_KEY).getAsString();
-        }
-
         String type = null;
-        if (jsonObject.has(TYPE_KEY)) {
-            type = jsonObject.get(TYPE_KEY).getAsString();
-        }
-
         String instance = null;
-        if (jsonObject.has(INSTANCE_KEY)) {
-            instance = jsonObject.get(INSTANCE_KEY).getAsString();
-        }
-
         String primaryNeurite = null;
-        if (jsonObject.has(PRIMARY_NEURITE_KEY)) {
-            primaryNeurite = jsonObject.get(PRIMARY_NEURITE_KEY).getAsString();
-        }
-
         String majorInput = null;
-        if (jsonObject.has(MAJOR_INPUT_KEY)) {
-            majorInput = jsonObject.get(MAJOR_INPUT_KEY).getAsString();
-        }
-
         String majorOutput = null;
-        if (jsonObject.has(MAJOR_OUTPUT_KEY)) {
-            majorOutput = jsonObject.get(MAJOR_OUTPUT_KEY).getAsString();
-        }
-
         String clonalUnit = null;
-        if (jsonObject.has(CLONAL_UNIT_KEY)) {
-            clonalUnit = jsonObject.get(CLONAL_UNIT_KEY).getAsString();
-        }
-
         String neurotransmitter = null;
-        if (jsonObject.has(NEUROTRANSMITTER_KEY)) {
-            neurotransmitter = jsonObject.get(NEUROTRANSMITTER_KEY).getAsString();
-        }
-
         String property = null;
-        if (jsonObject.has(PROPERTY_KEY)) {
-            property = jsonObject.get(PROPERTY_KEY).getAsString();
-        }
-
         Long size = null;
-        if (jsonObject.has(SIZE_KEY)) {
-            size = jsonObject.get(SIZE_KEY).getAsLong();
+        Set<String> rois = new LinkedHashSet<>();
+        Soma soma = null;
+        // synapse locations are kept in file order (see SpatialLoadOrder)
+        final LocationSet synapseLocationSet = new LocationSet();
+
+        while (in.hasNext()) {
+            final String key = in.nextName();
+            switch (key) {
+                case ID_KEY:
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        id = JsonUtils.readIntegerValue(in, "Neuron ID must be a number.", "Neuron ID must be integer value.");
+                    }
+                    break;
+                case STATUS_KEY:
+                    status = JsonUtils.readString(in, key);
+                    break;
+                case NAME_KEY:
+                    name = JsonUtils.readString(in, key);
+                    break;
+                case TYPE_KEY:
+                    type = JsonUtils.readString(in, key);
+                    break;
+                case INSTANCE_KEY:
+                    instance = JsonUtils.readString(in, key);
+                    break;
+                case PRIMARY_NEURITE_KEY:
+                    primaryNeurite = JsonUtils.readString(in, key);
+                    break;
+                case MAJOR_INPUT_KEY:
+                    majorInput = JsonUtils.readString(in, key);
+                    break;
+                case MAJOR_OUTPUT_KEY:
+                    majorOutput = JsonUtils.readString(in, key);
+                    break;
+                case CLONAL_UNIT_KEY:
+                    clonalUnit = JsonUtils.readString(in, key);
+                    break;
+                case NEUROTRANSMITTER_KEY:
+                    neurotransmitter = JsonUtils.readString(in, key);
+                    break;
+                case PROPERTY_KEY:
+                    property = JsonUtils.readString(in, key);
+                    break;
+                case SIZE_KEY:
+                    size = JsonUtils.readLong(in, "Neuron size must be a number.");
+                    break;
+                case ROIS_KEY:
+                    rois = JsonUtils.readStringSet(in, key);
+                    break;
+                case SOMA_KEY:
+                    soma = somaAdapter.read(in);
+                    break;
+                case SYNAPSE_SET_KEY:
+                    if (synapseLocationConsumer != null && id != null) {
+                        synapseLocationConsumer.beginSynapseSet(new Neuron(id, status, name, type, instance,
+                                                                           primaryNeurite, majorInput, majorOutput, clonalUnit, neurotransmitter, property,
+                                                                           size, rois, soma, new LocationSet()));
+                        streamSynapseLocations(in, id, synapseLocationConsumer);
+                    } else {
+                        readSynapseLocations(in, synapseLocationSet);
+                    }
+                    break;
+                default:
+                    in.skipValue();
+            }
         }
+        in.endObject();
 
-        final Set<String> rois = SynapseAdapter.parseRoiJsonArray(jsonObject, ROIS_KEY);
-
-        Soma soma = null;
-        if (jsonObject.has(SOMA_KEY)) {
-            soma = jsonDeserializationContext.deserialize(jsonObject.get(SOMA_KEY), Soma.class);
+        if (id == null) {
+            throw new JsonParseException("Neuron must have 'id' property.");
         }
 
-        final Set<Location> synapseLocationSet = new HashSet<>();
-        if (jsonObject.has(SYNAPSE_SET_KEY)) {
-            final JsonArray jsonLocationArray = jsonObject.get(SYNAPSE_SET_KEY).getAsJsonArray();
-            for (JsonElement element : jsonLocationArray) {
-                synapseLocationSet.add(jsonDeserializationContext.deserialize(element, Location.class));
+        if (synapseLocationConsumer != null) {
+            final Neuron neuron = new Neuron(id, status, name, type, instance,
+                                             primaryNeurite, majorInput, majorOutput, clonalUnit, neurotransmitter, property,
+                                             size, rois, soma, new LocationSet());
+            // only non-empty if the synapse set was listed before the id
+            if (synapseLocationSet.size() > 0) {
+                synapseLocationConsumer.beginSynapseSet(neuron);
+                for (int i = 0; i < synapseLocationSet.size(); i++) {
+                    synapseLocationConsumer.accept(id,
+                                                   synapseLocationSet.getX(i),
+                                                   synapseLocationSet.getY(i),
+                                                   synapseLocationSet.getZ(i));
+                }
             }
+            return neuron;
         }
 
         return new Neuron(id, status, name, type, instance,
@@ -139,41 +176,90 @@ public class NeuronAdapter implements JsonDeserializer<Neuron>, JsonSerializer<N
 
     }
 
+    private void readSynapseLocations(final JsonReader in,
+                                      final LocationSet synapseLocationSet) throws IOException {
+        if (!beginSynapseLocations(in)) {
+            return;
+        }
+        in.beginArray();
+        while (in.hasNext()) {
+            final Location location = locationAdapter.read(in);
+            if (location != null) {
+                synapseLocationSet.add(location);
+            }
+        }
+        in.endArray();
+    }
+
+    private void streamSynapseLocations(final JsonReader in,
+                                        final long bodyId,
+                                        final Neuron.SynapseLocationConsumer synapseLocationConsumer) throws IOException {
+        if (!beginSynapseLocations(in)) {
+            return;
+        }
+        // duplicates are not removed here, the database load MERGEs each membership
+        in.beginArray();
+        while (in.hasNext()) {
+            final Location location = locationAdapter.read(in);
+            if (location != null) {
+                synapseLocationConsumer.accept(bodyId, location.getX(), location.getY(), location.getZ());
+            }
+        }
+        in.endArray();
+    }
+
+    private static boolean beginSynapseLocations(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return false;
+        } else if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new JsonParseException("'" + SYNAPSE_SET_KEY + "' must be an array.");
+        }
+        return true;
+    }
+
     @Override
-    public JsonElement serialize(final Neuron srcNeuron,
-                                 final Type typeOfSrc,
-                                 final JsonSerializationContext jsonSerializationContext) {
-
-        final JsonObject jsonObject = new JsonObject();
-
-        jsonObject.addProperty(ID_KEY, srcNeuron.getId());
-        jsonObject.addProperty(STATUS_KEY, srcNeuron.getStatus());
-        jsonObject.addProperty(NAME_KEY, srcNeuron.getName());
-        jsonObject.addProperty(TYPE_KEY, srcNeuron.getType());
-        jsonObject.addProperty(INSTANCE_KEY, srcNeuron.getInstance());
-        jsonObject.addProperty(PRIMARY_NEURITE_KEY, srcNeuron.getPrimaryNeurite());
-        jsonObject.addProperty(MAJOR_INPUT_KEY, srcNeuron.getMajorInput());
-        jsonObject.addProperty(MAJOR_OUTPUT_KEY, srcNeuron.getMajorOutput());
-        jsonObject.addProperty(CLONAL_UNIT_KEY, srcNeuron.getClonalUnit());
-        jsonObject.addProperty(NEUROTRANSMITTER_KEY, srcNeuron.getNeurotransmitter());
-        jsonObject.addProperty(PROPERTY_KEY, srcNeuron.getProperty());
-        jsonObject.addProperty(SIZE_KEY, srcNeuron.getSize());
-
-        final JsonArray roiArray = new JsonArray();
+    public void write(final JsonWriter out,
+                      final Neuron srcNeuron) throws IOException {
+
+        if (srcNeuron == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+
+        out.name(ID_KEY).value(srcNeuron.getId());
+        out.name(STATUS_KEY).value(srcNeuron.getStatus());
+        out.name(NAME_KEY).value(srcNeuron.getName());
+        out.name(TYPE_KEY).value(srcNeuron.getType());
+        out.name(INSTANCE_KEY).value(srcNeuron.getInstance());
+        out.name(PRIMARY_NEURITE_KEY).value(srcNeuron.getPrimaryNeurite());
+        out.name(MAJOR_INPUT_KEY).value(srcNeuron.getMajorInput());
+        out.name(MAJOR_OUTPUT_KEY).value(srcNeuron.getMajorOutput());
+        out.name(CLONAL_UNIT_KEY).value(srcNeuron.getClonalUnit());
+        out.name(NEUROTRANSMITTER_KEY).value(srcNeuron.getNeurotransmitter());
+        out.name(PROPERTY_KEY).value(srcNeuron.getProperty());
+        out.name(SIZE_KEY).value(srcNeuron.getSize());
+
+        out.name(ROIS_KEY).beginArray();
         for (String roi : srcNeuron.getRois()) {
-            roiArray.add(roi);
+            out.value(roi);
         }
-        jsonObject.add(ROIS_KEY, roiArray);
+        out.endArray();
 
-        jsonObject.add(SOMA_KEY, jsonSerializationContext.serialize(srcNeuron.getSoma()));
+        out.name(SOMA_KEY);
+        somaAdapter.write(out, srcNeuron.getSoma());
 
-        final JsonArray locationArray = new JsonArray();
-        for (Location location : srcNeuron.getSynapseLocationSet()) {
-            locationArray.add(jsonSerializationContext.serialize(location));
+        out.name(SYNAPSE_SET_KEY).beginArray();
+        if (srcNeuron.getSynapseLocationSet() != null) {
+            for (Location location : srcNeuron.getSynapseLocationSet()) {
+                locationAdapter.write(out, location);
+            }
         }
-        jsonObject.add(SYNAPSE_SET_KEY, locationArray);
+        out.endArray();
 
-        return jsonObject;
+        out.endObject();
 
     }
 
@@ -1,45 +1,61 @@
 package org.janelia.flyem.neuprint.json;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import org.janelia.flyem.neuprint.model.Location;
 import org.janelia.flyem.neuprint.model.Soma;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 
 /**
- * Gson adapter for soma json objects.
+ * Gson adapter for soma json objects. Somas are read directly from the JSON stream and unknown
+ * properties are skipped.
  */
-public class SomaAdapter implements JsonDeserializer<Soma>, JsonSerializer<Soma> {
+public class SomaAdapter extends TypeAdapter<Soma> {
 
     private static final String LOCATION_KEY = "location";
     private static final String RADIUS_KEY = "radius";
 
+    private final LocationAdapter locationAdapter = new LocationAdapter();
+
     @Override
-    public Soma deserialize(final JsonElement jsonElement,
-                            final Type typeOfT,
-                            final JsonDeserializationContext jsonDeserializationContext) throws JsonParseException {
+    public Soma read(final JsonReader in) throws IOException {
+
+        if (!JsonUtils.beginObjectOrNull(in, "Soma")) {
+            return null;
+        }
 
-        final JsonObject jsonObject = jsonElement.getAsJsonObject();
+        Location location = null;
+        // the radius is parsed once the object has been read so that a missing location is reported first
+        String radiusValue = null;
 
-        if (!jsonObject.has(LOCATION_KEY) && !jsonObject.has(RADIUS_KEY)) {
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case LOCATION_KEY:
+                    location = locationAdapter.read(in);
+                    break;
+                case RADIUS_KEY:
+                    radiusValue = JsonUtils.readString(in, RADIUS_KEY);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (location == null && radiusValue == null) {
             return null;
-        } else if (!jsonObject.has(LOCATION_KEY)) {
+        } else if (location == null) {
             throw new JsonParseException("Soma must have 'location' property.");
-        } else if (!jsonObject.has(RADIUS_KEY)) {
+        } else if (radiusValue == null) {
             throw new JsonParseException("Soma must have 'radius' property.");
         } else {
 
-            final Location location = jsonDeserializationContext.deserialize(jsonObject.get(LOCATION_KEY), Location.class);
-
             Double radius;
             try {
-                radius = jsonObject.get(RADIUS_KEY).getAsDouble();
+                radius = Double.parseDouble(radiusValue);
             } catch (NumberFormatException nfe) {
                 throw new JsonParseException("Radius must be a number.");
             }
@@ -49,17 +65,18 @@ public class SomaAdapter implements JsonDeserializer<Soma>, JsonSerializer<Soma>
     }
 
     @Override
-    public JsonElement serialize(final Soma srcSoma,
-                                 final Type typeOfT,
-                                 final JsonSerializationContext jsonSerializationContext) {
-
-        final JsonObject jsonObject = new JsonObject();
+    public void write(final JsonWriter out,
+                      final Soma srcSoma) throws IOException {
 
-        JsonElement location = jsonSerializationContext.serialize(srcSoma.getLocation());
-
-        jsonObject.add(LOCATION_KEY, location);
-        jsonObject.addProperty(RADIUS_KEY, srcSoma.getRadius());
+        if (srcSoma == null) {
+            out.nullValue();
+            return;
+        }
 
-        return jsonObject;
+        out.beginObject();
+        out.name(LOCATION_KEY);
+        locationAdapter.write(out, srcSoma.getLocation());
+        out.name(RADIUS_KEY).value(srcSoma.getRadius());
+        out.endObject();
     }
 }
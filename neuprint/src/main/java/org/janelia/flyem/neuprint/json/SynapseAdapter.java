@@ -1,99 +1,105 @@
 package org.janelia.flyem.neuprint.json;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import org.janelia.flyem.neuprint.model.Location;
 import org.janelia.flyem.neuprint.model.Synapse;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
- * Gson adapter for json files describing synapses.
+ * Gson adapter for json files describing synapses. Synapses are read directly from the JSON stream
+ * (without building a JSON tree for each synapse) and unknown properties are skipped. A property with
+ * a null value is treated as if it were missing.
  */
-public class SynapseAdapter implements JsonDeserializer<Synapse>, JsonSerializer<Synapse> {
+public class SynapseAdapter extends TypeAdapter<Synapse> {
 
     private static final String TYPE_KEY = "type";
     private static final String CONFIDENCE_KEY = "confidence";
     private static final String LOCATION_KEY = "location";
     private static final String ROIS_KEY = "rois";
 
-    @Override
-    public Synapse deserialize(final JsonElement jsonElement,
-                               final Type typeOfT,
-                               final JsonDeserializationContext jsonDeserializationContext) throws JsonParseException {
+    private final LocationAdapter locationAdapter = new LocationAdapter();
 
-        final JsonObject jsonObject = jsonElement.getAsJsonObject();
+    @Override
+    public Synapse read(final JsonReader in) throws IOException {
 
-        if (!jsonObject.has(TYPE_KEY)) {
-            throw new JsonParseException("Synapse type property missing.");
-        }
-        final String type = jsonObject.get(TYPE_KEY).getAsString();
-        if (type == null || !(type.equals("pre") || type.equals("post"))) {
-            throw new JsonParseException("Synapse type must be 'pre' or 'post'.");
+        if (!JsonUtils.beginObjectOrNull(in, "Synapse")) {
+            return null;
         }
 
+        String type = null;
         double confidence = 0.0D; // default is 0.0
-        if (jsonObject.has(CONFIDENCE_KEY)) {
-            confidence = jsonObject.get(CONFIDENCE_KEY).getAsDouble();
-
-            if (confidence < 0 || confidence > 1) {
-                throw new JsonParseException("Synapse confidence must be between 0.0 and 1.0.");
+        Location location = null;
+        // order of rois matters for figuring out super-level rois
+        Set<String> rois = new LinkedHashSet<>();
+
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case TYPE_KEY:
+                    type = JsonUtils.readString(in, TYPE_KEY);
+                    break;
+                case CONFIDENCE_KEY:
+                    final Double confidenceValue = JsonUtils.readDouble(in, "Synapse confidence must be a number.");
+                    confidence = confidenceValue == null ? 0.0D : confidenceValue;
+                    break;
+                case LOCATION_KEY:
+                    location = locationAdapter.read(in);
+                    break;
+                case ROIS_KEY:
+                    rois = JsonUtils.readStringSet(in, ROIS_KEY);
+                    break;
+                default:
+                    in.skipValue();
             }
-
         }
+        in.endObject();
 
-        if (!jsonObject.has(LOCATION_KEY)) {
+        if (type == null) {
+            throw new JsonParseException("Synapse type property missing.");
+        }
+        if (!(type.equals("pre") || type.equals("post"))) {
+            throw new JsonParseException("Synapse type must be 'pre' or 'post'.");
+        }
+        if (confidence < 0 || confidence > 1) {
+            throw new JsonParseException("Synapse confidence must be between 0.0 and 1.0.");
+        }
+        if (location == null) {
             throw new JsonParseException("Synapse location property missing.");
         }
-        final Location location = jsonDeserializationContext.deserialize(jsonObject.get(LOCATION_KEY), Location.class);
-
-        final Set<String> rois = parseRoiJsonArray(jsonObject, ROIS_KEY);
 
         return new Synapse(type, confidence, location, rois);
 
     }
 
     @Override
-    public JsonElement serialize(final Synapse srcSynapse,
-                                 final Type typeOfT,
-                                 final JsonSerializationContext jsonSerializationContext) {
+    public void write(final JsonWriter out,
+                      final Synapse srcSynapse) throws IOException {
+
+        if (srcSynapse == null) {
+            out.nullValue();
+            return;
+        }
 
-        final JsonObject jsonObject = new JsonObject();
+        out.beginObject();
 
-        jsonObject.addProperty(TYPE_KEY, srcSynapse.getType());
-        jsonObject.addProperty(CONFIDENCE_KEY, srcSynapse.getConfidence());
-        JsonElement location = jsonSerializationContext.serialize(srcSynapse.getLocation());
-        jsonObject.add(LOCATION_KEY, location);
+        out.name(TYPE_KEY).value(srcSynapse.getType());
+        out.name(CONFIDENCE_KEY).value(srcSynapse.getConfidence());
+        out.name(LOCATION_KEY);
+        locationAdapter.write(out, srcSynapse.getLocation());
 
-        final JsonArray roiArray = new JsonArray();
+        out.name(ROIS_KEY).beginArray();
         for (String roi : srcSynapse.getRois()) {
-            roiArray.add(roi);
+            out.value(roi);
         }
+        out.endArray();
 
-        jsonObject.add(ROIS_KEY, roiArray);
+        out.endObject();
 
-        return jsonObject;
-
-    }
-
-    public static Set<String> parseRoiJsonArray(JsonObject jsonObject, String roisKey) {
-        final Set<String> rois = new LinkedHashSet<>();
-        if (jsonObject.has(roisKey)) {
-            final JsonArray jsonRoiArray = jsonObject.get(roisKey).getAsJsonArray();
-            // order of rois matters for figuring out super-level rois
-            for (JsonElement element : jsonRoiArray) {
-                rois.add(element.getAsString());
-            }
-        }
-        return rois;
     }
 
 }
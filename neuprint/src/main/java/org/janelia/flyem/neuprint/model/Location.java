@@ -1,13 +1,18 @@
 package org.janelia.flyem.neuprint.model;
 
+import org.janelia.flyem.neuprintloadprocedures.SpatialKey;
 import org.neo4j.driver.v1.Values;
 import org.neo4j.driver.v1.types.Point;
 
 /**
- * A class representing a 3D location.
+ * A class representing a 3D location. Coordinates are stored as primitive longs so that a location
+ * takes a fixed, small amount of memory and can be compared and hashed without unboxing.
  */
 public class Location {
-    private Long[] location;
+
+    private final long x;
+    private final long y;
+    private final long z;
 
     /**
      * Class constructor
@@ -16,11 +21,10 @@ public class Location {
      * @param y y coordinate
      * @param z z coordinate
      */
-    public Location(Long x, Long y, Long z) {
-        this.location = new Long[3];
-        this.location[0] = x;
-        this.location[1] = y;
-        this.location[2] = z;
+    public Location(long x, long y, long z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
     }
 
     /**
@@ -29,35 +33,35 @@ public class Location {
      * @param locationArray location as an array of longs
      */
     public Location(Long[] locationArray) {
-        this.location = locationArray;
+        this(locationArray[0], locationArray[1], locationArray[2]);
     }
 
     /**
      * @return x coordinate of location
      */
-    public Long getX() {
-        return location[0];
+    public long getX() {
+        return x;
     }
 
     /**
      * @return y coordinate of location
      */
-    public Long getY() {
-        return location[1];
+    public long getY() {
+        return y;
     }
 
     /**
      * @return z coordinate of location
      */
-    public Long getZ() {
-        return location[2];
+    public long getZ() {
+        return z;
     }
 
     /**
-     * @return location as array of longs
+     * @return location as a new array of longs
      */
     public Long[] getLocation() {
-        return location;
+        return new Long[]{x, y, z};
     }
 
     /**
@@ -65,12 +69,27 @@ public class Location {
      * @return location as neo4j driver Point type for importing data
      */
     public Point getAsPoint() {
-        return Values.point(9157, location[0], location[1], location[2]).asPoint();
+        return Values.point(9157, x, y, z).asPoint();
+    }
+
+    /**
+     * @return true if the location can be packed into a {@link SpatialKey} (see {@link SpatialKey#isEncodable(long, long, long)})
+     */
+    public boolean hasLocationKey() {
+        return SpatialKey.isEncodable(x, y, z);
+    }
+
+    /**
+     * @return location packed into a {@link SpatialKey} for exact-location lookups
+     * @throws IllegalArgumentException if a coordinate is negative or greater than {@link SpatialKey#MAX_COORDINATE}
+     */
+    public long getLocationKey() {
+        return SpatialKey.encode(x, y, z);
     }
 
     @Override
     public String toString() {
-        return this.getX() + ":" + this.getY() + ":" + this.getZ();
+        return this.x + ":" + this.y + ":" + this.z;
     }
 
     @Override
@@ -80,7 +99,7 @@ public class Location {
             isEqual = true;
         } else if (o instanceof Location) {
             final Location that = (Location) o;
-            isEqual = this.location[0].equals(that.location[0]) && this.location[1].equals(that.location[1]) && this.location[2].equals(that.location[2]);
+            isEqual = this.x == that.x && this.y == that.y && this.z == that.z;
         }
         return isEqual;
     }
@@ -88,9 +107,9 @@ public class Location {
     @Override
     public int hashCode() {
         int result = 17;
-        result = 31 * result + this.location[0].hashCode();
-        result = 31 * result + this.location[1].hashCode();
-        result = 31 * result + this.location[2].hashCode();
+        result = 31 * result + Long.hashCode(this.x);
+        result = 31 * result + Long.hashCode(this.y);
+        result = 31 * result + Long.hashCode(this.z);
         return result;
     }
 }
@@ -0,0 +1,237 @@
+package org.janelia.flyem.neuprint.model;
+
+import org.janelia.flyem.neuprint.util.LongHashSet;
+import org.janelia.flyem.neuprintloadprocedures.SpatialKey;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of {@link Location}s that keeps the coordinates of its members in primitive arrays, in the order
+ * in which they were added (like a {@link java.util.LinkedHashSet}). Membership is tracked with an
+ * open-addressing index table, so a member takes three longs and one int slot instead of a location
+ * object, a hash set entry, and boxed coordinates.
+ * <p>
+ * Members can be read by position without creating {@link Location} objects (see {@link #getX(int)} and
+ * {@link #getLocationKey(int)}). Iterating over the set creates a new {@link Location} for each member.
+ * Members cannot be removed. This class is not thread safe.
+ */
+public class LocationSet extends AbstractSet<Location> {
+
+    private static final float LOAD_FACTOR = 0.6F;
+
+    private long[] xs;
+    private long[] ys;
+    private long[] zs;
+    private int size;
+
+    // position + 1 of the member in each slot, 0 marks a free slot
+    private int[] slots;
+    private int mask;
+    private int resizeThreshold;
+
+    /**
+     * Class constructor.
+     */
+    public LocationSet() {
+        this(4);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param expectedSize number of locations the set should hold without resizing
+     */
+    public LocationSet(final int expectedSize) {
+        final int initialLength = Math.max(expectedSize, 2);
+        this.xs = new long[initialLength];
+        this.ys = new long[initialLength];
+        this.zs = new long[initialLength];
+        this.size = 0;
+        final int capacity = LongHashSet.getCapacity(expectedSize, LOAD_FACTOR);
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param locations locations to add (in iteration order)
+     */
+    public LocationSet(final Collection<Location> locations) {
+        this(locations.size());
+        addAll(locations);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(final Location location) {
+        return add(location.getX(), location.getY(), location.getZ());
+    }
+
+    /**
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param z z coordinate
+     * @return true if the location was not already in the set
+     */
+    public boolean add(final long x, final long y, final long z) {
+        final int slot = findSlot(x, y, z);
+        if (slots[slot] != 0) {
+            return false;
+        }
+        if (size == xs.length) {
+            final int newLength = xs.length * 2;
+            xs = Arrays.copyOf(xs, newLength);
+            ys = Arrays.copyOf(ys, newLength);
+            zs = Arrays.copyOf(zs, newLength);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        zs[size] = z;
+        slots[slot] = ++size;
+        if (size > resizeThreshold) {
+            resize(slots.length * 2);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        if (o instanceof Location) {
+            final Location location = (Location) o;
+            return contains(location.getX(), location.getY(), location.getZ());
+        }
+        return false;
+    }
+
+    /**
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param z z coordinate
+     * @return true if the set contains the location
+     */
+    public boolean contains(final long x, final long y, final long z) {
+        return slots[findSlot(x, y, z)] != 0;
+    }
+
+    /**
+     * @param index position of the member (in the order added)
+     * @return x coordinate of the member
+     */
+    public long getX(final int index) {
+        checkIndex(index);
+        return xs[index];
+    }
+
+    /**
+     * @param index position of the member (in the order added)
+     * @return y coordinate of the member
+     */
+    public long getY(final int index) {
+        checkIndex(index);
+        return ys[index];
+    }
+
+    /**
+     * @param index position of the member (in the order added)
+     * @return z coordinate of the member
+     */
+    public long getZ(final int index) {
+        checkIndex(index);
+        return zs[index];
+    }
+
+    /**
+     * @param index position of the member (in the order added)
+     * @return true if the member can be packed into a {@link SpatialKey} (see {@link Location#hasLocationKey()})
+     */
+    public boolean hasLocationKey(final int index) {
+        checkIndex(index);
+        return SpatialKey.isEncodable(xs[index], ys[index], zs[index]);
+    }
+
+    /**
+     * @param index position of the member (in the order added)
+     * @return member packed into a {@link SpatialKey} (see {@link Location#getLocationKey()})
+     * @throws IllegalArgumentException if a coordinate is negative or greater than {@link SpatialKey#MAX_COORDINATE}
+     */
+    public long getLocationKey(final int index) {
+        checkIndex(index);
+        return SpatialKey.encode(xs[index], ys[index], zs[index]);
+    }
+
+    /**
+     * @param index position of the member (in the order added)
+     * @return the member as a new {@link Location}
+     */
+    public Location get(final int index) {
+        checkIndex(index);
+        return new Location(xs[index], ys[index], zs[index]);
+    }
+
+    @Override
+    public Iterator<Location> iterator() {
+        return new Iterator<Location>() {
+
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Location next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " is out of bounds for set of size " + size);
+        }
+    }
+
+    private int findSlot(final long x, final long y, final long z) {
+        int slot = hash(x, y, z) & mask;
+        while (slots[slot] != 0) {
+            final int index = slots[slot] - 1;
+            if (xs[index] == x && ys[index] == y && zs[index] == z) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(final int newCapacity) {
+        slots = new int[newCapacity];
+        mask = newCapacity - 1;
+        resizeThreshold = (int) (newCapacity * LOAD_FACTOR);
+        for (int index = 0; index < size; index++) {
+            int slot = hash(xs[index], ys[index], zs[index]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = index + 1;
+        }
+    }
+
+    private static int hash(final long x, final long y, final long z) {
+        return LongHashSet.hash((x * 31 + y) * 31 + z);
+    }
+
+}
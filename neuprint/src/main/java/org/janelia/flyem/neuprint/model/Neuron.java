@@ -1,12 +1,15 @@
 package org.janelia.flyem.neuprint.model;
 
+import com.google.gson.JsonSyntaxException;
 import com.google.gson.annotations.SerializedName;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import org.janelia.flyem.neuprint.json.JsonUtils;
+import org.janelia.flyem.neuprint.json.NeuronAdapter;
 import org.neo4j.driver.v1.types.Point;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -66,7 +69,7 @@ public class Neuron {
     private final Soma soma;
 
     @SerializedName("synapseSet")
-    private final Set<Location> synapseLocationSet;
+    private final LocationSet synapseLocationSet;
 
     /**
      * Class constructor.
@@ -79,7 +82,7 @@ public class Neuron {
      * @param size               size (in voxels)
      * @param rois               rois associated with this neuron
      * @param soma               soma for this neuron
-     * @param synapseLocationSet set of synaptic locations on this neuron
+     * @param synapseLocationSet set of synaptic locations on this neuron (copied into a {@link LocationSet} unless it is one)
      */
     public Neuron(final Long id,
                   final String status,
@@ -110,7 +113,11 @@ public class Neuron {
         this.size = size;
         this.rois = rois;
         this.soma = soma;
-        this.synapseLocationSet = synapseLocationSet;
+        if (synapseLocationSet == null || synapseLocationSet instanceof LocationSet) {
+            this.synapseLocationSet = (LocationSet) synapseLocationSet;
+        } else {
+            this.synapseLocationSet = new LocationSet(synapseLocationSet);
+        }
     }
 
     /**
@@ -244,9 +251,9 @@ public class Neuron {
     }
 
     /**
-     * @return set of synaptic locations on this neuron
+     * @return set of synaptic locations on this neuron (in the order they were listed)
      */
-    public Set<Location> getSynapseLocationSet() {
+    public LocationSet getSynapseLocationSet() {
         return synapseLocationSet;
     }
 
@@ -316,6 +323,48 @@ public class Neuron {
         return JsonUtils.GSON.fromJson(reader, Neuron.class);
     }
 
+    /**
+     * Returns a Neuron deserialized from a single JSON object from a neuron JSON file, passing its synapse
+     * locations to a consumer as they are read instead of collecting them in the neuron's synapse set
+     * (see {@link NeuronAdapter#read(JsonReader, SynapseLocationConsumer)}).
+     *
+     * @param reader                  {@link JsonReader}
+     * @param synapseLocationConsumer consumer for the neuron's synapse locations
+     * @return Neuron with an empty synapse set
+     */
+    public static Neuron fromJsonSingleObject(final JsonReader reader,
+                                              final SynapseLocationConsumer synapseLocationConsumer) {
+        try {
+            return new NeuronAdapter().read(reader, synapseLocationConsumer);
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Receives the synapse locations of a neuron as they are read from a neuron JSON file.
+     */
+    public interface SynapseLocationConsumer {
+
+        /**
+         * Called before the first synapse location of a neuron is passed to the consumer (if the neuron has a
+         * synapse set). Properties listed after the synapse set in the JSON object are not known yet and are
+         * only set on the neuron returned once the whole object has been read.
+         *
+         * @param neuron neuron with the properties listed before its synapse set and an empty synapse set
+         */
+        default void beginSynapseSet(Neuron neuron) {
+        }
+
+        /**
+         * @param bodyId neuron id
+         * @param x      x coordinate of the synapse
+         * @param y      y coordinate of the synapse
+         * @param z      z coordinate of the synapse
+         */
+        void accept(long bodyId, long x, long y, long z);
+    }
+
     private static Type NEURON_LIST_TYPE = new TypeToken<List<Neuron>>() {
     }.getType();
 
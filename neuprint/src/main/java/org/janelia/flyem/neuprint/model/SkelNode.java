@@ -1,21 +1,29 @@
 package org.janelia.flyem.neuprint.model;
 
-import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.janelia.flyem.neuprintloadprocedures.SpatialKey;
 import org.neo4j.driver.v1.Values;
 import org.neo4j.driver.v1.types.Point;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * A class representing a spherical node of a {@link Skeleton} read from an swc file.
  * A SkelNode possesses a three-dimensional location, a radius, a type, a row number (from swc file),
  * and the bodyId of its associated neuron. SkelNodes may have a parent (root nodes do not)
- * and multiple children.
+ * and multiple children. The location is stored as primitive int coordinates; {@link #getLocation()} returns
+ * a new list on each call.
  */
 public class SkelNode {
 
-    private List<Integer> location;
+    private int x;
+    private int y;
+    private int z;
     private Double radius;
     private Long associatedBodyId;
     private int type;
@@ -34,8 +42,26 @@ public class SkelNode {
      * @param rowNumber        row number of SkelNode within the swc file
      */
     public SkelNode(Long associatedBodyId, List<Integer> location, Double radius, int type, SkelNode parent, int rowNumber) {
+        this(associatedBodyId, location.get(0), location.get(1), location.get(2), radius, type, parent, rowNumber);
+    }
+
+    /**
+     * Class constructor for initial loading into database.
+     *
+     * @param associatedBodyId bodyId of neuron
+     * @param x                x coordinate of SkelNode center
+     * @param y                y coordinate of SkelNode center
+     * @param z                z coordinate of SkelNode center
+     * @param radius           radius of SkelNode
+     * @param type             type of SkelNode
+     * @param parent           parent of SkelNode
+     * @param rowNumber        row number of SkelNode within the swc file
+     */
+    public SkelNode(Long associatedBodyId, int x, int y, int z, Double radius, int type, SkelNode parent, int rowNumber) {
         this.associatedBodyId = associatedBodyId;
-        this.location = location;
+        this.x = x;
+        this.y = y;
+        this.z = z;
         this.radius = radius;
         this.type = type;
         this.parent = parent;
@@ -52,7 +78,9 @@ public class SkelNode {
      */
     public SkelNode(Long associatedBodyId, List<Integer> location, Double radius, int rowNumber) {
         this.associatedBodyId = associatedBodyId;
-        this.location = location;
+        this.x = location.get(0);
+        this.y = location.get(1);
+        this.z = location.get(2);
         this.radius = radius;
         this.rowNumber = rowNumber;
     }
@@ -70,13 +98,34 @@ public class SkelNode {
      * @return String containing json
      */
     public static String getSkelNodeListJson(List<SkelNode> skelNodeList) {
-        final Gson gson = new Gson();
-        return gson.toJson(skelNodeList);
+        // written field by field (in the order Gson used for this class) so the location is still a list of coordinates
+        final StringWriter stringWriter = new StringWriter();
+        try (final JsonWriter writer = new JsonWriter(stringWriter)) {
+            writer.beginArray();
+            for (final SkelNode skelNode : skelNodeList) {
+                writer.beginObject();
+                writer.name("location").beginArray().value(skelNode.x).value(skelNode.y).value(skelNode.z).endArray();
+                if (skelNode.radius != null) {
+                    writer.name("radius").value(skelNode.radius);
+                }
+                if (skelNode.associatedBodyId != null) {
+                    writer.name("associatedBodyId").value(skelNode.associatedBodyId);
+                }
+                writer.name("type").value(skelNode.type);
+                writer.name("rowNumber").value(skelNode.rowNumber);
+                writer.endObject();
+            }
+            writer.endArray();
+        } catch (IOException e) {
+            // a StringWriter does not throw
+            throw new UncheckedIOException(e);
+        }
+        return stringWriter.toString();
     }
 
     @Override
     public String toString() {
-        return "SkelNode{" + " location = " + location +
+        return "SkelNode{" + " location = " + getLocation() +
                 " radius = " + radius +
                 " type = " + type +
                 " rowNumber = " + rowNumber +
@@ -91,7 +140,7 @@ public class SkelNode {
             isEqual = true;
         } else if (o instanceof SkelNode) {
             final SkelNode that = (SkelNode) o;
-            isEqual = this.location.equals(that.location) && this.rowNumber == that.rowNumber;
+            isEqual = this.x == that.x && this.y == that.y && this.z == that.z && this.rowNumber == that.rowNumber;
         }
         return isEqual;
     }
@@ -99,7 +148,9 @@ public class SkelNode {
     @Override
     public int hashCode() {
         int result = 17;
-        result = 31 * result + location.hashCode();
+        result = 31 * result + x;
+        result = 31 * result + y;
+        result = 31 * result + z;
         result = 31 * result + rowNumber;
         return result;
     }
@@ -119,31 +170,31 @@ public class SkelNode {
     }
 
     /**
-     * @return list of integers representing SkelNode's 3D location
+     * @return new list of integers representing SkelNode's 3D location
      */
     public List<Integer> getLocation() {
-        return this.location;
+        return Arrays.asList(this.x, this.y, this.z);
     }
 
     /**
      * @return the x coordinate of this SkelNode's location
      */
-    public Integer getX() {
-        return this.location.get(0);
+    public int getX() {
+        return this.x;
     }
 
     /**
      * @return the y coordinate of this SkelNode's location
      */
-    public Integer getY() {
-        return this.location.get(1);
+    public int getY() {
+        return this.y;
     }
 
     /**
      * @return the z coordinate of this SkelNode's location
      */
-    public Integer getZ() {
-        return this.location.get(2);
+    public int getZ() {
+        return this.z;
     }
 
     /**
@@ -153,10 +204,6 @@ public class SkelNode {
         return this.rowNumber;
     }
 
-    private String locationToStringKey(List<Integer> location) {
-        return location.get(0) + ":" + location.get(1) + ":" + location.get(2);
-    }
-
     /**
      * Returns a string representation of this SkelNode's location.
      * In format "x:y:z".
@@ -164,7 +211,7 @@ public class SkelNode {
      * @return "x:y:z"
      */
     public String getLocationString() {
-        return locationToStringKey(this.location);
+        return this.x + ":" + this.y + ":" + this.z;
     }
 
     /**
@@ -173,7 +220,25 @@ public class SkelNode {
      * @return {@link Point}
      */
     public Point getLocationAsPoint() {
-        return Values.point(9157, this.location.get(0), this.location.get(1), this.location.get(2)).asPoint();
+        return Values.point(9157, this.x, this.y, this.z).asPoint();
+    }
+
+    /**
+     * Returns true if this SkelNode's location can be packed into a single long (see {@link Location#hasLocationKey()}).
+     *
+     * @return true if the location has a key
+     */
+    public boolean hasLocationKey() {
+        return SpatialKey.isEncodable(this.x, this.y, this.z);
+    }
+
+    /**
+     * Returns this SkelNode's location packed into a single long (see {@link Location#getLocationKey()}).
+     *
+     * @return location key
+     */
+    public long getLocationKey() {
+        return SpatialKey.encode(this.x, this.y, this.z);
     }
 
     /**
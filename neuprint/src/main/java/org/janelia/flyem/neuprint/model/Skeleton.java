@@ -2,7 +2,7 @@ package org.janelia.flyem.neuprint.model;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
@@ -97,60 +97,28 @@ public class Skeleton {
      * @throws IOException when swc file is not readable
      */
     public void fromSwc(final BufferedReader reader, final Long associatedBodyId, final String uuid) throws IOException {
-        String swcLine;
-        List<SkelNode> skelNodeList = new ArrayList<>();
-        List<Integer> location;
-        Double radius;
-        int type;
-        SkelNode parent;
-
-        while ((swcLine = reader.readLine()) != null) {
-
-            if (!swcLine.startsWith("#")) {
-
-                String[] lineComponents = swcLine.split(" ");
-
-                location = new ArrayList<>();
-                for (int i = 2; i < 5; i++) {
-                    int coordinate;
-                    try {
-                        coordinate = Integer.parseInt(lineComponents[i]);
-                    } catch (NumberFormatException nfe) {
-                        coordinate = Math.round(Float.parseFloat(lineComponents[i]));
-                    }
-                    location.add(coordinate);
-                }
-
-                radius = Double.parseDouble(lineComponents[5]);
-
-                type = Integer.parseInt(lineComponents[1]);
-
-                int parentIndex = Integer.parseInt(lineComponents[6]);
-
-                int rowNumber = Integer.parseInt(lineComponents[0]);
-
-                SkelNode skelNode;
-                if (parentIndex != -1) {
-                    parent = skelNodeList.get(parentIndex - 1);
-                    skelNode = new SkelNode(associatedBodyId, location, radius, type, parent, rowNumber);
-                    parent.addChild(skelNode);
-
-                } else {
-                    skelNode = new SkelNode(associatedBodyId, location, radius, type, null, rowNumber);
-                }
-
-                skelNodeList.add(skelNode);
-
-            } else if (swcLine.startsWith("#${\"mutation id\"")) {
-                this.mutationId = Optional.of(Long.parseLong(swcLine.replaceAll("[^0-9]", "")));
-            }
-
+        final StringBuilder swc = new StringBuilder();
+        final char[] buffer = new char[8192];
+        int charCount;
+        while ((charCount = reader.read(buffer)) != -1) {
+            swc.append(buffer, 0, charCount);
         }
+        fromSwcRows(SwcParser.parse(swc.toString().getBytes(StandardCharsets.UTF_8)), associatedBodyId, uuid);
+    }
 
-        this.skelNodeList = skelNodeList;
+    /**
+     * Adds the SkelNodes in the rows parsed from an swc file (see {@link SwcParser}) and the bodyId
+     * of the neuron to the Skeleton object.
+     *
+     * @param swcRows rows of swc file
+     * @param associatedBodyId bodyId of neuron
+     * @param uuid dvid uuid associated with skeleton
+     */
+    public void fromSwcRows(final SwcRows swcRows, final Long associatedBodyId, final String uuid) {
+        this.skelNodeList = swcRows.toSkelNodeList(associatedBodyId);
         this.associatedBodyId = associatedBodyId;
+        this.mutationId = Optional.ofNullable(swcRows.getMutationId());
         this.mutationUuid = Optional.ofNullable(uuid);
-
     }
 
 }
@@ -0,0 +1,251 @@
+package org.janelia.flyem.neuprint.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Parses swc files directly from bytes into {@link SwcRows}. Each line is tokenized in place and numbers are
+ * parsed without creating intermediate strings, falling back to the JDK parsers only for values that cannot
+ * be converted exactly by the fast path (e.g. non-integer coordinates or radii with more than 15 digits).
+ * Lines starting with # are comments, except for a mutation id header. Columns may be separated by
+ * any number of spaces or tabs.
+ */
+public class SwcParser {
+
+    private static final int COLUMN_COUNT = 7;
+    private static final byte[] MUTATION_ID_PREFIX = "#${\"mutation id\"".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_FAST_PATH_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final byte[] bytes;
+    private int position;
+    private int lineEnd;
+    private int lineNumber;
+
+    private SwcParser(final byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * @param file swc file
+     * @return rows read from the file
+     * @throws IOException if the file cannot be read
+     */
+    public static SwcRows read(final File file) throws IOException {
+        return parse(Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * @param bytes contents of an swc file
+     * @return rows parsed from the bytes
+     * @throws IllegalArgumentException if a row cannot be parsed
+     */
+    public static SwcRows parse(final byte[] bytes) {
+        return new SwcParser(bytes).parseRows();
+    }
+
+    private SwcRows parseRows() {
+        // swc rows are typically 30-50 bytes long
+        final SwcRows rows = new SwcRows(bytes.length / 32);
+        final int[] intColumns = new int[COLUMN_COUNT];
+        while (position < bytes.length) {
+            lineNumber++;
+            lineEnd = position;
+            while (lineEnd < bytes.length && bytes[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            final int nextLine = lineEnd + 1;
+            if (lineEnd > position && bytes[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+
+            skipWhitespace();
+            if (position < lineEnd) {
+                if (bytes[position] == '#') {
+                    parseComment(rows);
+                } else {
+                    intColumns[0] = parseIntToken();
+                    intColumns[1] = parseIntToken();
+                    intColumns[2] = parseCoordinateToken();
+                    intColumns[3] = parseCoordinateToken();
+                    intColumns[4] = parseCoordinateToken();
+                    final double radius = parseDoubleToken();
+                    intColumns[6] = parseIntToken();
+                    rows.add(intColumns[0], intColumns[1], intColumns[2], intColumns[3], intColumns[4], radius, intColumns[6]);
+                }
+            }
+
+            position = nextLine;
+        }
+        return rows;
+    }
+
+    private void parseComment(final SwcRows rows) {
+        if (lineEnd - position >= MUTATION_ID_PREFIX.length) {
+            for (int i = 0; i < MUTATION_ID_PREFIX.length; i++) {
+                if (bytes[position + i] != MUTATION_ID_PREFIX[i]) {
+                    return;
+                }
+            }
+            // the mutation id is made up of all digits on the line
+            final StringBuilder digits = new StringBuilder();
+            for (int i = position; i < lineEnd; i++) {
+                if (bytes[i] >= '0' && bytes[i] <= '9') {
+                    digits.append((char) bytes[i]);
+                }
+            }
+            rows.setMutationId(Long.parseLong(digits.toString()));
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < lineEnd && (bytes[position] == ' ' || bytes[position] == '\t')) {
+            position++;
+        }
+    }
+
+    private int nextToken() {
+        skipWhitespace();
+        if (position == lineEnd) {
+            throw new IllegalArgumentException("swc line " + lineNumber + " has fewer than " + COLUMN_COUNT + " columns");
+        }
+        final int start = position;
+        while (position < lineEnd && bytes[position] != ' ' && bytes[position] != '\t') {
+            position++;
+        }
+        return start;
+    }
+
+    private String tokenString(final int start) {
+        return new String(bytes, start, position - start, StandardCharsets.US_ASCII);
+    }
+
+    private int parseIntToken() {
+        final int start = nextToken();
+        final long value = parseInteger(start);
+        if (value == Long.MIN_VALUE) {
+            return parseIntFallback(start);
+        }
+        return (int) value;
+    }
+
+    private int parseCoordinateToken() {
+        final int start = nextToken();
+        final long value = parseInteger(start);
+        if (value == Long.MIN_VALUE) {
+            try {
+                return parseIntFallback(start);
+            } catch (final IllegalArgumentException e) {
+                return Math.round(Float.parseFloat(tokenString(start)));
+            }
+        }
+        return (int) value;
+    }
+
+    private int parseIntFallback(final int start) {
+        try {
+            return Integer.parseInt(tokenString(start));
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("swc line " + lineNumber + " has invalid integer '" + tokenString(start) + "'", e);
+        }
+    }
+
+    /**
+     * @return value of the token, or Long.MIN_VALUE if it is not a plain integer within the int range
+     */
+    private long parseInteger(final int start) {
+        int i = start;
+        boolean negative = false;
+        if (bytes[i] == '-' || bytes[i] == '+') {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        final int digitCount = position - i;
+        if (digitCount < 1 || digitCount > 9) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        for (; i < position; i++) {
+            final int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private double parseDoubleToken() {
+        final int start = nextToken();
+        int i = start;
+        boolean negative = false;
+        if (bytes[i] == '-' || bytes[i] == '+') {
+            negative = bytes[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digitCount = 0;
+        int fractionDigitCount = 0;
+        boolean inFraction = false;
+        for (; i < position; i++) {
+            final byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digitCount++;
+                if (inFraction) {
+                    fractionDigitCount++;
+                }
+            } else if (b == '.' && !inFraction) {
+                inFraction = true;
+            } else {
+                break;
+            }
+        }
+
+        int exponent = 0;
+        boolean validExponent = true;
+        if (i < position && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < position && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+            validExponent = i < position && position - i <= 3;
+            for (; i < position && validExponent; i++) {
+                final int digit = bytes[i] - '0';
+                validExponent = digit >= 0 && digit <= 9;
+                exponent = exponent * 10 + digit;
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+
+        // values with at most 15 digits and a power of ten up to 22 are exactly representable, so a single
+        // multiplication or division gives the correctly rounded result (the same as Double.parseDouble)
+        final int decimalExponent = exponent - fractionDigitCount;
+        if (i == position && validExponent && digitCount > 0 && digitCount <= MAX_FAST_PATH_DIGITS
+                && decimalExponent >= -22 && decimalExponent <= 22) {
+            double value = (double) mantissa;
+            if (decimalExponent >= 0) {
+                value *= POWERS_OF_TEN[decimalExponent];
+            } else {
+                value /= POWERS_OF_TEN[-decimalExponent];
+            }
+            return negative ? -value : value;
+        }
+
+        try {
+            return Double.parseDouble(tokenString(start));
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("swc line " + lineNumber + " has invalid number '" + tokenString(start) + "'", e);
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.janelia.flyem.neuprint.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The rows of an swc file stored in primitive arrays (one array per column), as produced by {@link SwcParser}.
+ */
+public class SwcRows {
+
+    private int size;
+    private int[] rowNumber;
+    private int[] type;
+    private int[] x;
+    private int[] y;
+    private int[] z;
+    private double[] radius;
+    private int[] parent;
+    private Long mutationId;
+
+    SwcRows(final int expectedSize) {
+        final int capacity = Math.max(expectedSize, 16);
+        this.rowNumber = new int[capacity];
+        this.type = new int[capacity];
+        this.x = new int[capacity];
+        this.y = new int[capacity];
+        this.z = new int[capacity];
+        this.radius = new double[capacity];
+        this.parent = new int[capacity];
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getRowNumber(final int row) {
+        return rowNumber[row];
+    }
+
+    public int getType(final int row) {
+        return type[row];
+    }
+
+    public int getX(final int row) {
+        return x[row];
+    }
+
+    public int getY(final int row) {
+        return y[row];
+    }
+
+    public int getZ(final int row) {
+        return z[row];
+    }
+
+    public double getRadius(final int row) {
+        return radius[row];
+    }
+
+    /**
+     * @param row row index
+     * @return parent column of the row (-1 for root nodes)
+     */
+    public int getParent(final int row) {
+        return parent[row];
+    }
+
+    /**
+     * @return mutation id from the swc header or null if there is none
+     */
+    public Long getMutationId() {
+        return mutationId;
+    }
+
+    /**
+     * Creates the {@link SkelNode}s for these rows. As when the swc file is read line by line, the parent column refers
+     * to the position of the parent row in the file (starting at 1), and parents must precede their children.
+     *
+     * @param associatedBodyId bodyId of neuron
+     * @return list of SkelNodes in row order
+     */
+    public List<SkelNode> toSkelNodeList(final Long associatedBodyId) {
+        final List<SkelNode> skelNodeList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final SkelNode skelNode;
+            if (parent[i] != -1) {
+                if (parent[i] < 1 || parent[i] > i) {
+                    throw new IllegalArgumentException("swc row " + rowNumber[i] + " has parent " + parent[i] + " which does not precede it");
+                }
+                final SkelNode parentNode = skelNodeList.get(parent[i] - 1);
+                skelNode = new SkelNode(associatedBodyId, x[i], y[i], z[i], radius[i], type[i], parentNode, rowNumber[i]);
+                parentNode.addChild(skelNode);
+            } else {
+                skelNode = new SkelNode(associatedBodyId, x[i], y[i], z[i], radius[i], type[i], null, rowNumber[i]);
+            }
+            skelNodeList.add(skelNode);
+        }
+        return skelNodeList;
+    }
+
+    void add(final int rowNumber, final int type, final int x, final int y, final int z, final double radius, final int parent) {
+        if (size == this.rowNumber.length) {
+            grow();
+        }
+        this.rowNumber[size] = rowNumber;
+        this.type[size] = type;
+        this.x[size] = x;
+        this.y[size] = y;
+        this.z[size] = z;
+        this.radius[size] = radius;
+        this.parent[size] = parent;
+        size++;
+    }
+
+    void setMutationId(final Long mutationId) {
+        this.mutationId = mutationId;
+    }
+
+    private void grow() {
+        final int capacity = rowNumber.length * 2;
+        rowNumber = Arrays.copyOf(rowNumber, capacity);
+        type = Arrays.copyOf(type, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+    }
+
+}
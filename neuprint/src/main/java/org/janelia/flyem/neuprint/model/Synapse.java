@@ -155,6 +155,15 @@ public class Synapse {
         return Values.point(9157, this.location.getX(), this.location.getY(), this.location.getZ()).asPoint();
     }
 
+    /**
+     * Returns location of synaptic density packed into a single long (see {@link Location#getLocationKey()}).
+     *
+     * @return location key
+     */
+    public long getLocationKey() {
+        return this.location.getLocationKey();
+    }
+
     /**
      * Returns the provided location string ("x:y:z") as a neo4j {@link Point}.
      *
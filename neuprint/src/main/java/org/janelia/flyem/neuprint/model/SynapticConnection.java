@@ -1,9 +1,9 @@
 package org.janelia.flyem.neuprint.model;
 
-import com.google.gson.annotations.SerializedName;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import org.janelia.flyem.neuprint.json.JsonUtils;
+import org.janelia.flyem.neuprintloadprocedures.SpatialKey;
 
 import java.io.BufferedReader;
 import java.lang.reflect.Type;
@@ -12,31 +12,83 @@ import java.util.List;
 /**
  * A class representing a synaptic connection between a presynaptic density and a postsynaptic density.
  * See <a href="http://github.com/janelia-flyem/neuPrint/blob/master/jsonspecs.md" target="_blank">connection JSON format</a>.
+ * The coordinates of both densities are stored as primitive longs; {@link #getPreLocation()} and
+ * {@link #getPostLocation()} create a new {@link Location} on each call.
  */
 public class SynapticConnection {
 
-    @SerializedName("pre")
-    private Location preLocation;
-
-    @SerializedName("post")
-    private Location postLocation;
+    private final long preX;
+    private final long preY;
+    private final long preZ;
+    private final long postX;
+    private final long postY;
+    private final long postZ;
 
     public SynapticConnection(Location preLocation, Location postLocation) {
-        this.preLocation = preLocation;
-        this.postLocation = postLocation;
+        this(preLocation.getX(), preLocation.getY(), preLocation.getZ(),
+                postLocation.getX(), postLocation.getY(), postLocation.getZ());
+    }
+
+    public SynapticConnection(long preX, long preY, long preZ, long postX, long postY, long postZ) {
+        this.preX = preX;
+        this.preY = preY;
+        this.preZ = preZ;
+        this.postX = postX;
+        this.postY = postY;
+        this.postZ = postZ;
     }
 
     public Location getPreLocation() {
-        return preLocation;
+        return new Location(preX, preY, preZ);
     }
 
     public Location getPostLocation() {
-        return postLocation;
+        return new Location(postX, postY, postZ);
+    }
+
+    public long getPreX() {
+        return preX;
+    }
+
+    public long getPreY() {
+        return preY;
+    }
+
+    public long getPreZ() {
+        return preZ;
+    }
+
+    public long getPostX() {
+        return postX;
+    }
+
+    public long getPostY() {
+        return postY;
+    }
+
+    public long getPostZ() {
+        return postZ;
+    }
+
+    /**
+     * @return presynaptic location packed into a {@link SpatialKey} (see {@link Location#getLocationKey()})
+     * @throws IllegalArgumentException if a coordinate is negative or greater than {@link SpatialKey#MAX_COORDINATE}
+     */
+    public long getPreLocationKey() {
+        return SpatialKey.encode(preX, preY, preZ);
+    }
+
+    /**
+     * @return postsynaptic location packed into a {@link SpatialKey} (see {@link Location#getLocationKey()})
+     * @throws IllegalArgumentException if a coordinate is negative or greater than {@link SpatialKey#MAX_COORDINATE}
+     */
+    public long getPostLocationKey() {
+        return SpatialKey.encode(postX, postY, postZ);
     }
 
     @Override
     public String toString() {
-        return this.preLocation + "->" + this.postLocation;
+        return preX + ":" + preY + ":" + preZ + "->" + postX + ":" + postY + ":" + postZ;
     }
 
     @Override
@@ -46,7 +98,8 @@ public class SynapticConnection {
             isEqual = true;
         } else if (o instanceof SynapticConnection) {
             final SynapticConnection that = (SynapticConnection) o;
-            isEqual = this.preLocation.equals(that.preLocation) && this.postLocation.equals(that.postLocation);
+            isEqual = this.preX == that.preX && this.preY == that.preY && this.preZ == that.preZ
+                    && this.postX == that.postX && this.postY == that.postY && this.postZ == that.postZ;
         }
         return isEqual;
     }
@@ -54,8 +107,12 @@ public class SynapticConnection {
     @Override
     public int hashCode() {
         int result = 17;
-        result = 31 * result + this.preLocation.hashCode();
-        result = 31 * result + this.postLocation.hashCode();
+        result = 31 * result + Long.hashCode(this.preX);
+        result = 31 * result + Long.hashCode(this.preY);
+        result = 31 * result + Long.hashCode(this.preZ);
+        result = 31 * result + Long.hashCode(this.postX);
+        result = 31 * result + Long.hashCode(this.postY);
+        result = 31 * result + Long.hashCode(this.postZ);
         return result;
     }
 
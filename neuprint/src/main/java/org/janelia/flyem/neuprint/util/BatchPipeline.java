@@ -0,0 +1,211 @@
+package org.janelia.flyem.neuprint.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Overlaps reading (e.g. parsing JSON) with writing for batched loads. A dedicated reader thread
+ * fills a bounded queue with batches while the calling thread takes batches from the queue and writes them,
+ * so batches are written in the order they were read. When the queue is full, the reader thread waits
+ * for the writer, and when the queue is empty, the writer waits for the reader. The time spent waiting on
+ * each side is logged when the pipeline finishes to show whether the load is limited by reading or writing.
+ * <p>
+ * Batches are either pulled from a {@link BatchSource} or pushed by a {@link BatchProducer} (e.g. from within
+ * a streaming parser callback, so that a batch can end in the middle of a record).
+ *
+ * @param <T> type of item in each batch
+ */
+public class BatchPipeline<T> {
+
+    private final String name;
+    private final int queueDepth;
+
+    // the reader thread adds this marker after the last batch (or after a failure)
+    private final Object endOfBatches = new Object();
+
+    private volatile boolean cancelled;
+    private volatile Exception readFailure;
+    private long readerWaitNanos;
+    private long writerWaitNanos;
+
+    /**
+     * Class constructor.
+     *
+     * @param name       name used for the reader thread and when logging
+     * @param queueDepth maximum number of batches that have been read but not yet written
+     *                   (if less than 1, batches are read and written on the calling thread)
+     */
+    public BatchPipeline(final String name,
+                         final int queueDepth) {
+        this.name = name;
+        this.queueDepth = queueDepth;
+    }
+
+    /**
+     * Reads batches from the source and passes them to the writer until the source returns an empty batch.
+     *
+     * @param source source of batches
+     * @param writer writer for batches (called on the calling thread)
+     * @return number of batches written
+     * @throws IOException if the source fails to read a batch
+     */
+    public long run(final BatchSource<T> source,
+                    final BatchWriter<T> writer) throws IOException {
+        return run(emitter -> {
+            for (List<T> batch = source.nextBatch(); !batch.isEmpty(); batch = source.nextBatch()) {
+                emitter.accept(batch);
+            }
+        }, writer);
+    }
+
+    /**
+     * Passes the batches emitted by the producer to the writer until the producer returns.
+     *
+     * @param producer producer of batches
+     * @param writer   writer for batches (called on the calling thread)
+     * @return number of batches written
+     * @throws IOException if the producer fails to read a batch
+     */
+    public long run(final BatchProducer<T> producer,
+                    final BatchWriter<T> writer) throws IOException {
+
+        if (queueDepth < 1) {
+            final long[] batchCount = {0};
+            producer.produce(batch -> {
+                if (!batch.isEmpty()) {
+                    writer.write(batch);
+                    batchCount[0]++;
+                }
+            });
+            return batchCount[0];
+        }
+
+        final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueDepth);
+        final ExecutorService reader = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, name + "-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        reader.execute(() -> readBatches(producer, queue));
+
+        long batchCount = 0;
+        try {
+            while (true) {
+                final long waitStart = System.nanoTime();
+                final Object batch = queue.take();
+                writerWaitNanos += System.nanoTime() - waitStart;
+                if (batch == endOfBatches) {
+                    break;
+                }
+                @SuppressWarnings("unchecked") final List<T> typedBatch = (List<T>) batch;
+                writer.write(typedBatch);
+                batchCount++;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(name + ": interrupted while waiting for batch", e);
+        } finally {
+            // stops the reader if writing failed
+            cancelled = true;
+            reader.shutdownNow();
+        }
+
+        LOG.info("run: {} wrote {} batches, reader waited {} ms for the writer (write-bound), writer waited {} ms for the reader (read-bound)",
+                name, batchCount, TimeUnit.NANOSECONDS.toMillis(readerWaitNanos), TimeUnit.NANOSECONDS.toMillis(writerWaitNanos));
+
+        if (readFailure instanceof IOException) {
+            throw (IOException) readFailure;
+        } else if (readFailure != null) {
+            throw new RuntimeException(name + ": failed to read batch", readFailure);
+        }
+
+        return batchCount;
+    }
+
+    private void readBatches(final BatchProducer<T> producer,
+                             final BlockingQueue<Object> queue) {
+        try {
+            producer.produce(batch -> {
+                if (cancelled) {
+                    throw new WriterStoppedException();
+                } else if (batch.isEmpty()) {
+                    return;
+                }
+                final long waitStart = System.nanoTime();
+                try {
+                    queue.put(batch);
+                } catch (final InterruptedException e) {
+                    throw new WriterStoppedException();
+                }
+                readerWaitNanos += System.nanoTime() - waitStart;
+            });
+        } catch (final WriterStoppedException e) {
+            return;
+        } catch (final Exception e) {
+            readFailure = e;
+        }
+        try {
+            queue.put(endOfBatches);
+        } catch (final InterruptedException e) {
+            // writer has stopped
+        }
+    }
+
+    /**
+     * Source of batches (called on the reader thread).
+     *
+     * @param <T> type of item in each batch
+     */
+    @FunctionalInterface
+    public interface BatchSource<T> {
+        /**
+         * @return the next batch, or an empty list when there are no more batches
+         * @throws IOException if the batch cannot be read
+         */
+        List<T> nextBatch() throws IOException;
+    }
+
+    /**
+     * Producer of batches (called on the reader thread).
+     *
+     * @param <T> type of item in each batch
+     */
+    @FunctionalInterface
+    public interface BatchProducer<T> {
+        /**
+         * Reads all batches, passing each one to the emitter as soon as it is complete. The emitter waits while
+         * the queue is full and throws an unchecked exception if the writer has stopped, which must not be caught.
+         *
+         * @param emitter accepts each batch (empty batches are ignored)
+         * @throws IOException if a batch cannot be read
+         */
+        void produce(Consumer<List<T>> emitter) throws IOException;
+    }
+
+    /**
+     * Writer for batches (called on the thread that runs the pipeline).
+     *
+     * @param <T> type of item in each batch
+     */
+    @FunctionalInterface
+    public interface BatchWriter<T> {
+        void write(List<T> batch);
+    }
+
+    // unwinds the producer once the writer has stopped
+    private static class WriterStoppedException extends RuntimeException {
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchPipeline.class);
+
+}
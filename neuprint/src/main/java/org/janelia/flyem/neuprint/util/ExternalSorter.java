@@ -0,0 +1,207 @@
+package org.janelia.flyem.neuprint.util;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Sorts the records of a JSON array into a new JSON array file. At most a fixed number of records
+ * are held in memory: larger inputs are split into sorted runs that are spilled to temporary files
+ * and then merged, so the input can be larger than the heap. The sort is stable.
+ *
+ * @param <T> record type
+ */
+public class ExternalSorter<T> {
+
+    private final String name;
+    private final Class<T> recordClass;
+    private final Comparator<T> comparator;
+    private final Gson gson;
+    private final int maxRecordsInMemory;
+    private final File tempDirectory;
+
+    /**
+     * Class constructor.
+     *
+     * @param name               name used for temporary files and when logging
+     * @param recordClass        record class (used to read spilled runs)
+     * @param comparator         order of the sorted records
+     * @param gson               gson instance for writing records and reading spilled runs
+     * @param maxRecordsInMemory maximum number of records sorted in memory before a run is spilled to disk
+     * @param tempDirectory      directory for spilled runs
+     */
+    public ExternalSorter(final String name,
+                          final Class<T> recordClass,
+                          final Comparator<T> comparator,
+                          final Gson gson,
+                          final int maxRecordsInMemory,
+                          final File tempDirectory) {
+        if (maxRecordsInMemory < 1) {
+            throw new IllegalArgumentException("maxRecordsInMemory must be at least 1");
+        }
+        this.name = name;
+        this.recordClass = recordClass;
+        this.comparator = comparator;
+        this.gson = gson;
+        this.maxRecordsInMemory = maxRecordsInMemory;
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Sorts the records of a JSON array into a JSON array file.
+     *
+     * @param reader     reader positioned before the JSON array
+     * @param parser     function for parsing a single record
+     * @param outputFile file for the sorted JSON array
+     * @return number of sorted records
+     * @throws IOException if the input cannot be read or the output cannot be written
+     */
+    public long sort(final JsonReader reader,
+                     final Function<JsonReader, T> parser,
+                     final File outputFile) throws IOException {
+
+        final List<File> runFiles = new ArrayList<>();
+        final List<T> records = new ArrayList<>();
+        long recordCount = 0;
+
+        try {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                records.add(parser.apply(reader));
+                recordCount++;
+                if (records.size() >= maxRecordsInMemory) {
+                    runFiles.add(spillRun(records, runFiles.size()));
+                    records.clear();
+                }
+            }
+            reader.endArray();
+
+            if (runFiles.isEmpty()) {
+                records.sort(comparator);
+                writeRecords(records, outputFile);
+            } else {
+                if (!records.isEmpty()) {
+                    runFiles.add(spillRun(records, runFiles.size()));
+                    records.clear();
+                }
+                mergeRuns(runFiles, outputFile);
+            }
+        } finally {
+            for (final File runFile : runFiles) {
+                Files.deleteIfExists(runFile.toPath());
+            }
+        }
+
+        LOG.info("sort: sorted {} {} records into {} ({} runs spilled to disk)", recordCount, name, outputFile, runFiles.size());
+
+        return recordCount;
+    }
+
+    private File spillRun(final List<T> records,
+                          final int runIndex) throws IOException {
+        records.sort(comparator);
+        final File runFile = File.createTempFile(name + "-run" + runIndex + "-", ".json", tempDirectory);
+        writeRecords(records, runFile);
+        return runFile;
+    }
+
+    private void writeRecords(final List<T> records,
+                              final File file) throws IOException {
+        try (final JsonWriter writer = openWriter(file)) {
+            writer.beginArray();
+            for (final T record : records) {
+                gson.toJson(record, recordClass, writer);
+            }
+            writer.endArray();
+        }
+    }
+
+    private void mergeRuns(final List<File> runFiles,
+                           final File outputFile) throws IOException {
+
+        // ties are broken by run index so that the merge is stable
+        final PriorityQueue<Run> runQueue = new PriorityQueue<>(runFiles.size(),
+                (a, b) -> {
+                    final int order = comparator.compare(a.head, b.head);
+                    return order != 0 ? order : Integer.compare(a.index, b.index);
+                });
+
+        final List<Run> runs = new ArrayList<>(runFiles.size());
+        try (final JsonWriter writer = openWriter(outputFile)) {
+            for (int i = 0; i < runFiles.size(); i++) {
+                final Run run = new Run(i, runFiles.get(i));
+                runs.add(run);
+                if (run.advance()) {
+                    runQueue.add(run);
+                }
+            }
+
+            writer.beginArray();
+            while (!runQueue.isEmpty()) {
+                final Run run = runQueue.poll();
+                gson.toJson(run.head, recordClass, writer);
+                if (run.advance()) {
+                    runQueue.add(run);
+                }
+            }
+            writer.endArray();
+        } finally {
+            for (final Run run : runs) {
+                run.reader.close();
+            }
+        }
+    }
+
+    private static JsonWriter openWriter(final File file) throws IOException {
+        final BufferedWriter bufferedWriter = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+        return new JsonWriter(bufferedWriter);
+    }
+
+    private class Run {
+
+        private final int index;
+        private final JsonReader reader;
+        private T head;
+
+        private Run(final int index,
+                    final File file) throws IOException {
+            this.index = index;
+            final BufferedReader bufferedReader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+            this.reader = new JsonReader(bufferedReader);
+            this.reader.beginArray();
+        }
+
+        // reads the next record of the run into head, returning false at the end of the run
+        private boolean advance() {
+            try {
+                if (reader.hasNext()) {
+                    head = gson.fromJson(reader, recordClass);
+                    return true;
+                } else {
+                    head = null;
+                    return false;
+                }
+            } catch (final IOException e) {
+                throw new UncheckedIOException("failed to read " + name + " run " + index, e);
+            }
+        }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExternalSorter.class);
+
+}
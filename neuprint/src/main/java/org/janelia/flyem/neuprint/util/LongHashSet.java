@@ -0,0 +1,153 @@
+package org.janelia.flyem.neuprint.util;
+
+import java.util.Arrays;
+
+/**
+ * A set of longs stored in a primitive array (open addressing with linear probing), avoiding
+ * the boxed values and entry objects of a {@link java.util.HashSet}. Values cannot be removed.
+ * This class is not thread safe.
+ */
+public class LongHashSet {
+
+    private static final long FREE_VALUE = 0L;
+    private static final float LOAD_FACTOR = 0.6F;
+
+    private long[] values;
+    private int mask;
+    private int resizeThreshold;
+    private int size;
+
+    // the free value marks empty slots, so it is tracked separately
+    private boolean hasFreeValue;
+
+    /**
+     * Class constructor.
+     */
+    public LongHashSet() {
+        this(4);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param expectedSize number of values the set should hold without resizing
+     */
+    public LongHashSet(final int expectedSize) {
+        final int capacity = getCapacity(expectedSize, LOAD_FACTOR);
+        this.values = new long[capacity];
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * LOAD_FACTOR);
+        this.size = 0;
+    }
+
+    /**
+     * @return number of values in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the set has no values
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param value value
+     * @return true if the set contains the value
+     */
+    public boolean contains(final long value) {
+        if (value == FREE_VALUE) {
+            return hasFreeValue;
+        }
+        return values[findSlot(value)] == value;
+    }
+
+    /**
+     * @param value value to add
+     * @return true if the value was not already in the set
+     */
+    public boolean add(final long value) {
+        if (value == FREE_VALUE) {
+            if (hasFreeValue) {
+                return false;
+            }
+            hasFreeValue = true;
+            size++;
+            return true;
+        }
+        final int slot = findSlot(value);
+        if (values[slot] == value) {
+            return false;
+        }
+        values[slot] = value;
+        if (++size > resizeThreshold) {
+            resize(values.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * @return the values in the set in ascending order
+     */
+    public long[] toSortedArray() {
+        final long[] sortedValues = new long[size];
+        int i = 0;
+        if (hasFreeValue) {
+            sortedValues[i++] = FREE_VALUE;
+        }
+        for (final long value : values) {
+            if (value != FREE_VALUE) {
+                sortedValues[i++] = value;
+            }
+        }
+        Arrays.sort(sortedValues);
+        return sortedValues;
+    }
+
+    private int findSlot(final long value) {
+        int slot = hash(value) & mask;
+        while (values[slot] != FREE_VALUE && values[slot] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(final int newCapacity) {
+        final long[] oldValues = values;
+        values = new long[newCapacity];
+        mask = newCapacity - 1;
+        resizeThreshold = (int) (newCapacity * LOAD_FACTOR);
+        for (final long value : oldValues) {
+            if (value != FREE_VALUE) {
+                values[findSlot(value)] = value;
+            }
+        }
+    }
+
+    /**
+     * @param value value
+     * @return hash code for the value that is suitable for masking into a power-of-two sized table
+     */
+    public static int hash(final long value) {
+        // spreads keys that differ only in their high bits (e.g. interleaved coordinates) across the table
+        final long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @param expectedSize number of values a table should hold without resizing
+     * @param loadFactor   maximum fraction of the table's slots that may be used
+     * @return power-of-two table capacity
+     */
+    public static int getCapacity(final int expectedSize, final float loadFactor) {
+        final long minimumCapacity = (long) Math.ceil(Math.max(expectedSize, 2) / loadFactor) + 1;
+        if (minimumCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("expected size is too large: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) minimumCapacity - 1) << 1;
+    }
+
+}
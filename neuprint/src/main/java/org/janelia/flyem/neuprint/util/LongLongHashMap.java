@@ -0,0 +1,181 @@
+package org.janelia.flyem.neuprint.util;
+
+import java.util.Arrays;
+
+/**
+ * A map from long keys to long values that stores entries in primitive arrays (open addressing
+ * with linear probing), avoiding the boxed keys, values, and entry objects of a {@link java.util.HashMap}.
+ * Entries cannot be removed. This class is not thread safe.
+ */
+public class LongLongHashMap {
+
+    private static final long FREE_KEY = 0L;
+    private static final float LOAD_FACTOR = 0.6F;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int resizeThreshold;
+    private int size;
+
+    // the free key marks empty slots, so it is stored separately
+    private boolean hasFreeKey;
+    private long freeKeyValue;
+
+    /**
+     * Class constructor.
+     */
+    public LongLongHashMap() {
+        this(16);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param expectedSize number of entries the map should hold without resizing
+     */
+    public LongLongHashMap(final int expectedSize) {
+        final int capacity = LongHashSet.getCapacity(expectedSize, LOAD_FACTOR);
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * LOAD_FACTOR);
+        this.size = 0;
+    }
+
+    /**
+     * @return number of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the map has no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param key key
+     * @return true if the map contains the key
+     */
+    public boolean containsKey(final long key) {
+        if (key == FREE_KEY) {
+            return hasFreeKey;
+        }
+        return keys[findSlot(key)] == key;
+    }
+
+    /**
+     * @param key          key
+     * @param defaultValue value to return if the map does not contain the key
+     * @return value for the key or the default value
+     */
+    public long getOrDefault(final long key, final long defaultValue) {
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeKeyValue : defaultValue;
+        }
+        final int slot = findSlot(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Associates the value with the key, replacing any existing value.
+     *
+     * @param key   key
+     * @param value value
+     */
+    public void put(final long key, final long value) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeKeyValue = value;
+            return;
+        }
+        final int slot = findSlot(key);
+        values[slot] = value;
+        if (keys[slot] != key) {
+            keys[slot] = key;
+            if (++size > resizeThreshold) {
+                resize(keys.length * 2);
+            }
+        }
+    }
+
+    /**
+     * Associates the value with the key if the map does not already contain the key.
+     *
+     * @param key   key
+     * @param value value
+     * @return true if the value was added
+     */
+    public boolean putIfAbsent(final long key, final long value) {
+        if (containsKey(key)) {
+            return false;
+        }
+        put(key, value);
+        return true;
+    }
+
+    /**
+     * Performs the action for each entry in the map. The order of entries is not defined.
+     *
+     * @param action action to perform
+     */
+    public void forEach(final LongLongConsumer action) {
+        if (hasFreeKey) {
+            action.accept(FREE_KEY, freeKeyValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes all entries while keeping the allocated capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        hasFreeKey = false;
+        size = 0;
+    }
+
+    private int findSlot(final long key) {
+        int slot = LongHashSet.hash(key) & mask;
+        while (keys[slot] != FREE_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(final int newCapacity) {
+        final long[] oldKeys = keys;
+        final long[] oldValues = values;
+        keys = new long[newCapacity];
+        values = new long[newCapacity];
+        mask = newCapacity - 1;
+        resizeThreshold = (int) (newCapacity * LOAD_FACTOR);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE_KEY) {
+                final int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Action performed on each entry of a {@link LongLongHashMap}.
+     */
+    @FunctionalInterface
+    public interface LongLongConsumer {
+        void accept(long key, long value);
+    }
+
+}
@@ -0,0 +1,153 @@
+package org.janelia.flyem.neuprint.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * A map from long keys to long values like {@link LongLongHashMap}, but with its table in direct buffers
+ * outside of the heap, so that a map with hundreds of millions of entries does not add to garbage
+ * collection work or require a larger heap. Each entry takes 16 bytes per slot (the table is kept at most
+ * {@value #LOAD_FACTOR_PERCENT}% full), split across buffers of up to {@value #SEGMENT_SLOTS} slots.
+ * Direct memory is limited by -XX:MaxDirectMemorySize (which defaults to the maximum heap size).
+ * <p>
+ * Entries cannot be removed. Methods are synchronized, so a map can be filled by writer threads while
+ * it is read by another thread.
+ */
+public class OffHeapLongLongHashMap {
+
+    private static final long FREE_KEY = 0L;
+    private static final int LOAD_FACTOR_PERCENT = 60;
+    private static final float LOAD_FACTOR = LOAD_FACTOR_PERCENT / 100.0F;
+    private static final int SEGMENT_SHIFT = 26;
+    private static final int SEGMENT_SLOTS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SLOTS - 1;
+
+    // keys and values are interleaved, so each slot is two longs
+    private LongBuffer[] segments;
+    private int mask;
+    private int resizeThreshold;
+    private int size;
+
+    // the free key marks empty slots, so it is stored separately
+    private boolean hasFreeKey;
+    private long freeKeyValue;
+
+    /**
+     * Class constructor.
+     *
+     * @param expectedSize number of entries the map should hold without resizing
+     */
+    public OffHeapLongLongHashMap(final int expectedSize) {
+        allocate(LongHashSet.getCapacity(expectedSize, LOAD_FACTOR));
+        this.size = 0;
+    }
+
+    /**
+     * @return number of entries in the map
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @param key key
+     * @return true if the map contains the key
+     */
+    public synchronized boolean containsKey(final long key) {
+        if (key == FREE_KEY) {
+            return hasFreeKey;
+        }
+        return getKey(findSlot(key)) == key;
+    }
+
+    /**
+     * @param key          key
+     * @param defaultValue value to return if the map does not contain the key
+     * @return value for the key or the default value
+     */
+    public synchronized long getOrDefault(final long key, final long defaultValue) {
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeKeyValue : defaultValue;
+        }
+        final int slot = findSlot(key);
+        return getKey(slot) == key ? getValue(slot) : defaultValue;
+    }
+
+    /**
+     * Associates the value with the key, replacing any existing value.
+     *
+     * @param key   key
+     * @param value value
+     */
+    public synchronized void put(final long key, final long value) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeKeyValue = value;
+            return;
+        }
+        final int slot = findSlot(key);
+        final boolean isNewKey = getKey(slot) != key;
+        setSlot(slot, key, value);
+        if (isNewKey && ++size > resizeThreshold) {
+            resize();
+        }
+    }
+
+    private void allocate(final int capacity) {
+        final int segmentCount = Math.max(1, capacity >>> SEGMENT_SHIFT);
+        final int slotsPerSegment = Math.min(capacity, SEGMENT_SLOTS);
+        segments = new LongBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // direct buffers are zeroed, so every slot starts out free
+            segments[i] = ByteBuffer.allocateDirect(slotsPerSegment * 2 * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private long getKey(final int slot) {
+        return segments[slot >>> SEGMENT_SHIFT].get((slot & SEGMENT_MASK) << 1);
+    }
+
+    private long getValue(final int slot) {
+        return segments[slot >>> SEGMENT_SHIFT].get(((slot & SEGMENT_MASK) << 1) + 1);
+    }
+
+    private void setSlot(final int slot, final long key, final long value) {
+        final LongBuffer segment = segments[slot >>> SEGMENT_SHIFT];
+        final int index = (slot & SEGMENT_MASK) << 1;
+        segment.put(index, key);
+        segment.put(index + 1, value);
+    }
+
+    private int findSlot(final long key) {
+        int slot = LongHashSet.hash(key) & mask;
+        long slotKey;
+        while ((slotKey = getKey(slot)) != FREE_KEY && slotKey != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        final LongBuffer[] oldSegments = segments;
+        final int oldCapacity = mask + 1;
+        if (oldCapacity == 1 << 30) {
+            throw new IllegalStateException("map cannot hold more than " + resizeThreshold + " entries");
+        }
+        allocate(oldCapacity * 2);
+        for (final LongBuffer oldSegment : oldSegments) {
+            for (int index = 0; index < oldSegment.capacity(); index += 2) {
+                final long key = oldSegment.get(index);
+                if (key != FREE_KEY) {
+                    setSlot(findSlot(key), key, oldSegment.get(index + 1));
+                }
+            }
+        }
+    }
+
+}
@@ -73,7 +73,8 @@ public class BatchImportTest {
 
         driver = GraphDatabase.driver(neo4j.boltURI(), Config.build().withoutEncryption().toConfig());
 
-        Neo4jImporter neo4jImporter = new Neo4jImporter(driver);
+        // load using concurrent writers
+        Neo4jImporter neo4jImporter = new Neo4jImporter(driver, 4);
 
         String dataset = "test";
 
@@ -85,6 +86,8 @@ public class BatchImportTest {
 
         NeuPrintMain.loadSkeletonsInBatches(arrayOfSwcFiles, 2, true, neo4jImporter, dataset, 1.0F,.2D,.8D, true, true, timeStamp);
 
+        neo4jImporter.reconcileMetaNodeSynapseCounts(dataset, timeStamp);
+
         neo4jImporter.addMetaInfo(dataset, metaInfo, timeStamp);
 
     }
@@ -0,0 +1,160 @@
+package org.janelia.flyem.neuprint;
+
+import apoc.convert.Json;
+import apoc.create.Create;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.janelia.flyem.neuprint.connectome.ConnectomeAggregator;
+import org.janelia.flyem.neuprint.model.Neuron;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprintloadprocedures.procedures.LoadingProcedures;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.driver.v1.Config;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.harness.junit.Neo4jRule;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests that connection info computed client-side by a {@link ConnectomeAggregator} matches the connection info
+ * computed by loader.addPropsAndConnectionInfoToSegment. The same files are loaded into the "test" dataset on the
+ * procedure path and into the "aggregated" dataset on the aggregator path.
+ */
+public class ConnectomeAggregatorLoadTest {
+
+    @ClassRule
+    public static Neo4jRule neo4j;
+    private static Driver driver;
+
+    static {
+        neo4j = new Neo4jRule()
+                .withFunction(Json.class)
+                .withProcedure(LoadingProcedures.class)
+                .withProcedure(Create.class);
+    }
+
+    @BeforeClass
+    public static void before() {
+
+        final LocalDateTime timeStamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        List<Neuron> neuronList = NeuPrintMain.readNeuronsJson("src/test/resources/neuronList.json");
+        List<Synapse> synapseList = NeuPrintMain.readSynapsesJson("src/test/resources/synapseList.json");
+        List<SynapticConnection> connectionsList = NeuPrintMain.readConnectionsJson("src/test/resources/connectionsList.json");
+
+        driver = GraphDatabase.driver(neo4j.boltURI(), Config.build().withoutEncryption().toConfig());
+
+        Neo4jImporter neo4jImporter = new Neo4jImporter(driver, 4);
+
+        NeuPrintMain.runStandardLoadWithoutMetaInfo(neo4jImporter, "test", synapseList, connectionsList, neuronList, new ArrayList<>(), 1.0F, .2D, .8D, 5, true, true, timeStamp);
+
+        String dataset = "aggregated";
+        Assert.assertFalse(neo4jImporter.hasDataset(dataset));
+
+        ConnectomeAggregator connectomeAggregator = new ConnectomeAggregator(.2D, .8D, 5);
+        connectomeAggregator.addSynapses(synapseList);
+        connectomeAggregator.addSynapticConnections(connectionsList);
+        connectomeAggregator.addNeurons(neuronList);
+
+        NeuPrintMain.initializeDatabase(neo4jImporter, dataset, 1.0F, .2D, .8D, true, true, timeStamp);
+        neo4jImporter.addSynapsesWithRois(dataset, synapseList, timeStamp);
+        neo4jImporter.indexBooleanRoiProperties(dataset);
+        neo4jImporter.addSynapsesTo(dataset, connectionsList, timeStamp);
+        neo4jImporter.reconcileMetaNodeSynapseCounts(dataset, timeStamp);
+        neo4jImporter.addSegments(dataset, neuronList, timeStamp);
+        neo4jImporter.addConnectionInfo(dataset, connectomeAggregator, true, timeStamp);
+
+        Assert.assertTrue(neo4jImporter.hasDataset(dataset));
+    }
+
+    @AfterClass
+    public static void after() {
+        driver.close();
+    }
+
+    @Test
+    public void segmentsShouldHaveTheSameCountsLabelsAndClusterNames() {
+
+        Map<Long, Record> expectedSegments = getSegments("test");
+        Map<Long, Record> aggregatedSegments = getSegments("aggregated");
+
+        Assert.assertEquals(10, expectedSegments.size());
+        Assert.assertEquals(expectedSegments.keySet(), aggregatedSegments.keySet());
+
+        for (Map.Entry<Long, Record> entry : expectedSegments.entrySet()) {
+            Record expected = entry.getValue();
+            Record aggregated = aggregatedSegments.get(entry.getKey());
+            String message = "bodyId " + entry.getKey();
+            Assert.assertEquals(message, expected.get("pre").asObject(), aggregated.get("pre").asObject());
+            Assert.assertEquals(message, expected.get("post").asObject(), aggregated.get("post").asObject());
+            Assert.assertEquals(message, parseRoiInfo(expected.get("roiInfo").asString(null)), parseRoiInfo(aggregated.get("roiInfo").asString(null)));
+            Assert.assertEquals(message, expected.get("isNeuron").asBoolean(), aggregated.get("isNeuron").asBoolean());
+            Assert.assertEquals(message, expected.get("clusterName").asObject(), aggregated.get("clusterName").asObject());
+        }
+
+        // segments without a synapse set are not labeled :Neuron on either path
+        Assert.assertFalse(aggregatedSegments.get(100569L).get("isNeuron").asBoolean());
+        Assert.assertTrue(aggregatedSegments.get(8426959L).get("isNeuron").asBoolean());
+    }
+
+    @Test
+    public void connectionSetsAndConnectsToShouldHaveTheSameRoiInfoAndWeights() {
+
+        Map<String, Record> expectedConnectionSets = getConnectionSets("test");
+        Map<String, Record> aggregatedConnectionSets = getConnectionSets("aggregated");
+
+        Assert.assertEquals(5, expectedConnectionSets.size());
+        Assert.assertEquals(expectedConnectionSets.keySet(), aggregatedConnectionSets.keySet());
+
+        for (Map.Entry<String, Record> entry : expectedConnectionSets.entrySet()) {
+            Record expected = entry.getValue();
+            Record aggregated = aggregatedConnectionSets.get(entry.getKey());
+            String message = "connection set " + entry.getKey();
+            Assert.assertEquals(message, parseRoiInfo(expected.get("roiInfo").asString()), parseRoiInfo(aggregated.get("roiInfo").asString()));
+            Assert.assertEquals(message, expected.get("weight").asObject(), aggregated.get("weight").asObject());
+            Assert.assertEquals(message, expected.get("weightHP").asObject(), aggregated.get("weightHP").asObject());
+            Assert.assertEquals(message, expected.get("synapseCount").asLong(), aggregated.get("synapseCount").asLong());
+        }
+    }
+
+    private static Map<Long, Record> getSegments(String dataset) {
+        Map<Long, Record> segments = new HashMap<>();
+        try (Session session = driver.session()) {
+            session.readTransaction(tx -> tx.run("MATCH (n:`" + dataset + "-Segment`) RETURN n.bodyId AS bodyId, n.pre AS pre, n.post AS post, " +
+                    "n.roiInfo AS roiInfo, n:`" + dataset + "-Neuron` AS isNeuron, n.clusterName AS clusterName").list())
+                    .forEach(record -> segments.put(record.get("bodyId").asLong(), record));
+        }
+        return segments;
+    }
+
+    private static Map<String, Record> getConnectionSets(String dataset) {
+        Map<String, Record> connectionSets = new HashMap<>();
+        try (Session session = driver.session()) {
+            session.readTransaction(tx -> tx.run("MATCH (a:`" + dataset + "-Segment`)<-[:From]-(c:`" + dataset + "-ConnectionSet`)-[:To]->(b:`" + dataset + "-Segment`) " +
+                    "OPTIONAL MATCH (a)-[r:ConnectsTo]->(b) " +
+                    "RETURN a.bodyId + \":\" + b.bodyId AS bodyIds, c.roiInfo AS roiInfo, r.weight AS weight, r.weightHP AS weightHP, " +
+                    "size((c)-[:Contains]->()) AS synapseCount").list())
+                    .forEach(record -> connectionSets.put(record.get("bodyIds").asString(), record));
+        }
+        return connectionSets;
+    }
+
+    private static Map<String, Map<String, Object>> parseRoiInfo(String roiInfo) {
+        return new Gson().fromJson(roiInfo, new TypeToken<Map<String, Map<String, Object>>>() {
+        }.getType());
+    }
+
+}
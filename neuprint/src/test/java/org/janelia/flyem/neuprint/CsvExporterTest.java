@@ -0,0 +1,217 @@
+package org.janelia.flyem.neuprint;
+
+import apoc.convert.Json;
+import apoc.create.Create;
+import org.janelia.flyem.neuprint.model.MetaInfo;
+import org.janelia.flyem.neuprint.model.Neuron;
+import org.janelia.flyem.neuprint.model.Skeleton;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprintloadprocedures.procedures.LoadingProcedures;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.driver.v1.Config;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.harness.junit.Neo4jRule;
+import org.neo4j.tooling.ImportTool;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Tests the {@link CsvExporter} class by importing the exported CSV files with the neo4j import tool and
+ * comparing the resulting graph to the graph produced by the transactional load.
+ */
+public class CsvExporterTest {
+
+    @ClassRule
+    public static Neo4jRule neo4j;
+    @ClassRule
+    public static TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private static Driver driver;
+    private static GraphDatabaseService importedDb;
+
+    static {
+        neo4j = new Neo4jRule()
+                .withFunction(Json.class)
+                .withProcedure(LoadingProcedures.class)
+                .withProcedure(Create.class);
+    }
+
+    @BeforeClass
+    public static void before() throws Exception {
+
+        final LocalDateTime timeStamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        File[] arrayOfSwcFiles = new File[]{
+                new File("src/test/resources/101.swc"),
+                new File("src/test/resources/102.swc"),
+                new File("src/test/resources/831744.swc")};
+
+        List<Skeleton> skeletonList = NeuPrintMain.createSkeletonListFromSwcFileArray(arrayOfSwcFiles);
+        List<Neuron> neuronList = NeuPrintMain.readNeuronsJson("src/test/resources/neuronList.json");
+        List<Synapse> synapseList = NeuPrintMain.readSynapsesJson("src/test/resources/synapseList.json");
+        List<SynapticConnection> connectionsList = NeuPrintMain.readConnectionsJson("src/test/resources/connectionsList.json");
+        MetaInfo metaInfo = NeuPrintMain.readMetaInfoJson("src/test/resources/testMetaInfo.json");
+
+        driver = GraphDatabase.driver(neo4j.boltURI(), Config.build().withoutEncryption().toConfig());
+
+        Neo4jImporter neo4jImporter = new Neo4jImporter(driver);
+        NeuPrintMain.runStandardLoad(neo4jImporter, "test", synapseList, connectionsList, neuronList, skeletonList, metaInfo, 1.0F, .2D, .8D, 5, true, true, timeStamp);
+
+        File exportDirectory = temporaryFolder.newFolder("csv");
+        try (CsvExporter csvExporter = new CsvExporter(exportDirectory, "test", 1.0F, .2D, .8D, 5, true, true, timeStamp)) {
+            csvExporter.addSynapses(synapseList);
+            csvExporter.addSynapticConnections(connectionsList);
+            csvExporter.addNeurons(neuronList.subList(0, 3));
+            csvExporter.addNeurons(neuronList.subList(3, neuronList.size()));
+            csvExporter.addSkeletons(skeletonList);
+            csvExporter.addMetaInfo(metaInfo);
+        }
+
+        File storeDirectory = new File(temporaryFolder.getRoot(), "graph.db");
+        List<String> importArguments = new ArrayList<>(Files.readAllLines(new File(exportDirectory, "import.args").toPath()));
+        importArguments.add("--into=" + storeDirectory.getAbsolutePath());
+        ImportTool.main(importArguments.toArray(new String[0]), true);
+
+        importedDb = new GraphDatabaseFactory().newEmbeddedDatabase(storeDirectory);
+    }
+
+    @AfterClass
+    public static void after() {
+        driver.close();
+        if (importedDb != null) {
+            importedDb.shutdown();
+        }
+    }
+
+    @Test
+    public void importedNodesShouldMatchTransactionalLoad() {
+
+        final String query = "MATCH (n) RETURN labels(n) AS labels, properties(n) AS props";
+
+        List<String> expected = new ArrayList<>();
+        try (Session session = driver.session()) {
+            for (Record record : session.run(query).list()) {
+                expected.add(describeNode(record.get("labels").asList(), record.get("props").asMap()));
+            }
+        }
+
+        List<String> actual = new ArrayList<>();
+        importedDb.execute(query).forEachRemaining(row -> actual.add(describeNode((Collection<?>) row.get("labels"), castToMap(row.get("props")))));
+
+        Collections.sort(expected);
+        Collections.sort(actual);
+
+        Assert.assertEquals(String.join("\n", expected), String.join("\n", actual));
+    }
+
+    @Test
+    public void importedRelationshipsShouldMatchTransactionalLoad() {
+
+        final String query = "MATCH (a)-[r]->(b) RETURN type(r) AS type, labels(a) AS aLabels, properties(a) AS a, labels(b) AS bLabels, properties(b) AS b, properties(r) AS r";
+
+        List<String> expected = new ArrayList<>();
+        try (Session session = driver.session()) {
+            for (Record record : session.run(query).list()) {
+                expected.add(describeNodeKey(record.get("aLabels").asList(), record.get("a").asMap()) +
+                        " -[" + record.get("type").asString() + describeProperties(record.get("r").asMap()) + "]-> " +
+                        describeNodeKey(record.get("bLabels").asList(), record.get("b").asMap()));
+            }
+        }
+
+        List<String> actual = new ArrayList<>();
+        importedDb.execute(query).forEachRemaining(row -> actual.add(
+                describeNodeKey((Collection<?>) row.get("aLabels"), castToMap(row.get("a"))) +
+                        " -[" + row.get("type") + describeProperties(castToMap(row.get("r"))) + "]-> " +
+                        describeNodeKey((Collection<?>) row.get("bLabels"), castToMap(row.get("b")))));
+
+        Collections.sort(expected);
+        Collections.sort(actual);
+
+        Assert.assertEquals(String.join("\n", expected), String.join("\n", actual));
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> castToMap(Object object) {
+        return (Map<String, Object>) object;
+    }
+
+    static String describeNode(Collection<?> labels, Map<String, Object> properties) {
+        return sortedLabels(labels) + describeProperties(properties);
+    }
+
+    static String describeNodeKey(Collection<?> labels, Map<String, Object> properties) {
+        final String[] keyProperties = {"bodyId", "location", "datasetBodyId", "datasetBodyIds", "skeletonId", "skelNodeId", "dataset", "dataModelVersion"};
+        for (String keyProperty : keyProperties) {
+            if (properties.containsKey(keyProperty)) {
+                return sortedLabels(labels) + "{" + keyProperty + ":" + normalize(properties.get(keyProperty)) + "}";
+            }
+        }
+        return sortedLabels(labels);
+    }
+
+    private static String sortedLabels(Collection<?> labels) {
+        return labels.stream().map(Object::toString).sorted().collect(Collectors.joining(":", ":", ""));
+    }
+
+    static String describeProperties(Map<String, Object> properties) {
+        Map<String, String> sortedProperties = new TreeMap<>();
+        properties.forEach((key, value) -> {
+            // time stamps are set when the data is written
+            if (!key.equals("timeStamp") && !key.equals("lastDatabaseEdit")) {
+                sortedProperties.put(key, normalize(value));
+            }
+        });
+        return sortedProperties.toString();
+    }
+
+    private static String normalize(Object value) {
+        final String normalizedValue;
+        if (value == null) {
+            normalizedValue = "null";
+        } else if (value instanceof org.neo4j.driver.v1.types.Point) {
+            org.neo4j.driver.v1.types.Point point = (org.neo4j.driver.v1.types.Point) value;
+            normalizedValue = "point(" + point.x() + "," + point.y() + "," + point.z() + ")";
+        } else if (value instanceof org.neo4j.graphdb.spatial.Point) {
+            List<Double> coordinate = ((org.neo4j.graphdb.spatial.Point) value).getCoordinate().getCoordinate();
+            normalizedValue = "point(" + coordinate.get(0) + "," + coordinate.get(1) + "," + coordinate.get(2) + ")";
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+            normalizedValue = String.valueOf(((Number) value).longValue());
+        } else if (value instanceof Float || value instanceof Double) {
+            normalizedValue = String.valueOf(((Number) value).doubleValue());
+        } else if (value instanceof Collection) {
+            normalizedValue = ((Collection<?>) value).stream().map(CsvExporterTest::normalize).sorted().collect(Collectors.toList()).toString();
+        } else if (value.getClass().isArray()) {
+            List<String> elements = new ArrayList<>();
+            for (int i = 0; i < Array.getLength(value); i++) {
+                elements.add(normalize(Array.get(value, i)));
+            }
+            Collections.sort(elements);
+            normalizedValue = elements.toString();
+        } else {
+            normalizedValue = value.toString();
+        }
+        return normalizedValue;
+    }
+
+}
@@ -0,0 +1,175 @@
+package org.janelia.flyem.neuprint;
+
+import apoc.convert.Json;
+import apoc.create.Create;
+import org.janelia.flyem.neuprint.model.MetaInfo;
+import org.janelia.flyem.neuprint.model.Neuron;
+import org.janelia.flyem.neuprint.model.Skeleton;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprintloadprocedures.procedures.LoadingProcedures;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.driver.v1.Config;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.harness.junit.Neo4jRule;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the {@link EmbeddedStoreImporter} class by opening the store it writes and comparing the graph
+ * to the graph produced by the transactional load.
+ */
+public class EmbeddedStoreImporterTest {
+
+    @ClassRule
+    public static Neo4jRule neo4j;
+    @ClassRule
+    public static TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private static Driver driver;
+    private static GraphDatabaseService embeddedDb;
+
+    static {
+        neo4j = new Neo4jRule()
+                .withFunction(Json.class)
+                .withProcedure(LoadingProcedures.class)
+                .withProcedure(Create.class);
+    }
+
+    @BeforeClass
+    public static void before() throws Exception {
+
+        final LocalDateTime timeStamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        File[] arrayOfSwcFiles = new File[]{
+                new File("src/test/resources/101.swc"),
+                new File("src/test/resources/102.swc"),
+                new File("src/test/resources/831744.swc")};
+
+        List<Skeleton> skeletonList = NeuPrintMain.createSkeletonListFromSwcFileArray(arrayOfSwcFiles);
+        List<Neuron> neuronList = NeuPrintMain.readNeuronsJson("src/test/resources/neuronList.json");
+        List<Synapse> synapseList = NeuPrintMain.readSynapsesJson("src/test/resources/synapseList.json");
+        List<SynapticConnection> connectionsList = NeuPrintMain.readConnectionsJson("src/test/resources/connectionsList.json");
+        MetaInfo metaInfo = NeuPrintMain.readMetaInfoJson("src/test/resources/testMetaInfo.json");
+
+        driver = GraphDatabase.driver(neo4j.boltURI(), Config.build().withoutEncryption().toConfig());
+
+        Neo4jImporter neo4jImporter = new Neo4jImporter(driver);
+        NeuPrintMain.runStandardLoad(neo4jImporter, "test", synapseList, connectionsList, neuronList, skeletonList, metaInfo, 1.0F, .2D, .8D, 5, true, true, timeStamp);
+
+        File storeDirectory = new File(temporaryFolder.getRoot(), "graph.db");
+        try (EmbeddedStoreImporter embeddedStoreImporter = new EmbeddedStoreImporter(storeDirectory, "test", 1.0F, .2D, .8D, 5, true, true, timeStamp)) {
+            embeddedStoreImporter.addSynapses(synapseList);
+            embeddedStoreImporter.addSynapticConnections(connectionsList);
+            embeddedStoreImporter.addNeurons(neuronList.subList(0, 3));
+            embeddedStoreImporter.addNeurons(neuronList.subList(3, neuronList.size()));
+            embeddedStoreImporter.addSkeletons(skeletonList);
+            embeddedStoreImporter.addMetaInfo(metaInfo);
+        }
+
+        embeddedDb = new GraphDatabaseFactory().newEmbeddedDatabase(storeDirectory);
+    }
+
+    @AfterClass
+    public static void after() {
+        driver.close();
+        if (embeddedDb != null) {
+            embeddedDb.shutdown();
+        }
+    }
+
+    @Test
+    public void embeddedStoreNodesShouldMatchTransactionalLoad() {
+
+        final String query = "MATCH (n) RETURN labels(n) AS labels, properties(n) AS props";
+
+        List<String> expected = new ArrayList<>();
+        try (Session session = driver.session()) {
+            for (Record record : session.run(query).list()) {
+                expected.add(CsvExporterTest.describeNode(record.get("labels").asList(), record.get("props").asMap()));
+            }
+        }
+
+        List<String> actual = new ArrayList<>();
+        embeddedDb.execute(query).forEachRemaining(row -> actual.add(CsvExporterTest.describeNode((Collection<?>) row.get("labels"), CsvExporterTest.castToMap(row.get("props")))));
+
+        Collections.sort(expected);
+        Collections.sort(actual);
+
+        Assert.assertEquals(String.join("\n", expected), String.join("\n", actual));
+    }
+
+    @Test
+    public void embeddedStoreRelationshipsShouldMatchTransactionalLoad() {
+
+        final String query = "MATCH (a)-[r]->(b) RETURN type(r) AS type, labels(a) AS aLabels, properties(a) AS a, labels(b) AS bLabels, properties(b) AS b, properties(r) AS r";
+
+        List<String> expected = new ArrayList<>();
+        try (Session session = driver.session()) {
+            for (Record record : session.run(query).list()) {
+                expected.add(CsvExporterTest.describeNodeKey(record.get("aLabels").asList(), record.get("a").asMap()) +
+                        " -[" + record.get("type").asString() + CsvExporterTest.describeProperties(record.get("r").asMap()) + "]-> " +
+                        CsvExporterTest.describeNodeKey(record.get("bLabels").asList(), record.get("b").asMap()));
+            }
+        }
+
+        List<String> actual = new ArrayList<>();
+        embeddedDb.execute(query).forEachRemaining(row -> actual.add(
+                CsvExporterTest.describeNodeKey((Collection<?>) row.get("aLabels"), CsvExporterTest.castToMap(row.get("a"))) +
+                        " -[" + row.get("type") + CsvExporterTest.describeProperties(CsvExporterTest.castToMap(row.get("r"))) + "]-> " +
+                        CsvExporterTest.describeNodeKey((Collection<?>) row.get("bLabels"), CsvExporterTest.castToMap(row.get("b")))));
+
+        Collections.sort(expected);
+        Collections.sort(actual);
+
+        Assert.assertEquals(String.join("\n", expected), String.join("\n", actual));
+    }
+
+    @Test
+    public void embeddedStoreShouldHaveTransactionalLoadConstraints() {
+
+        final String query = "CALL db.constraints() YIELD description RETURN description";
+
+        List<String> expected = new ArrayList<>();
+        try (Session session = driver.session()) {
+            for (Record record : session.run(query).list()) {
+                expected.add(record.get("description").asString());
+            }
+        }
+
+        List<String> actual = new ArrayList<>();
+        embeddedDb.execute(query).forEachRemaining(row -> actual.add((String) row.get("description")));
+
+        Collections.sort(expected);
+        Collections.sort(actual);
+
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAddSynapsesAfterNeurons() throws Exception {
+
+        // a store beside the graph.db opened in before() would fail to take the store lock
+        File storeDirectory = new File(temporaryFolder.newFolder("outOfOrder"), "graph.db");
+        try (EmbeddedStoreImporter embeddedStoreImporter = new EmbeddedStoreImporter(storeDirectory, "test", 1.0F, .2D, .8D, 5, true, true, LocalDateTime.now())) {
+            embeddedStoreImporter.addNeurons(Collections.emptyList());
+            embeddedStoreImporter.addSynapses(Collections.emptyList());
+        }
+    }
+
+}
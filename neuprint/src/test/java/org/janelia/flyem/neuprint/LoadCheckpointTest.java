@@ -0,0 +1,62 @@
+package org.janelia.flyem.neuprint;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Tests the {@link LoadCheckpoint} class.
+ */
+public class LoadCheckpointTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldResumeFromSavedCheckpoint() throws Exception {
+
+        File file = new File(temporaryFolder.getRoot(), "checkpoint.json");
+        LocalDateTime timeStamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        LoadCheckpoint checkpoint = LoadCheckpoint.start(file, timeStamp);
+
+        Assert.assertTrue(file.exists());
+        Assert.assertFalse(checkpoint.hasProgress());
+
+        checkpoint.recordCommittedBatch(LoadCheckpoint.Stage.SYNAPSES, 100);
+        checkpoint.markComplete(LoadCheckpoint.Stage.SYNAPSES);
+        checkpoint.recordCommittedBatch(LoadCheckpoint.Stage.CONNECTIONS, 50);
+
+        LoadCheckpoint resumedCheckpoint = LoadCheckpoint.resume(file);
+
+        Assert.assertEquals(timeStamp, resumedCheckpoint.getTimeStamp());
+        Assert.assertTrue(resumedCheckpoint.hasProgress());
+        Assert.assertTrue(resumedCheckpoint.isComplete(LoadCheckpoint.Stage.SYNAPSES));
+        Assert.assertFalse(resumedCheckpoint.isComplete(LoadCheckpoint.Stage.CONNECTIONS));
+        Assert.assertEquals(100, resumedCheckpoint.getCommittedRecordCount(LoadCheckpoint.Stage.SYNAPSES));
+        Assert.assertEquals(50, resumedCheckpoint.getCommittedRecordCount(LoadCheckpoint.Stage.CONNECTIONS));
+        Assert.assertEquals(0, resumedCheckpoint.getCommittedRecordCount(LoadCheckpoint.Stage.NEURONS));
+
+        // progress recorded after resuming is saved to the same file
+        resumedCheckpoint.recordCommittedBatch(LoadCheckpoint.Stage.CONNECTIONS, 75);
+
+        Assert.assertEquals(75, LoadCheckpoint.resume(file).getCommittedRecordCount(LoadCheckpoint.Stage.CONNECTIONS));
+    }
+
+    @Test
+    public void startShouldReplaceExistingCheckpoint() {
+
+        File file = new File(temporaryFolder.getRoot(), "checkpoint.json");
+
+        LoadCheckpoint.start(file, LocalDateTime.now()).markComplete(LoadCheckpoint.Stage.NEURONS);
+        LoadCheckpoint.start(file, LocalDateTime.now());
+
+        Assert.assertFalse(LoadCheckpoint.resume(file).isComplete(LoadCheckpoint.Stage.NEURONS));
+    }
+
+}
@@ -0,0 +1,204 @@
+package org.janelia.flyem.neuprint;
+
+import apoc.convert.Json;
+import apoc.create.Create;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprintloadprocedures.procedures.LoadingProcedures;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.driver.v1.Config;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.harness.junit.Neo4jRule;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests that a batched load interrupted after some batches were committed and resumed from its {@link LoadCheckpoint}
+ * produces the same graph as a load that was not interrupted.
+ */
+public class LoadResumeTest {
+
+    private static final String SYNAPSE_JSON = "src/test/resources/synapseList.json";
+    private static final String CONNECTIONS_JSON = "src/test/resources/connectionsList.json";
+    private static final String NEURONS_JSON = "src/test/resources/neuronList.json";
+    private static final int BATCH_SIZE = 2;
+
+    @ClassRule
+    public static Neo4jRule neo4j;
+    @ClassRule
+    public static TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private static Driver driver;
+
+    static {
+        neo4j = new Neo4jRule()
+                .withFunction(Json.class)
+                .withProcedure(LoadingProcedures.class)
+                .withProcedure(Create.class);
+    }
+
+    @BeforeClass
+    public static void before() throws IOException {
+
+        final LocalDateTime timeStamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        driver = GraphDatabase.driver(neo4j.boltURI(), Config.build().withoutEncryption().toConfig());
+
+        final Neo4jImporter neo4jImporter = new Neo4jImporter(driver);
+
+        // clean load
+        NeuPrintMain.loadSynapseJsonInBatches(SYNAPSE_JSON, BATCH_SIZE, neo4jImporter, "clean", false, 1.0F, .2D, .8D, true, true, timeStamp, null, null, null, 0);
+        NeuPrintMain.loadConnectionJsonInBatches(CONNECTIONS_JSON, BATCH_SIZE, neo4jImporter, "clean", true, 1.0F, .2D, .8D, true, true, timeStamp, null, null, null, 0);
+        NeuPrintMain.loadNeuronJsonInBatches(NEURONS_JSON, BATCH_SIZE, neo4jImporter, "clean", true, 1.0F, .2D, .8D, 5, true, true, timeStamp, null, null, null, 0);
+        neo4jImporter.reconcileMetaNodeSynapseCounts("clean", timeStamp);
+
+        // each stage is interrupted after some batches are committed and then resumed from the saved checkpoint
+        final File checkpointFile = temporaryFolder.newFile("checkpoint.json");
+        LoadCheckpoint checkpoint = LoadCheckpoint.start(checkpointFile, timeStamp);
+
+        final LoadCheckpoint synapseCheckpoint = checkpoint;
+        assertInterrupted(() -> NeuPrintMain.loadSynapseJsonInBatches(SYNAPSE_JSON, BATCH_SIZE, new InterruptedImporter(driver, 2), "resumed", false, 1.0F, .2D, .8D, true, true, timeStamp, null, synapseCheckpoint, null, 0));
+        checkpoint = LoadCheckpoint.resume(checkpointFile);
+        Assert.assertEquals(2 * BATCH_SIZE, checkpoint.getCommittedRecordCount(LoadCheckpoint.Stage.SYNAPSES));
+        Assert.assertFalse(checkpoint.isComplete(LoadCheckpoint.Stage.SYNAPSES));
+        NeuPrintMain.loadSynapseJsonInBatches(SYNAPSE_JSON, BATCH_SIZE, neo4jImporter, "resumed", true, 1.0F, .2D, .8D, true, true, timeStamp, null, checkpoint, null, 0);
+
+        final LoadCheckpoint connectionCheckpoint = LoadCheckpoint.resume(checkpointFile);
+        assertInterrupted(() -> NeuPrintMain.loadConnectionJsonInBatches(CONNECTIONS_JSON, BATCH_SIZE, new InterruptedImporter(driver, 1), "resumed", true, 1.0F, .2D, .8D, true, true, timeStamp, null, connectionCheckpoint, null, 0));
+        checkpoint = LoadCheckpoint.resume(checkpointFile);
+        Assert.assertEquals(BATCH_SIZE, checkpoint.getCommittedRecordCount(LoadCheckpoint.Stage.CONNECTIONS));
+        NeuPrintMain.loadConnectionJsonInBatches(CONNECTIONS_JSON, BATCH_SIZE, neo4jImporter, "resumed", true, 1.0F, .2D, .8D, true, true, timeStamp, null, checkpoint, null, 0);
+
+        final LoadCheckpoint neuronCheckpoint = LoadCheckpoint.resume(checkpointFile);
+        assertInterrupted(() -> NeuPrintMain.loadNeuronJsonInBatches(NEURONS_JSON, BATCH_SIZE, new InterruptedImporter(driver, 2), "resumed", true, 1.0F, .2D, .8D, 5, true, true, timeStamp, null, neuronCheckpoint, null, 0));
+        checkpoint = LoadCheckpoint.resume(checkpointFile);
+        Assert.assertEquals(2 * BATCH_SIZE, checkpoint.getCommittedRecordCount(LoadCheckpoint.Stage.NEURONS));
+        NeuPrintMain.loadNeuronJsonInBatches(NEURONS_JSON, BATCH_SIZE, neo4jImporter, "resumed", true, 1.0F, .2D, .8D, 5, true, true, timeStamp, null, checkpoint, null, 0);
+
+        neo4jImporter.reconcileMetaNodeSynapseCounts("resumed", timeStamp);
+    }
+
+    @AfterClass
+    public static void after() {
+        driver.close();
+    }
+
+    @Test
+    public void resumedLoadShouldHaveSameNodesAsCleanLoad() {
+
+        Assert.assertEquals(countNodesByLabels("clean"), countNodesByLabels("resumed"));
+    }
+
+    @Test
+    public void resumedLoadShouldHaveSameRelationshipsAsCleanLoad() {
+
+        Assert.assertEquals(countRelationshipsByType("clean"), countRelationshipsByType("resumed"));
+    }
+
+    @Test
+    public void resumedLoadShouldHaveSameMetaNodeSynapseCountsAsCleanLoad() {
+
+        try (Session session = driver.session()) {
+
+            final Node cleanMetaNode = session.readTransaction(tx -> tx.run("MATCH (n:Meta{dataset:\"clean\"}) RETURN n")).single().get(0).asNode();
+            final Node resumedMetaNode = session.readTransaction(tx -> tx.run("MATCH (n:Meta{dataset:\"resumed\"}) RETURN n")).single().get(0).asNode();
+
+            Assert.assertEquals(cleanMetaNode.get("totalPreCount").asLong(), resumedMetaNode.get("totalPreCount").asLong());
+            Assert.assertEquals(cleanMetaNode.get("totalPostCount").asLong(), resumedMetaNode.get("totalPostCount").asLong());
+            Assert.assertEquals(cleanMetaNode.get("roiInfo").asString(), resumedMetaNode.get("roiInfo").asString());
+        }
+    }
+
+    private static Map<String, Long> countNodesByLabels(final String dataset) {
+        // labels are compared without the dataset prefix
+        return count("MATCH (n:`" + dataset + "`) UNWIND labels(n) AS label " +
+                "RETURN replace(replace(label, \"" + dataset + "-\", \"\"), \"" + dataset + "\", \"\") AS key, count(n) AS count");
+    }
+
+    private static Map<String, Long> countRelationshipsByType(final String dataset) {
+        return count("MATCH (:`" + dataset + "`)-[r]->(:`" + dataset + "`) RETURN type(r) AS key, count(r) AS count");
+    }
+
+    private static Map<String, Long> count(final String query) {
+        final Map<String, Long> counts = new HashMap<>();
+        try (Session session = driver.session()) {
+            final List<Record> records = session.readTransaction(tx -> {
+                StatementResult result = tx.run(query);
+                return result.list();
+            });
+            for (final Record record : records) {
+                counts.merge(record.get("key").asString(), record.get("count").asLong(), Long::sum);
+            }
+        }
+        Assert.assertFalse(counts.isEmpty());
+        return counts;
+    }
+
+    private static void assertInterrupted(final Runnable load) {
+        try {
+            load.run();
+            Assert.fail("load should have been interrupted");
+        } catch (LoadInterruptedException e) {
+            // expected
+        }
+    }
+
+    private static class LoadInterruptedException extends RuntimeException {
+    }
+
+    /**
+     * Importer that fails once a number of batches have been written. A synapse batch is written before the failure
+     * (so that it is written again when the load is resumed, as after a failure between committing a batch and
+     * saving the checkpoint), while connection and segment batches fail before they are written.
+     */
+    private static class InterruptedImporter extends Neo4jImporter {
+
+        private int batchesBeforeInterruption;
+
+        private InterruptedImporter(final Driver driver,
+                                    final int batchesBeforeInterruption) {
+            super(driver);
+            this.batchesBeforeInterruption = batchesBeforeInterruption;
+        }
+
+        private void countBatch() {
+            if (batchesBeforeInterruption-- == 0) {
+                throw new LoadInterruptedException();
+            }
+        }
+
+        @Override
+        public void addSynapsesWithRois(final String dataset, final List<Synapse> synapseList, final LocalDateTime timeStamp, final SynapseNodeIds synapseNodeIds) {
+            super.addSynapsesWithRois(dataset, synapseList, timeStamp, synapseNodeIds);
+            countBatch();
+        }
+
+        @Override
+        public void addSynapsesTo(final String dataset, final List<SynapticConnection> synapticConnectionList, final LocalDateTime timeStamp, final SynapseNodeIds synapseNodeIds) {
+            countBatch();
+            super.addSynapsesTo(dataset, synapticConnectionList, timeStamp, synapseNodeIds);
+        }
+
+        @Override
+        public SegmentWriter openSegmentWriter(final String dataset, final LocalDateTime timeStamp, final SynapseNodeIds synapseNodeIds) {
+            countBatch();
+            return super.openSegmentWriter(dataset, timeStamp, synapseNodeIds);
+        }
+    }
+
+}
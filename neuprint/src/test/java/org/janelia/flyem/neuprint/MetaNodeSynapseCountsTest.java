@@ -0,0 +1,102 @@
+package org.janelia.flyem.neuprint;
+
+import apoc.convert.Json;
+import apoc.create.Create;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprintloadprocedures.model.SynapseCounter;
+import org.janelia.flyem.neuprintloadprocedures.procedures.LoadingProcedures;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.driver.v1.Config;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.harness.junit.Neo4jRule;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests that the {@link Neo4jImporter} keeps the Meta node synapse counts up to date from the batches it writes.
+ */
+public class MetaNodeSynapseCountsTest {
+
+    @ClassRule
+    public static Neo4jRule neo4j;
+    private static Driver driver;
+
+    static {
+        neo4j = new Neo4jRule()
+                .withFunction(Json.class)
+                .withProcedure(LoadingProcedures.class)
+                .withProcedure(Create.class);
+    }
+
+    @BeforeClass
+    public static void before() {
+        driver = GraphDatabase.driver(neo4j.boltURI(), Config.build().withoutEncryption().toConfig());
+    }
+
+    @AfterClass
+    public static void after() {
+        driver.close();
+    }
+
+    @Test
+    public void synapseBatchesShouldAddTheirCountsToMetaNodeAndReconcileShouldCountSynapsesCreatedByConnections() {
+
+        final LocalDateTime timeStamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        final String dataset = "test";
+
+        List<Synapse> synapseList = NeuPrintMain.readSynapsesJson("src/test/resources/synapseList.json");
+        List<SynapticConnection> connectionsList = NeuPrintMain.readConnectionsJson("src/test/resources/connectionsList.json");
+
+        Neo4jImporter neo4jImporter = new Neo4jImporter(driver);
+        NeuPrintMain.initializeDatabase(neo4jImporter, dataset, 1.0F, .2D, .8D, true, true, timeStamp);
+        neo4jImporter.addSynapsesWithRois(dataset, synapseList.subList(0, synapseList.size() / 2), timeStamp);
+        neo4jImporter.addSynapsesWithRois(dataset, synapseList.subList(synapseList.size() / 2, synapseList.size()), timeStamp);
+
+        Node metaNode = getMetaNode();
+        Assert.assertEquals(3L, metaNode.asMap().get("totalPreCount"));
+        Assert.assertEquals(6L, metaNode.asMap().get("totalPostCount"));
+
+        Map<String, SynapseCounter> roiInfoMap = getRoiInfo(metaNode);
+        Assert.assertEquals(3L, roiInfoMap.get("roiA").getPre());
+        Assert.assertEquals(5L, roiInfoMap.get("roiA").getPost());
+        Assert.assertEquals(3L, roiInfoMap.get("roiB").getPost());
+        Assert.assertEquals(1L, roiInfoMap.get("roi'C").getPost());
+
+        // one pre and one post are created by the connections, which is only reflected in the counts after reconciling
+        neo4jImporter.addSynapsesTo(dataset, connectionsList, timeStamp);
+        Assert.assertEquals(3L, getMetaNode().asMap().get("totalPreCount"));
+
+        neo4jImporter.reconcileMetaNodeSynapseCounts(dataset, timeStamp);
+
+        Node reconciledMetaNode = getMetaNode();
+        Assert.assertEquals(4L, reconciledMetaNode.asMap().get("totalPreCount"));
+        Assert.assertEquals(7L, reconciledMetaNode.asMap().get("totalPostCount"));
+        Assert.assertEquals(getRoiInfo(metaNode).keySet(), getRoiInfo(reconciledMetaNode).keySet());
+        Assert.assertEquals(3L, getRoiInfo(reconciledMetaNode).get("roiA").getPre());
+    }
+
+    private static Node getMetaNode() {
+        try (Session session = driver.session()) {
+            return session.readTransaction(tx -> tx.run("MATCH (n:Meta:test) RETURN n")).single().get(0).asNode();
+        }
+    }
+
+    private static Map<String, SynapseCounter> getRoiInfo(Node metaNode) {
+        return new Gson().fromJson((String) metaNode.asMap().get("roiInfo"), new TypeToken<Map<String, SynapseCounter>>() {
+        }.getType());
+    }
+
+}
@@ -9,6 +9,7 @@ import org.janelia.flyem.neuprint.model.Neuron;
 import org.janelia.flyem.neuprint.model.Skeleton;
 import org.janelia.flyem.neuprint.model.Synapse;
 import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprintloadprocedures.SpatialKey;
 import org.janelia.flyem.neuprintloadprocedures.model.SynapseCounter;
 import org.janelia.flyem.neuprintloadprocedures.model.SynapseCounterWithHighPrecisionCounts;
 import org.janelia.flyem.neuprintloadprocedures.procedures.LoadingProcedures;
@@ -117,6 +118,26 @@ public class Neo4jImporterTest {
         Assert.assertTrue(postSynNode.asMap().containsKey("roiA"));
     }
 
+    @Test
+    public void synapsesAndSkelNodesShouldHaveLocationKeys() {
+
+        Session session = driver.session();
+
+        int synapsesWithoutKeyCount = session.readTransaction(tx -> tx.run("MATCH (s:`test-Synapse`) WHERE NOT exists(s.locationKey) RETURN count(s)")).single().get(0).asInt();
+        Assert.assertEquals(0, synapsesWithoutKeyCount);
+
+        Point preLocationPoint = Values.point(9157, 4287, 2277, 1502).asPoint();
+        Point synapseLocation = session.readTransaction(tx -> tx.run("MATCH (s:`test-Synapse`{locationKey:$locationKey}) RETURN s.location",
+                parameters("locationKey", SpatialKey.encode(4287, 2277, 1502)))).single().get(0).asPoint();
+        Assert.assertEquals(preLocationPoint, synapseLocation);
+
+        int skelNodesWithoutKeyCount = session.readTransaction(tx -> tx.run("MATCH (s:`test-SkelNode`) WHERE NOT exists(s.locationKey) RETURN count(s)")).single().get(0).asInt();
+        Assert.assertEquals(0, skelNodesWithoutKeyCount);
+
+        long skelNodeLocationKey = session.readTransaction(tx -> tx.run("MATCH (s:`test-SkelNode`{skelNodeId:\"test:101:5096:9281:1624:13\"}) RETURN s.locationKey")).single().get(0).asLong();
+        Assert.assertEquals(SpatialKey.encode(5096, 9281, 1624), skelNodeLocationKey);
+    }
+
     @Test
     public void shouldHaveCorrectNumberOfSynapses() {
         Session session = driver.session();
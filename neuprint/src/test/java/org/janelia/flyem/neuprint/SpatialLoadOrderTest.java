@@ -0,0 +1,193 @@
+package org.janelia.flyem.neuprint;
+
+import org.janelia.flyem.neuprint.json.JsonUtils;
+import org.janelia.flyem.neuprint.model.Location;
+import org.janelia.flyem.neuprint.model.Neuron;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.driver.v1.Config;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.harness.junit.Neo4jRule;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.neo4j.driver.v1.Values.parameters;
+
+/**
+ * Tests the {@link SpatialLoadOrder} class.
+ */
+public class SpatialLoadOrderTest {
+
+    // 8 KiB pages of 15 byte node records
+    private static final int NODE_RECORDS_PER_PAGE = 8192 / 15;
+
+    @ClassRule
+    public static Neo4jRule neo4j = new Neo4jRule();
+    private static Driver driver;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void before() {
+        driver = GraphDatabase.driver(neo4j.boltURI(), Config.build().withoutEncryption().toConfig());
+    }
+
+    @AfterClass
+    public static void after() {
+        driver.close();
+    }
+
+    @Test
+    public void shouldOrderRecordsByBodyAndLocation() throws Exception {
+
+        String neuronsJsonPath = "src/test/resources/neuronList.json";
+        String synapseJsonPath = "src/test/resources/synapseList.json";
+        String connectionsJsonPath = "src/test/resources/connectionsList.json";
+
+        // spilling runs of 2 records should give the same result as sorting in memory
+        List<Synapse> inMemorySortedSynapses = null;
+        for (int maxRecordsInMemory : new int[]{2, 1000}) {
+            SpatialLoadOrder spatialLoadOrder = new SpatialLoadOrder(temporaryFolder.newFolder(), maxRecordsInMemory);
+            spatialLoadOrder.readBodyIds(neuronsJsonPath);
+
+            List<Synapse> sortedSynapses = NeuPrintMain.readSynapsesJson(spatialLoadOrder.sortSynapses(synapseJsonPath).getPath());
+            Assert.assertEquals(new HashSet<>(NeuPrintMain.readSynapsesJson(synapseJsonPath)), new HashSet<>(sortedSynapses));
+            for (int i = 1; i < sortedSynapses.size(); i++) {
+                long previousBodyId = spatialLoadOrder.getBodyId(sortedSynapses.get(i - 1).getLocationKey());
+                long bodyId = spatialLoadOrder.getBodyId(sortedSynapses.get(i).getLocationKey());
+                Assert.assertTrue(previousBodyId <= bodyId);
+                if (previousBodyId == bodyId) {
+                    Assert.assertTrue(sortedSynapses.get(i - 1).getLocationKey() <= sortedSynapses.get(i).getLocationKey());
+                }
+            }
+            if (inMemorySortedSynapses == null) {
+                inMemorySortedSynapses = sortedSynapses;
+            } else {
+                Assert.assertEquals(inMemorySortedSynapses, sortedSynapses);
+            }
+
+            List<SynapticConnection> sortedConnections = NeuPrintMain.readConnectionsJson(spatialLoadOrder.sortConnections(connectionsJsonPath).getPath());
+            Assert.assertEquals(NeuPrintMain.readConnectionsJson(connectionsJsonPath).size(), sortedConnections.size());
+            for (int i = 1; i < sortedConnections.size(); i++) {
+                Assert.assertTrue(spatialLoadOrder.getBodyId(sortedConnections.get(i - 1).getPreLocation().getLocationKey())
+                        <= spatialLoadOrder.getBodyId(sortedConnections.get(i).getPreLocation().getLocationKey()));
+            }
+
+            List<Neuron> sortedNeurons = NeuPrintMain.readNeuronsJson(spatialLoadOrder.sortNeurons(neuronsJsonPath).getPath());
+            Assert.assertEquals(NeuPrintMain.readNeuronsJson(neuronsJsonPath).size(), sortedNeurons.size());
+            for (int i = 1; i < sortedNeurons.size(); i++) {
+                Assert.assertTrue(sortedNeurons.get(i - 1).getId() < sortedNeurons.get(i).getId());
+            }
+            for (Neuron neuron : sortedNeurons) {
+                long previousLocationKey = -1;
+                for (Location location : neuron.getSynapseLocationSet()) {
+                    Assert.assertTrue(previousLocationKey < location.getLocationKey());
+                    previousLocationKey = location.getLocationKey();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldOrderLocationsWithoutKeysAfterEncodableLocations() throws Exception {
+
+        List<Synapse> synapseList = new ArrayList<>();
+        synapseList.add(new Synapse("pre", 1.0D, new Location(-5L, 10L, 10L)));
+        synapseList.add(new Synapse("post", 1.0D, new Location(20L, 10L, 10L)));
+        synapseList.add(new Synapse("post", 1.0D, new Location(-7L, 10L, 10L)));
+        synapseList.add(new Synapse("pre", 1.0D, new Location(10L, 10L, 10L)));
+
+        SpatialLoadOrder spatialLoadOrder = new SpatialLoadOrder(temporaryFolder.newFolder(), 2);
+        List<Synapse> sortedSynapses = NeuPrintMain.readSynapsesJson(spatialLoadOrder.sortSynapses(writeJson(synapseList).getPath()).getPath());
+
+        List<Location> sortedLocations = new ArrayList<>();
+        sortedSynapses.forEach(synapse -> sortedLocations.add(synapse.getLocation()));
+        Assert.assertEquals(Arrays.asList(new Location(10L, 10L, 10L), new Location(20L, 10L, 10L), new Location(-7L, 10L, 10L), new Location(-5L, 10L, 10L)),
+                sortedLocations);
+    }
+
+    @Test
+    public void sortedLoadShouldTouchFewerStorePagesPerBody() throws Exception {
+
+        // synthetic bodies with synapses scattered through the synapse file
+        Random random = new Random(13);
+        List<Synapse> synapseList = new ArrayList<>();
+        List<Neuron> neuronList = new ArrayList<>();
+        Set<Location> usedLocations = new HashSet<>();
+        for (long bodyId = 1; bodyId <= 40; bodyId++) {
+            Set<Location> synapseLocationSet = new LinkedHashSet<>();
+            while (synapseLocationSet.size() < 30) {
+                Location location = new Location((long) random.nextInt(10000), (long) random.nextInt(10000), (long) random.nextInt(10000));
+                if (usedLocations.add(location)) {
+                    synapseLocationSet.add(location);
+                    synapseList.add(new Synapse(random.nextBoolean() ? "pre" : "post", 1.0D, location));
+                }
+            }
+            neuronList.add(new Neuron(bodyId, "final", null, null, null, null, null, null, null, null, null, null, new HashSet<>(), null, synapseLocationSet));
+        }
+        Collections.shuffle(synapseList, random);
+
+        File synapseJson = writeJson(synapseList);
+        File neuronJson = writeJson(neuronList);
+
+        long unsortedPageCount = loadAndCountSynapsePagesPerBody("unsorted", synapseJson.getPath(), neuronJson.getPath());
+
+        SpatialLoadOrder spatialLoadOrder = new SpatialLoadOrder(temporaryFolder.newFolder(), 100);
+        spatialLoadOrder.readBodyIds(neuronJson.getPath());
+        long sortedPageCount = loadAndCountSynapsePagesPerBody("sorted",
+                spatialLoadOrder.sortSynapses(synapseJson.getPath()).getPath(),
+                spatialLoadOrder.sortNeurons(neuronJson.getPath()).getPath());
+
+        // unsorted, the synapses of each body are spread over every page of the dataset
+        Assert.assertTrue("sorted load touched " + sortedPageCount + " pages, unsorted load touched " + unsortedPageCount,
+                sortedPageCount < unsortedPageCount);
+    }
+
+    private File writeJson(Object records) throws IOException {
+        File file = temporaryFolder.newFile();
+        try (Writer writer = new FileWriter(file)) {
+            JsonUtils.GSON.toJson(records, writer);
+        }
+        return file;
+    }
+
+    private static long loadAndCountSynapsePagesPerBody(String dataset, String synapseJson, String neuronJson) {
+
+        LocalDateTime timeStamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Neo4jImporter neo4jImporter = new Neo4jImporter(driver);
+
+        NeuPrintMain.initializeDatabase(neo4jImporter, dataset, 1.0F, .2D, .8D, true, false, timeStamp);
+        neo4jImporter.addSynapsesWithRois(dataset, NeuPrintMain.readSynapsesJson(synapseJson), timeStamp);
+        neo4jImporter.addSegments(dataset, NeuPrintMain.readNeuronsJson(neuronJson), timeStamp);
+
+        try (Session session = driver.session()) {
+            return session.readTransaction(tx -> tx.run("MATCH (n:`" + dataset + "-Segment`)-[:Contains]->(:SynapseSet)-[:Contains]->(s:Synapse) " +
+                    "WITH n, collect(DISTINCT id(s) / $recordsPerPage) AS pages " +
+                    "RETURN sum(size(pages))", parameters("recordsPerPage", NODE_RECORDS_PER_PAGE))).single().get(0).asLong();
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package org.janelia.flyem.neuprint;
+
+import apoc.convert.Json;
+import apoc.create.Create;
+import org.janelia.flyem.neuprint.model.Location;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprintloadprocedures.procedures.LoadingProcedures;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.driver.v1.Config;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.harness.junit.Neo4jRule;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.neo4j.driver.v1.Values.parameters;
+
+/**
+ * Tests that {@link Neo4jImporter} merges synapses by location when a location cannot be packed into a location key
+ * or when the dataset's existing synapses have no location keys.
+ */
+public class SynapseLocationMergeTest {
+
+    @ClassRule
+    public static Neo4jRule neo4j;
+    private static Driver driver;
+
+    static {
+        neo4j = new Neo4jRule()
+                .withFunction(Json.class)
+                .withProcedure(LoadingProcedures.class)
+                .withProcedure(Create.class);
+    }
+
+    @BeforeClass
+    public static void before() {
+
+        final LocalDateTime timeStamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        driver = GraphDatabase.driver(neo4j.boltURI(), Config.build().withoutEncryption().toConfig());
+
+        // a presynaptic density with a negative coordinate has no location key
+        final List<Synapse> synapseList = Arrays.asList(
+                new Synapse("pre", 1.0, new Location(-5L, 10L, 10L), new HashSet<>(Collections.singletonList("roiA"))),
+                new Synapse("post", 1.0, new Location(10L, 10L, 10L), new HashSet<>(Collections.singletonList("roiA"))));
+        final List<SynapticConnection> connectionsList = Collections.singletonList(
+                new SynapticConnection(new Location(-5L, 10L, 10L), new Location(10L, 10L, 10L)));
+
+        final Neo4jImporter neo4jImporter = new Neo4jImporter(driver);
+        NeuPrintMain.initializeDatabase(neo4jImporter, "unencodable", 1.0F, .2D, .8D, true, true, timeStamp);
+        neo4jImporter.addSynapsesWithRois("unencodable", synapseList, timeStamp);
+        neo4jImporter.addSynapsesTo("unencodable", connectionsList, timeStamp);
+
+        // a dataset loaded before location keys were added
+        final Neo4jImporter legacyImporter = new Neo4jImporter(driver);
+        NeuPrintMain.initializeDatabase(legacyImporter, "legacy", 1.0F, .2D, .8D, true, true, timeStamp);
+        try (Session session = driver.session()) {
+            session.writeTransaction(tx -> tx.run("CREATE (s:Synapse:PostSyn:`legacy-Synapse`:`legacy-PostSyn`:legacy{location:$location, type:\"post\", confidence:1.0})",
+                    parameters("location", Values.point(9157, 10, 10, 10).asPoint())));
+        }
+        legacyImporter.addSynapsesWithRois("legacy", synapseList, timeStamp);
+        legacyImporter.addSynapsesTo("legacy", connectionsList, timeStamp);
+    }
+
+    @AfterClass
+    public static void after() {
+        driver.close();
+    }
+
+    @Test
+    public void shouldMergeSynapsesThatCannotBeEncodedByLocation() {
+
+        try (Session session = driver.session()) {
+
+            Assert.assertFalse(session.readTransaction(tx -> tx.run("MATCH (s:`unencodable-PreSyn`{location:$location}) RETURN exists(s.locationKey)",
+                    parameters("location", Values.point(9157, -5, 10, 10).asPoint()))).single().get(0).asBoolean());
+            Assert.assertTrue(session.readTransaction(tx -> tx.run("MATCH (s:`unencodable-PostSyn`{location:$location}) RETURN exists(s.locationKey)",
+                    parameters("location", Values.point(9157, 10, 10, 10).asPoint()))).single().get(0).asBoolean());
+
+            Assert.assertEquals(2, session.readTransaction(tx -> tx.run("MATCH (s:`unencodable-Synapse`) RETURN count(s)")).single().get(0).asInt());
+            Assert.assertEquals(1, session.readTransaction(tx -> tx.run("MATCH (:`unencodable-PreSyn`)-[r:SynapsesTo]->(:`unencodable-PostSyn`) RETURN count(r)")).single().get(0).asInt());
+        }
+    }
+
+    @Test
+    public void shouldNotDuplicateSynapsesOfDatasetsWithoutLocationKeys() {
+
+        try (Session session = driver.session()) {
+
+            Assert.assertEquals(2, session.readTransaction(tx -> tx.run("MATCH (s:`legacy-Synapse`) RETURN count(s)")).single().get(0).asInt());
+            Assert.assertEquals(0, session.readTransaction(tx -> tx.run("MATCH (s:`legacy-Synapse`) WHERE exists(s.locationKey) RETURN count(s)")).single().get(0).asInt());
+            Assert.assertEquals(1, session.readTransaction(tx -> tx.run("MATCH (:`legacy-PreSyn`)-[r:SynapsesTo]->(:`legacy-PostSyn`) RETURN count(r)")).single().get(0).asInt());
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+package org.janelia.flyem.neuprint;
+
+import apoc.convert.Json;
+import apoc.create.Create;
+import org.janelia.flyem.neuprint.model.LocationSet;
+import org.janelia.flyem.neuprint.model.Neuron;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.janelia.flyem.neuprintloadprocedures.procedures.LoadingProcedures;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.driver.v1.Config;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.harness.junit.Neo4jRule;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.neo4j.driver.v1.Values.parameters;
+
+/**
+ * Tests a batched load that connects synapses by the node ids recorded in a {@link SynapseNodeIds} map.
+ */
+public class SynapseNodeIdsTest {
+
+    @ClassRule
+    public static Neo4jRule neo4j;
+    private static Driver driver;
+    private static SynapseNodeIds synapseNodeIds;
+
+    static {
+        neo4j = new Neo4jRule()
+                .withFunction(Json.class)
+                .withProcedure(LoadingProcedures.class)
+                .withProcedure(Create.class);
+    }
+
+    @BeforeClass
+    public static void before() {
+
+        final LocalDateTime timeStamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        driver = GraphDatabase.driver(neo4j.boltURI(), Config.build().withoutEncryption().toConfig());
+
+        Neo4jImporter neo4jImporter = new Neo4jImporter(driver, 4);
+
+        synapseNodeIds = new SynapseNodeIds(4);
+
+        NeuPrintMain.loadSynapseJsonInBatches("src/test/resources/synapseList.json", 2, neo4jImporter, "test", false, 1.0F, .2D, .8D, true, true, timeStamp, null, null, synapseNodeIds, 0);
+        NeuPrintMain.loadConnectionJsonInBatches("src/test/resources/connectionsList.json", 2, neo4jImporter, "test", true, 1.0F, .2D, .8D, true, true, timeStamp, null, null, synapseNodeIds, 0);
+        NeuPrintMain.loadNeuronJsonInBatches("src/test/resources/neuronList.json", 2, neo4jImporter, "test", true, 1.0F, .2D, .8D, 5, true, true, timeStamp, null, null, synapseNodeIds, 2);
+    }
+
+    @AfterClass
+    public static void after() {
+        driver.close();
+    }
+
+    @Test
+    public void shouldRecordNodeIdOfEverySynapse() {
+
+        List<Synapse> synapseList = NeuPrintMain.readSynapsesJson("src/test/resources/synapseList.json");
+
+        try (Session session = driver.session()) {
+            for (Synapse synapse : synapseList) {
+                long locationKey = synapse.getLocationKey();
+                // a location can hold both a presynaptic and a postsynaptic density, so match on the synapse's own type
+                boolean isPre = synapse.getType().equals("pre");
+                String synapseLabel = isPre ? "`test-PreSyn`" : "`test-PostSyn`";
+                long expectedNodeId = session.run("MATCH (s:" + synapseLabel + "{locationKey:$locationKey}) RETURN id(s)",
+                        parameters("locationKey", locationKey)).single().get(0).asLong();
+                long nodeId = isPre ? synapseNodeIds.getPreNodeId(locationKey) : synapseNodeIds.getPostNodeId(locationKey);
+                Assert.assertEquals(expectedNodeId, nodeId);
+            }
+        }
+    }
+
+    @Test
+    public void shouldAddEverySynapsesToRelationship() {
+
+        Set<String> expected = new HashSet<>();
+        for (SynapticConnection connection : NeuPrintMain.readConnectionsJson("src/test/resources/connectionsList.json")) {
+            expected.add(connection.getPreLocationKey() + "->" + connection.getPostLocationKey());
+        }
+
+        Set<String> actual = new HashSet<>();
+        try (Session session = driver.session()) {
+            for (Record record : session.run("MATCH (s:`test-PreSyn`)-[:SynapsesTo]->(t:`test-PostSyn`) RETURN s.locationKey AS pre, t.locationKey AS post").list()) {
+                actual.add(record.get("pre").asLong() + "->" + record.get("post").asLong());
+            }
+            Assert.assertEquals(expected.size(), session.run("MATCH ()-[r:SynapsesTo]->() RETURN count(r)").single().get(0).asLong());
+        }
+
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void synapseSetsShouldContainEveryNeuronSynapse() {
+
+        for (Neuron neuron : NeuPrintMain.readNeuronsJson("src/test/resources/neuronList.json")) {
+
+            Set<Long> expected = new HashSet<>();
+            LocationSet synapseLocationSet = neuron.getSynapseLocationSet();
+            if (synapseLocationSet != null) {
+                for (int i = 0; i < synapseLocationSet.size(); i++) {
+                    expected.add(synapseLocationSet.getLocationKey(i));
+                }
+            }
+
+            Set<Long> actual = new HashSet<>();
+            try (Session session = driver.session()) {
+                for (Record record : session.run("MATCH (:`test-SynapseSet`{datasetBodyId:$datasetBodyId})-[:Contains]->(s:`test-Synapse`) RETURN s.locationKey AS locationKey",
+                        parameters("datasetBodyId", "test:" + neuron.getId())).list()) {
+                    actual.add(record.get("locationKey").asLong());
+                }
+            }
+
+            Assert.assertEquals(expected, actual);
+        }
+    }
+
+}
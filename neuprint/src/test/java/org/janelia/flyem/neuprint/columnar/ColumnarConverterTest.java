@@ -0,0 +1,154 @@
+package org.janelia.flyem.neuprint.columnar;
+
+import org.janelia.flyem.neuprint.NeuPrintMain;
+import org.janelia.flyem.neuprint.model.Location;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the {@link ColumnarConverter}, {@link SynapseColumns}, and {@link ConnectionColumns} classes.
+ */
+public class ColumnarConverterTest {
+
+    private static final String SYNAPSE_JSON = "src/test/resources/synapseList.json";
+    private static final String CONNECTIONS_JSON = "src/test/resources/connectionsList.json";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void synapsesShouldMatchJsonAfterConversion() throws Exception {
+
+        File synapseFile = temporaryFolder.newFile("synapses.npcol");
+        List<Synapse> jsonSynapses = NeuPrintMain.readSynapsesJson(SYNAPSE_JSON);
+
+        Assert.assertEquals(jsonSynapses.size(), ColumnarConverter.convertSynapses(SYNAPSE_JSON, synapseFile));
+        Assert.assertTrue(ColumnarFormat.isSynapseFile(synapseFile.getPath()));
+        Assert.assertFalse(ColumnarFormat.isConnectionFile(synapseFile.getPath()));
+        Assert.assertFalse(ColumnarFormat.isSynapseFile(SYNAPSE_JSON));
+
+        SynapseColumns synapseColumns = SynapseColumns.open(synapseFile);
+        Assert.assertEquals(jsonSynapses.size(), synapseColumns.size());
+        for (int i = 0; i < jsonSynapses.size(); i++) {
+            Synapse jsonSynapse = jsonSynapses.get(i);
+            Synapse columnarSynapse = synapseColumns.getSynapse(i);
+            Assert.assertEquals(jsonSynapse, columnarSynapse);
+            Assert.assertEquals(jsonSynapse.getConfidence(), columnarSynapse.getConfidence(), 0.0D);
+            Assert.assertEquals(new ArrayList<>(jsonSynapse.getRois()), new ArrayList<>(columnarSynapse.getRois()));
+            Assert.assertEquals(jsonSynapse.getLocation().hasLocationKey(), synapseColumns.hasLocationKey(i));
+            if (synapseColumns.hasLocationKey(i)) {
+                Assert.assertEquals(jsonSynapse.getLocationKey(), synapseColumns.getLocationKey(i));
+            }
+            Assert.assertEquals("pre".equals(jsonSynapse.getType()), synapseColumns.isPre(i));
+        }
+
+        // the columnar file can be read in place of the JSON file
+        Assert.assertEquals(jsonSynapses, NeuPrintMain.readSynapsesJson(synapseFile.getPath()));
+        Assert.assertEquals(jsonSynapses.subList(2, 5), synapseColumns.getRecords(2, 3));
+        Assert.assertEquals(jsonSynapses.subList(jsonSynapses.size() - 1, jsonSynapses.size()), synapseColumns.getRecords(jsonSynapses.size() - 1, 10));
+    }
+
+    @Test
+    public void connectionsShouldMatchJsonAfterConversion() throws Exception {
+
+        File connectionFile = temporaryFolder.newFile("connections.npcol");
+        List<SynapticConnection> jsonConnections = NeuPrintMain.readConnectionsJson(CONNECTIONS_JSON);
+
+        Assert.assertEquals(jsonConnections.size(), ColumnarConverter.convertConnections(CONNECTIONS_JSON, connectionFile));
+        Assert.assertTrue(ColumnarFormat.isConnectionFile(connectionFile.getPath()));
+
+        ConnectionColumns connectionColumns = ConnectionColumns.open(connectionFile);
+        Assert.assertEquals(jsonConnections.size(), connectionColumns.size());
+        for (int i = 0; i < jsonConnections.size(); i++) {
+            Assert.assertEquals(jsonConnections.get(i), connectionColumns.getConnection(i));
+            Assert.assertEquals(jsonConnections.get(i).getPreLocation().hasLocationKey(), connectionColumns.hasPreLocationKey(i));
+            Assert.assertEquals(jsonConnections.get(i).getPostLocation().hasLocationKey(), connectionColumns.hasPostLocationKey(i));
+            if (connectionColumns.hasPreLocationKey(i)) {
+                Assert.assertEquals(jsonConnections.get(i).getPreLocation().getLocationKey(), connectionColumns.getPreLocationKey(i));
+            }
+            if (connectionColumns.hasPostLocationKey(i)) {
+                Assert.assertEquals(jsonConnections.get(i).getPostLocation().getLocationKey(), connectionColumns.getPostLocationKey(i));
+            }
+        }
+
+        Assert.assertEquals(jsonConnections, NeuPrintMain.readConnectionsJson(connectionFile.getPath()));
+    }
+
+    @Test
+    public void shouldConvertEmptyFiles() throws Exception {
+
+        File emptyJson = writeFile("[]");
+
+        File synapseFile = temporaryFolder.newFile();
+        Assert.assertEquals(0, ColumnarConverter.convertSynapses(emptyJson.getPath(), synapseFile));
+        Assert.assertEquals(0, SynapseColumns.open(synapseFile).size());
+        Assert.assertTrue(SynapseColumns.open(synapseFile).getRecords(0, 10).isEmpty());
+
+        File connectionFile = temporaryFolder.newFile();
+        Assert.assertEquals(0, ColumnarConverter.convertConnections(emptyJson.getPath(), connectionFile));
+        Assert.assertEquals(0, ConnectionColumns.open(connectionFile).size());
+    }
+
+    @Test
+    public void synapsesWithoutRoisShouldHaveEmptyRoiSets() throws Exception {
+
+        File synapseJson = writeFile("[{\"type\": \"post\", \"location\": [1, 2, 3], \"confidence\": 0.81}, " +
+                "{\"type\": \"pre\", \"location\": [4, 5, 6], \"rois\": [\"roiA\"]}]");
+        File synapseFile = temporaryFolder.newFile();
+        ColumnarConverter.convertSynapses(synapseJson.getPath(), synapseFile);
+
+        SynapseColumns synapseColumns = SynapseColumns.open(synapseFile);
+        Assert.assertEquals(0, synapseColumns.getRoiCount(0));
+        Assert.assertEquals(1, synapseColumns.getRoiCount(1));
+        Assert.assertEquals("roiA", synapseColumns.getRoi(1, 0));
+        Assert.assertEquals(new Location(1L, 2L, 3L), synapseColumns.getSynapse(0).getLocation());
+
+        // confidence is stored as a float but read back as the decimal value from the JSON file
+        Assert.assertEquals(0.81F, synapseColumns.getConfidence(0), 0.0F);
+        Assert.assertEquals(0.81D, synapseColumns.getSynapse(0).getConfidence(), 0.0D);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldErrorIfCoordinateDoesNotFitInInt() throws Exception {
+        File synapseJson = writeFile("[{\"type\": \"pre\", \"location\": [1, 2, 3000000000]}]");
+        ColumnarConverter.convertSynapses(synapseJson.getPath(), temporaryFolder.newFile());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldErrorIfFileIsTruncated() throws Exception {
+        File connectionFile = temporaryFolder.newFile();
+        ColumnarConverter.convertConnections(CONNECTIONS_JSON, connectionFile);
+        try (RandomAccessFile file = new RandomAccessFile(connectionFile, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        ConnectionColumns.open(connectionFile);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldErrorIfFileHasOtherType() throws Exception {
+        File synapseFile = temporaryFolder.newFile();
+        ColumnarConverter.convertSynapses(SYNAPSE_JSON, synapseFile);
+        ConnectionColumns.open(synapseFile);
+    }
+
+    private File writeFile(String contents) throws IOException {
+        File file = temporaryFolder.newFile();
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(contents);
+        }
+        return file;
+    }
+
+}
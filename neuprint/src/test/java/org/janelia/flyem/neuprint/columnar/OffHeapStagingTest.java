@@ -0,0 +1,120 @@
+package org.janelia.flyem.neuprint.columnar;
+
+import org.janelia.flyem.neuprint.NeuPrintMain;
+import org.janelia.flyem.neuprint.json.JsonUtils;
+import org.janelia.flyem.neuprint.model.Neuron;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the {@link OffHeapStaging}, {@link NeuronRecords}, and {@link RecordColumnsList} classes.
+ */
+public class OffHeapStagingTest {
+
+    private static final String SYNAPSE_JSON = "src/test/resources/synapseList.json";
+    private static final String CONNECTIONS_JSON = "src/test/resources/connectionsList.json";
+    private static final String NEURON_JSON = "src/test/resources/neuronList.json";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void stagedSynapsesShouldMatchJson() throws Exception {
+
+        File stagingDirectory = temporaryFolder.newFolder("staging");
+        List<Synapse> jsonSynapses;
+        try (BufferedReader reader = new BufferedReader(new FileReader(SYNAPSE_JSON))) {
+            jsonSynapses = Synapse.fromJson(reader);
+        }
+
+        List<Synapse> stagedSynapses = OffHeapStaging.stageSynapses(SYNAPSE_JSON, stagingDirectory);
+
+        Assert.assertEquals(jsonSynapses, stagedSynapses);
+        for (int i = 0; i < jsonSynapses.size(); i++) {
+            Assert.assertEquals(jsonSynapses.get(i).getConfidence(), stagedSynapses.get(i).getConfidence(), 0.0D);
+            Assert.assertEquals(new ArrayList<>(jsonSynapses.get(i).getRois()), new ArrayList<>(stagedSynapses.get(i).getRois()));
+        }
+        assertStagingFilesReleased(stagingDirectory);
+    }
+
+    @Test
+    public void stagedConnectionsShouldMatchJson() throws Exception {
+
+        File stagingDirectory = temporaryFolder.newFolder("staging");
+        List<SynapticConnection> jsonConnections;
+        try (BufferedReader reader = new BufferedReader(new FileReader(CONNECTIONS_JSON))) {
+            jsonConnections = SynapticConnection.fromJson(reader);
+        }
+
+        Assert.assertEquals(jsonConnections, OffHeapStaging.stageConnections(CONNECTIONS_JSON, stagingDirectory));
+        assertStagingFilesReleased(stagingDirectory);
+    }
+
+    @Test
+    public void stagedNeuronsShouldMatchJson() throws Exception {
+
+        File stagingDirectory = temporaryFolder.newFolder("staging");
+        List<Neuron> jsonNeurons;
+        try (BufferedReader reader = new BufferedReader(new FileReader(NEURON_JSON))) {
+            jsonNeurons = Neuron.fromJson(reader);
+        }
+
+        List<Neuron> stagedNeurons = OffHeapStaging.stageNeurons(NEURON_JSON, stagingDirectory);
+
+        Assert.assertEquals(jsonNeurons.size(), stagedNeurons.size());
+        for (int i = 0; i < jsonNeurons.size(); i++) {
+            Neuron jsonNeuron = jsonNeurons.get(i);
+            Neuron stagedNeuron = stagedNeurons.get(i);
+            Assert.assertEquals(jsonNeuron.getId(), stagedNeuron.getId());
+            Assert.assertEquals(JsonUtils.GSON.toJson(jsonNeuron), JsonUtils.GSON.toJson(stagedNeuron));
+        }
+        assertStagingFilesReleased(stagingDirectory);
+    }
+
+    @Test
+    public void shouldReadSynapsesIntoHeapIfConfidenceCannotBeStaged() throws Exception {
+
+        File stagingDirectory = temporaryFolder.newFolder("staging");
+        File synapseJson = temporaryFolder.newFile("synapses.json");
+        try (Writer writer = new FileWriter(synapseJson)) {
+            writer.write("[{\"type\": \"pre\", \"confidence\": 0.123456789, \"location\": [1,2,3], \"rois\": [\"roiA\"]}]");
+        }
+
+        try {
+            OffHeapStaging.stageSynapses(synapseJson.getPath(), stagingDirectory);
+            Assert.fail("confidence should not be staged with float precision");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertStagingFilesReleased(stagingDirectory);
+
+        List<Synapse> synapseList = NeuPrintMain.readSynapsesJson(synapseJson.getPath(), stagingDirectory);
+        Assert.assertEquals(1, synapseList.size());
+        Assert.assertEquals(0.123456789D, synapseList.get(0).getConfidence(), 0.0D);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void stagedListsShouldBeReadOnly() throws IOException {
+        OffHeapStaging.stageConnections(CONNECTIONS_JSON, temporaryFolder.newFolder("staging")).remove(0);
+    }
+
+    private static void assertStagingFilesReleased(File stagingDirectory) {
+        String[] remainingFiles = stagingDirectory.list();
+        Assert.assertNotNull(remainingFiles);
+        Assert.assertEquals(0, remainingFiles.length);
+    }
+
+}
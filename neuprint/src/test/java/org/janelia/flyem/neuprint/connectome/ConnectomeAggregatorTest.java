@@ -0,0 +1,112 @@
+package org.janelia.flyem.neuprint.connectome;
+
+import org.janelia.flyem.neuprint.NeuPrintMain;
+import org.janelia.flyem.neuprint.model.Location;
+import org.janelia.flyem.neuprint.model.Neuron;
+import org.janelia.flyem.neuprint.model.Synapse;
+import org.janelia.flyem.neuprint.model.SynapticConnection;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the {@link ConnectomeAggregator} class.
+ */
+public class ConnectomeAggregatorTest {
+
+    private static Map<Long, SegmentConnectivity> segmentMap;
+    private static Map<String, ConnectionSetConnectivity> connectionSetMap;
+
+    @BeforeClass
+    public static void before() {
+
+        List<Neuron> neuronList = NeuPrintMain.readNeuronsJson("src/test/resources/neuronList.json");
+        List<Synapse> synapseList = NeuPrintMain.readSynapsesJson("src/test/resources/synapseList.json");
+        List<SynapticConnection> connectionsList = NeuPrintMain.readConnectionsJson("src/test/resources/connectionsList.json");
+
+        ConnectomeAggregator connectomeAggregator = new ConnectomeAggregator(.2D, .8D, 5);
+        connectomeAggregator.addSynapses(synapseList);
+        connectomeAggregator.addSynapticConnections(connectionsList);
+        connectomeAggregator.addNeurons(neuronList);
+        connectomeAggregator.aggregate();
+
+        segmentMap = new HashMap<>();
+        for (SegmentConnectivity segment : connectomeAggregator.getSegments()) {
+            segmentMap.put(segment.getBodyId(), segment);
+        }
+        connectionSetMap = new HashMap<>();
+        for (ConnectionSetConnectivity connectionSet : connectomeAggregator.getConnectionSets()) {
+            connectionSetMap.put(connectionSet.getDatasetBodyIds("test"), connectionSet);
+        }
+    }
+
+    @Test
+    public void shouldComputeSegmentCountsAndClusterName() {
+
+        SegmentConnectivity segment = segmentMap.get(8426959L);
+
+        Assert.assertEquals(2L, segment.getPre());
+        Assert.assertEquals(3L, segment.getPost());
+        Assert.assertTrue(segment.hasSynapses());
+        Assert.assertTrue(segment.isNeuron());
+        Assert.assertEquals("roiA.roiB-roiA", segment.getClusterName());
+    }
+
+    @Test
+    public void shouldComputeConnectsToWeights() {
+
+        Assert.assertEquals(1, connectionSetMap.get("test:8426959:2589725").getWeight());
+        Assert.assertEquals(1, connectionSetMap.get("test:8426959:26311").getWeight());
+        Assert.assertEquals(1, connectionSetMap.get("test:8426959:831744").getWeight());
+        Assert.assertEquals(2, connectionSetMap.get("test:26311:8426959").getWeight());
+        Assert.assertEquals(1, connectionSetMap.get("test:8426959:8426959").getWeight());
+    }
+
+    @Test
+    public void connectionSetShouldContainPreAndPostSynapses() {
+
+        ConnectionSetConnectivity connectionSet = connectionSetMap.get("test:8426959:2589725");
+
+        Assert.assertEquals(1, connectionSet.getPreSynapseLocations().size());
+        Assert.assertEquals(1, connectionSet.getPostSynapseLocations().size());
+        Assert.assertEquals(connectionSet.getPreSynapseKeys().length, connectionSet.getPreSynapseLocations().size());
+    }
+
+    @Test
+    public void shouldAggregateSynapsesThatCannotBeEncoded() {
+
+        ConnectomeAggregator connectomeAggregator = new ConnectomeAggregator(.2D, .8D, 5);
+        connectomeAggregator.addSynapses(Arrays.asList(
+                new Synapse("pre", 1.0D, new Location(-5L, 10L, 10L)),
+                new Synapse("post", 1.0D, new Location(10L, 10L, 10L))));
+        connectomeAggregator.addSynapticConnections(Collections.singletonList(
+                new SynapticConnection(new Location(-5L, 10L, 10L), new Location(10L, 10L, 10L))));
+        connectomeAggregator.addNeuronSynapse(1L, -5L, 10L, 10L);
+        connectomeAggregator.addNeuronSynapse(2L, 10L, 10L, 10L);
+        connectomeAggregator.aggregate();
+
+        Assert.assertEquals(1, connectomeAggregator.getConnectionSets().size());
+        ConnectionSetConnectivity connectionSet = connectomeAggregator.getConnectionSets().get(0);
+        Assert.assertEquals(1L, connectionSet.getPreBodyId());
+        Assert.assertEquals(2L, connectionSet.getPostBodyId());
+        Assert.assertEquals(0, connectionSet.getPreSynapseKeys().length);
+        Assert.assertEquals(Collections.singletonList(new Location(-5L, 10L, 10L)), connectionSet.getUnkeyedPreSynapseLocations());
+        Assert.assertEquals(Collections.singletonList(new Location(10L, 10L, 10L)), connectionSet.getPostSynapseLocations());
+        Assert.assertEquals(1, connectionSet.getWeight());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRequireAggregateAfterAddingData() {
+
+        ConnectomeAggregator connectomeAggregator = new ConnectomeAggregator(.2D, .8D, 5);
+        connectomeAggregator.addSynapses(Collections.singletonList(new Synapse("pre", 1.0D, new Location(1L, 2L, 3L))));
+        connectomeAggregator.getSegments();
+    }
+
+}
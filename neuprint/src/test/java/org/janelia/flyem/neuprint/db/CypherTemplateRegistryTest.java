@@ -0,0 +1,57 @@
+package org.janelia.flyem.neuprint.db;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link CypherTemplateRegistry} class.
+ */
+public class CypherTemplateRegistryTest {
+
+    @Test
+    public void shouldCountTemplatesPerStage() {
+
+        CypherTemplateRegistry registry = new CypherTemplateRegistry();
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("UNWIND $rows AS row MERGE (s:`test-Synapse`{locationKey:row.locationKey})",
+                    registry.use("addSynapses", "UNWIND $rows AS row MERGE (s:`test-Synapse`{locationKey:row.locationKey})"));
+            registry.use("addSegments", "MATCH (n:`test-Segment`{bodyId:$bodyId}) RETURN n");
+            registry.use("addSegments", "MATCH (n:`test-Segment`{bodyId:" + i + "}) RETURN n");
+        }
+
+        Assert.assertEquals(1, registry.getTemplateCount("addSynapses"));
+        Assert.assertEquals(11, registry.getTemplateCount("addSegments"));
+        Assert.assertEquals(0, registry.getTemplateCount("addSkeletons"));
+        Assert.assertEquals(12, registry.getTemplateCount());
+        Assert.assertEquals(30, registry.getExecutionCount());
+
+        // each parameterized template misses once, each formatted template always misses
+        Assert.assertEquals(18.0 / 30.0, registry.getPlanCacheHitRatio(), 1e-9);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedPlans() {
+
+        CypherTemplateRegistry registry = new CypherTemplateRegistry(2);
+
+        Assert.assertEquals(1.0, registry.getPlanCacheHitRatio(), 0);
+
+        // a, b, a (hit), c (evicts b), b (evicts a), a
+        for (String query : new String[]{"a", "b", "a", "c", "b", "a"}) {
+            registry.use("test", query);
+        }
+
+        Assert.assertEquals(1.0 / 6.0, registry.getPlanCacheHitRatio(), 1e-9);
+    }
+
+    @Test
+    public void shouldReplaceLiteralsInShape() {
+
+        Assert.assertEquals("MATCH (n:`test-Segment`{bodyId:?, name:?}) WHERE n.size > ? RETURN n LIMIT $limit1",
+                CypherTemplateRegistry.getShape("MATCH (n:`test-Segment`{bodyId:123, name:\"a \\\"b\\\"\"}) WHERE n.size > -1.5 RETURN n LIMIT $limit1"));
+        Assert.assertEquals("MATCH (n:`mb6-PreSyn`{`roi1`:true}) RETURN count(n)",
+                CypherTemplateRegistry.getShape("MATCH (n:`mb6-PreSyn`{`roi1`:true}) RETURN count(n)"));
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.janelia.flyem.neuprint.db;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests the {@link PairPartitionSchedule} class.
+ */
+public class PairPartitionScheduleTest {
+
+    @Test
+    public void shouldGiveWritersOfARoundDisjointKeys() {
+
+        for (int writerCount = 1; writerCount <= 6; writerCount++) {
+
+            final PairPartitionSchedule schedule = new PairPartitionSchedule(writerCount);
+            Assert.assertEquals(2 * writerCount - 1, schedule.getRoundCount());
+
+            // round -> key -> writer that locks the key in that round
+            final Map<Integer, Map<Long, Integer>> writersByKey = new HashMap<>();
+            final Set<Integer> usedWriters = new HashSet<>();
+
+            for (long preKey = 0; preKey < 50; preKey++) {
+                for (long postKey = 0; postKey < 50; postKey++) {
+                    final int round = schedule.getRound(preKey, postKey);
+                    final int writer = schedule.getWriter(preKey, postKey);
+                    Assert.assertTrue(round >= 0 && round < schedule.getRoundCount());
+                    Assert.assertTrue(writer >= 0 && writer < writerCount);
+                    Assert.assertEquals(round, schedule.getRound(postKey, preKey));
+                    Assert.assertEquals(writer, schedule.getWriter(postKey, preKey));
+                    usedWriters.add(writer);
+
+                    final Map<Long, Integer> roundWriters = writersByKey.computeIfAbsent(round, r -> new HashMap<>());
+                    for (final long key : new long[]{preKey, postKey}) {
+                        final Integer otherWriter = roundWriters.putIfAbsent(key, writer);
+                        Assert.assertTrue("key " + key + " is locked by writers " + otherWriter + " and " + writer + " in round " + round,
+                                otherWriter == null || otherWriter == writer);
+                    }
+                }
+            }
+
+            Assert.assertEquals(writerCount, usedWriters.size());
+        }
+    }
+
+}
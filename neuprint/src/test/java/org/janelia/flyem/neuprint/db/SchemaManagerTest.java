@@ -0,0 +1,65 @@
+package org.janelia.flyem.neuprint.db;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.driver.v1.Config;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.harness.junit.Neo4jRule;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests the {@link SchemaManager} class.
+ */
+public class SchemaManagerTest {
+
+    @ClassRule
+    public static Neo4jRule neo4j = new Neo4jRule();
+    private static Driver driver;
+
+    @BeforeClass
+    public static void before() {
+        driver = GraphDatabase.driver(neo4j.boltURI(), Config.build().withoutEncryption().toConfig());
+    }
+
+    @AfterClass
+    public static void after() {
+        driver.close();
+    }
+
+    @Test
+    public void shouldOnlyCreateMissingIndexesAndWaitForThemToComeOnline() {
+
+        try (Session session = driver.session()) {
+            session.writeTransaction(tx -> tx.run("UNWIND range(1, 1000) AS i CREATE (:`schema-Segment`{bodyId:i, pre:i % 7, `roi'A`:true})").consume());
+            session.writeTransaction(tx -> tx.run(SchemaIndex.index("schema-Segment", "pre").getCreateStatement()).consume());
+        }
+
+        List<SchemaIndex> desiredIndexes = Arrays.asList(
+                SchemaIndex.uniqueConstraint("schema-Segment", "bodyId"),
+                SchemaIndex.index("schema-Segment", "pre"),
+                SchemaIndex.index("schema-Segment", "roi'A"));
+
+        SchemaManager schemaManager = new SchemaManager(driver, 50, 1000);
+
+        List<SchemaIndex> createdIndexes = schemaManager.createMissingAndAwaitOnline(desiredIndexes);
+
+        Assert.assertEquals(Arrays.asList(desiredIndexes.get(0), desiredIndexes.get(2)), createdIndexes);
+        Assert.assertTrue(schemaManager.getExistingIndexes().containsAll(desiredIndexes));
+
+        // everything exists now, so nothing is created
+        Assert.assertTrue(schemaManager.createMissingAndAwaitOnline(desiredIndexes).isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void awaitOnlineShouldFailForMissingIndex() {
+        new SchemaManager(driver, 50, 1000).awaitOnline(Arrays.asList(SchemaIndex.index("schema-Missing", "name")));
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.janelia.flyem.neuprint.db;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link TransactionFlowControl} class.
+ */
+public class TransactionFlowControlTest {
+
+    @Test
+    public void shouldGrowBatchSizeWithinTargetLatencyAndHalveWhenSlow() {
+
+        TransactionFlowControl flowControl = new TransactionFlowControl("test", 20, 1, 30, 1, 100);
+
+        commit(flowControl, 10, 0);
+        Assert.assertEquals(22, flowControl.getBatchSize());
+
+        for (int i = 0; i < 10; i++) {
+            commit(flowControl, 10, 0);
+        }
+        Assert.assertEquals(30, flowControl.getBatchSize());
+
+        commit(flowControl, 500, 0);
+        Assert.assertEquals(15, flowControl.getBatchSize());
+
+        for (int i = 0; i < 10; i++) {
+            commit(flowControl, 500, 0);
+        }
+        Assert.assertEquals(1, flowControl.getBatchSize());
+    }
+
+    @Test
+    public void shouldReduceConcurrencyOnRetriesAndRecoverGradually() {
+
+        TransactionFlowControl flowControl = new TransactionFlowControl("test", 8, 1, 8, 4, 100);
+
+        Assert.assertEquals(4, flowControl.getConcurrencyLimit());
+
+        commit(flowControl, 10, 2);
+        Assert.assertEquals(2, flowControl.getConcurrencyLimit());
+        Assert.assertEquals(4, flowControl.getBatchSize());
+
+        commit(flowControl, 10, 1);
+        Assert.assertEquals(1, flowControl.getConcurrencyLimit());
+
+        // one more concurrent commit is allowed after each round of clean commits
+        commit(flowControl, 10, 0);
+        Assert.assertEquals(2, flowControl.getConcurrencyLimit());
+        commit(flowControl, 10, 0);
+        Assert.assertEquals(2, flowControl.getConcurrencyLimit());
+        commit(flowControl, 10, 0);
+        Assert.assertEquals(3, flowControl.getConcurrencyLimit());
+        for (int i = 0; i < 10; i++) {
+            commit(flowControl, 10, 0);
+        }
+        Assert.assertEquals(4, flowControl.getConcurrencyLimit());
+    }
+
+    @Test
+    public void shouldLimitConcurrentCommits() throws Exception {
+
+        TransactionFlowControl flowControl = new TransactionFlowControl("test", 8, 1, 8, 1, 100);
+
+        flowControl.acquire();
+
+        Thread waitingWriter = new Thread(() -> commit(flowControl, 10, 0));
+        waitingWriter.start();
+        waitingWriter.join(200);
+        Assert.assertTrue("second commit should wait for the first", waitingWriter.isAlive());
+
+        flowControl.release(10, 0);
+        waitingWriter.join(5000);
+        Assert.assertFalse("second commit should proceed once the first is released", waitingWriter.isAlive());
+    }
+
+    private static void commit(TransactionFlowControl flowControl, long latencyMillis, int retries) {
+        flowControl.acquire();
+        flowControl.release(latencyMillis, retries);
+    }
+
+}
@@ -39,4 +39,14 @@ public class ConnectionsJsonTest {
         GSON.fromJson(testConnectionString, SynapticConnection.class);
     }
 
+    @Test
+    public void shouldSkipUnknownProperties() {
+        String testConnectionString = "{\"confidence\": 0.9, \"pre\": [1,2,3], \"extra\": {\"nested\": [[1], {\"a\": null}]}, \"post\": [5,6,7]}";
+
+        SynapticConnection synapticConnection = GSON.fromJson(testConnectionString, SynapticConnection.class);
+
+        Assert.assertEquals(new Location(1L, 2L, 3L), synapticConnection.getPreLocation());
+        Assert.assertEquals(new Location(5L, 6L, 7L), synapticConnection.getPostLocation());
+    }
+
 }
@@ -45,4 +45,20 @@ public class LocationJsonTest {
         GSON.fromJson("[1.445,2,3]", Location.class);
 
     }
+
+    @Test
+    public void shouldAcceptIntegerValuedCoordinates() {
+
+        Location testLocation = GSON.fromJson("[1.0,\"2\",3e2]", Location.class);
+        Assert.assertEquals(new Location(1L, 2L, 300L), testLocation);
+
+    }
+
+    @Test(expected = com.google.gson.JsonParseException.class)
+    public void shouldErrorIfTooManyCoordinates() {
+
+        GSON.fromJson("[1,2,3,4]", Location.class);
+
+    }
+
 }
@@ -1,12 +1,18 @@
 package org.janelia.flyem.neuprint.json;
 
 import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
 import org.janelia.flyem.neuprint.model.Location;
 import org.janelia.flyem.neuprint.model.Neuron;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.janelia.flyem.neuprint.json.JsonUtils.GSON;
@@ -134,4 +140,77 @@ public class NeuronJsonTest {
 
     }
 
+    @Test
+    public void shouldSkipUnknownPropertiesAndKeepSynapseOrder() {
+        String testNeuronString = "{" +
+                "\"comment\": {\"synapseSet\": [[9,9,9]]}," +
+                "\"synapseSet\": [[4,5,6],[1,2,3],[7,8,9]]," +
+                "\"status\": null," +
+                "\"size\": 12.0," +
+                "\"id\": 5," +
+                "\"soma\": {}" +
+                "}";
+
+        Neuron testNeuron = GSON.fromJson(testNeuronString, Neuron.class);
+
+        Assert.assertEquals(5L, (long) testNeuron.getId());
+        Assert.assertNull(testNeuron.getStatus());
+        Assert.assertEquals(12L, (long) testNeuron.getSize());
+        Assert.assertNull(testNeuron.getSoma());
+        Assert.assertEquals(Arrays.asList(new Location(4L, 5L, 6L), new Location(1L, 2L, 3L), new Location(7L, 8L, 9L)),
+                new ArrayList<>(testNeuron.getSynapseLocationSet()));
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void shouldErrorIfSynapseLocationInvalid() {
+        String testNeuronString = "{" +
+                "\"id\": 1," +
+                "\"synapseSet\": [[1,2,3],[4,5]]" +
+                "}";
+
+        GSON.fromJson(testNeuronString, Neuron.class);
+    }
+
+    @Test
+    public void shouldStreamSynapseLocationsToConsumer() {
+        String testNeuronsString = "[" +
+                "{\"id\": 1, \"name\": \"a\", \"synapseSet\": [[4,5,6],[1,2,3]], \"status\": \"b\"}," +
+                "{\"synapseSet\": [[7,8,9]], \"id\": 2}," +
+                "{\"id\": 3}" +
+                "]";
+
+        List<String> streamed = new ArrayList<>();
+        List<Neuron> neuronList = new ArrayList<>();
+        Neuron.SynapseLocationConsumer consumer = new Neuron.SynapseLocationConsumer() {
+            @Override
+            public void beginSynapseSet(Neuron neuron) {
+                streamed.add(neuron.getId() + ":" + neuron.getName() + ":" + neuron.getStatus());
+            }
+
+            @Override
+            public void accept(long bodyId, long x, long y, long z) {
+                streamed.add(bodyId + ":" + x + "," + y + "," + z);
+            }
+        };
+        try (JsonReader reader = new JsonReader(new StringReader(testNeuronsString))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                neuronList.add(Neuron.fromJsonSingleObject(reader, consumer));
+            }
+            reader.endArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+
+        // properties listed after the synapse set are only set on the returned neuron
+        Assert.assertEquals(Arrays.asList("1:a:null", "1:4,5,6", "1:1,2,3", "2:null:null", "2:7,8,9"), streamed);
+        Assert.assertEquals(3, neuronList.size());
+        Assert.assertEquals("a", neuronList.get(0).getName());
+        Assert.assertEquals("b", neuronList.get(0).getStatus());
+        Assert.assertEquals(2L, (long) neuronList.get(1).getId());
+        for (Neuron neuron : neuronList) {
+            Assert.assertEquals(0, neuron.getSynapseLocationSet().size());
+        }
+    }
+
 }
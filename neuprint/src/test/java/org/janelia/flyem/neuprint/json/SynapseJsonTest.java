@@ -108,4 +108,31 @@ public class SynapseJsonTest {
 
     }
 
+    @Test
+    public void shouldSkipUnknownPropertiesAndTreatNullAsMissing() {
+
+        String testSynapseJson = "{" +
+                "\"id\": {\"nested\": [1, 2]}, \"type\": \"post\", \"confidence\": null, \"location\": [5,6,7], \"rois\": null, \"comment\": \"x\"" +
+                "}";
+
+        Synapse synapse = GSON.fromJson(testSynapseJson, Synapse.class);
+
+        Assert.assertEquals("post", synapse.getType());
+        Assert.assertEquals(0D, synapse.getConfidence(), .00001);
+        Assert.assertEquals(new Location(5L, 6L, 7L), synapse.getLocation());
+        Assert.assertEquals(new LinkedHashSet<>(), synapse.getRois());
+
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void shouldErrorIfConfidenceNotNumber() {
+
+        String testSynapseJson = "{" +
+                "\"type\": \"post\", \"confidence\": \"high\", \"location\": [5,6,7]" +
+                "}";
+
+        GSON.fromJson(testSynapseJson, Synapse.class);
+
+    }
+
 }
@@ -0,0 +1,82 @@
+package org.janelia.flyem.neuprint.model;
+
+import org.janelia.flyem.neuprintloadprocedures.SpatialKey;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests the {@link LocationSet} class.
+ */
+public class LocationSetTest {
+
+    @Test
+    public void shouldKeepInsertionOrderAndIgnoreDuplicates() {
+
+        LocationSet locationSet = new LocationSet();
+        Assert.assertTrue(locationSet.add(new Location(4L, 5L, 6L)));
+        Assert.assertTrue(locationSet.add(1L, 2L, 3L));
+        Assert.assertFalse(locationSet.add(new Location(4L, 5L, 6L)));
+        Assert.assertTrue(locationSet.add(0L, 0L, 0L));
+
+        Assert.assertEquals(3, locationSet.size());
+        Assert.assertEquals(Arrays.asList(new Location(4L, 5L, 6L), new Location(1L, 2L, 3L), new Location(0L, 0L, 0L)),
+                new ArrayList<>(locationSet));
+        Assert.assertEquals(1L, locationSet.getX(1));
+        Assert.assertEquals(2L, locationSet.getY(1));
+        Assert.assertEquals(3L, locationSet.getZ(1));
+        Assert.assertEquals(SpatialKey.encode(4L, 5L, 6L), locationSet.getLocationKey(0));
+        Assert.assertEquals(new Location(0L, 0L, 0L), locationSet.get(2));
+
+        Assert.assertTrue(locationSet.contains(new Location(1L, 2L, 3L)));
+        Assert.assertTrue(locationSet.contains(0L, 0L, 0L));
+        Assert.assertFalse(locationSet.contains(new Location(3L, 2L, 1L)));
+        Assert.assertFalse(locationSet.contains("1:2:3"));
+    }
+
+    @Test
+    public void shouldMatchLinkedHashSet() {
+
+        Random random = new Random(7);
+        Set<Location> expectedSet = new LinkedHashSet<>();
+        LocationSet locationSet = new LocationSet(2);
+        for (int i = 0; i < 10000; i++) {
+            // small coordinate range so that duplicates are common
+            Location location = new Location(random.nextInt(30), random.nextInt(30), random.nextInt(30));
+            Assert.assertEquals(expectedSet.add(location), locationSet.add(location));
+        }
+
+        Assert.assertEquals(expectedSet.size(), locationSet.size());
+        Assert.assertEquals(new ArrayList<>(expectedSet), new ArrayList<>(locationSet));
+        Assert.assertEquals(expectedSet, locationSet);
+        Assert.assertEquals(locationSet, expectedSet);
+        Assert.assertEquals(expectedSet.hashCode(), locationSet.hashCode());
+        Assert.assertTrue(locationSet.containsAll(expectedSet));
+    }
+
+    @Test
+    public void neuronShouldCopySynapseLocationsIntoLocationSet() {
+
+        List<Location> locations = Arrays.asList(new Location(7L, 8L, 9L), new Location(1L, 2L, 3L));
+        Neuron neuron = new Neuron(1L, null, null, null, null, null, null, null, null, null, null, null,
+                null, null, new LinkedHashSet<>(locations));
+
+        Assert.assertEquals(locations, new ArrayList<>(neuron.getSynapseLocationSet()));
+        Assert.assertEquals(new HashSet<>(locations), neuron.getSynapseLocationSet());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldErrorIfIndexOutOfBounds() {
+        LocationSet locationSet = new LocationSet();
+        locationSet.add(1L, 2L, 3L);
+        locationSet.getX(1);
+    }
+
+}
@@ -4,6 +4,8 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -69,4 +71,19 @@ public class SkelNodeTest {
 
     }
 
+    @Test
+    public void testLocationAndJson() {
+
+        SkelNode skelNode = new SkelNode(10L, Arrays.asList(4, 5, 6), 3.5D, 2, null, 1);
+
+        Assert.assertEquals(Arrays.asList(4, 5, 6), skelNode.getLocation());
+        Assert.assertEquals(4, skelNode.getX());
+        Assert.assertEquals("4:5:6", skelNode.getLocationString());
+        Assert.assertEquals(skelNode, new SkelNode(13L, 4, 5, 6, 1.0D, 0, null, 1));
+        Assert.assertEquals("test:10:4:5:6:1", skelNode.getSkelNodeId("test"));
+
+        Assert.assertEquals("[{\"location\":[4,5,6],\"radius\":3.5,\"associatedBodyId\":10,\"type\":2,\"rowNumber\":1}]",
+                SkelNode.getSkelNodeListJson(Collections.singletonList(skelNode)));
+    }
+
 }
@@ -0,0 +1,84 @@
+package org.janelia.flyem.neuprint.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests the {@link SwcParser} class.
+ */
+public class SwcParserTest {
+
+    @Test
+    public void shouldParseSwcFile() throws IOException {
+
+        SwcRows rows = SwcParser.read(new File("src/test/resources/exampleSwc.swc"));
+
+        Assert.assertEquals(29, rows.size());
+        Assert.assertNull(rows.getMutationId());
+
+        Assert.assertEquals(1, rows.getRowNumber(0));
+        Assert.assertEquals(0, rows.getType(0));
+        Assert.assertEquals(3107, rows.getX(0));
+        Assert.assertEquals(6526, rows.getY(0));
+        Assert.assertEquals(1636, rows.getZ(0));
+        Assert.assertEquals(24.4258, rows.getRadius(0), 0.0);
+        Assert.assertEquals(-1, rows.getParent(0));
+
+        Assert.assertEquals(22.5, rows.getRadius(21), 0.0);
+        Assert.assertEquals(4.57107, rows.getRadius(24), 0.0);
+        Assert.assertEquals(9, rows.getParent(26));
+    }
+
+    @Test
+    public void shouldHandleSeparatorsCommentsAndMutationId() {
+
+        String swc = "# comment\r\n" +
+                "#${\"mutation id\": 1234}\r\n" +
+                "\r\n" +
+                "  1\t0   10.6 20 -30.4\t1.5e1 -1\r\n" +
+                "2 0 11 21 31 0.1234567 1";
+
+        SwcRows rows = SwcParser.parse(swc.getBytes(StandardCharsets.US_ASCII));
+
+        Assert.assertEquals(2, rows.size());
+        Assert.assertEquals(Long.valueOf(1234L), rows.getMutationId());
+        Assert.assertEquals(11, rows.getX(0));
+        Assert.assertEquals(20, rows.getY(0));
+        Assert.assertEquals(-30, rows.getZ(0));
+        Assert.assertEquals(15.0, rows.getRadius(0), 0.0);
+        Assert.assertEquals(Double.parseDouble("0.1234567"), rows.getRadius(1), 0.0);
+        Assert.assertEquals(1, rows.getParent(1));
+    }
+
+    @Test
+    public void radiusShouldMatchDoubleParseDouble() {
+
+        String[] radii = {"0", "2.5", "24.4258", "0.1", "123456789.123456789", "1e-5", "3.14159265358979323846", "-7.25"};
+        StringBuilder swc = new StringBuilder();
+        for (int i = 0; i < radii.length; i++) {
+            swc.append(i + 1).append(" 0 1 2 3 ").append(radii[i]).append(" -1\n");
+        }
+
+        SwcRows rows = SwcParser.parse(swc.toString().getBytes(StandardCharsets.US_ASCII));
+
+        for (int i = 0; i < radii.length; i++) {
+            Assert.assertEquals(radii[i], Double.parseDouble(radii[i]), rows.getRadius(i), 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailOnMissingColumns() {
+        SwcParser.parse("1 0 10 20 30 1.5\n".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWhenParentDoesNotPrecedeRow() {
+        SwcParser.parse("1 0 10 20 30 1.5 2\n2 0 10 20 30 1.5 -1\n".getBytes(StandardCharsets.US_ASCII))
+                .toSkelNodeList(10L);
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.janelia.flyem.neuprint.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Tests the {@link BatchPipeline} class.
+ */
+public class BatchPipelineTest {
+
+    @Test
+    public void shouldWriteBatchesInOrder() throws Exception {
+
+        for (int queueDepth : new int[]{0, 1, 3}) {
+            List<Integer> writtenItems = new ArrayList<>();
+            List<String> writerThreadNames = new ArrayList<>();
+
+            long batchCount = new BatchPipeline<Integer>("test", queueDepth).run(
+                    getSource(Arrays.asList(1, 2), Arrays.asList(3, 4), Collections.singletonList(5)),
+                    batch -> {
+                        writtenItems.addAll(batch);
+                        writerThreadNames.add(Thread.currentThread().getName());
+                    });
+
+            Assert.assertEquals(3, batchCount);
+            Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5), writtenItems);
+            // batches are always written on the calling thread
+            Assert.assertTrue(writerThreadNames.stream().allMatch(name -> name.equals(Thread.currentThread().getName())));
+        }
+    }
+
+    @Test
+    public void shouldWriteProducedBatchesInOrder() throws Exception {
+
+        for (int queueDepth : new int[]{0, 1, 3}) {
+            List<Integer> writtenItems = new ArrayList<>();
+
+            long batchCount = new BatchPipeline<Integer>("test", queueDepth).run(
+                    emitter -> {
+                        emitter.accept(Arrays.asList(1, 2));
+                        emitter.accept(Collections.emptyList());
+                        emitter.accept(Collections.singletonList(3));
+                    },
+                    writtenItems::addAll);
+
+            // empty batches are not written
+            Assert.assertEquals(2, batchCount);
+            Assert.assertEquals(Arrays.asList(1, 2, 3), writtenItems);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRethrowReadFailure() throws Exception {
+
+        new BatchPipeline<Integer>("test", 2).run(
+                () -> {
+                    throw new IOException("test failure");
+                },
+                batch -> Assert.fail("no batch should be written"));
+    }
+
+    @Test
+    public void shouldStopReadingWhenWriteFails() throws Exception {
+
+        try {
+            // source never ends, so the reader must be stopped when writing fails
+            new BatchPipeline<Integer>("test", 1).run(
+                    () -> Collections.singletonList(1),
+                    batch -> {
+                        throw new IllegalStateException("test failure");
+                    });
+            Assert.fail("write failure should be thrown");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("test failure", e.getMessage());
+        }
+    }
+
+    @SafeVarargs
+    private static BatchPipeline.BatchSource<Integer> getSource(List<Integer>... batches) {
+        Iterator<List<Integer>> iterator = Arrays.asList(batches).iterator();
+        return () -> iterator.hasNext() ? iterator.next() : Collections.emptyList();
+    }
+
+}
@@ -0,0 +1,71 @@
+package org.janelia.flyem.neuprint.util;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Tests the {@link ExternalSorter} class.
+ */
+public class ExternalSorterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static final Gson GSON = new Gson();
+
+    @Test
+    public void shouldSortInMemoryAndWithSpilledRuns() throws Exception {
+
+        for (int maxRecordsInMemory : new int[]{1, 2, 3, 100}) {
+            File sortDirectory = temporaryFolder.newFolder();
+            File outputFile = new File(sortDirectory, "sorted.json");
+
+            // strings are sorted by length only, so the order of strings with the same length shows whether the sort is stable
+            ExternalSorter<String> sorter = new ExternalSorter<>("test", String.class, Comparator.comparingInt(String::length), GSON, maxRecordsInMemory, sortDirectory);
+            long recordCount = sorter.sort(new JsonReader(new StringReader("[\"bb\", \"a\", \"ccc\", \"cc\", \"b\", \"aaa\", \"dd\", \"c\"]")),
+                    reader -> GSON.fromJson(reader, String.class),
+                    outputFile);
+
+            Assert.assertEquals(8, recordCount);
+            Assert.assertEquals(Arrays.asList("a", "b", "c", "bb", "cc", "dd", "ccc", "aaa"), readStrings(outputFile));
+
+            // spilled runs are removed once they are merged
+            Assert.assertArrayEquals(new String[]{"sorted.json"}, sortDirectory.list());
+        }
+    }
+
+    @Test
+    public void shouldSortEmptyArray() throws Exception {
+        File outputFile = temporaryFolder.newFile();
+        new ExternalSorter<>("test", String.class, Comparator.<String>naturalOrder(), GSON, 2, temporaryFolder.getRoot())
+                .sort(new JsonReader(new StringReader("[]")), reader -> GSON.fromJson(reader, String.class), outputFile);
+        Assert.assertTrue(readStrings(outputFile).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldErrorIfMaxRecordsInMemoryIsNotPositive() {
+        new ExternalSorter<>("test", String.class, Comparator.<String>naturalOrder(), GSON, 0, temporaryFolder.getRoot());
+    }
+
+    private static List<String> readStrings(File file) throws IOException {
+        try (FileReader reader = new FileReader(file)) {
+            return Objects.requireNonNull(GSON.fromJson(reader, new TypeToken<List<String>>() {
+            }.getType()));
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package org.janelia.flyem.neuprint.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests the {@link OffHeapLongLongHashMap} class.
+ */
+public class OffHeapLongLongHashMapTest {
+
+    @Test
+    public void shouldMatchHashMapThroughResizes() {
+
+        OffHeapLongLongHashMap map = new OffHeapLongLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+
+        Random random = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            // a small key range makes some puts replace existing values
+            long key = random.nextInt(50000) - 25000L;
+            long value = random.nextLong();
+            map.put(key, value);
+            expected.put(key, value);
+        }
+
+        Assert.assertEquals(expected.size(), map.size());
+        for (long key = -25000; key < 25000; key++) {
+            Assert.assertEquals(expected.containsKey(key), map.containsKey(key));
+            Assert.assertEquals((long) expected.getOrDefault(key, -1L), map.getOrDefault(key, -1L));
+        }
+    }
+
+    @Test
+    public void shouldStoreFreeKey() {
+
+        OffHeapLongLongHashMap map = new OffHeapLongLongHashMap(0);
+
+        Assert.assertFalse(map.containsKey(0L));
+        Assert.assertEquals(-1L, map.getOrDefault(0L, -1L));
+
+        map.put(0L, 5L);
+        map.put(0L, 6L);
+
+        Assert.assertTrue(map.containsKey(0L));
+        Assert.assertEquals(6L, map.getOrDefault(0L, -1L));
+        Assert.assertEquals(1, map.size());
+    }
+
+}